@@ -0,0 +1,85 @@
+package com.swulion.puppettale.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.Executor;
+
+@Configuration
+public class AsyncConfig {
+
+    // 가상 스레드 모드 (Java 21): Tomcat 요청 처리와 아래 작업 스레드를 모두 가상 스레드로 실행
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    // 가상 스레드 모드에서 동시에 진행할 수 있는 스트리밍 작업 수 (초과 시 요청 스레드가 대기)
+    @Value("${chat.stream.virtual-concurrency-limit:2000}")
+    private int virtualStreamConcurrencyLimit;
+
+    // Gemini 스트리밍 응답을 받아 SSE로 흘려보내는 작업용 스레드 풀
+    @Bean
+    public Executor chatStreamExecutor() {
+        if (virtualThreads) {
+            // 스트림 수신은 대부분 I/O 대기이므로 풀 없이 작업마다 가상 스레드 생성
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("chat-stream-");
+            executor.setVirtualThreads(true);
+            executor.setConcurrencyLimit(virtualStreamConcurrencyLimit);
+            return executor;
+        }
+        // 대기열 없이 최대 스레드 수가 동시 스트림 상한 (가득 차면 TaskRejectedException, 호출 측에서 안내 문구로 응답)
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(8);
+        executor.setMaxPoolSize(64);
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("chat-stream-");
+        executor.initialize();
+        return executor;
+    }
+
+    // 긴 세션의 오래된 대화를 요약하는 작업용 스레드 풀 (대기열이 차면 다음 턴에 재시도)
+    @Bean
+    public Executor summaryExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.setQueueCapacity(50);
+        executor.setThreadNamePrefix("chat-summary-");
+        executor.setVirtualThreads(virtualThreads);
+        executor.initialize();
+        return executor;
+    }
+
+    // 헤징된 채팅 호출(원 요청 + 예비 요청)을 실행하는 스레드 풀
+    // 대기열 없이 바로 스레드를 쓰고, 가득 차면 호출 스레드에서 헤징 없이 직접 호출
+    @Bean
+    public Executor geminiHedgeExecutor() {
+        if (virtualThreads) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("gemini-hedge-");
+            executor.setVirtualThreads(true);
+            return executor;
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(8);
+        executor.setMaxPoolSize(128);
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("gemini-hedge-");
+        executor.initialize();
+        return executor;
+    }
+
+    // Gemini 컨텍스트 캐시 등록/갱신용 스레드 풀
+    @Bean
+    public Executor geminiCacheExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(2);
+        executor.setQueueCapacity(100);
+        executor.setThreadNamePrefix("gemini-cache-");
+        executor.setVirtualThreads(virtualThreads);
+        executor.initialize();
+        return executor;
+    }
+}
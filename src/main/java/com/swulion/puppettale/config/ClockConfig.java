@@ -0,0 +1,16 @@
+package com.swulion.puppettale.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Clock;
+
+@Configuration
+public class ClockConfig {
+
+    // 만료/보관 기준 시각, 날짜별 집계 등에 쓰는 공용 시계 (테스트에서는 이 빈을 바꿔 시간을 옮김)
+    @Bean
+    public Clock clock() {
+        return Clock.systemDefaultZone();
+    }
+}
@@ -0,0 +1,70 @@
+package com.swulion.puppettale.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class HttpClientConfig {
+
+    @Value("${gemini.http.max-connections:200}")
+    private int maxConnections;
+
+    @Value("${gemini.http.connect-timeout-ms:5000}")
+    private long connectTimeoutMs;
+
+    // 응답 대기 기본값 (GeminiClient는 호출 유형별로 따로 지정)
+    @Value("${gemini.http.read-timeout-ms:60000}")
+    private long readTimeoutMs;
+
+    // 이 시간 동안 쓰이지 않은 keep-alive 커넥션은 정리
+    @Value("${gemini.http.idle-eviction-ms:30000}")
+    private long idleEvictionMs;
+
+    // 외부 API 호출용 커넥션 풀 (keep-alive로 TLS 핸드셰이크 재사용), 종료는 geminiHttpClient가 담당
+    @Bean(destroyMethod = "")
+    public PoolingHttpClientConnectionManager geminiConnectionManager() {
+        return PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnections) // 대부분 같은 호스트(generativelanguage.googleapis.com)로 요청
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMs))
+                        .setSocketTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                        .build())
+                .build();
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient geminiHttpClient(PoolingHttpClientConnectionManager geminiConnectionManager) {
+        return HttpClients.custom()
+                .setConnectionManager(geminiConnectionManager)
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofMilliseconds(idleEvictionMs))
+                .build();
+    }
+
+    // 커넥션 풀 사용량 (사용 중 / 유휴 / 커넥션을 기다리는 요청 수)
+    @Bean
+    public MeterBinder geminiConnectionPoolMetrics(PoolingHttpClientConnectionManager geminiConnectionManager) {
+        return registry -> {
+            Gauge.builder("puppettale.gemini.http.connections", geminiConnectionManager, cm -> cm.getTotalStats().getLeased())
+                    .tag("state", "leased").register(registry);
+            Gauge.builder("puppettale.gemini.http.connections", geminiConnectionManager, cm -> cm.getTotalStats().getAvailable())
+                    .tag("state", "available").register(registry);
+            Gauge.builder("puppettale.gemini.http.connections", geminiConnectionManager, cm -> cm.getTotalStats().getPending())
+                    .tag("state", "pending").register(registry);
+            Gauge.builder("puppettale.gemini.http.connections.max", geminiConnectionManager, cm -> cm.getTotalStats().getMax())
+                    .register(registry);
+        };
+    }
+}
@@ -0,0 +1,152 @@
+package com.swulion.puppettale.config;
+
+import com.swulion.puppettale.service.ChatArchiveService;
+import com.swulion.puppettale.service.ChatTranscriptCache;
+import com.swulion.puppettale.service.ChatTurnSingleFlight;
+import com.swulion.puppettale.service.ChildProfileService;
+import com.swulion.puppettale.service.ContextWindowManager;
+import com.swulion.puppettale.service.GeminiClient;
+import com.swulion.puppettale.service.GeminiHedger;
+import com.swulion.puppettale.service.GeminiQuotaScheduler;
+import com.swulion.puppettale.service.GeminiResilience;
+import com.swulion.puppettale.service.SafetyPreFilter;
+import com.swulion.puppettale.service.SessionStateStore;
+import com.swulion.puppettale.service.TokenUsageService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 각 컴포넌트가 getStats()로 모아 두던 수치를 Micrometer 미터로 노출한다.
+ * 값은 스크레이프 시점에 getStats()를 호출해 읽으므로 호출 경로에는 추가 비용이 없다.
+ */
+@Component
+@RequiredArgsConstructor
+public class StatsMetricsBinder implements MeterBinder {
+
+    private final GeminiResilience geminiResilience;
+    private final GeminiHedger geminiHedger;
+    private final GeminiQuotaScheduler geminiQuotaScheduler;
+    private final ChatTurnSingleFlight chatTurnSingleFlight;
+    private final SessionStateStore sessionStateStore;
+    private final ChatTranscriptCache chatTranscriptCache;
+    private final ContextWindowManager contextWindowManager;
+    private final ChildProfileService childProfileService;
+    private final ChatArchiveService chatArchiveService;
+    private final TokenUsageService tokenUsageService;
+    private final SafetyPreFilter safetyPreFilter;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        // 재시도/서킷 브레이커
+        for (GeminiClient.CallType type : GeminiClient.CallType.values()) {
+            counter(registry, "puppettale.gemini.retries", geminiResilience,
+                    r -> r.getStats().getRetries().getOrDefault(type, 0L), "type", type.name());
+        }
+        counter(registry, "puppettale.gemini.short.circuited", geminiResilience, r -> r.getStats().getShortCircuited());
+        gauge(registry, "puppettale.gemini.breakers.open", geminiResilience, r -> r.getStats().getBreakerStates().values().stream()
+                .filter(state -> state == GeminiResilience.BreakerState.OPEN).count());
+
+        // 헤징
+        counter(registry, "puppettale.gemini.hedge.calls", geminiHedger, h -> h.getStats().getCalls());
+        counter(registry, "puppettale.gemini.hedge.sent", geminiHedger, h -> h.getStats().getHedges());
+        counter(registry, "puppettale.gemini.hedge.wins", geminiHedger, h -> h.getStats().getHedgeWins());
+        counter(registry, "puppettale.gemini.hedge.saved.ms", geminiHedger, h -> h.getStats().getLatencySavedMs());
+        gauge(registry, "puppettale.gemini.hedge.delay.ms", geminiHedger, h -> h.getStats().getHedgeDelayMs());
+
+        // 할당량 스케줄러 (우선순위별 대기열)
+        for (GeminiQuotaScheduler.Priority priority : GeminiQuotaScheduler.Priority.values()) {
+            String tag = priority.name();
+            gauge(registry, "puppettale.gemini.quota.queue.depth", geminiQuotaScheduler,
+                    q -> q.getStats().getClasses().get(priority).getQueueDepth(), "priority", tag);
+            counter(registry, "puppettale.gemini.quota.admitted", geminiQuotaScheduler,
+                    q -> q.getStats().getClasses().get(priority).getAdmitted(), "priority", tag);
+            counter(registry, "puppettale.gemini.quota.timeouts", geminiQuotaScheduler,
+                    q -> q.getStats().getClasses().get(priority).getTimeouts(), "priority", tag);
+            gauge(registry, "puppettale.gemini.quota.wait.avg.ms", geminiQuotaScheduler,
+                    q -> q.getStats().getClasses().get(priority).getAvgWaitMs(), "priority", tag);
+        }
+        gauge(registry, "puppettale.gemini.quota.requests.last.minute", geminiQuotaScheduler, q -> q.getStats().getRequestsLastMinute());
+        gauge(registry, "puppettale.gemini.quota.tokens.last.minute", geminiQuotaScheduler, q -> q.getStats().getTokensLastMinute());
+
+        // 채팅 턴 single-flight
+        gauge(registry, "puppettale.chat.turns.in.flight", chatTurnSingleFlight, s -> s.getStats().getInFlight());
+        counter(registry, "puppettale.chat.turns.started", chatTurnSingleFlight, s -> s.getStats().getStarted());
+        counter(registry, "puppettale.chat.turns.coalesced", chatTurnSingleFlight, s -> s.getStats().getCoalesced());
+        counter(registry, "puppettale.chat.turns.rejected", chatTurnSingleFlight, s -> s.getStats().getRejected(), "reason", "local");
+        counter(registry, "puppettale.chat.turns.rejected", chatTurnSingleFlight, s -> s.getStats().getRemoteRejected(), "reason", "remote");
+
+        // 세션 상태 저장소
+        String backend = sessionStateStore.getStats().getBackend();
+        counter(registry, "puppettale.session.state.requests", sessionStateStore, s -> s.getStats().getHits(), "backend", backend, "result", "hit");
+        counter(registry, "puppettale.session.state.requests", sessionStateStore, s -> s.getStats().getMisses(), "backend", backend, "result", "miss");
+        counter(registry, "puppettale.session.state.evictions", sessionStateStore, s -> s.getStats().getEvictions(), "backend", backend);
+        gauge(registry, "puppettale.session.state.size", sessionStateStore, s -> s.getStats().getSize(), "backend", backend);
+
+        // 대화 기록 캐시
+        counter(registry, "puppettale.transcript.cache.requests", chatTranscriptCache, c -> c.getStats().getHits(), "result", "hit");
+        counter(registry, "puppettale.transcript.cache.requests", chatTranscriptCache, c -> c.getStats().getMisses(), "result", "miss");
+        counter(registry, "puppettale.transcript.cache.evictions", chatTranscriptCache, c -> c.getStats().getEvictions());
+        counter(registry, "puppettale.transcript.cache.truncated.turns", chatTranscriptCache, c -> c.getStats().getTruncatedTurns());
+        gauge(registry, "puppettale.transcript.cache.sessions", chatTranscriptCache, c -> c.getStats().getSessions());
+        gauge(registry, "puppettale.transcript.cache.bytes", chatTranscriptCache, c -> c.getStats().getEstimatedBytes());
+
+        // 프롬프트 대화 범위 (요약 + 최근 발화)
+        gauge(registry, "puppettale.chat.prompt.tokens.max", contextWindowManager, m -> m.getStats().getMaxPromptTokens());
+        gauge(registry, "puppettale.chat.prompt.tokens.avg", contextWindowManager, m -> m.getStats().getAveragePromptTokens());
+        counter(registry, "puppettale.chat.summaries", contextWindowManager, m -> m.getStats().getSummarizations());
+        counter(registry, "puppettale.chat.summaries.inline", contextWindowManager, m -> m.getStats().getInlineSummarizations());
+        counter(registry, "puppettale.chat.prompt.trimmed.turns", contextWindowManager, m -> m.getStats().getTrimmedTurns());
+
+        // 아동/퍼펫 프로필 캐시
+        counter(registry, "puppettale.profile.cache.requests", childProfileService, p -> p.getStats().getHits(), "result", "hit");
+        counter(registry, "puppettale.profile.cache.requests", childProfileService, p -> p.getStats().getMisses(), "result", "miss");
+        counter(registry, "puppettale.profile.cache.invalidations", childProfileService, p -> p.getStats().getInvalidations());
+        counter(registry, "puppettale.profile.cache.evictions", childProfileService, p -> p.getStats().getEvictions());
+        gauge(registry, "puppettale.profile.cache.size", childProfileService, p -> p.getStats().getSize());
+
+        // 대화 보관(cold) 계층
+        String archiveBackend = chatArchiveService.getStats().getBackend();
+        counter(registry, "puppettale.chat.archive.sessions", chatArchiveService, a -> a.getStats().getArchivedSessions(), "backend", archiveBackend);
+        counter(registry, "puppettale.chat.archive.messages", chatArchiveService, a -> a.getStats().getArchivedMessages(), "backend", archiveBackend);
+        counter(registry, "puppettale.chat.archive.segments", chatArchiveService, a -> a.getStats().getSegmentsWritten(), "backend", archiveBackend);
+        counter(registry, "puppettale.chat.archive.bytes", chatArchiveService, a -> a.getStats().getBytesWritten(), "backend", archiveBackend);
+        counter(registry, "puppettale.chat.archive.skipped", chatArchiveService, a -> a.getStats().getSkippedSessions(), "backend", archiveBackend);
+        counter(registry, "puppettale.chat.archive.reads", chatArchiveService, a -> a.getStats().getColdReads(), "backend", archiveBackend);
+
+        // 토큰 사용량 (usageMetadata) 및 예산
+        for (GeminiClient.CallType type : GeminiClient.CallType.values()) {
+            String tag = type.name();
+            counter(registry, "puppettale.gemini.tokens", tokenUsageService,
+                    t -> t.getStats().getPromptTokens().get(type), "type", tag, "kind", "prompt");
+            counter(registry, "puppettale.gemini.tokens", tokenUsageService,
+                    t -> t.getStats().getCandidatesTokens().get(type), "type", tag, "kind", "candidates");
+            counter(registry, "puppettale.gemini.tokens", tokenUsageService,
+                    t -> t.getStats().getThoughtsTokens().get(type), "type", tag, "kind", "thoughts");
+            counter(registry, "puppettale.gemini.tokens", tokenUsageService,
+                    t -> t.getStats().getCachedTokens().get(type), "type", tag, "kind", "cached");
+        }
+        counter(registry, "puppettale.gemini.budget.soft.exceeded", tokenUsageService, t -> t.getStats().getSoftBudgetWarnings());
+        counter(registry, "puppettale.gemini.budget.hard.rejected", tokenUsageService, t -> t.getStats().getHardBudgetRejections());
+        counter(registry, "puppettale.gemini.usage.flush.failures", tokenUsageService, t -> t.getStats().getFlushFailures());
+
+        // 안전 사전 필터 (Gemini 호출 없이 처리한 턴)
+        counter(registry, "puppettale.safety.prefilter.checked", safetyPreFilter, f -> f.getStats().getChecked());
+        counter(registry, "puppettale.safety.prefilter.hits", safetyPreFilter, f -> f.getStats().getRedFlagHits(), "status", "RED_FLAG");
+        counter(registry, "puppettale.safety.prefilter.hits", safetyPreFilter, f -> f.getStats().getHarmfulHits(), "status", "HARMFUL");
+        counter(registry, "puppettale.safety.prefilter.low.confidence", safetyPreFilter, f -> f.getStats().getLowConfidenceHits());
+    }
+
+    private static <T> void counter(MeterRegistry registry, String name, T source, ToDoubleFunction<T> value, String... tags) {
+        FunctionCounter.builder(name, source, value).tags(tags).register(registry);
+    }
+
+    private static <T> void gauge(MeterRegistry registry, String name, T source, ToDoubleFunction<T> value, String... tags) {
+        Gauge.builder(name, source, value).tags(tags).register(registry);
+    }
+}
@@ -0,0 +1,97 @@
+package com.swulion.puppettale.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 가상 스레드 모드에서 캐리어 스레드 고정(pinning)을 감지한다.
+ * JFR의 jdk.VirtualThreadPinned 이벤트(synchronized 블록/네이티브 호출 안에서 블로킹된 경우)를 구독해
+ * 발생 위치별 횟수를 집계하고 경고 로그로 남긴다.
+ */
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+@Slf4j
+public class VirtualThreadPinningMonitor {
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    // 고정 위치를 표시할 때 건너뛰는 JDK 내부 프레임
+    private static final List<String> JDK_PREFIXES = List.of("java.", "jdk.", "sun.");
+
+    // 이보다 오래 고정된 경우만 기록
+    @Value("${virtual-threads.pinning.threshold-ms:20}")
+    private long thresholdMs;
+
+    private RecordingStream stream;
+    private final AtomicLong pinnedEvents = new AtomicLong();
+    private final AtomicLong pinnedNanos = new AtomicLong();
+    private final ConcurrentMap<String, AtomicLong> hotspots = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void start() {
+        stream = new RecordingStream();
+        stream.enable(PINNED_EVENT).withThreshold(Duration.ofMillis(thresholdMs)).withStackTrace();
+        stream.onEvent(PINNED_EVENT, this::record);
+        stream.startAsync();
+        log.info("가상 스레드 고정 감지 시작 (기준: {}ms)", thresholdMs);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (stream != null) stream.close();
+    }
+
+    public Stats getStats() {
+        Map<String, Long> counts = new ConcurrentHashMap<>();
+        hotspots.forEach((site, count) -> counts.put(site, count.get()));
+        return new Stats(pinnedEvents.get(), pinnedNanos.get() / 1_000_000, counts);
+    }
+
+    private void record(RecordedEvent event) {
+        String site = pinnedSite(event);
+        pinnedEvents.incrementAndGet();
+        pinnedNanos.addAndGet(event.getDuration().toNanos());
+        hotspots.computeIfAbsent(site, k -> new AtomicLong()).incrementAndGet();
+        log.warn("가상 스레드 고정 감지: {}ms, 위치={}, 스레드={}",
+                event.getDuration().toMillis(), site,
+                event.getThread() != null ? event.getThread().getJavaName() : "unknown");
+    }
+
+    // 스택에서 가장 위쪽의 애플리케이션/라이브러리 프레임 (모두 JDK 프레임이면 최상단 프레임)
+    private String pinnedSite(RecordedEvent event) {
+        if (event.getStackTrace() == null || event.getStackTrace().getFrames().isEmpty()) return "unknown";
+
+        List<RecordedFrame> frames = event.getStackTrace().getFrames();
+        for (RecordedFrame frame : frames) {
+            String type = frame.getMethod().getType().getName();
+            if (JDK_PREFIXES.stream().noneMatch(type::startsWith)) {
+                return type + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+            }
+        }
+        RecordedFrame top = frames.get(0);
+        return top.getMethod().getType().getName() + "." + top.getMethod().getName();
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Stats {
+        private final long pinnedEvents;
+        private final long pinnedMillis;
+        private final Map<String, Long> hotspots; // 고정 위치별 발생 횟수
+    }
+}
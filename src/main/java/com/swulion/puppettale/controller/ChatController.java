@@ -1,16 +1,18 @@
 package com.swulion.puppettale.controller;
 
+import com.swulion.puppettale.dto.ChatHistoryResponse;
 import com.swulion.puppettale.dto.ChatResponseDto;
 import com.swulion.puppettale.dto.ChatStartRequestDto; // 사운드ID 포함 DTO로 통일
-import com.swulion.puppettale.entity.ChatMessage;
+import com.swulion.puppettale.service.ChatHistoryService;
 import com.swulion.puppettale.service.ChatService;
-import com.swulion.puppettale.service.DischargeService;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.List;
 import java.util.Optional;
 
 @RestController
@@ -19,7 +21,7 @@ import java.util.Optional;
 public class ChatController {
 
     private final ChatService chatService;
-    private final DischargeService dischargeService;
+    private final ChatHistoryService chatHistoryService;
 
     // 기능 명세 1.1.1, 1.2, 1.3 통합 엔드포인트
     // 모든 채팅 요청 (시작 대화, 일반 대화 모두)은 이 엔드포인트로 통합 처리
@@ -39,12 +41,36 @@ public class ChatController {
         return ResponseEntity.ok(response);
     }
 
-    // 특정 세션아이디의 대화 기록 조회
-    // [GET] /api/chat/history/{sessionId}
+    // 스트리밍 채팅: AI 응답 텍스트를 delta 이벤트로 먼저 보내고, 최종 응답은 done 이벤트로 전달
+    // [POST] /api/chat/process/stream
+    @PostMapping(value = "/process/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<?> processChatStream(@RequestBody ChatStartRequestDto requestDto) {
+        String sessionId = Optional.ofNullable(requestDto.getSessionId()).orElse("default_user_session");
+
+        if (requestDto.getUserMessage() == null || requestDto.getUserMessage().isEmpty()) {
+            return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_JSON).body(ChatResponseDto.builder()
+                    .sessionId(sessionId)
+                    .aiResponse("메시지를 입력해 주세요.")
+                    .build());
+        }
+        requestDto.setSessionId(sessionId);
+        SseEmitter emitter = chatService.processChatStream(requestDto);
+
+        return ResponseEntity.ok(emitter);
+    }
+
+    /*
+     * 아동의 특정 세션 대화 기록 조회 (시간 순, 커서 기반 페이지네이션)
+     * [GET] /api/chat/history/{childId}/{sessionId}?size=50
+     * [GET] /api/chat/history/{childId}/{sessionId}?cursor={이전 응답의 nextCursor}&size=50
+     */
     @GetMapping("/history/{childId}/{sessionId}")
-    public ResponseEntity<?> getSessionHistory(@PathVariable Long childId, @PathVariable String sessionId) {
+    public ResponseEntity<?> getSessionHistory(@PathVariable Long childId,
+                                               @PathVariable String sessionId,
+                                               @RequestParam(required = false) String cursor,
+                                               @RequestParam(required = false) Integer size) {
         try {
-            List<ChatMessage> history = dischargeService.getConversationHistory(childId, sessionId);
+            ChatHistoryResponse history = chatHistoryService.getHistory(childId, sessionId, cursor, size);
             return ResponseEntity.ok(history);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
@@ -52,4 +78,16 @@ public class ChatController {
             return ResponseEntity.internalServerError().body("대화 기록 조회 중 서버 오류가 발생했습니다: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    /*
+     * 세션 전체 대화 기록 내보내기 (발화 한 건당 한 줄의 NDJSON 스트리밍)
+     * [GET] /api/chat/history/{childId}/{sessionId}/export
+     */
+    @GetMapping(value = "/history/{childId}/{sessionId}/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportSessionHistory(@PathVariable Long childId, @PathVariable String sessionId) {
+        StreamingResponseBody body = out -> chatHistoryService.exportHistory(childId, sessionId, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+}
@@ -51,10 +51,18 @@ public class FairyTaleController {
         return ResponseEntity.ok(response);
     }
 
-    // 동화 목록 조회
+    /*
+     * 동화 목록 조회 (최신순, 커서 기반 페이지네이션)
+     * [GET] /api/children/{childId}/fairytales?size=20
+     * [GET] /api/children/{childId}/fairytales?cursor={이전 응답의 nextCursor}&size=20
+     */
     @GetMapping
-    public FairyTaleListResponse getFairyTaleList(@PathVariable Long childId) {
-        return fairyTaleService.getFairyTaleList(childId);
+    public FairyTaleListResponse getFairyTaleList(
+            @PathVariable Long childId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size
+    ) {
+        return fairyTaleService.getFairyTaleList(childId, cursor, size);
     }
 
     // 동화 상세 조회
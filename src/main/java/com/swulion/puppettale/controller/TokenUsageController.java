@@ -0,0 +1,51 @@
+package com.swulion.puppettale.controller;
+
+import com.swulion.puppettale.dto.SessionTokenUsage;
+import com.swulion.puppettale.dto.TokenUsageSummary;
+import com.swulion.puppettale.service.TokenUsageService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/usage")
+public class TokenUsageController {
+    private final TokenUsageService tokenUsageService;
+
+    /*
+     * 아동의 날짜/호출 유형별 Gemini 토큰 사용량 (기간 미지정 시 최근 7일)
+     * [GET] /api/usage/children/{childId}?from=2025-01-01&to=2025-01-07
+     */
+    @GetMapping("/children/{childId}")
+    public List<TokenUsageSummary> getChildUsage(
+            @PathVariable Long childId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+    ) {
+        LocalDate end = (to != null) ? to : LocalDate.now();
+        LocalDate start = (from != null) ? from : end.minusDays(6);
+        return tokenUsageService.getChildUsage(childId, start, end);
+    }
+
+    // [GET] /api/usage/sessions/{sessionId}
+    @GetMapping("/sessions/{sessionId}")
+    public List<TokenUsageSummary> getSessionUsage(@PathVariable String sessionId) {
+        return tokenUsageService.getSessionUsage(sessionId);
+    }
+
+    /*
+     * 하루 동안 입력 토큰을 가장 많이 쓴 세션 목록 (기본 오늘, 20개, 최대 100개)
+     * [GET] /api/usage/sessions/top?date=2025-01-01&limit=20
+     */
+    @GetMapping("/sessions/top")
+    public List<SessionTokenUsage> getTopSessions(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(defaultValue = "20") int limit
+    ) {
+        return tokenUsageService.getTopSessions((date != null) ? date : LocalDate.now(), limit);
+    }
+}
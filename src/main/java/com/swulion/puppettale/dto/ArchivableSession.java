@@ -0,0 +1,17 @@
+package com.swulion.puppettale.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+// 보관 대상 세션 (마지막 발화가 기준 시각보다 오래된 세션)
+@Getter
+@AllArgsConstructor
+public class ArchivableSession {
+    private String sessionId;
+
+    private Long childId;
+
+    private LocalDateTime lastAt;
+}
@@ -0,0 +1,28 @@
+package com.swulion.puppettale.dto;
+
+import com.swulion.puppettale.entity.ChatMessage;
+import com.swulion.puppettale.entity.Speaker;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+// 대화 기록 조회용 발화 한 건 (엔티티 대신 화면에 필요한 컬럼만 읽음)
+@Getter
+@AllArgsConstructor
+public class ChatHistoryItem {
+    // 발화 ID (페이지 커서의 동률 정렬 키)
+    private Long id;
+
+    // 발화 주체: USER, AI
+    private Speaker speaker;
+
+    private String message;
+
+    private LocalDateTime timestamp;
+
+    // 보관 세그먼트에서 읽은 발화 변환용
+    public static ChatHistoryItem from(ChatMessage message) {
+        return new ChatHistoryItem(message.getId(), message.getSpeaker(), message.getMessage(), message.getTimestamp());
+    }
+}
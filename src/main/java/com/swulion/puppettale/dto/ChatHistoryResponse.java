@@ -0,0 +1,16 @@
+package com.swulion.puppettale.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class ChatHistoryResponse {
+    // 발화 목록 (시간 순)
+    private List<ChatHistoryItem> messages;
+
+    // 다음 페이지 커서 (마지막 페이지면 null)
+    private String nextCursor;
+}
@@ -0,0 +1,20 @@
+package com.swulion.puppettale.dto;
+
+import com.swulion.puppettale.constant.PuppetMode;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.LocalDate;
+
+// 채팅 처리에 필요한 아동/퍼펫 정보 스냅샷 (트랜잭션 밖에서 사용하는 불변 객체)
+@Getter
+@Builder(toBuilder = true)
+public class ChildProfile {
+    private final Long childId;
+    private final String name;
+    private final LocalDate birthdate;
+    private final boolean hasPuppet;
+    private final String puppetName;
+    private final PuppetMode puppetMode;
+    private final boolean warningState; // Red Flag 발화 상태
+}
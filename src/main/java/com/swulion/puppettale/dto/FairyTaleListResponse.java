@@ -11,4 +11,7 @@ import java.util.List;
 public class FairyTaleListResponse {
     // 동화 목록
     private List<FairyTaleListItem> fairyTales;
+
+    // 다음 페이지 커서 (마지막 페이지면 null)
+    private String nextCursor;
 }
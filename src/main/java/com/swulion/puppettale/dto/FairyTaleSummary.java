@@ -0,0 +1,14 @@
+package com.swulion.puppettale.dto;
+
+import java.time.LocalDateTime;
+
+// 동화 목록 조회용 인터페이스 프로젝션 (목록에 필요한 컬럼만 읽음)
+public interface FairyTaleSummary {
+    Long getId();
+
+    String getTitle();
+
+    String getThumbnailUrl();
+
+    LocalDateTime getCreatedAt();
+}
@@ -1,5 +1,6 @@
 package com.swulion.puppettale.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.Setter;
@@ -7,17 +8,33 @@ import java.util.List;
 
 @Getter
 @Setter
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class GeminiChatRequestDto {
     private List<Content> contents;
+    private Content systemInstruction; // 페르소나 프롬프트 (캐시를 쓰면 null)
+    private String cachedContent;      // cachedContents/{id}
 
     public GeminiChatRequestDto(List<Content> contents) {
         this.contents = contents;
     }
 
+    public GeminiChatRequestDto(List<Content> contents, String systemInstruction) {
+        this.contents = contents;
+        this.systemInstruction = new Content(null, List.of(new Part(systemInstruction)));
+    }
+
+    // 시스템 명령 대신 등록된 캐시를 참조하는 요청
+    public GeminiChatRequestDto withCachedContent(String cachedContentName) {
+        GeminiChatRequestDto cached = new GeminiChatRequestDto(contents);
+        cached.setCachedContent(cachedContentName);
+        return cached;
+    }
+
     @Getter
     @Setter
     @AllArgsConstructor
     @lombok.Builder
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     public static class Content {
         private String role;
         private List<Part> parts;
@@ -29,4 +46,4 @@ public class GeminiChatRequestDto {
     public static class Part {
         private String text;
     }
-}
\ No newline at end of file
+}
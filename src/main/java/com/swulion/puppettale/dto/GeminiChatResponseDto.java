@@ -10,6 +10,7 @@ import java.util.List;
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class GeminiChatResponseDto {
     private List<Candidate> candidates;
+    private GeminiUsageMetadata usageMetadata; // 호출 한 번의 토큰 수
 
     public String getFirstText() {
         if (candidates != null && !candidates.isEmpty()) {
@@ -0,0 +1,29 @@
+package com.swulion.puppettale.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// Gemini generateContent 응답의 usageMetadata (호출 한 번의 토큰 수)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class GeminiUsageMetadata {
+    // 입력(시스템 명령 + 대화 기록) 토큰 수 (캐시된 부분 포함)
+    private int promptTokenCount;
+
+    // 출력 토큰 수
+    private int candidatesTokenCount;
+
+    // 사고(thinking) 토큰 수
+    private int thoughtsTokenCount;
+
+    // 컨텍스트 캐시에서 읽은 입력 토큰 수
+    private int cachedContentTokenCount;
+
+    private int totalTokenCount;
+}
@@ -0,0 +1,27 @@
+package com.swulion.puppettale.dto;
+
+import com.swulion.puppettale.constant.PuppetMode;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDate;
+
+// 마이페이지 조회용 아동 + 퍼펫 컬럼 (엔티티를 만들지 않고 한 번의 조인 쿼리로 읽음)
+@Getter
+@AllArgsConstructor
+public class MyPageRow {
+    private String name;
+
+    private LocalDate birthdate;
+
+    private LocalDate hospitalizationStartDate;
+
+    private String profileImageUrl;
+
+    // 퍼펫이 없으면 null
+    private Long puppetId;
+
+    private String puppetName;
+
+    private PuppetMode puppetMode;
+}
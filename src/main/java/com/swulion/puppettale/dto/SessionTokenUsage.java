@@ -0,0 +1,19 @@
+package com.swulion.puppettale.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// 세션별 토큰 사용량 합계 (입력 토큰이 큰 세션 찾기용)
+@Getter
+@AllArgsConstructor
+public class SessionTokenUsage {
+    private String sessionId;
+
+    private Long childId;
+
+    private Long promptTokens;
+
+    private Long totalTokens;
+
+    private Long calls;
+}
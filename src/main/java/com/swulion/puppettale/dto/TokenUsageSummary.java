@@ -0,0 +1,29 @@
+package com.swulion.puppettale.dto;
+
+import com.swulion.puppettale.service.GeminiClient;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDate;
+
+// 날짜/호출 유형별 토큰 사용량 합계
+@Getter
+@AllArgsConstructor
+public class TokenUsageSummary {
+    private LocalDate usageDate;
+
+    private GeminiClient.CallType callType;
+
+    private Long promptTokens;
+
+    private Long candidatesTokens;
+
+    private Long thoughtsTokens;
+
+    private Long cachedTokens;
+
+    private Long totalTokens;
+
+    // Gemini 호출 수
+    private Long calls;
+}
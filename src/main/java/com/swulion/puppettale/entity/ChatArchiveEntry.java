@@ -0,0 +1,45 @@
+package com.swulion.puppettale.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// 보관(cold) 계층으로 옮긴 세션 대화 묶음의 위치: 세그먼트 파일 안의 (오프셋, 길이)
+@Entity
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "ChatArchiveEntries", indexes = @Index(name = "idx_chat_archive_entries_session_child",
+        columnList = "sessionId, childId"))
+public class ChatArchiveEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String sessionId;
+
+    @Column(nullable = false)
+    private Long childId;
+
+    @Column(nullable = false, length = 100)
+    private String segment; // 세그먼트 파일 이름
+
+    private long segmentOffset; // 세그먼트 안에서 이 묶음(gzip)의 시작 위치
+
+    private int byteLength; // 압축된 묶음 크기
+
+    private int messageCount;
+
+    private LocalDateTime firstAt; // 묶음의 첫 발화 시각
+
+    private LocalDateTime lastAt; // 묶음의 마지막 발화 시각
+
+    private LocalDateTime archivedAt;
+}
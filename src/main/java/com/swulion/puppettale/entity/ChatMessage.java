@@ -12,7 +12,8 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
-@Table(name = "ChatMessages")
+@Table(name = "ChatMessages", indexes = @Index(name = "idx_chat_messages_session_child_time",
+        columnList = "sessionId, childId, timestamp"))
 public class ChatMessage {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
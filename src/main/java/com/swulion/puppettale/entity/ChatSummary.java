@@ -0,0 +1,32 @@
+package com.swulion.puppettale.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@Entity
+@NoArgsConstructor
+@Table(name = "ChatSummaries", indexes = @Index(name = "idx_chat_summaries_session_child",
+        columnList = "sessionId, childId"))
+public class ChatSummary extends BaseEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private String sessionId;
+
+    private Long childId;
+
+    @Column(columnDefinition = "TEXT") // 오래된 대화를 접어 둔 누적 요약
+    private String summary;
+
+    private LocalDateTime summarizedUntil; // 이 시각까지의 발화가 요약에 포함됨
+
+    private Integer foldedTurns; // 지금까지 요약에 포함된 발화 수
+}
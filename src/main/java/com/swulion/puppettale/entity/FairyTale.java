@@ -12,7 +12,9 @@ import java.util.List;
 @Setter
 @Entity
 @NoArgsConstructor
-@Table(name = "FairyTales")
+// 목록 키셋 페이지네이션(child_id 조건 + created_at, id 역순)용 복합 인덱스
+@Table(name = "FairyTales", indexes = @Index(name = "idx_fairy_tales_child_created",
+        columnList = "child_id, is_deleted, created_at, id"))
 public class FairyTale extends BaseEntity {
 
     @Id
@@ -32,6 +34,7 @@ public class FairyTale extends BaseEntity {
     private boolean isDeleted = false;
 
     @OneToMany(mappedBy = "fairyTale", fetch = FetchType.LAZY, cascade = CascadeType.ALL, orphanRemoval = true)
+    @OrderBy("pageNumber ASC")
     private List<FairyTalePage> pages = new ArrayList<>();
 
     public void updateTitle(String title) {
@@ -9,7 +9,8 @@ import lombok.Setter;
 @Setter
 @Entity
 @NoArgsConstructor
-@Table(name = "FairyTalePages")
+@Table(name = "FairyTalePages", indexes = @Index(name = "idx_fairy_tale_pages_tale_page",
+        columnList = "fairytale_id, page_number"))
 public class FairyTalePage extends BaseEntity {
 
     @Id
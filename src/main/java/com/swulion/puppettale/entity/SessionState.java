@@ -0,0 +1,28 @@
+package com.swulion.puppettale.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+// 여러 서버가 함께 보는 채팅 세션 상태 (session-state.store=database일 때 사용)
+@Getter
+@Setter
+@Entity
+@NoArgsConstructor
+@Table(name = "SessionStates", indexes = @Index(name = "idx_session_states_last_activity", columnList = "lastActivityAt"))
+public class SessionState {
+
+    @Id
+    private String sessionId; // ChatMessages.sessionId와 같은 길이 (255)
+
+    private String soundId; // 세션에 마지막으로 지정된 배경 사운드
+
+    private LocalDateTime lastActivityAt;
+
+    private String inFlightOwner; // 턴을 진행 중인 서버/요청 식별자
+
+    private LocalDateTime inFlightUntil; // 이 시각이 지나면 진행 중 표시 무효 (서버 장애 대비)
+}
@@ -0,0 +1,54 @@
+package com.swulion.puppettale.entity;
+
+import com.swulion.puppettale.service.GeminiClient;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// 날짜 x 아동 x 세션 x 호출 유형별 Gemini 토큰 사용량 누계 (TokenUsageService가 주기적으로 더함)
+@Getter
+@Entity
+@NoArgsConstructor
+@Table(name = "TokenUsages",
+        uniqueConstraints = @UniqueConstraint(name = "uk_token_usages_key",
+                columnNames = {"usageDate", "childId", "sessionId", "callType"}),
+        indexes = {
+                @Index(name = "idx_token_usages_child_date", columnList = "childId, usageDate"),
+                @Index(name = "idx_token_usages_session", columnList = "sessionId")
+        })
+public class TokenUsage {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private LocalDate usageDate;
+
+    @Column(nullable = false)
+    private Long childId; // 아동과 무관한 호출은 0
+
+    @Column(nullable = false)
+    private String sessionId; // ChatMessages.sessionId와 같은 길이 (255), 세션 밖 호출은 빈 문자열
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private GeminiClient.CallType callType;
+
+    private long promptTokens;
+
+    private long candidatesTokens;
+
+    private long thoughtsTokens;
+
+    private long cachedTokens;
+
+    private long totalTokens;
+
+    private long calls;
+
+    private LocalDateTime updatedAt;
+}
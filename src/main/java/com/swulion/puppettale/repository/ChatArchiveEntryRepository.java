@@ -0,0 +1,11 @@
+package com.swulion.puppettale.repository;
+
+import com.swulion.puppettale.entity.ChatArchiveEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface ChatArchiveEntryRepository extends JpaRepository<ChatArchiveEntry, Long> {
+    // 세션(아동)의 보관 묶음 (보관된 순서 = 대화 순서)
+    List<ChatArchiveEntry> findBySessionIdAndChildIdOrderByFirstAtAscIdAsc(String sessionId, Long childId);
+}
@@ -1,10 +1,20 @@
 package com.swulion.puppettale.repository;
 
+import com.swulion.puppettale.dto.ArchivableSession;
+import com.swulion.puppettale.dto.ChatHistoryItem;
 import com.swulion.puppettale.entity.ChatMessage;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface ChatMessageRepository extends JpaRepository<ChatMessage, Long> {
     // 특정 sessionId의 모든 대화 기록을 시간 순으로 조회
@@ -15,4 +25,43 @@ public interface ChatMessageRepository extends JpaRepository<ChatMessage, Long>
 
     // 아동별 대화 완전히 분리
     List<ChatMessage> findBySessionIdAndChildIdOrderByTimestampAsc(String sessionId, Long childId);
+
+    // 대화 기록 첫 페이지 (시간 순, 같은 시각은 id 순)
+    @Query("SELECT new com.swulion.puppettale.dto.ChatHistoryItem(m.id, m.speaker, m.message, m.timestamp) " +
+            "FROM ChatMessage m WHERE m.sessionId = :sessionId AND m.childId = :childId " +
+            "ORDER BY m.timestamp ASC, m.id ASC")
+    List<ChatHistoryItem> findHistory(@Param("sessionId") String sessionId, @Param("childId") Long childId, Limit limit);
+
+    // 대화 기록 다음 페이지: 커서(마지막 발화의 timestamp, id)보다 뒤의 발화
+    @Query("SELECT new com.swulion.puppettale.dto.ChatHistoryItem(m.id, m.speaker, m.message, m.timestamp) " +
+            "FROM ChatMessage m WHERE m.sessionId = :sessionId AND m.childId = :childId " +
+            "AND (m.timestamp > :timestamp OR (m.timestamp = :timestamp AND m.id > :id)) " +
+            "ORDER BY m.timestamp ASC, m.id ASC")
+    List<ChatHistoryItem> findHistoryAfter(@Param("sessionId") String sessionId,
+                                           @Param("childId") Long childId,
+                                           @Param("timestamp") LocalDateTime timestamp,
+                                           @Param("id") Long id,
+                                           Limit limit);
+
+    // 대화 기록 내보내기: fetch size만큼씩 가져오는 전진 전용 커서 (트랜잭션 안에서 사용, 다 쓰면 close)
+    // PostgreSQL은 트랜잭션 안에서, MySQL은 useCursorFetch=true일 때 fetch size 단위로 행을 가져온다
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.swulion.puppettale.dto.ChatHistoryItem(m.id, m.speaker, m.message, m.timestamp) " +
+            "FROM ChatMessage m WHERE m.sessionId = :sessionId AND m.childId = :childId " +
+            "ORDER BY m.timestamp ASC, m.id ASC")
+    Stream<ChatHistoryItem> streamHistory(@Param("sessionId") String sessionId, @Param("childId") Long childId);
+
+    // 보관 대상: 마지막 발화가 cutoff 이전인 (세션, 아동) 묶음 (childId가 없는 예전 행은 제외)
+    @Query("SELECT new com.swulion.puppettale.dto.ArchivableSession(m.sessionId, m.childId, MAX(m.timestamp)) " +
+            "FROM ChatMessage m WHERE m.childId IS NOT NULL " +
+            "GROUP BY m.sessionId, m.childId HAVING MAX(m.timestamp) < :cutoff")
+    List<ArchivableSession> findArchivableSessions(@Param("cutoff") LocalDateTime cutoff, Limit limit);
+
+    // 보관 계층으로 옮긴 발화 삭제 (maxId 이후에 새로 들어온 발화는 남김)
+    @Modifying
+    @Query("DELETE FROM ChatMessage m WHERE m.sessionId = :sessionId AND m.childId = :childId AND m.id <= :maxId")
+    int deleteArchived(@Param("sessionId") String sessionId, @Param("childId") Long childId, @Param("maxId") Long maxId);
 }
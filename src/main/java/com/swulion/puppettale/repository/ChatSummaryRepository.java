@@ -0,0 +1,11 @@
+package com.swulion.puppettale.repository;
+
+import com.swulion.puppettale.entity.ChatSummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Optional;
+
+public interface ChatSummaryRepository extends JpaRepository<ChatSummary, Long> {
+    // 세션별 누적 요약
+    Optional<ChatSummary> findBySessionIdAndChildId(String sessionId, Long childId);
+}
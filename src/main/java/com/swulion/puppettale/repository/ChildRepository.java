@@ -1,13 +1,33 @@
 package com.swulion.puppettale.repository;
 
+import com.swulion.puppettale.dto.MyPageRow;
 import com.swulion.puppettale.entity.Child;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
 
 public interface ChildRepository extends JpaRepository<Child, Long> {
 
     @Modifying
     @Query("UPDATE Child c SET c.isWarningState = false")
     void resetAllWarningStates();
+
+    // 퍼펫까지 한 번에 조회
+    @EntityGraph(attributePaths = "puppet")
+    Optional<Child> findWithPuppetById(Long id);
+
+    // 마이페이지 조회: 아동과 퍼펫 컬럼만 한 번의 조인으로 읽음
+    @Query("SELECT new com.swulion.puppettale.dto.MyPageRow(c.name, c.birthdate, c.hospitalizationStartDate, " +
+            "c.profileImageUrl, p.id, p.name, p.mode) " +
+            "FROM Child c LEFT JOIN c.puppet p WHERE c.id = :childId")
+    Optional<MyPageRow> findMyPageRow(@Param("childId") Long childId);
+
+    // Red Flag 1차 경고 상태 기록
+    @Modifying
+    @Query("UPDATE Child c SET c.isWarningState = true WHERE c.id = :childId")
+    int markWarningState(@Param("childId") Long childId);
 }
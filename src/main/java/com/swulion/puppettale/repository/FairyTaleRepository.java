@@ -1,9 +1,14 @@
 package com.swulion.puppettale.repository;
 
-import com.swulion.puppettale.entity.Child;
+import com.swulion.puppettale.dto.FairyTaleSummary;
 import com.swulion.puppettale.entity.FairyTale;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -11,9 +16,27 @@ public interface FairyTaleRepository extends JpaRepository<FairyTale, Long> {
     // 상세 조회에서 사용
     Optional<FairyTale> findByIdAndChildIdAndIsDeletedFalse(Long id, Long childId);
 
-    // 목록 조회에서 사용
-    List<FairyTale> findAllByChildIdAndIsDeletedFalseOrderByCreatedAtDesc(Long childId);
+    // 상세 화면용: 페이지까지 한 번의 조인으로 읽음 (페이지 순서는 FairyTale.pages의 @OrderBy로 DB에서 정렬)
+    @EntityGraph(attributePaths = "pages")
+    Optional<FairyTale> findWithPagesByIdAndChildIdAndIsDeletedFalse(Long id, Long childId);
+
+    // 목록 첫 페이지 (목록 항목 컬럼만 읽음, idx_fairy_tales_child_created 순서 그대로)
+    // 파생 쿼리로 만들면 프로젝션 때문에 Children 조인이 붙어 인덱스를 못 타므로 FK 컬럼으로 직접 조건을 건다
+    @Query("SELECT f.id AS id, f.title AS title, f.thumbnailUrl AS thumbnailUrl, f.createdAt AS createdAt " +
+            "FROM FairyTale f WHERE f.child.id = :childId AND f.isDeleted = false " +
+            "ORDER BY f.createdAt DESC, f.id DESC")
+    List<FairyTaleSummary> findSummaries(@Param("childId") Long childId, Limit limit);
+
+    // 목록 다음 페이지: 커서(마지막 항목의 createdAt, id)보다 뒤의 항목
+    @Query("SELECT f.id AS id, f.title AS title, f.thumbnailUrl AS thumbnailUrl, f.createdAt AS createdAt " +
+            "FROM FairyTale f WHERE f.child.id = :childId AND f.isDeleted = false " +
+            "AND (f.createdAt < :createdAt OR (f.createdAt = :createdAt AND f.id < :id)) " +
+            "ORDER BY f.createdAt DESC, f.id DESC")
+    List<FairyTaleSummary> findSummariesAfter(@Param("childId") Long childId,
+                                              @Param("createdAt") LocalDateTime createdAt,
+                                              @Param("id") Long id,
+                                              Limit limit);
 
     // 오늘 생성된 동화 개수 카운트 (삭제된 것 제외)
-    long countByChildIdAndIsDeletedFalseAndCreatedAtAfter(Long childId, java.time.LocalDateTime startOfDay);
+    long countByChildIdAndIsDeletedFalseAndCreatedAtAfter(Long childId, LocalDateTime startOfDay);
 }
@@ -0,0 +1,57 @@
+package com.swulion.puppettale.repository;
+
+import com.swulion.puppettale.entity.SessionState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface SessionStateRepository extends JpaRepository<SessionState, String> {
+
+    // 영속성 컨텍스트를 거치지 않고 항상 DB 값을 읽도록 단일 컬럼 조회
+    @Query("SELECT s.soundId FROM SessionState s WHERE s.sessionId = :sessionId AND s.lastActivityAt >= :notBefore")
+    Optional<String> findSoundId(@Param("sessionId") String sessionId, @Param("notBefore") LocalDateTime notBefore);
+
+    @Query("SELECT s.lastActivityAt FROM SessionState s WHERE s.sessionId = :sessionId AND s.lastActivityAt >= :notBefore")
+    Optional<LocalDateTime> findLastActivity(@Param("sessionId") String sessionId, @Param("notBefore") LocalDateTime notBefore);
+
+    // 행이 이미 있으면 키 중복 예외 (다른 서버가 먼저 만든 경우)
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO SessionStates (sessionId, soundId, lastActivityAt) VALUES (:sessionId, :soundId, :now)", nativeQuery = true)
+    int insert(@Param("sessionId") String sessionId, @Param("soundId") String soundId, @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE SessionState s SET s.soundId = :soundId, s.lastActivityAt = :now WHERE s.sessionId = :sessionId")
+    int updateSoundId(@Param("sessionId") String sessionId, @Param("soundId") String soundId, @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE SessionState s SET s.lastActivityAt = :now WHERE s.sessionId = :sessionId")
+    int touch(@Param("sessionId") String sessionId, @Param("now") LocalDateTime now);
+
+    // 비어 있거나 만료된 표시일 때만 잡음 (조건부 UPDATE 한 번으로 서버 간 경쟁 해결)
+    @Transactional
+    @Modifying
+    @Query("UPDATE SessionState s SET s.inFlightOwner = :owner, s.inFlightUntil = :until, s.lastActivityAt = :now " +
+            "WHERE s.sessionId = :sessionId AND (s.inFlightOwner IS NULL OR s.inFlightOwner = :owner OR s.inFlightUntil < :now)")
+    int markInFlight(@Param("sessionId") String sessionId, @Param("owner") String owner,
+                     @Param("until") LocalDateTime until, @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE SessionState s SET s.inFlightOwner = NULL, s.inFlightUntil = NULL " +
+            "WHERE s.sessionId = :sessionId AND s.inFlightOwner = :owner")
+    int clearInFlight(@Param("sessionId") String sessionId, @Param("owner") String owner);
+
+    // TTL이 지난 세션 정리 (진행 중 표시가 살아 있는 세션은 제외)
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM SessionState s WHERE s.lastActivityAt < :cutoff AND (s.inFlightUntil IS NULL OR s.inFlightUntil < :now)")
+    int deleteIdle(@Param("cutoff") LocalDateTime cutoff, @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,72 @@
+package com.swulion.puppettale.repository;
+
+import com.swulion.puppettale.dto.SessionTokenUsage;
+import com.swulion.puppettale.dto.TokenUsageSummary;
+import com.swulion.puppettale.entity.TokenUsage;
+import com.swulion.puppettale.service.GeminiClient;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface TokenUsageRepository extends JpaRepository<TokenUsage, Long> {
+
+    // 누계에 더하기 (행이 없으면 0 -> insert)
+    @Transactional
+    @Modifying
+    @Query("UPDATE TokenUsage t SET t.promptTokens = t.promptTokens + :prompt, " +
+            "t.candidatesTokens = t.candidatesTokens + :candidates, t.thoughtsTokens = t.thoughtsTokens + :thoughts, " +
+            "t.cachedTokens = t.cachedTokens + :cached, t.totalTokens = t.totalTokens + :total, " +
+            "t.calls = t.calls + :calls, t.updatedAt = :now " +
+            "WHERE t.usageDate = :usageDate AND t.childId = :childId AND t.sessionId = :sessionId AND t.callType = :callType")
+    int add(@Param("usageDate") LocalDate usageDate, @Param("childId") Long childId,
+            @Param("sessionId") String sessionId, @Param("callType") GeminiClient.CallType callType,
+            @Param("prompt") long prompt, @Param("candidates") long candidates, @Param("thoughts") long thoughts,
+            @Param("cached") long cached, @Param("total") long total, @Param("calls") long calls,
+            @Param("now") LocalDateTime now);
+
+    // 행이 이미 있으면 키 중복 예외 (다른 서버가 먼저 만든 경우)
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO TokenUsages (usageDate, childId, sessionId, callType, promptTokens, candidatesTokens, " +
+            "thoughtsTokens, cachedTokens, totalTokens, calls, updatedAt) " +
+            "VALUES (:usageDate, :childId, :sessionId, :callType, :prompt, :candidates, :thoughts, :cached, :total, :calls, :now)",
+            nativeQuery = true)
+    int insert(@Param("usageDate") LocalDate usageDate, @Param("childId") Long childId,
+               @Param("sessionId") String sessionId, @Param("callType") String callType,
+               @Param("prompt") long prompt, @Param("candidates") long candidates, @Param("thoughts") long thoughts,
+               @Param("cached") long cached, @Param("total") long total, @Param("calls") long calls,
+               @Param("now") LocalDateTime now);
+
+    @Query("SELECT COALESCE(SUM(t.totalTokens), 0) FROM TokenUsage t WHERE t.childId = :childId AND t.usageDate = :usageDate")
+    long sumChildTotal(@Param("childId") Long childId, @Param("usageDate") LocalDate usageDate);
+
+    @Query("SELECT COALESCE(SUM(t.totalTokens), 0) FROM TokenUsage t WHERE t.sessionId = :sessionId")
+    long sumSessionTotal(@Param("sessionId") String sessionId);
+
+    @Query("SELECT new com.swulion.puppettale.dto.TokenUsageSummary(t.usageDate, t.callType, SUM(t.promptTokens), " +
+            "SUM(t.candidatesTokens), SUM(t.thoughtsTokens), SUM(t.cachedTokens), SUM(t.totalTokens), SUM(t.calls)) " +
+            "FROM TokenUsage t WHERE t.childId = :childId AND t.usageDate BETWEEN :from AND :to " +
+            "GROUP BY t.usageDate, t.callType ORDER BY t.usageDate, t.callType")
+    List<TokenUsageSummary> summarizeChild(@Param("childId") Long childId,
+                                           @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("SELECT new com.swulion.puppettale.dto.TokenUsageSummary(t.usageDate, t.callType, SUM(t.promptTokens), " +
+            "SUM(t.candidatesTokens), SUM(t.thoughtsTokens), SUM(t.cachedTokens), SUM(t.totalTokens), SUM(t.calls)) " +
+            "FROM TokenUsage t WHERE t.sessionId = :sessionId " +
+            "GROUP BY t.usageDate, t.callType ORDER BY t.usageDate, t.callType")
+    List<TokenUsageSummary> summarizeSession(@Param("sessionId") String sessionId);
+
+    // 하루 동안 입력 토큰을 가장 많이 쓴 세션 (Pageable로 개수 제한)
+    @Query("SELECT new com.swulion.puppettale.dto.SessionTokenUsage(t.sessionId, t.childId, SUM(t.promptTokens), " +
+            "SUM(t.totalTokens), SUM(t.calls)) " +
+            "FROM TokenUsage t WHERE t.usageDate = :usageDate AND t.sessionId <> '' " +
+            "GROUP BY t.sessionId, t.childId ORDER BY SUM(t.promptTokens) DESC")
+    List<SessionTokenUsage> findTopSessions(@Param("usageDate") LocalDate usageDate, Pageable pageable);
+}
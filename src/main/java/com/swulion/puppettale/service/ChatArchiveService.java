@@ -0,0 +1,328 @@
+package com.swulion.puppettale.service;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.swulion.puppettale.dto.ArchivableSession;
+import com.swulion.puppettale.entity.ChatArchiveEntry;
+import com.swulion.puppettale.entity.ChatMessage;
+import com.swulion.puppettale.repository.ChatArchiveEntryRepository;
+import com.swulion.puppettale.repository.ChatMessageRepository;
+import com.swulion.puppettale.util.KeysetCursor;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 오래된 채팅 세션을 ChatMessages(hot)에서 압축 세그먼트 파일(cold)로 옮긴다.
+ * 마지막 발화가 chat.archive.min-age-days보다 오래된 (세션, 아동)마다 발화를 NDJSON으로 써서 gzip으로 압축한
+ * 묶음 하나를 세그먼트 끝에 이어 쓰고, 세그먼트 안의 (오프셋, 길이)를 ChatArchiveEntries에 기록한다.
+ * 세그먼트를 저장소에 다 쓴 뒤에만 색인 기록 + 원본 행 삭제를 한 트랜잭션으로 하므로,
+ * 중간에 실패하면 발화는 hot 테이블에 남고 다음 실행에서 다시 옮겨진다 (쓰다 만 세그먼트는 참조되지 않음).
+ */
+@Service
+@Slf4j
+public class ChatArchiveService {
+
+    private static final DateTimeFormatter SEGMENT_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final ChatMessageRepository chatMessageRepository;
+    private final ChatArchiveEntryRepository chatArchiveEntryRepository;
+    private final ChatArchiveStorage chatArchiveStorage;
+    private final ChatTranscriptCache chatTranscriptCache;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${chat.archive.enabled:true}")
+    private boolean enabled;
+
+    @Value("${chat.archive.min-age-days:30}")
+    private long minAgeDays;
+
+    // 한 번에 조회/처리할 세션 수
+    @Value("${chat.archive.batch-size:200}")
+    private int batchSize;
+
+    // 세그먼트가 이 크기를 넘으면 닫고 새 세그먼트를 시작
+    @Value("${chat.archive.segment-max-bytes:67108864}")
+    private long segmentMaxBytes;
+
+    private final Clock clock;
+
+    private final AtomicLong archivedSessions = new AtomicLong();
+    private final AtomicLong archivedMessages = new AtomicLong();
+    private final AtomicLong segmentsWritten = new AtomicLong();
+    private final AtomicLong bytesWritten = new AtomicLong();
+    private final AtomicLong skippedSessions = new AtomicLong();
+    private final AtomicLong coldReads = new AtomicLong();
+
+    public ChatArchiveService(ChatMessageRepository chatMessageRepository,
+                              ChatArchiveEntryRepository chatArchiveEntryRepository,
+                              ChatArchiveStorage chatArchiveStorage,
+                              ChatTranscriptCache chatTranscriptCache,
+                              ObjectMapper objectMapper,
+                              PlatformTransactionManager transactionManager,
+                              Clock clock) {
+        this.chatMessageRepository = chatMessageRepository;
+        this.chatArchiveEntryRepository = chatArchiveEntryRepository;
+        this.chatArchiveStorage = chatArchiveStorage;
+        this.chatTranscriptCache = chatTranscriptCache;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.clock = clock;
+    }
+
+    @Scheduled(cron = "${chat.archive.cron:0 30 3 * * *}", zone = "Asia/Seoul")
+    public void scheduledArchive() {
+        if (!enabled) return;
+        try {
+            int sessions = archiveOldSessions();
+            if (sessions > 0) {
+                log.info("오래된 대화 세션 보관 완료: {}개 세션", sessions);
+            }
+        } catch (RuntimeException e) {
+            log.error("대화 세션 보관 실패 (발화는 hot 테이블에 그대로 남음)", e);
+        }
+    }
+
+    /**
+     * 보관 대상 세션을 batch-size씩 모두 옮기고, 옮긴 세션 수를 반환한다.
+     */
+    public int archiveOldSessions() {
+        LocalDateTime cutoff = LocalDateTime.now(clock).minusDays(minAgeDays);
+        int total = 0;
+        while (true) {
+            List<ArchivableSession> batch = chatMessageRepository.findArchivableSessions(cutoff, Limit.of(batchSize));
+            if (batch.isEmpty()) return total;
+            int archived = archiveBatch(batch);
+            total += archived;
+            // 모두 건너뛴 배치(다른 서버가 처리 중 등)가 반복되지 않도록, 덜 찬 배치면 종료
+            if (archived == 0 || batch.size() < batchSize) return total;
+        }
+    }
+
+    private int archiveBatch(List<ArchivableSession> batch) {
+        int archived = 0;
+        SegmentWriter writer = null;
+        try {
+            for (ArchivableSession session : batch) {
+                List<ChatMessage> messages =
+                        chatMessageRepository.findBySessionIdAndChildIdOrderByTimestampAsc(session.getSessionId(), session.getChildId());
+                if (messages.isEmpty()) continue;
+
+                if (writer == null) writer = new SegmentWriter(newSegmentName());
+                writer.append(session, messages, compress(messages));
+                if (writer.size >= segmentMaxBytes) {
+                    archived += commit(writer);
+                    writer = null;
+                }
+            }
+            if (writer != null) {
+                archived += commit(writer);
+                writer = null;
+            }
+            return archived;
+        } catch (IOException e) {
+            throw new UncheckedIOException("대화 세그먼트 쓰기 실패", e);
+        } finally {
+            if (writer != null) writer.discard();
+        }
+    }
+
+    // 세그먼트를 저장소에 저장한 뒤 세션별로 색인 기록 + 원본 삭제 (세션마다 한 트랜잭션)
+    private int commit(SegmentWriter writer) throws IOException {
+        writer.close();
+        try {
+            chatArchiveStorage.store(writer.segment, writer.file);
+        } finally {
+            writer.discard();
+        }
+        segmentsWritten.incrementAndGet();
+        bytesWritten.addAndGet(writer.size);
+
+        int committed = 0;
+        LocalDateTime now = LocalDateTime.now(clock);
+        for (Block block : writer.blocks) {
+            Boolean done = transactionTemplate.execute(status -> {
+                int deleted = chatMessageRepository.deleteArchived(block.sessionId, block.childId, block.maxId);
+                if (deleted != block.messageCount) {
+                    // 다른 서버가 먼저 옮겼거나 그 사이 행이 바뀜: 이번 묶음은 버림
+                    status.setRollbackOnly();
+                    return false;
+                }
+                chatArchiveEntryRepository.save(ChatArchiveEntry.builder()
+                        .sessionId(block.sessionId)
+                        .childId(block.childId)
+                        .segment(writer.segment)
+                        .segmentOffset(block.offset)
+                        .byteLength(block.length)
+                        .messageCount(block.messageCount)
+                        .firstAt(block.firstAt)
+                        .lastAt(block.lastAt)
+                        .archivedAt(now)
+                        .build());
+                return true;
+            });
+            if (Boolean.TRUE.equals(done)) {
+                committed++;
+                archivedSessions.incrementAndGet();
+                archivedMessages.addAndGet(block.messageCount);
+                chatTranscriptCache.evict(block.childId, block.sessionId);
+            } else {
+                skippedSessions.incrementAndGet();
+                log.warn("대화 보관 건너뜀 (발화 수 불일치): sessionId={}, childId={}", block.sessionId, block.childId);
+            }
+        }
+        return committed;
+    }
+
+    /**
+     * 세션(아동)의 보관된 발화 중 after 커서 뒤의 것을 시간 순으로 최대 limit개 읽는다 (after가 null이면 처음부터).
+     * 커서보다 앞에서 끝나는 묶음은 세그먼트를 읽지 않고 건너뛴다. 보관된 적이 없으면 빈 목록.
+     */
+    public List<ChatMessage> readArchived(String sessionId, Long childId, KeysetCursor after, int limit) {
+        List<ChatMessage> messages = new ArrayList<>();
+        if (limit <= 0) return messages;
+        for (ChatArchiveEntry entry : chatArchiveEntryRepository.findBySessionIdAndChildIdOrderByFirstAtAscIdAsc(sessionId, childId)) {
+            if (after != null && entry.getLastAt() != null && entry.getLastAt().isBefore(after.at())) continue;
+            boolean more = readEntry(entry, message -> {
+                if (after == null || isAfter(message, after)) messages.add(message);
+                return messages.size() < limit;
+            });
+            if (!more) break;
+        }
+        return messages;
+    }
+
+    /**
+     * 세션(아동)의 보관된 발화를 시간 순으로 하나씩 넘긴다 (내보내기용).
+     * 한 번에 묶음 하나만 메모리에 두므로 보관된 대화 길이와 관계없이 힙 사용량이 일정하다.
+     */
+    public void forEachArchived(String sessionId, Long childId, Consumer<ChatMessage> action) {
+        for (ChatArchiveEntry entry : chatArchiveEntryRepository.findBySessionIdAndChildIdOrderByFirstAtAscIdAsc(sessionId, childId)) {
+            readEntry(entry, message -> {
+                action.accept(message);
+                return true;
+            });
+        }
+    }
+
+    // 묶음의 발화를 순서대로 넘기다가 action이 false를 돌려주면 멈추고 false 반환
+    private boolean readEntry(ChatArchiveEntry entry, Predicate<ChatMessage> action) {
+        coldReads.incrementAndGet();
+        try {
+            byte[] block = chatArchiveStorage.read(entry.getSegment(), entry.getSegmentOffset(), entry.getByteLength());
+            try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(block));
+                 MappingIterator<ChatMessage> it = objectMapper.readerFor(ChatMessage.class).readValues(in)) {
+                while (it.hasNextValue()) {
+                    if (!action.test(it.nextValue())) return false;
+                }
+            }
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException("보관된 대화 읽기 실패: segment=" + entry.getSegment(), e);
+        }
+    }
+
+    private static boolean isAfter(ChatMessage message, KeysetCursor cursor) {
+        int byTime = message.getTimestamp().compareTo(cursor.at());
+        return byTime > 0 || (byTime == 0 && message.getId() > cursor.id());
+    }
+
+    // 발화 한 줄에 하나씩 JSON (NDJSON) -> gzip
+    private byte[] compress(List<ChatMessage> messages) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (OutputStream gzip = new GZIPOutputStream(out)) {
+            for (ChatMessage message : messages) {
+                gzip.write(objectMapper.writeValueAsBytes(message));
+                gzip.write('\n');
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private String newSegmentName() {
+        return LocalDateTime.now(clock).format(SEGMENT_TIME) + "-" + UUID.randomUUID().toString().substring(0, 8) + ".seg";
+    }
+
+    public Stats getStats() {
+        return new Stats(chatArchiveStorage.backend(), archivedSessions.get(), archivedMessages.get(),
+                segmentsWritten.get(), bytesWritten.get(), skippedSessions.get(), coldReads.get());
+    }
+
+    // 쓰는 중인 세그먼트 (임시 파일에 순서대로 이어 씀)
+    private static final class SegmentWriter {
+        private final String segment;
+        private final Path file;
+        private final OutputStream out;
+        private final List<Block> blocks = new ArrayList<>();
+        private long size = 0;
+
+        private SegmentWriter(String segment) throws IOException {
+            this.segment = segment;
+            this.file = Files.createTempFile("chat-segment-", ".tmp");
+            this.out = Files.newOutputStream(file);
+        }
+
+        private void append(ArchivableSession session, List<ChatMessage> messages, byte[] compressed) throws IOException {
+            out.write(compressed);
+            long maxId = messages.stream().mapToLong(ChatMessage::getId).max().orElseThrow();
+            blocks.add(new Block(session.getSessionId(), session.getChildId(), size, compressed.length, messages.size(), maxId,
+                    messages.get(0).getTimestamp(), messages.get(messages.size() - 1).getTimestamp()));
+            size += compressed.length;
+        }
+
+        private void close() throws IOException {
+            out.close();
+        }
+
+        private void discard() {
+            try {
+                out.close();
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                log.warn("임시 세그먼트 파일 정리 실패: {}", file, e);
+            }
+        }
+    }
+
+    private record Block(String sessionId, Long childId, long offset, int length, int messageCount, long maxId,
+                         LocalDateTime firstAt, LocalDateTime lastAt) {
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Stats {
+        private final String backend;
+        private final long archivedSessions;
+        private final long archivedMessages;
+        private final long segmentsWritten;
+        private final long bytesWritten;     // 압축된 세그먼트 바이트 합계
+        private final long skippedSessions;  // 발화 수가 달라 보관하지 않은 세션 수
+        private final long coldReads;        // 세그먼트에서 읽은 묶음 수
+    }
+}
@@ -0,0 +1,20 @@
+package com.swulion.puppettale.service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * 보관(cold) 계층 대화 세그먼트 파일 저장소.
+ * 세그먼트는 한 번 순서대로 다 쓴 뒤 저장하고 이후 수정하지 않으며, 읽을 때는 필요한 구간(오프셋, 길이)만 읽는다.
+ * 기본은 로컬 디렉터리(chat.archive.storage=filesystem), 디스크가 보존되지 않는 환경은 S3(chat.archive.storage=s3).
+ */
+public interface ChatArchiveStorage {
+
+    // 다 쓴 세그먼트 파일을 segment 이름으로 저장 (file은 호출자가 정리)
+    void store(String segment, Path file) throws IOException;
+
+    // 세그먼트의 [offset, offset + length) 구간
+    byte[] read(String segment, long offset, int length) throws IOException;
+
+    String backend();
+}
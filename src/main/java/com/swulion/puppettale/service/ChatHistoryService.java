@@ -0,0 +1,151 @@
+package com.swulion.puppettale.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.swulion.puppettale.dto.ChatHistoryItem;
+import com.swulion.puppettale.dto.ChatHistoryResponse;
+import com.swulion.puppettale.entity.ChatMessage;
+import com.swulion.puppettale.repository.ChatMessageRepository;
+import com.swulion.puppettale.util.KeysetCursor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * 아동/세션 단위 대화 기록 조회.
+ * 보관(cold) 세그먼트의 발화가 hot 테이블의 발화보다 항상 앞서므로, 보관분을 먼저 읽고 이어서 hot 테이블을 읽는다.
+ * 페이지 조회는 (timestamp, id) 키셋 커서로 한 페이지 크기만 읽고,
+ * 내보내기는 발화를 한 줄씩 NDJSON으로 써서 대화 길이와 관계없이 힙 사용량이 일정하다.
+ * 쓰기 지연(write-behind) 대기열에 있는 아직 저장되지 않은 발화는 마지막 페이지와 내보내기 끝에 DB 발화 다음으로 붙인다.
+ * 이 발화는 id가 없으며(null), 같은 시각의 저장된 발화보다 뒤로 정렬한다.
+ * 대기 목록을 DB 조회 전에 복사하고, 그 사이 저장되어 DB에도 있는 발화는 저장 때 부여된 id로 걸러낸다
+ * (복사본의 발화는 복사 시점에 커밋 전이므로 이전 페이지에 저장된 발화로 나갔을 수 없음).
+ */
+@Service
+public class ChatHistoryService {
+
+    private final ChatMessageRepository chatMessageRepository;
+    private final ChatArchiveService chatArchiveService;
+    private final ChatMessageWriter chatMessageWriter;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+
+    @Value("${chat.history.default-page-size:50}")
+    private int defaultPageSize;
+
+    @Value("${chat.history.max-page-size:200}")
+    private int maxPageSize;
+
+    public ChatHistoryService(ChatMessageRepository chatMessageRepository,
+                              ChatArchiveService chatArchiveService,
+                              ChatMessageWriter chatMessageWriter,
+                              ObjectMapper objectMapper,
+                              PlatformTransactionManager transactionManager) {
+        this.chatMessageRepository = chatMessageRepository;
+        this.chatArchiveService = chatArchiveService;
+        this.chatMessageWriter = chatMessageWriter;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * 대화 기록 한 페이지 (시간 순).
+     * cursor가 없으면 첫 페이지, 있으면 그 커서 다음부터 size개 (기본/최대 크기는 설정값).
+     * 세그먼트를 읽는 동안 DB 커넥션을 잡지 않도록 트랜잭션 없이 조회한다.
+     */
+    public ChatHistoryResponse getHistory(Long childId, String sessionId, String cursor, Integer size) {
+        int pageSize = (size == null) ? defaultPageSize : Math.max(1, Math.min(size, maxPageSize));
+        KeysetCursor after = (cursor == null || cursor.isBlank()) ? null : KeysetCursor.decode(cursor);
+        ChatMessageWriter.Pending pending = chatMessageWriter.pending(isSession(sessionId, childId));
+
+        // 한 개를 더 읽어 다음 페이지가 있는지 판단
+        List<ChatHistoryItem> items = new ArrayList<>();
+        for (ChatMessage message : chatArchiveService.readArchived(sessionId, childId, after, pageSize + 1)) {
+            items.add(ChatHistoryItem.from(message));
+        }
+        int remaining = pageSize + 1 - items.size();
+        if (remaining > 0) {
+            KeysetCursor hotAfter = items.isEmpty() ? after : cursorOf(items.get(items.size() - 1));
+            List<ChatHistoryItem> rows = hotAfter == null
+                    ? chatMessageRepository.findHistory(sessionId, childId, Limit.of(remaining))
+                    : chatMessageRepository.findHistoryAfter(sessionId, childId, hotAfter.at(), hotAfter.id(), Limit.of(remaining));
+            items.addAll(rows);
+
+            // DB 발화를 모두 읽은 페이지: 아직 저장되지 않은 발화를 이어 붙임
+            if (rows.size() < remaining && !pending.isEmpty()) {
+                pending.removeStored(rows.stream().map(ChatHistoryItem::getId).toList());
+                KeysetCursor pendingAfter = items.isEmpty() ? after : cursorOf(items.get(items.size() - 1));
+                for (ChatMessage message : pending.messages()) {
+                    if (items.size() > pageSize) break;
+                    if (isAfter(message, pendingAfter)) {
+                        items.add(ChatHistoryItem.from(message));
+                    }
+                }
+            }
+        }
+
+        if (after == null && items.isEmpty()) {
+            throw new IllegalArgumentException("해당 세션 ID(" + sessionId + ")에 대한 대화 기록이 존재하지 않습니다.");
+        }
+
+        boolean hasNext = items.size() > pageSize;
+        List<ChatHistoryItem> page = hasNext ? items.subList(0, pageSize) : items;
+        String nextCursor = hasNext ? cursorOf(page.get(page.size() - 1)).encode() : null;
+        return new ChatHistoryResponse(List.copyOf(page), nextCursor);
+    }
+
+    /**
+     * 세션의 전체 대화 기록을 발화 한 건당 한 줄(NDJSON)로 out에 쓴다.
+     * 보관분은 묶음 단위로, hot 테이블은 fetch size 단위의 전진 전용 커서로 읽어 목록을 만들지 않는다.
+     * hot 테이블 커서는 읽기 전용 트랜잭션 안에서만 열려 있다 (PostgreSQL은 트랜잭션 밖에서 전체 결과를 한 번에 가져옴).
+     */
+    public void exportHistory(Long childId, String sessionId, OutputStream out) {
+        ChatMessageWriter.Pending pending = chatMessageWriter.pending(isSession(sessionId, childId));
+        chatArchiveService.forEachArchived(sessionId, childId, message -> writeLine(out, ChatHistoryItem.from(message)));
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<ChatHistoryItem> rows = chatMessageRepository.streamHistory(sessionId, childId)) {
+                rows.forEach(item -> {
+                    // 대기 목록 복사 뒤 저장된 발화는 DB 쪽으로 한 번만 씀
+                    if (!pending.isEmpty()) pending.removeStored(Set.of(item.getId()));
+                    writeLine(out, item);
+                });
+            }
+        });
+        pending.messages().forEach(message -> writeLine(out, ChatHistoryItem.from(message)));
+    }
+
+    private void writeLine(OutputStream out, ChatHistoryItem item) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(item));
+            out.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException("대화 기록 내보내기 실패", e);
+        }
+    }
+
+    // 저장되지 않은 발화(id 없음)는 같은 시각의 저장된 발화 뒤로 정렬
+    private static KeysetCursor cursorOf(ChatHistoryItem item) {
+        return new KeysetCursor(item.getTimestamp(), item.getId() != null ? item.getId() : Long.MAX_VALUE);
+    }
+
+    private static Predicate<ChatMessage> isSession(String sessionId, Long childId) {
+        return message -> sessionId.equals(message.getSessionId()) && childId.equals(message.getChildId());
+    }
+
+    private static boolean isAfter(ChatMessage message, KeysetCursor cursor) {
+        if (cursor == null) return true;
+        int compared = message.getTimestamp().compareTo(cursor.at());
+        return compared > 0 || (compared == 0 && cursor.id() != Long.MAX_VALUE);
+    }
+}
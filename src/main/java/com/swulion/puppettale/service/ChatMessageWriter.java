@@ -0,0 +1,353 @@
+package com.swulion.puppettale.service;
+
+import com.swulion.puppettale.entity.ChatMessage;
+import com.swulion.puppettale.repository.ChatMessageRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * 채팅 메시지 write-behind 저장.
+ * 요청 스레드는 메시지를 대기열에 넣기만 하고, 단일 writer 스레드가 모아서 배치 INSERT 한다.
+ * writer가 하나이므로 같은 세션의 메시지는 들어온 순서대로 저장된다.
+ * 대기열이 가득 차면 요청 스레드가 일정 시간 기다린다(back-pressure).
+ * 그래도 자리가 없으면 같은 세션의 앞선 메시지가 모두 저장된 경우에만 직접 저장하고,
+ * 앞선 메시지가 계속 밀려 있으면 순서를 바꾸는 대신 저장을 거부한다.
+ * 배치는 한 트랜잭션으로 저장하므로 일부만 저장된 채 재시도되어 중복되지 않는다.
+ * 아직 저장되지 않은 메시지는 readThrough로 조회 결과에 합쳐진다.
+ * 대기 목록 복사(pending)와 저장 커밋은 겹치지 않으므로, 복사본의 메시지는 복사 시점에 아직 커밋되지 않은 것뿐이고
+ * 그 뒤 커밋된 메시지는 DB가 부여한 id로 조회 결과의 같은 행을 찾는다 (내용이 같은 다른 발화와 구분).
+ */
+@Component
+@Slf4j
+public class ChatMessageWriter {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO ChatMessages (sessionId, childId, speaker, message, timestamp, logDate, keywords) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final int MAX_FLUSH_ATTEMPTS = 3;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ChatMessageRepository chatMessageRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${chat.write-behind.enabled:true}")
+    private boolean enabled;
+
+    @Value("${chat.write-behind.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${chat.write-behind.batch-size:200}")
+    private int batchSize;
+
+    // 대기열이 비어 있지 않을 때 배치를 모으기 위해 기다리는 최대 시간
+    @Value("${chat.write-behind.flush-interval-ms:200}")
+    private long flushIntervalMs;
+
+    // 대기열이 가득 찼을 때 요청 스레드가 기다리는 최대 시간
+    @Value("${chat.write-behind.enqueue-timeout-ms:2000}")
+    private long enqueueTimeoutMs;
+
+    private BlockingQueue<ChatMessage> queue;
+    // 대기열 + 저장 중인 배치 (조회 시 합치기 위함)
+    private final Map<ChatMessage, Queued> unflushed = new ConcurrentHashMap<>();
+    // 커밋(+ id 기록, 대기 목록에서 제거)은 쓰기 락, 대기 목록 복사와 id 확인은 읽기 락
+    private final ReadWriteLock commitLock = new ReentrantReadWriteLock();
+    private Thread writerThread;
+    private volatile boolean running;
+
+    public ChatMessageWriter(JdbcTemplate jdbcTemplate,
+                             ChatMessageRepository chatMessageRepository,
+                             PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.chatMessageRepository = chatMessageRepository;
+        this.transactionManager = transactionManager;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) return;
+        queue = new LinkedBlockingQueue<>(queueCapacity);
+        running = true;
+        writerThread = new Thread(this::runWriter, "chat-write-behind");
+        writerThread.start();
+    }
+
+    // 남은 메시지를 모두 저장한 뒤 종료
+    @PreDestroy
+    public void shutdown() {
+        if (!enabled) return;
+        running = false; // writer는 대기열을 모두 비운 뒤 종료
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!queue.isEmpty()) {
+            log.error("종료 시 저장하지 못한 채팅 메시지: {}건", queue.size());
+        }
+    }
+
+    public void write(ChatMessage message) {
+        if (!enabled) {
+            chatMessageRepository.save(message);
+            return;
+        }
+
+        unflushed.put(message, new Queued(message));
+        try {
+            if (running && queue.offer(message, enqueueTimeoutMs, TimeUnit.MILLISECONDS)) return;
+            if (writeOverflow(message)) return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            unflushed.remove(message);
+            throw e;
+        }
+
+        unflushed.remove(message);
+        log.error("채팅 메시지 대기열 포화로 저장 거부: sessionId={}", message.getSessionId());
+        throw new IllegalStateException("채팅 메시지 저장 대기열이 가득 찼습니다.");
+    }
+
+    // 대기열 포화(또는 종료 중): 같은 세션의 앞선 메시지가 저장된 뒤에만 직접 저장해 순서를 지킨다.
+    // 한 번 더 enqueue 시간만큼 자리가 나거나 앞선 메시지가 저장되기를 기다린다.
+    private boolean writeOverflow(ChatMessage message) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(enqueueTimeoutMs);
+        while (true) {
+            if (!hasEarlierUnflushed(message)) {
+                log.warn("채팅 메시지 대기열 포화, 직접 저장: sessionId={}", message.getSessionId());
+                try {
+                    commit(List.of(message));
+                } finally {
+                    unflushed.remove(message);
+                }
+                return true;
+            }
+            long remainingMs = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remainingMs <= 0) return false;
+            long waitMs = Math.min(remainingMs, flushIntervalMs);
+            if (running) {
+                if (queue.offer(message, waitMs, TimeUnit.MILLISECONDS)) return true;
+            } else {
+                Thread.sleep(waitMs);
+            }
+        }
+    }
+
+    private boolean hasEarlierUnflushed(ChatMessage message) {
+        for (ChatMessage other : unflushed.keySet()) {
+            if (other != message
+                    && Objects.equals(other.getSessionId(), message.getSessionId())
+                    && Objects.equals(other.getChildId(), message.getChildId())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // 조회 결과에 아직 저장되지 않은 메시지를 합쳐 시간 순으로 반환
+    public List<ChatMessage> readThrough(Predicate<ChatMessage> filter, Supplier<List<ChatMessage>> loader) {
+        // 저장 완료와 조회 사이에 메시지가 빠지지 않도록 대기 목록을 먼저 복사
+        Pending pending = pending(filter);
+        List<ChatMessage> persisted = loader.get();
+        if (pending.isEmpty()) return persisted;
+
+        pending.removeStored(persisted.stream().map(ChatMessage::getId).toList());
+        List<ChatMessage> merged = new ArrayList<>(persisted);
+        merged.addAll(pending.messages());
+        merged.sort(Comparator.comparing(ChatMessage::getTimestamp, Comparator.nullsFirst(Comparator.naturalOrder())));
+        return merged;
+    }
+
+    /**
+     * 아직 커밋되지 않은 메시지의 복사본 (시간 순).
+     * 직접 DB 조회 결과와 합칠 때는 조회 전에 복사해야 그 사이 저장된 메시지가 빠지지 않고,
+     * 조회 결과의 id로 {@link Pending#removeStored}를 불러 그 사이 저장되어 겹치는 메시지를 뺀다.
+     */
+    public Pending pending(Predicate<ChatMessage> filter) {
+        commitLock.readLock().lock();
+        try {
+            List<Queued> entries = new ArrayList<>();
+            for (Queued queued : unflushed.values()) {
+                if (filter.test(queued.message)) entries.add(queued);
+            }
+            entries.sort(Comparator.comparing(queued -> queued.message.getTimestamp(),
+                    Comparator.nullsFirst(Comparator.naturalOrder())));
+            return new Pending(entries, commitLock);
+        } finally {
+            commitLock.readLock().unlock();
+        }
+    }
+
+    public int getQueueSize() {
+        return queue != null ? queue.size() : 0;
+    }
+
+    private void runWriter() {
+        List<ChatMessage> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                ChatMessage first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+            } catch (InterruptedException e) {
+                // 남은 메시지는 반복문에서 계속 비움
+                queue.drainTo(batch, batchSize);
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<ChatMessage> batch) {
+        for (int attempt = 1; attempt <= MAX_FLUSH_ATTEMPTS; attempt++) {
+            try {
+                // 한 트랜잭션으로 저장: 일부만 커밋된 뒤 재시도되어 중복 저장되지 않도록
+                commit(batch);
+                return;
+            } catch (Exception e) {
+                log.warn("채팅 메시지 배치 저장 실패 (시도: {}/{}, {}건): {}", attempt, MAX_FLUSH_ATTEMPTS, batch.size(), e.getMessage());
+                sleepQuietly(500L * attempt);
+            }
+        }
+
+        // 배치 전체가 실패하면 한 건씩 저장해 문제 있는 메시지만 걸러냄
+        for (ChatMessage message : batch) {
+            try {
+                commit(List.of(message));
+            } catch (Exception e) {
+                log.error("채팅 메시지 저장 최종 실패: sessionId={}, timestamp={}", message.getSessionId(), message.getTimestamp(), e);
+            } finally {
+                unflushed.remove(message);
+            }
+        }
+    }
+
+    // 한 트랜잭션으로 INSERT 하고, 커밋과 함께 부여된 id를 기록한 뒤 대기 목록에서 뺌 (커밋만 쓰기 락 안에서)
+    private void commit(List<ChatMessage> batch) {
+        TransactionStatus status = transactionManager.getTransaction(TransactionDefinition.withDefaults());
+        List<Long> ids;
+        try {
+            ids = insertBatch(batch);
+        } catch (RuntimeException | Error e) {
+            transactionManager.rollback(status);
+            throw e;
+        }
+        commitLock.writeLock().lock();
+        try {
+            transactionManager.commit(status);
+            for (int i = 0; i < batch.size(); i++) {
+                Queued queued = unflushed.remove(batch.get(i));
+                if (queued != null && i < ids.size()) queued.storedId = ids.get(i);
+            }
+        } finally {
+            commitLock.writeLock().unlock();
+        }
+    }
+
+    private List<Long> insertBatch(List<ChatMessage> batch) {
+        GeneratedKeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(con -> con.prepareStatement(INSERT_SQL, new String[] {"id"}), new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ChatMessage message = batch.get(i);
+                ps.setString(1, message.getSessionId());
+                ps.setObject(2, message.getChildId(), Types.BIGINT);
+                ps.setString(3, message.getSpeaker() != null ? message.getSpeaker().name() : null);
+                ps.setString(4, message.getMessage());
+                ps.setObject(5, message.getTimestamp());
+                ps.setObject(6, message.getLogDate());
+                ps.setString(7, message.getKeywords());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return batch.size();
+            }
+        }, keys);
+        // 드라이버마다 키 컬럼 이름이 달라(id, GENERATED_KEY 등) 첫 값을 씀
+        return keys.getKeyList().stream()
+                .map(row -> ((Number) row.values().iterator().next()).longValue())
+                .toList();
+    }
+
+    // 대기 중인 메시지와, 커밋된 뒤 DB가 부여한 id (commitLock 안에서만 읽고 씀)
+    static final class Queued {
+        private final ChatMessage message;
+        private Long storedId;
+
+        Queued(ChatMessage message) {
+            this.message = message;
+        }
+    }
+
+    /**
+     * {@link #pending}으로 복사한 대기 목록. 한 요청 안에서만 쓴다.
+     */
+    public static final class Pending {
+        private final List<Queued> entries;
+        private final ReadWriteLock commitLock;
+
+        Pending(List<Queued> entries, ReadWriteLock commitLock) {
+            this.entries = entries;
+            this.commitLock = commitLock;
+        }
+
+        public boolean isEmpty() {
+            return entries.isEmpty();
+        }
+
+        public List<ChatMessage> messages() {
+            return entries.stream().map(queued -> queued.message).toList();
+        }
+
+        // 복사 뒤 커밋되어 조회 결과(ids)에 들어 있는 메시지를 뺌. 커밋 중인 배치가 있으면 id가 기록될 때까지 기다림
+        public void removeStored(Collection<Long> ids) {
+            if (entries.isEmpty() || ids.isEmpty()) return;
+            commitLock.readLock().lock();
+            try {
+                entries.removeIf(queued -> queued.storedId != null && ids.contains(queued.storedId));
+            } finally {
+                commitLock.readLock().unlock();
+            }
+        }
+    }
+
+    private void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
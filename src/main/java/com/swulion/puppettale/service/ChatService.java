@@ -4,22 +4,19 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.swulion.puppettale.constant.PuppetMode;
 import com.swulion.puppettale.dto.*;
 import com.swulion.puppettale.entity.ChatMessage;
-import com.swulion.puppettale.entity.Child;
-import com.swulion.puppettale.entity.Puppet;
 import com.swulion.puppettale.entity.Speaker;
-import com.swulion.puppettale.repository.ChatMessageRepository;
-import com.swulion.puppettale.repository.ChildRepository;
+import com.swulion.puppettale.util.ChatJsonStreamExtractor;
+import com.swulion.puppettale.util.GeminiResponseDecoder;
 import com.swulion.puppettale.util.KoreanParticleUtil;
-import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.client.HttpServerErrorException;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.BufferedReader;
 import java.io.InputStreamReader;
 import java.io.IOException;
 import java.time.LocalDate;
@@ -27,10 +24,10 @@ import java.time.LocalDateTime;
 import java.time.Period;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
-import org.springframework.util.FileCopyUtils;
-import org.springframework.core.io.Resource;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import static java.nio.charset.StandardCharsets.UTF_8;
 
 @Service
@@ -38,106 +35,110 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 @Slf4j
 public class ChatService {
 
-    private final ChatMessageRepository chatMessageRepository;
-    private final ChildRepository childRepository;
-    private final RestTemplate restTemplate;
+    private final ChatMessageWriter chatMessageWriter;
+    private final ChatTranscriptCache chatTranscriptCache;
+    private final ContextWindowManager contextWindowManager;
+    private final SystemPromptService systemPromptService;
+    private final GeminiContextCache geminiContextCache;
+    private final ChildProfileService childProfileService;
+    private final GeminiClient geminiClient;
+    private final GeminiHedger geminiHedger;
     private final SoundService soundService;
-    private final PuppetService puppetService;
-    private final ConcurrentMap<String, String> sessionSoundMap = new ConcurrentHashMap<>();
+    private final SessionStateStore sessionStateStore;
     private final FairyTaleService fairyTaleService;
+    private final Executor chatStreamExecutor;
 
-    // application.properties에서 API Key 주입
-    @Value("${api.key.gemini}")
-    private String apiKey;
+    private final ObjectMapper objectMapper;
 
-    // API URL 및 모델 설정
+    // 모델 설정
     private static final String GEMINI_MODEL = "gemini-2.5-flash";
-    private static final String GEMINI_API_URL =
-            "https://generativelanguage.googleapis.com/v1beta/models/" + GEMINI_MODEL + ":generateContent?key=";
+    private static final long STREAM_TIMEOUT_MS = 60_000L;
+    private static final String BUSY_MESSAGE = "생각 중이야! 잠시만 기다려줘.";
+    // 아동/세션 토큰 하드 예산을 넘었을 때 안내
+    private static final String BUDGET_MESSAGE = "오늘은 이야기를 정말 많이 나눴어! 내일 또 재미있게 이야기하자.";
 
-    // 리소스 파일 주입
-    @Value("classpath:prompts/ai_systemPrompt_template.txt")
-    private Resource aiSystemPromptResource;
-    private String aiSystemPromptTemplate;
+    // 세션별 진행 중인 턴 (같은 메시지 재전송은 진행 중인 턴에 합류)
+    private final ChatTurnSingleFlight chatTurnSingleFlight;
 
-    @Value("classpath:prompts/ai_systemPrompt_affectionate.txt")
-    private Resource affectionatePromptResource;
-    private String affectionatePromptTemplate;
+    // 응답 본문 로그 (길이 제한, 샘플링)
+    private final PayloadLogger payloadLogger;
 
-    @Value("classpath:prompts/ai_systemPrompt_energetic.txt")
-    private Resource energeticPromptResource;
-    private String energeticPromptTemplate;
+    // 단계별 소요 시간 (profile, prompt, gemini, persist)
+    private final HotPathMetrics hotPathMetrics;
 
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    // 스트리밍 응답의 토큰 사용량 기록 (일반 호출은 GeminiClient에서 기록)
+    private final TokenUsageService tokenUsageService;
 
-    @PostConstruct
-    public void init() {
-        try {
-            // 공통 기반 템플릿
-            this.aiSystemPromptTemplate = FileCopyUtils.copyToString(
-                    new InputStreamReader(aiSystemPromptResource.getInputStream(), UTF_8));
-            // 모드별
-            this.affectionatePromptTemplate = FileCopyUtils.copyToString(
-                    new InputStreamReader(affectionatePromptResource.getInputStream(), UTF_8));
-            this.energeticPromptTemplate = FileCopyUtils.copyToString(
-                    new InputStreamReader(energeticPromptResource.getInputStream(), UTF_8));
-        } catch (IOException e){
-            this.aiSystemPromptTemplate = "프롬프트 로드 실패";
-        }
-    }
+    // 확실한 위험/유해 표현은 Gemini 호출 없이 처리
+    private final SafetyPreFilter safetyPreFilter;
 
-    private final ConcurrentMap<String, Long> lastRequestTimeMap = new ConcurrentHashMap<>();
-
-    @Transactional
     public ChatResponseDto processChat(ChatStartRequestDto request) { // DTO를 ChatStartRequestDto로 통일 (soundId 포함)
         String sessionId = request.getSessionId();
-        long currentTime = System.currentTimeMillis();
-
-        // 중복 전송 방지 로직 (2초 이내 동일 세션 요청 차단)
-        if (lastRequestTimeMap.containsKey(sessionId)) {
-            long lastTime = lastRequestTimeMap.get(sessionId);
-            if (currentTime - lastTime < 2000) { // 2초 간격
-                log.warn("중복 채팅 요청 차단: sessionId={}", sessionId);
-                return ChatResponseDto.builder().aiResponse("생각 중이야! 잠시만 기다려줘.").build();
-            }
+
+        // 중복 전송 방지: 같은 세션에서 턴이 진행 중이면 새로 호출하지 않음
+        ChatTurnSingleFlight.Join join = chatTurnSingleFlight.join(sessionId, request.getUserMessage());
+        if (!join.leader()) {
+            return awaitInFlightTurn(sessionId, join);
         }
-        lastRequestTimeMap.put(sessionId, currentTime);
 
-        Long childId = (request.getChildId() != null) ? request.getChildId() : 3L; // FE 맞춰 하드코딩
+        try {
+            // 턴 동안의 Gemini 호출(요약 포함) 토큰 사용량을 세션별로 집계
+            ChatResponseDto response = TokenUsageService.inSession(sessionId, () -> runChatTurn(request));
+            chatTurnSingleFlight.complete(sessionId, join.flight(), response);
+            return response;
+        } catch (RuntimeException e) {
+            chatTurnSingleFlight.fail(sessionId, join.flight(), e);
+            throw e;
+        }
+    }
 
-        Child child = childRepository.findById(childId)
-                .orElseThrow(() -> new RuntimeException("아동 정보를 찾을 수 없습니다."));
+    private ChatResponseDto runChatTurn(ChatStartRequestDto request) {
+        String sessionId = request.getSessionId();
+        Long childId = (request.getChildId() != null) ? request.getChildId() : 3L; // FE 맞춰 하드코딩
 
-        Puppet puppet = child.getPuppet();
-        if (puppet == null) {
+        // 아동/퍼펫 정보는 짧은 읽기 트랜잭션에서 스냅샷으로 가져옴 (Gemini 호출 중 커넥션 점유 방지)
+        ChildProfile profile = hotPathMetrics.time(HotPathMetrics.CHAT_PHASE, "profile", null,
+                () -> childProfileService.getProfile(childId));
+        if (!profile.isHasPuppet()) {
             throw new RuntimeException("해당 아동의 퍼펫 설정이 존재하지 않습니다.");
         }
 
         String userMessage = request.getUserMessage();
         String soundId = Optional.ofNullable(request.getSoundId()).orElse("none"); // soundId가 없으면 "none" 사용
 
-        String userName = child.getName();
-        Integer userAge = calculateAge(child.getBirthdate());
+        String userName = profile.getName();
+        Integer userAge = calculateAge(profile.getBirthdate());
         if (userAge == null) userAge = 7;
         String userConstraint = Optional.ofNullable(request.getUserConstraint()).orElse("없음");
 
-        String puppetName = puppet.getName();
-        PuppetMode currentMode = puppetService.getPuppetMode(childId);
+        String puppetName = profile.getPuppetName();
+        PuppetMode currentMode = profile.getPuppetMode();
 
         LocalDateTime now = LocalDateTime.now();
 
         // 1. 사용자 메시지 저장
-        saveMessage(sessionId, Speaker.USER, userMessage, now, childId);
+        hotPathMetrics.time(HotPathMetrics.CHAT_PHASE, "persist", currentMode,
+                () -> saveMessage(sessionId, Speaker.USER, userMessage, now, childId));
 
         // 2. AI 응답 생성 (soundId와 함께 Gemini 호출)
-        String aiResponse = callGeminiApi(sessionId, userMessage, soundId,
-                userName, userAge, userConstraint, puppetName, currentMode, childId);
-        String finalSoundId = sessionSoundMap.getOrDefault(sessionId, "none");
+        // 안전 어휘에 확실히 걸리면 Gemini 판단을 기다리지 않고 같은 안전 응답 경로로 처리
+        SafetyPreFilter.Verdict verdict = safetyPreFilter.classify(userMessage);
+        String aiResponse;
+        if (verdict.isShortCircuit()) {
+            log.info("안전 사전 필터 {} 일치, Gemini 호출 생략: sessionId={}", verdict.safetyStatus(), sessionId);
+            resolveSoundId(sessionId, soundId);
+            aiResponse = applySafetyPolicy(verdict.safetyStatus(), null, userName, puppetName, childId);
+        } else {
+            aiResponse = callGeminiApi(sessionId, userMessage, soundId,
+                    userName, userAge, userConstraint, puppetName, currentMode, childId);
+        }
+        String finalSoundId = sessionStateStore.getSoundId(sessionId).orElse("none");
         String backgroundUrl = soundService.getBackgroundImageUrl(finalSoundId);
 
         // 3. AI 응답 메시지 저장
         LocalDateTime aiResponseTime = LocalDateTime.now();
-        saveMessage(sessionId, Speaker.AI, aiResponse, aiResponseTime, childId);
+        hotPathMetrics.time(HotPathMetrics.CHAT_PHASE, "persist", currentMode,
+                () -> saveMessage(sessionId, Speaker.AI, aiResponse, aiResponseTime, childId));
 
         // 4. 응답 DTO 생성
         return ChatResponseDto.builder()
@@ -149,206 +150,328 @@ public class ChatService {
                 .build();
     }
 
-    // 생년월일 기반 나이 계산
-    private Integer calculateAge(LocalDate birthdate) {
-        if (birthdate == null) return null;
-        return Period.between(birthdate, LocalDate.now()).getYears();
+    // 스트리밍 채팅: 사용자 메시지를 저장하고, Gemini 응답의 response 텍스트를 도착하는 대로 SSE로 전달
+    public SseEmitter processChatStream(ChatStartRequestDto request) {
+        String sessionId = request.getSessionId();
+        SseEmitter emitter = new SseEmitter(STREAM_TIMEOUT_MS);
+
+        // 중복 전송 방지: 진행 중인 턴이 있으면 그 턴의 최종 응답만 done 이벤트로 전달
+        ChatTurnSingleFlight.Join join = chatTurnSingleFlight.join(sessionId, request.getUserMessage());
+        if (!join.leader()) {
+            if (!join.sameMessage()) {
+                log.warn("진행 중인 턴이 있어 채팅 요청 차단: sessionId={}", sessionId);
+                sendDone(emitter, ChatResponseDto.builder().aiResponse(BUSY_MESSAGE).build());
+                return emitter;
+            }
+            log.info("진행 중인 턴에 합류 (스트리밍): sessionId={}", sessionId);
+            join.flight().getResult().whenComplete((response, error) -> {
+                if (error != null) {
+                    emitter.completeWithError(error);
+                } else {
+                    sendDone(emitter, (response != null) ? response : ChatResponseDto.builder().aiResponse(BUSY_MESSAGE).build());
+                }
+            });
+            return emitter;
+        }
+
+        try {
+            TokenUsageService.inSession(sessionId, () -> {
+                startChatStream(request, emitter, join.flight());
+                return null;
+            });
+        } catch (RuntimeException e) {
+            chatTurnSingleFlight.fail(sessionId, join.flight(), e);
+            throw e;
+        }
+        return emitter;
     }
 
-    private String callGeminiApi(String sessionId, String userMessage, String soundId,
-                                 String userName, Integer userAge, String userConstraint,
-                                 String puppetName, PuppetMode puppetMode, Long childId) {
-        String currentSoundId = Optional.ofNullable(soundId).orElse("").toLowerCase();
+    private void startChatStream(ChatStartRequestDto request, SseEmitter emitter, ChatTurnSingleFlight.Flight flight) {
+        String sessionId = request.getSessionId();
+        Long childId = (request.getChildId() != null) ? request.getChildId() : 3L; // FE 맞춰 하드코딩
 
-        // soundId가 명시적으로 제공된 경우에만 맵을 업데이트
-        if (!currentSoundId.isEmpty() && !currentSoundId.equals("null")) {
-            sessionSoundMap.put(sessionId, currentSoundId);
-        } else {
-            // soundId가 없으면 (null이거나 "none"이거나 "null" 문자열이면), 맵에 저장된 이전 값을 사용
-            currentSoundId = sessionSoundMap.getOrDefault(sessionId, "none");
+        ChildProfile profile = hotPathMetrics.time(HotPathMetrics.CHAT_PHASE, "profile", null,
+                () -> childProfileService.getProfile(childId));
+        if (!profile.isHasPuppet()) {
+            throw new RuntimeException("해당 아동의 퍼펫 설정이 존재하지 않습니다.");
         }
 
-        // 사운드 컨텍스트와 기본 페르소나를 결합하여 최종 시스템 명령 생성
-        String soundContext = soundService.getAiContext(currentSoundId); // 결정된 soundId 사용
-
-        // 모드에 따른 지침 선택
-        String modeInstruction = (puppetMode == PuppetMode.ENERGETIC) ? energeticPromptTemplate : affectionatePromptTemplate;
+        String userMessage = request.getUserMessage();
+        String userName = profile.getName();
+        Integer userAge = Optional.ofNullable(calculateAge(profile.getBirthdate())).orElse(7);
+        String userConstraint = Optional.ofNullable(request.getUserConstraint()).orElse("없음");
+        String puppetName = profile.getPuppetName();
+        PuppetMode currentMode = profile.getPuppetMode();
 
-        modeInstruction = modeInstruction
-                .replace("{Puppet_Name}", puppetName)
-                .replace("{User_Name}", userName);
+        // 1. 사용자 메시지 저장
+        hotPathMetrics.time(HotPathMetrics.CHAT_PHASE, "persist", currentMode,
+                () -> saveMessage(sessionId, Speaker.USER, userMessage, LocalDateTime.now(), childId));
+
+        // 안전 어휘에 확실히 걸리면 스트리밍 없이 최종 응답만 전달
+        SafetyPreFilter.Verdict verdict = safetyPreFilter.classify(userMessage);
+        if (verdict.isShortCircuit()) {
+            log.info("안전 사전 필터 {} 일치, Gemini 호출 생략 (스트리밍): sessionId={}", verdict.safetyStatus(), sessionId);
+            resolveSoundId(sessionId, request.getSoundId());
+            String aiResponse = applySafetyPolicy(verdict.safetyStatus(), null, userName, puppetName, childId);
+            chatTurnSingleFlight.complete(sessionId, flight, finishStream(emitter, sessionId, aiResponse, currentMode, childId));
+            return;
+        }
 
-        String combinedConstraint = modeInstruction + "\n(추가 제약사항: " + userConstraint + ")";
+        // 2. 요청 본문은 요청 스레드에서 만들고, Gemini 스트림 수신은 별도 스레드에서 처리
+        GeminiChatRequestDto requestBody = hotPathMetrics.time(HotPathMetrics.CHAT_PHASE, "prompt", currentMode,
+                () -> buildGeminiRequest(sessionId, request.getSoundId(),
+                        userName, userAge, userConstraint, puppetName, currentMode, childId));
 
-        String systemInstruction = this.aiSystemPromptTemplate
-                .replace("{Puppet_Name}", puppetName)
-                .replace("{User_Name}", userName)
-                .replace("{User_Age}", userAge != null ? userAge.toString() : "7")
-                .replace("{User_Constraint}", combinedConstraint)
-                + "\n\n" + soundContext;
+        // 첫 토큰 시간은 작업 스레드 배정 대기(가상 스레드 동시 실행 제한 포함)부터 잼
+        long startedAt = System.currentTimeMillis();
+        try {
+            chatStreamExecutor.execute(() -> {
+                try {
+                    ChatResponseDto done = TokenUsageService.inSession(sessionId, () -> streamGeminiApi(emitter, sessionId, requestBody, userName, puppetName, currentMode, childId, startedAt));
+                    chatTurnSingleFlight.complete(sessionId, flight, done);
+                } catch (RuntimeException e) {
+                    chatTurnSingleFlight.fail(sessionId, flight, e);
+                    throw e;
+                }
+            });
+        } catch (TaskRejectedException e) {
+            // 스트리밍 스레드가 모두 사용 중이면 500 대신 SSE로 안내
+            log.warn("스트리밍 작업 스레드 포화로 채팅 요청 거절: sessionId={}", sessionId);
+            ChatResponseDto busy = ChatResponseDto.builder().aiResponse(BUSY_MESSAGE).build();
+            sendDone(emitter, busy);
+            chatTurnSingleFlight.complete(sessionId, flight, busy);
+        }
+    }
 
-        // 이전 대화 기록 조회 (시간 순)
-        List<ChatMessage> history = chatMessageRepository.findBySessionIdAndChildIdOrderByTimestampAsc(sessionId, childId);
+    // 같은 메시지면 진행 중인 턴의 결과를 함께 받고, 다른 메시지면 바로 안내
+    private ChatResponseDto awaitInFlightTurn(String sessionId, ChatTurnSingleFlight.Join join) {
+        if (!join.sameMessage()) {
+            log.warn("진행 중인 턴이 있어 채팅 요청 차단: sessionId={}", sessionId);
+            return ChatResponseDto.builder().aiResponse(BUSY_MESSAGE).build();
+        }
+        log.info("진행 중인 턴에 합류: sessionId={}", sessionId);
+        try {
+            ChatResponseDto response = join.flight().getResult().get(STREAM_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            return (response != null) ? response : ChatResponseDto.builder().aiResponse(BUSY_MESSAGE).build();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException runtime ? runtime : new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            return ChatResponseDto.builder().aiResponse(BUSY_MESSAGE).build();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ChatResponseDto.builder().aiResponse(BUSY_MESSAGE).build();
+        }
+    }
 
-        // Contents 리스트 구성
-        List<GeminiChatRequestDto.Content> contents = new ArrayList<>();
+    private ChatResponseDto streamGeminiApi(SseEmitter emitter, String sessionId, GeminiChatRequestDto inlineRequest,
+                                 String userName, String puppetName, PuppetMode puppetMode, Long childId, long startedAt) {
+        ChatJsonStreamExtractor extractor = new ChatJsonStreamExtractor();
+        StringBuilder pending = new StringBuilder(); // safety_status 확인 전까지 보류하는 텍스트
+        boolean[] firstToken = {true};
+        boolean[] clientOpen = {true}; // 클라이언트가 연결을 끊으면 delta 전송만 멈추고 Gemini 스트림은 끝까지 읽음
+        String aiResponse;
 
-        // 1. System Instruction을 첫 번째 Content로 추가
-        contents.add(
-                GeminiChatRequestDto.Content.builder()
-                        .role("user")
-                        .parts(List.of(new GeminiChatRequestDto.Part(systemInstruction)))
-                        .build()
-        );
-
-        // 2. 이전 대화 기록을 Gemini API 형식으로 변환하여 추가
-        for (ChatMessage log : history) {
-            String role = log.getSpeaker() == Speaker.USER ? "user" : "model";
-            contents.add(
-                    GeminiChatRequestDto.Content.builder()
-                            .role(role)
-                            .parts(List.of(new GeminiChatRequestDto.Part(log.getMessage())))
-                            .build()
-            );
+        GeminiChatRequestDto cachedRequest = geminiContextCache.withCachedInstruction(GEMINI_MODEL, inlineRequest);
+        try {
+            hotPathMetrics.time(HotPathMetrics.CHAT_PHASE, "gemini_stream", puppetMode, () -> {
+                try {
+                    streamGeminiRequest(cachedRequest, emitter, extractor, pending, sessionId, childId, startedAt, firstToken, clientOpen);
+                } catch (org.springframework.web.client.HttpClientErrorException e) {
+                    // 캐시가 만료/삭제된 경우 인라인 시스템 명령으로 다시 요청 (스트림 시작 전 에러)
+                    if (!geminiContextCache.isCacheMiss(cachedRequest, e)) throw e;
+                    geminiContextCache.evict(cachedRequest);
+                    streamGeminiRequest(inlineRequest, emitter, extractor, pending, sessionId, childId, startedAt, firstToken, clientOpen);
+                }
+            });
+
+            String finalResponse = extractor.isJson() ? extractor.getResponse() : GeminiResponseDecoder.stripCodeFence(extractor.getRawText());
+            String safetyStatus = Optional.ofNullable(extractor.getSafetyStatus()).orElse("GREEN");
+            aiResponse = applySafetyPolicy(safetyStatus, finalResponse, userName, puppetName, childId);
+        } catch (TokenBudgetExceededException e) {
+            log.warn("토큰 예산 초과, 안내 문구로 응답 (스트리밍): {}", e.getMessage());
+            aiResponse = BUDGET_MESSAGE;
+        } catch (GeminiUnavailableException | HttpServerErrorException e) {
+            log.warn("Gemini 스트리밍 호출 불가 (차단 중 또는 서버 오류 지속): {}", e.getMessage());
+            aiResponse = "AI 서버와 통신 중 오류: 지속적인 서버 과부하";
+        } catch (org.springframework.web.client.HttpClientErrorException e) {
+            log.error("Gemini 스트리밍 호출 에러 (HTTP {})", e.getStatusCode());
+            payloadLogger.error(PayloadLogger.Category.GEMINI_ERROR, "Gemini 스트리밍 오류 응답", e.getResponseBodyAsString());
+            aiResponse = "AI 연결 오류: " + e.getStatusText() + " (" + e.getStatusCode() + ")";
+        } catch (Exception e) {
+            log.error("Gemini 스트리밍 알 수 없는 에러 발생", e);
+            aiResponse = "AI 서버와 통신 중 오류 (로그 확인 필요)";
         }
 
-        // 요청 DTO 생성
-        GeminiChatRequestDto requestBody = new GeminiChatRequestDto(contents);
+        log.info("Gemini 스트리밍 완료: sessionId={}, {}ms", sessionId, System.currentTimeMillis() - startedAt);
+        return finishStream(emitter, sessionId, aiResponse, puppetMode, childId);
+    }
 
-        // Header 및 Entity 준비
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        HttpEntity<GeminiChatRequestDto> entity = new HttpEntity<>(requestBody, headers);
-        String apiUrlWithKey = GEMINI_API_URL + apiKey;
+    // 3. 스트림 종료 후 최종 응답 저장, 4. 최종 응답 전달
+    private ChatResponseDto finishStream(SseEmitter emitter, String sessionId, String aiResponse,
+                                         PuppetMode puppetMode, Long childId) {
+        LocalDateTime aiResponseTime = LocalDateTime.now();
+        hotPathMetrics.time(HotPathMetrics.CHAT_PHASE, "persist", puppetMode,
+                () -> saveMessage(sessionId, Speaker.AI, aiResponse, aiResponseTime, childId));
 
-        final int MAX_RETRIES = 3;
-        final long WAIT_TIME_MS = 1000; // 1초 대기
+        String finalSoundId = sessionStateStore.getSoundId(sessionId).orElse("none");
 
-        for (int attempt = 1; attempt <= MAX_RETRIES; attempt++) {
-            try {
-                // RestTemplate으로 API 호출
-                ResponseEntity<String> response = restTemplate.postForEntity(
-                        apiUrlWithKey, entity, String.class
-                );
-
-                if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
-                    String jsonText = response.getBody();
-                    log.info("Gemini Raw Response Body: {}", jsonText);
-
-                    GeminiApiResponse apiResponse = objectMapper.readValue(jsonText, GeminiApiResponse.class);
-                    String innerJsonText = apiResponse.getCandidates().get(0)
-                            .getContent().getParts().get(0).getText();
-
-                    if (innerJsonText.contains("```json")) {
-                        innerJsonText = innerJsonText.substring(innerJsonText.indexOf("```json") + 7);
-                        innerJsonText = innerJsonText.substring(0, innerJsonText.lastIndexOf("```"));
-                    } else if (innerJsonText.contains("```")) {
-                        innerJsonText = innerJsonText.substring(innerJsonText.indexOf("```") + 3);
-                        innerJsonText = innerJsonText.substring(0, innerJsonText.lastIndexOf("```"));
-                    }
-                    innerJsonText = innerJsonText.trim();
-
-//                    GeminiChatJsonContentDto geminiResult = objectMapper.readValue(innerJsonText, GeminiChatJsonContentDto.class);
-//                    String safetyStatus = geminiResult.getThoughtProcess().getSafetyStatus();
-//                    String finalResponse = geminiResult.getResponse();
-
-                    String finalResponse = "";
-                    String safetyStatus = "GREEN";
-
-                    try {
-                        // JSON 형식인 경우에만 파싱 시도
-                        if (innerJsonText.startsWith("{")) {
-                            GeminiChatJsonContentDto geminiResult = objectMapper.readValue(innerJsonText, GeminiChatJsonContentDto.class);
-                            safetyStatus = geminiResult.getThoughtProcess().getSafetyStatus();
-                            finalResponse = geminiResult.getResponse();
-                        } else {
-                            // JSON이 아니면(평문이면) 받은 텍스트 그대로를 응답으로 간주
-                            log.warn("Gemini가 JSON 형식을 지키지 않음. 평문 응답 처리: {}", innerJsonText);
-                            finalResponse = innerJsonText;
-                        }
-                    } catch (Exception e) {
-                        // 파싱 에러 발생 시 평문으로 치환
-                        log.error("JSON 파싱 에러 발생, 평문으로 전환: {}", e.getMessage());
-                        finalResponse = innerJsonText;
-                    }
+        // 4. 최종 응답 (치환된 응답 포함) 전달 후 종료
+        ChatResponseDto done = ChatResponseDto.builder()
+                .sessionId(sessionId)
+                .aiResponse(aiResponse)
+                .timestamp(aiResponseTime.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME))
+                .currentSoundId(finalSoundId)
+                .backgroundImageUrl(soundService.getBackgroundImageUrl(finalSoundId))
+                .build();
+        sendDone(emitter, done);
+        return done;
+    }
 
-                    // HARMFUL 유해표현 처리
-                    if ("HARMFUL".equalsIgnoreCase(safetyStatus)) {
-                        if (finalResponse == null || finalResponse.isBlank()) {
-                            finalResponse =
-                                    userName + KoreanParticleUtil.iGa(userName) + ", 그 말은 다른 사람의 마음을 아프게 하는 말이야. '진짜 너무 화나!' 이렇게 예쁜 말로 표현해볼까?";
+    // streamGenerateContent 호출 후, 받은 조각을 extractor에 넣으며 확정된 텍스트를 delta 이벤트로 전송
+    // 전송에 실패하면(클라이언트 연결 끊김) 이후 전송은 건너뛰되, 최종 응답을 저장할 수 있도록 스트림은 끝까지 읽음
+    private void streamGeminiRequest(GeminiChatRequestDto requestBody, SseEmitter emitter,
+                                     ChatJsonStreamExtractor extractor, StringBuilder pending,
+                                     String sessionId, Long childId, long startedAt, boolean[] firstToken,
+                                     boolean[] clientOpen) {
+        GeminiUsageMetadata[] usage = {null};
+        geminiClient.streamGenerateContent(GEMINI_MODEL, requestBody, childId,
+                httpResponse -> {
+                    BufferedReader reader = new BufferedReader(new InputStreamReader(httpResponse.getBody(), UTF_8));
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        if (!line.startsWith("data:")) continue;
+
+                        GeminiApiResponse chunk = objectMapper.readValue(line.substring(5).trim(), GeminiApiResponse.class);
+                        // usageMetadata는 조각마다 누적값으로 오므로 마지막 값만 기록
+                        if (chunk.getUsageMetadata() != null) usage[0] = chunk.getUsageMetadata();
+                        String delta = extractor.append(firstText(chunk));
+                        if (!delta.isEmpty() && firstToken[0]) {
+                            firstToken[0] = false;
+                            log.info("Gemini 스트리밍 첫 응답 토큰: sessionId={}, {}ms", sessionId, System.currentTimeMillis() - startedAt);
                         }
-                    }
-
-                    // RED_FLAG 처리
-                    if ("RED_FLAG".equalsIgnoreCase(safetyStatus)) {
-                        Child child = childRepository.findById(childId)
-                                .orElseThrow(() -> new RuntimeException("아이 정보를 찾을 수 없습니다."));
-
-                        if (Boolean.TRUE.equals(child.getIsWarningState())) {
-                            // 2단계: 즉각 대응
-                            finalResponse =
-                                    userName + ", 그건 너무 무섭고 위험한 생각이야. " +
-                                    puppetName + KoreanParticleUtil.iGa(puppetName) + " 혼자서는 도와주기 어려워. 이건 꼭 보호자나 선생님이 같이 도와줘야 하는 이야기야. 우리 같이 말씀드리자.";
-                        } else {
-                            // 1단계: 경고
-                            finalResponse =
-                                    puppetName + KoreanParticleUtil.eunNeun(puppetName) + " " +
-                                    userName + KoreanParticleUtil.eulReul(userName) + " 정말 소중하게 생각하거든. 그런데 방금 이야기는 " +
-                                    puppetName + " 마음을 조금 무섭게 만드는 것 같아. 우리 조금 더 즐거운 이야기를 해볼까?";
-
-                            child.setIsWarningState(true);
-                            childRepository.save(child);
-
-                            log.info("1차 경고 - childId: {}", childId);
+                        pending.append(delta);
+                        if (pending.isEmpty()) continue;
+
+                        // RED_FLAG는 최종 응답이 통째로 치환되므로 모델 텍스트를 흘려보내지 않음
+                        // (safety_status가 response 뒤에 오면, 확인되는 조각에서 보류분을 한꺼번에 전송)
+                        String safetyStatus = extractor.getSafetyStatus();
+                        if (!extractor.isJson() || (safetyStatus != null && !"RED_FLAG".equalsIgnoreCase(safetyStatus))) {
+                            if (clientOpen[0]) clientOpen[0] = trySendDelta(emitter, sessionId, pending.toString());
+                            pending.setLength(0);
                         }
                     }
+                    tokenUsageService.record(GeminiClient.CallType.CHAT_STREAM, childId, sessionId, usage[0]);
+                    return null;
+                });
+    }
 
-                    // MEDICAL 처리
-                    else if ("MEDICAL".equalsIgnoreCase(safetyStatus)) {
-                        if (finalResponse == null || finalResponse.isBlank()) {
-                            finalResponse =
-                                    userName + KoreanParticleUtil.eunNeun(userName) +
-                                            " 많이 아프구나. 의사 선생님이 도와줄 수 있게 말씀드려볼까? " +
-                                            "주위에 보호자가 계실까?";
-                        }
-                    }
+    private String firstText(GeminiApiResponse chunk) {
+        if (chunk.getCandidates() == null || chunk.getCandidates().isEmpty()) return "";
+        Content content = chunk.getCandidates().get(0).getContent();
+        if (content == null || content.getParts() == null || content.getParts().isEmpty()) return "";
+        return Optional.ofNullable(content.getParts().get(0).getText()).orElse("");
+    }
 
-                    if (finalResponse != null) {
-                        finalResponse = finalResponse
-                                .replace("\n", " ")
-                                .replace("\r", " ")
-                                .replaceAll("\\s{2,}", " ")
-                                .trim();
-                    }
+    // 전송 성공 여부 반환 (연결이 끊겼거나 emitter가 이미 끝났으면 false)
+    private boolean trySendDelta(SseEmitter emitter, String sessionId, String text) {
+        try {
+            emitter.send(SseEmitter.event().name("delta").data(text.replace("\n", " ").replace("\r", " ")));
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            log.info("클라이언트 연결 종료, 응답은 끝까지 받아 저장: sessionId={} ({})", sessionId, e.getMessage());
+            return false;
+        }
+    }
+
+    private void sendDone(SseEmitter emitter, ChatResponseDto response) {
+        try {
+            emitter.send(SseEmitter.event().name("done").data(response, MediaType.APPLICATION_JSON));
+            emitter.complete();
+        } catch (IOException | IllegalStateException e) {
+            // 클라이언트가 먼저 연결을 끊은 경우
+            log.warn("스트리밍 응답 전송 실패: {}", e.getMessage());
+            emitter.completeWithError(e);
+        }
+    }
+
+    // 생년월일 기반 나이 계산
+    private Integer calculateAge(LocalDate birthdate) {
+        if (birthdate == null) return null;
+        return Period.between(birthdate, LocalDate.now()).getYears();
+    }
 
-//                    geminiResult.setResponse(finalResponse);
-//                    return geminiResult.getResponse();
-                    if (finalResponse == null || finalResponse.isBlank()) {
-                        finalResponse = "미안해, 토리가 잠시 생각을 정리하고 있어! 다시 한번 말해줄래?";
+    private String callGeminiApi(String sessionId, String userMessage, String soundId,
+                                 String userName, Integer userAge, String userConstraint,
+                                 String puppetName, PuppetMode puppetMode, Long childId) {
+        GeminiChatRequestDto inlineRequest = hotPathMetrics.time(HotPathMetrics.CHAT_PHASE, "prompt", puppetMode,
+                () -> buildGeminiRequest(sessionId, soundId,
+                        userName, userAge, userConstraint, puppetName, puppetMode, childId));
+        // 시스템 명령이 Gemini 컨텍스트 캐시에 등록되어 있으면 캐시 참조로 전송
+        GeminiChatRequestDto requestBody = geminiContextCache.withCachedInstruction(GEMINI_MODEL, inlineRequest);
+
+        // 재시도(백오프, Retry-After)와 서킷 브레이커는 GeminiClient에서 처리
+        // 여기서는 캐시 부재 시 인라인 요청으로 한 번 더 보내는 경우만 반복
+        for (int attempt = 1; attempt <= 2; attempt++) {
+            try {
+                // 공용 Gemini 클라이언트로 API 호출 (응답이 늦으면 예비 요청을 보내는 헤징 적용)
+                // 응답 본문은 문자열로 받지 않고 스트림에서 candidates[0].content.parts[0].text만 꺼냄
+                GeminiChatRequestDto body = requestBody;
+                String innerText = hotPathMetrics.time(HotPathMetrics.CHAT_PHASE, "gemini", puppetMode,
+                        () -> geminiHedger.generateText(GEMINI_MODEL, body, childId));
+                if (innerText == null) {
+                    log.warn("Gemini 응답에 후보 텍스트 없음: sessionId={}", sessionId);
+                    return "AI 서버와 통신 중 오류 (로그 확인 필요)";
+                }
+                payloadLogger.info(PayloadLogger.Category.GEMINI_RESPONSE, "Gemini 채팅 응답 텍스트", innerText);
+
+                String finalResponse = "";
+                String safetyStatus = "GREEN";
+
+                try {
+                    // JSON 형식인 경우에만 파싱 시도 (```json 코드 블록 표시는 건너뜀)
+                    GeminiChatJsonContentDto geminiResult = GeminiResponseDecoder.readChatContent(objectMapper, innerText);
+                    if (geminiResult != null) {
+                        safetyStatus = geminiResult.getThoughtProcess().getSafetyStatus();
+                        finalResponse = geminiResult.getResponse();
+                    } else {
+                        // JSON이 아니면(평문이면) 받은 텍스트 그대로를 응답으로 간주
+                        finalResponse = GeminiResponseDecoder.stripCodeFence(innerText);
+                        payloadLogger.warn(PayloadLogger.Category.MODEL_OUTPUT, "Gemini가 JSON 형식을 지키지 않음. 평문 응답 처리", finalResponse);
                     }
-                    return finalResponse;
+                } catch (Exception e) {
+                    // 파싱 에러 발생 시 평문으로 치환
+                    log.error("JSON 파싱 에러 발생, 평문으로 전환: {}", e.getMessage());
+                    finalResponse = GeminiResponseDecoder.stripCodeFence(innerText);
                 }
 
-                // 200번대가 아닌 응답이지만 5xx 오류는 아닌 경우
-                return "AI 연결 문제 발생. 응답 코드: " + response.getStatusCode();
-
-            } catch (HttpServerErrorException.ServiceUnavailable e) {
-                // 503 Service Unavailable 오류 발생 시 재시도 처리
-                log.warn("Gemini 서버 일시적 장애 (503), 재시도 {}/{}", attempt, MAX_RETRIES); // 로그 추가
-                if (attempt < MAX_RETRIES) {
-                    try {
-                        Thread.sleep(WAIT_TIME_MS);
-                    } catch (InterruptedException ie) {
-                        Thread.currentThread().interrupt();
-                        return "AI 서버 통신 중 대기 실패";
-                    }
-                } else {
+                return applySafetyPolicy(safetyStatus, finalResponse, userName, puppetName, childId);
+
+            } catch (TokenBudgetExceededException e) {
+                log.warn("토큰 예산 초과, 안내 문구로 응답: {}", e.getMessage());
+                return BUDGET_MESSAGE;
+            } catch (GeminiUnavailableException e) {
+                // Gemini 장애로 차단 중: 호출하지 않고 바로 안내
+                log.warn("Gemini 호출 차단 중, 안내 문구로 응답: {}", e.getMessage());
+                return "AI 서버와 통신 중 오류: 지속적인 서버 과부하";
+            } catch (HttpServerErrorException e) {
+                // 재시도 후에도 5xx
+                log.warn("Gemini 서버 오류 지속 (HTTP {})", e.getStatusCode());
+                return "AI 서버와 통신 중 오류: 지속적인 서버 과부하";
+            } catch (org.springframework.web.client.HttpClientErrorException e) {
+                // 캐시가 만료/삭제된 경우 인라인 시스템 명령으로 다시 요청
+                if (requestBody != inlineRequest && geminiContextCache.isCacheMiss(requestBody, e)) {
+                    geminiContextCache.evict(requestBody);
+                    requestBody = inlineRequest;
+                    continue;
+                }
+                if (e.getStatusCode().value() == 429) {
+                    // 재시도 후에도 할당량 초과
+                    log.warn("Gemini 할당량 초과 지속 (429)");
                     return "AI 서버와 통신 중 오류: 지속적인 서버 과부하";
                 }
-            } catch (org.springframework.web.client.HttpClientErrorException e) {
-                // 400, 401, 429 등의 에러가 발생했을 때 상세 이유
-                log.error("Gemini API 호출 에러 (HTTP {}): {}", e.getStatusCode(), e.getResponseBodyAsString());
+                // 400, 401, 403 등의 에러가 발생했을 때 상세 이유
+                log.error("Gemini API 호출 에러 (HTTP {})", e.getStatusCode());
+                payloadLogger.error(PayloadLogger.Category.GEMINI_ERROR, "Gemini 오류 응답", e.getResponseBodyAsString());
 
                 return "AI 연결 오류: " + e.getStatusText() + " (" + e.getStatusCode() + ")";
             } catch (Exception e) {
@@ -360,9 +483,129 @@ public class ChatService {
         return "AI 서버와 통신 중 오류: 알 수 없는 이유로 실패";
     }
 
+    // 시스템 명령 + 세션 대화 기록으로 Gemini 요청 본문 구성
+    private GeminiChatRequestDto buildGeminiRequest(String sessionId, String soundId,
+                                                    String userName, Integer userAge, String userConstraint,
+                                                    String puppetName, PuppetMode puppetMode, Long childId) {
+        String currentSoundId = resolveSoundId(sessionId, soundId);
+
+        // 사운드 컨텍스트와 기본 페르소나를 결합하여 최종 시스템 명령 생성 (조합별 렌더링 결과 캐시)
+        String systemInstruction = systemPromptService.chatInstruction(childId, puppetMode, puppetName,
+                currentSoundId, userName, userAge, userConstraint);
+
+        // 이전 대화 기록 조회 (토큰 예산을 넘으면 누적 요약 + 최근 발화만 사용)
+        ContextWindowManager.ContextWindow window =
+                contextWindowManager.build(childId, sessionId, systemInstruction, userName, puppetName);
+
+        // Contents 리스트 구성 (System Instruction은 systemInstruction 필드로 별도 전달)
+        List<GeminiChatRequestDto.Content> contents = new ArrayList<>();
+
+        // 1. 요약된 이전 대화가 있으면 추가
+        if (window.getSummary() != null) {
+            contents.add(
+                    GeminiChatRequestDto.Content.builder()
+                            .role("user")
+                            .parts(List.of(new GeminiChatRequestDto.Part("[이전 대화 요약]\n" + window.getSummary())))
+                            .build()
+            );
+        }
+
+        // 2. 최근 대화 기록을 Gemini API 형식으로 변환하여 추가
+        for (ChatTranscriptCache.Turn turn : window.getTurns()) {
+            String role = turn.getSpeaker() == Speaker.USER ? "user" : "model";
+            contents.add(
+                    GeminiChatRequestDto.Content.builder()
+                            .role(role)
+                            .parts(List.of(new GeminiChatRequestDto.Part(turn.getMessage())))
+                            .build()
+            );
+        }
+
+        // 요청 DTO 생성
+        return new GeminiChatRequestDto(contents, systemInstruction);
+    }
+
+    // 요청의 soundId를 세션에 기록하고 이번 턴에 쓸 soundId 반환
+    private String resolveSoundId(String sessionId, String soundId) {
+        String currentSoundId = Optional.ofNullable(soundId).orElse("").toLowerCase();
+
+        // soundId가 명시적으로 제공된 경우에만 맵을 업데이트
+        if (!currentSoundId.isEmpty() && !currentSoundId.equals("null")) {
+            sessionStateStore.putSoundId(sessionId, currentSoundId);
+        } else {
+            // soundId가 없으면 (null이거나 "none"이거나 "null" 문자열이면), 저장된 이전 값을 사용
+            sessionStateStore.touch(sessionId);
+            currentSoundId = sessionStateStore.getSoundId(sessionId).orElse("none");
+        }
+        return currentSoundId;
+    }
+
+    // safety_status에 따른 응답 치환 (HARMFUL, RED_FLAG, MEDICAL) 및 공백 정리
+    private String applySafetyPolicy(String safetyStatus, String finalResponse,
+                                     String userName, String puppetName, Long childId) {
+        // HARMFUL 유해표현 처리
+        if ("HARMFUL".equalsIgnoreCase(safetyStatus)) {
+            if (finalResponse == null || finalResponse.isBlank()) {
+                finalResponse =
+                        userName + KoreanParticleUtil.iGa(userName) + ", 그 말은 다른 사람의 마음을 아프게 하는 말이야. '진짜 너무 화나!' 이렇게 예쁜 말로 표현해볼까?";
+            }
+        }
+
+        // RED_FLAG 처리
+        if ("RED_FLAG".equalsIgnoreCase(safetyStatus)) {
+            // 경고 상태는 캐시를 거치지 않고 다시 읽음 (다른 서버의 다른 세션에서 바뀌었을 수 있음)
+            ChildProfile profile = childProfileService.refreshProfile(childId);
+
+            if (profile.isWarningState()) {
+                // 2단계: 즉각 대응
+                finalResponse =
+                        userName + ", 그건 너무 무섭고 위험한 생각이야. " +
+                        puppetName + KoreanParticleUtil.iGa(puppetName) + " 혼자서는 도와주기 어려워. 이건 꼭 보호자나 선생님이 같이 도와줘야 하는 이야기야. 우리 같이 말씀드리자.";
+            } else {
+                // 1단계: 경고
+                finalResponse =
+                        puppetName + KoreanParticleUtil.eunNeun(puppetName) + " " +
+                        userName + KoreanParticleUtil.eulReul(userName) + " 정말 소중하게 생각하거든. 그런데 방금 이야기는 " +
+                        puppetName + " 마음을 조금 무섭게 만드는 것 같아. 우리 조금 더 즐거운 이야기를 해볼까?";
+
+                childProfileService.markWarningState(childId);
+
+                log.info("1차 경고 - childId: {}", childId);
+            }
+        }
+
+        // MEDICAL 처리
+        else if ("MEDICAL".equalsIgnoreCase(safetyStatus)) {
+            if (finalResponse == null || finalResponse.isBlank()) {
+                finalResponse =
+                        userName + KoreanParticleUtil.eunNeun(userName) +
+                                " 많이 아프구나. 의사 선생님이 도와줄 수 있게 말씀드려볼까? " +
+                                "주위에 보호자가 계실까?";
+            }
+        }
+
+        if (finalResponse != null) {
+            finalResponse = finalResponse
+                    .replace("\n", " ")
+                    .replace("\r", " ")
+                    .replaceAll("\\s{2,}", " ")
+                    .trim();
+        }
+
+//        geminiResult.setResponse(finalResponse);
+//        return geminiResult.getResponse();
+        if (finalResponse == null || finalResponse.isBlank()) {
+            finalResponse = "미안해, 토리가 잠시 생각을 정리하고 있어! 다시 한번 말해줄래?";
+        }
+        return finalResponse;
+    }
+
     @lombok.Data
     @com.fasterxml.jackson.annotation.JsonIgnoreProperties(ignoreUnknown = true)
-    public static class GeminiApiResponse { private List<Candidate> candidates; }
+    public static class GeminiApiResponse {
+        private List<Candidate> candidates;
+        private GeminiUsageMetadata usageMetadata;
+    }
 
     @lombok.Data
     @com.fasterxml.jackson.annotation.JsonIgnoreProperties(ignoreUnknown = true)
@@ -387,6 +630,7 @@ public class ChatService {
                 .keywords(null)
                 .build();
 
-        chatMessageRepository.save(chatLog);
+        chatMessageWriter.write(chatLog); // write-behind 대기열에 넣고 바로 반환
+        chatTranscriptCache.append(childId, sessionId, speaker, message, timestamp);
     }
 }
\ No newline at end of file
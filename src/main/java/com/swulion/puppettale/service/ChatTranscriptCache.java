@@ -0,0 +1,314 @@
+package com.swulion.puppettale.service;
+
+import com.swulion.puppettale.entity.ChatMessage;
+import com.swulion.puppettale.entity.ChatSummary;
+import com.swulion.puppettale.entity.Speaker;
+import com.swulion.puppettale.repository.ChatMessageRepository;
+import com.swulion.puppettale.repository.ChatSummaryRepository;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 세션별 최근 대화 기록 캐시.
+ * (childId, sessionId) 단위로 최근 N개(chat.transcript-cache.turns-per-session, 기본 200)의 발화와 누적 요약을 보관하고,
+ * 캐시에 없을 때만 DB에서 읽어 채운다. 전체 세션 수와 추정 메모리 사용량이 상한을 넘으면 가장 오래 사용되지 않은 세션부터 제거한다.
+ *
+ * 세션당 발화 수 상한: 프롬프트에는 "누적 요약 + 요약되지 않은 발화"만 들어가므로 상한 밖으로 밀려나는 발화는
+ * 보통 이미 요약된 발화다. ContextWindowManager는 요약되지 않은 발화가 상한의 절반을 넘으면 토큰 예산과 관계없이 요약하고,
+ * 그래도 요약되지 않은 발화가 밀려나면(요약이 계속 실패하는 경우) truncatedTurns로 세고 경고를 남긴다.
+ *
+ * 캐시에 없는 세션을 DB에서 읽는 동안 들어온 발화는 따로 모아 두었다가, 읽은 결과에 없으면 뒤에 붙인다.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ChatTranscriptCache {
+
+    // 문자열 본문 외에 발화 한 건이 차지하는 대략적인 크기 (String 헤더, 배열 슬롯 등)
+    private static final long TURN_OVERHEAD_BYTES = 64;
+
+    private final ChatMessageRepository chatMessageRepository;
+    private final ChatSummaryRepository chatSummaryRepository;
+    private final ChatMessageWriter chatMessageWriter;
+
+    @Value("${chat.transcript-cache.max-sessions:10000}")
+    private int maxSessions;
+
+    @Value("${chat.transcript-cache.max-bytes:134217728}")
+    private long maxBytes;
+
+    @Value("${chat.transcript-cache.turns-per-session:200}")
+    private int turnsPerSession;
+
+    // access-order LinkedHashMap: 맨 앞이 가장 오래 사용되지 않은 세션
+    private final LinkedHashMap<Key, Transcript> sessions = new LinkedHashMap<>(256, 0.75f, true);
+    private long totalBytes = 0;
+    // DB에서 읽어 오는 중인 세션과, 그동안 append된 발화
+    private final Map<Key, Loading> loading = new HashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong truncatedTurns = new AtomicLong();
+
+    // 세션의 최근 발화 목록 (시간 순)
+    public List<Turn> getRecentTurns(Long childId, String sessionId) {
+        return getSnapshot(childId, sessionId).getTurns();
+    }
+
+    // 세션의 누적 요약 + 최근 발화 목록, 캐시에 없으면 DB에서 읽어 채움
+    public Snapshot getSnapshot(Long childId, String sessionId) {
+        Key key = new Key(childId, sessionId);
+        Loading load;
+        synchronized (this) {
+            Transcript cached = sessions.get(key);
+            if (cached != null) {
+                hits.incrementAndGet();
+                return cached.snapshot();
+            }
+            load = loading.computeIfAbsent(key, k -> new Loading());
+            load.loaders++;
+        }
+        misses.incrementAndGet();
+
+        Transcript loaded;
+        try {
+            loaded = load(childId, sessionId);
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                finishLoading(key, load);
+            }
+            throw e;
+        }
+
+        synchronized (this) {
+            finishLoading(key, load);
+            Transcript existing = sessions.get(key);
+            if (existing != null) {
+                return existing.snapshot(); // 다른 요청이 먼저 채운 경우
+            }
+            // 읽는 동안 들어온 발화 중 읽은 결과에 없는 것을 뒤에 붙임
+            for (Turn turn : load.appended) {
+                if (!loaded.contains(turn)) loaded.add(turn.getSpeaker(), turn.getMessage(), turn.getTimestamp());
+            }
+            sessions.put(key, loaded);
+            totalBytes += loaded.bytes;
+            evictIfNeeded();
+            return loaded.snapshot();
+        }
+    }
+
+    private Transcript load(Long childId, String sessionId) {
+        // 아직 DB에 저장되지 않은 (write-behind 대기 중인) 메시지까지 포함
+        List<ChatMessage> history = chatMessageWriter.readThrough(
+                message -> sessionId.equals(message.getSessionId()) && Objects.equals(childId, message.getChildId()),
+                () -> chatMessageRepository.findBySessionIdAndChildIdOrderByTimestampAsc(sessionId, childId));
+        Transcript loaded = new Transcript(turnsPerSession);
+        int from = Math.max(0, history.size() - turnsPerSession);
+        for (ChatMessage message : history.subList(from, history.size())) {
+            loaded.add(message.getSpeaker(), message.getMessage(), message.getTimestamp());
+        }
+        chatSummaryRepository.findBySessionIdAndChildId(sessionId, childId)
+                .ifPresent(summary -> loaded.setSummary(summary.getSummary(), summary.getSummarizedUntil()));
+        return loaded;
+    }
+
+    // 마지막으로 끝난 조회가 모아 둔 발화 목록을 정리 (락 안에서 호출)
+    private void finishLoading(Key key, Loading load) {
+        if (--load.loaders == 0) loading.remove(key, load);
+    }
+
+    public int getTurnsPerSession() {
+        return turnsPerSession;
+    }
+
+    // saveMessage 시점의 write-through. 캐시에 없는 세션은 다음 조회 때 DB에서 채워지므로 건너뜀
+    // (DB에서 읽는 중이면 읽은 결과에 합치도록 모아 둠)
+    public synchronized void append(Long childId, String sessionId, Speaker speaker, String message, LocalDateTime timestamp) {
+        Key key = new Key(childId, sessionId);
+        Transcript cached = sessions.get(key);
+        if (cached == null) {
+            Loading load = loading.get(key);
+            if (load != null) load.appended.add(new Turn(speaker, message, timestamp));
+            return;
+        }
+
+        long before = cached.bytes;
+        if (cached.add(speaker, message, timestamp)) {
+            truncatedTurns.incrementAndGet();
+            log.warn("요약되지 않은 발화가 대화 캐시 상한({}개)을 넘어 프롬프트에서 빠짐: sessionId={}", turnsPerSession, sessionId);
+        }
+        totalBytes += cached.bytes - before;
+        evictIfNeeded();
+    }
+
+    // 요약 갱신 후 캐시에 반영. 캐시에 없는 세션은 다음 조회 때 DB에서 함께 읽힘
+    public synchronized void updateSummary(Long childId, String sessionId, ChatSummary summary) {
+        Transcript cached = sessions.get(new Key(childId, sessionId));
+        if (cached == null) return;
+
+        long before = cached.bytes;
+        cached.setSummary(summary.getSummary(), summary.getSummarizedUntil());
+        totalBytes += cached.bytes - before;
+        evictIfNeeded();
+    }
+
+    public synchronized void evict(Long childId, String sessionId) {
+        Transcript removed = sessions.remove(new Key(childId, sessionId));
+        if (removed != null) totalBytes -= removed.bytes;
+    }
+
+    public synchronized Stats getStats() {
+        return new Stats(sessions.size(), totalBytes, hits.get(), misses.get(), evictions.get(), truncatedTurns.get());
+    }
+
+    private void evictIfNeeded() {
+        Iterator<Map.Entry<Key, Transcript>> it = sessions.entrySet().iterator();
+        while ((sessions.size() > maxSessions || totalBytes > maxBytes) && it.hasNext()) {
+            Map.Entry<Key, Transcript> eldest = it.next();
+            totalBytes -= eldest.getValue().bytes;
+            it.remove();
+            evictions.incrementAndGet();
+            log.debug("대화 캐시 제거: childId={}, sessionId={}", eldest.getKey().childId, eldest.getKey().sessionId);
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Turn {
+        private final Speaker speaker;
+        private final String message;
+        private final LocalDateTime timestamp;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Snapshot {
+        private final String summary;             // 이전 대화 누적 요약, 없으면 null
+        private final LocalDateTime summarizedUntil; // 이 시각까지의 발화는 요약에 포함됨
+        private final List<Turn> turns;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Stats {
+        private final int sessions;
+        private final long estimatedBytes;
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final long truncatedTurns; // 요약되기 전에 세션당 상한 밖으로 밀려난 발화 수
+    }
+
+    private static final class Loading {
+        private int loaders = 0;
+        private final List<Turn> appended = new ArrayList<>();
+    }
+
+    private static final class Key {
+        private final long childId;
+        private final String sessionId;
+
+        private Key(Long childId, String sessionId) {
+            this.childId = childId != null ? childId : -1L;
+            this.sessionId = sessionId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key other)) return false;
+            return childId == other.childId && Objects.equals(sessionId, other.sessionId);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Long.hashCode(childId) + Objects.hashCode(sessionId);
+        }
+    }
+
+    // 고정 크기 링 버퍼. 발화 주체는 byte 배열로, 본문은 String 배열로 보관 (캐시 락 안에서만 접근)
+    private static final class Transcript {
+        private final byte[] speakers;
+        private final String[] messages;
+        private final LocalDateTime[] timestamps;
+        private String summary;
+        private LocalDateTime summarizedUntil;
+        private int head = 0; // 가장 오래된 발화 위치
+        private int size = 0;
+        private long bytes;
+
+        private Transcript(int capacity) {
+            this.speakers = new byte[capacity];
+            this.messages = new String[capacity];
+            this.timestamps = new LocalDateTime[capacity];
+            this.bytes = 17L * capacity; // 배열 슬롯 자체의 크기
+        }
+
+        private void setSummary(String summary, LocalDateTime summarizedUntil) {
+            bytes += sizeOf(summary) - sizeOf(this.summary);
+            this.summary = summary;
+            this.summarizedUntil = summarizedUntil;
+        }
+
+        // 요약되지 않은 발화를 밀어냈으면 true
+        private boolean add(Speaker speaker, String message, LocalDateTime timestamp) {
+            int capacity = messages.length;
+            int slot = (head + size) % capacity;
+            boolean truncated = false;
+            if (size == capacity) {
+                LocalDateTime dropped = timestamps[head];
+                truncated = summarizedUntil == null || dropped == null || dropped.isAfter(summarizedUntil);
+                bytes -= sizeOf(messages[head]);
+                head = (head + 1) % capacity;
+            } else {
+                size++;
+            }
+            speakers[slot] = (byte) speaker.ordinal();
+            messages[slot] = message;
+            timestamps[slot] = timestamp;
+            bytes += sizeOf(message);
+            return truncated;
+        }
+
+        private boolean contains(Turn turn) {
+            for (int i = 0; i < size; i++) {
+                int slot = (head + i) % messages.length;
+                if (Objects.equals(timestamps[slot], turn.getTimestamp())
+                        && speakers[slot] == (byte) turn.getSpeaker().ordinal()
+                        && Objects.equals(messages[slot], turn.getMessage())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private Snapshot snapshot() {
+            Speaker[] values = Speaker.values();
+            List<Turn> turns = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                int slot = (head + i) % messages.length;
+                turns.add(new Turn(values[speakers[slot]], messages[slot], timestamps[slot]));
+            }
+            return new Snapshot(summary, summarizedUntil, turns);
+        }
+
+        private static long sizeOf(String message) {
+            return TURN_OVERHEAD_BYTES + (message != null ? 2L * message.length() : 0);
+        }
+    }
+}
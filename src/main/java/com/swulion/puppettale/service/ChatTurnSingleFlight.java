@@ -0,0 +1,124 @@
+package com.swulion.puppettale.service;
+
+import com.swulion.puppettale.dto.ChatResponseDto;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 세션별로 진행 중인 채팅 턴을 하나로 묶는다 (single-flight).
+ * 같은 세션에서 같은 메시지가 다시 들어오면 새 Gemini 호출 없이 진행 중인 턴의 결과를 함께 받고,
+ * 턴이 끝나면 바로 항목을 지워 진행 중인 세션 수만큼만 메모리를 쓴다.
+ * 서버가 여러 대면 SessionStateStore의 진행 중 표시로 다른 서버에서 진행 중인 턴도 막는다.
+ */
+@Component
+@RequiredArgsConstructor
+public class ChatTurnSingleFlight {
+
+    // 이 서버의 턴임을 표시하는 접두어 (턴마다 순번을 붙여 owner로 사용)
+    private static final String NODE_ID = UUID.randomUUID().toString();
+
+    private final SessionStateStore sessionStateStore;
+
+    // 진행 중 표시 유지 시간 (해제되지 못한 표시가 세션을 막는 최대 시간)
+    @Value("${session-state.in-flight-ttl-ms:120000}")
+    private long inFlightTtlMs;
+
+    private final ConcurrentMap<String, Flight> flights = new ConcurrentHashMap<>();
+    private final AtomicLong flightSeq = new AtomicLong();
+    private final AtomicLong started = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong remoteRejected = new AtomicLong();
+
+    /**
+     * 세션의 턴 시작을 시도한다.
+     * 진행 중인 턴이 없으면 호출자가 새 턴의 주인(leader)이 되고, 있으면 그 턴을 반환한다.
+     * 다른 서버에서 턴이 진행 중이면 주인이 아니고 다른 메시지인 것으로 취급한다.
+     */
+    public Join join(String sessionId, String userMessage) {
+        Flight mine = new Flight(userMessage, NODE_ID + ":" + flightSeq.incrementAndGet());
+        Flight existing = flights.putIfAbsent(sessionId, mine);
+        if (existing == null) {
+            if (!sessionStateStore.tryMarkInFlight(sessionId, mine.owner, Duration.ofMillis(inFlightTtlMs))) {
+                // 그 사이 합류한 요청에는 결과 없음(null)으로 알림
+                flights.remove(sessionId, mine);
+                mine.result.complete(null);
+                remoteRejected.incrementAndGet();
+                return new Join(mine, false, false);
+            }
+            started.incrementAndGet();
+            return new Join(mine, true, true);
+        }
+        boolean sameMessage = Objects.equals(existing.userMessage, userMessage);
+        if (sameMessage) {
+            coalesced.incrementAndGet();
+        } else {
+            rejected.incrementAndGet();
+        }
+        return new Join(existing, false, sameMessage);
+    }
+
+    // 턴 완료: 기다리던 중복 요청에 결과 전달 후 항목 제거
+    public void complete(String sessionId, Flight flight, ChatResponseDto response) {
+        release(sessionId, flight);
+        flight.result.complete(response);
+    }
+
+    public void fail(String sessionId, Flight flight, Throwable error) {
+        release(sessionId, flight);
+        flight.result.completeExceptionally(error);
+    }
+
+    private void release(String sessionId, Flight flight) {
+        flights.remove(sessionId, flight);
+        sessionStateStore.clearInFlight(sessionId, flight.owner);
+    }
+
+    public Stats getStats() {
+        return new Stats(flights.size(), started.get(), coalesced.get(), rejected.get(), remoteRejected.get());
+    }
+
+    public static class Flight {
+        private final String userMessage;
+        private final String owner;
+        private final CompletableFuture<ChatResponseDto> result = new CompletableFuture<>();
+
+        Flight(String userMessage, String owner) {
+            this.userMessage = userMessage;
+            this.owner = owner;
+        }
+
+        // 다른 서버에서 턴이 진행 중이어서 시작하지 못했으면 null로 완료된다
+        public CompletableFuture<ChatResponseDto> getResult() {
+            return result;
+        }
+    }
+
+    /**
+     * @param leader 새 턴을 시작해야 하는 호출자인지
+     * @param sameMessage 진행 중인 턴과 같은 메시지인지 (다른 메시지면 합류하지 않고 거절)
+     */
+    public record Join(Flight flight, boolean leader, boolean sameMessage) {
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Stats {
+        private final int inFlight;     // 현재 진행 중인 턴 수
+        private final long started;     // 시작된 턴 수
+        private final long coalesced;   // 진행 중인 턴에 합류한 중복 요청 수
+        private final long rejected;    // 진행 중에 다른 메시지가 와서 거절한 수
+        private final long remoteRejected; // 다른 서버에서 진행 중이라 거절한 수
+    }
+}
@@ -0,0 +1,170 @@
+package com.swulion.puppettale.service;
+
+import com.swulion.puppettale.dto.ChildProfile;
+import com.swulion.puppettale.entity.Child;
+import com.swulion.puppettale.entity.Puppet;
+import com.swulion.puppettale.repository.ChildRepository;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 채팅 흐름에서 쓰는 아동/퍼펫 정보를 불변 스냅샷으로 돌려준다.
+ * 외부 API 호출 동안 영속성 컨텍스트나 DB 커넥션을 붙잡지 않기 위함이다.
+ * 스냅샷은 childId별로 캐시하며(read-through), 캐시에 있으면 트랜잭션도 열지 않는다.
+ * 퍼펫 이름/모드 변경과 경고 상태 기록 시 해당 아동의 항목을 비우고,
+ * 다른 서버에서의 변경은 TTL이 지나면 반영된다.
+ */
+@Service
+@RequiredArgsConstructor
+public class ChildProfileService {
+
+    private final ChildRepository childRepository;
+
+    @Value("${child-profile.cache.max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${child-profile.cache.ttl-ms:300000}")
+    private long ttlMs;
+
+    private final Clock clock;
+
+    // access-order LinkedHashMap: 맨 앞이 가장 오래 사용되지 않은 아동
+    private final LinkedHashMap<Long, Entry> profiles = new LinkedHashMap<>(256, 0.75f, true);
+    // 무효화할 때마다 증가. 조회 시작 후 무효화가 있었으면 읽어 온 (이전) 값을 캐시에 넣지 않음
+    private long generation = 0;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public ChildProfile getProfile(Long childId) {
+        long now = clock.millis();
+        long loadGeneration;
+        synchronized (this) {
+            Entry cached = profiles.get(childId);
+            if (cached != null && cached.expiresAt > now) {
+                hits.incrementAndGet();
+                return cached.profile;
+            }
+            loadGeneration = generation;
+        }
+        misses.incrementAndGet();
+
+        ChildProfile loaded = load(childId);
+        synchronized (this) {
+            if (loadGeneration == generation) {
+                profiles.put(childId, new Entry(loaded, now + ttlMs));
+                evictIfNeeded();
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * 캐시를 거치지 않고 DB에서 다시 읽어 캐시를 갱신한다.
+     * 다른 서버에서 바뀌었을 수 있는 값을 꼭 확인해야 하는 드문 경로(Red Flag 경고 단계 판단)용.
+     */
+    public ChildProfile refreshProfile(Long childId) {
+        invalidate(childId);
+        return getProfile(childId);
+    }
+
+    // Red Flag 1차 경고 상태 기록 (단일 UPDATE)
+    @Transactional
+    public void markWarningState(Long childId) {
+        childRepository.markWarningState(childId);
+        invalidate(childId);
+    }
+
+    /**
+     * 아동의 프로필 스냅샷을 비운다.
+     * 트랜잭션 안에서 호출되면 커밋 직후에 한 번 더 비워, 커밋 전에 다른 요청이 읽어 간 이전 값이 남지 않게 한다.
+     */
+    public void invalidate(Long childId) {
+        remove(childId);
+        afterCommit(() -> remove(childId));
+    }
+
+    // 전체 경고 상태 초기화 등 여러 아동이 한 번에 바뀐 경우
+    public void invalidateAll() {
+        clear();
+        afterCommit(this::clear);
+    }
+
+    public synchronized Stats getStats() {
+        return new Stats(profiles.size(), hits.get(), misses.get(), invalidations.get(), evictions.get());
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) return;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private synchronized void clear() {
+        generation++;
+        invalidations.addAndGet(profiles.size());
+        profiles.clear();
+    }
+
+    private synchronized void remove(Long childId) {
+        generation++;
+        if (profiles.remove(childId) != null) {
+            invalidations.incrementAndGet();
+        }
+    }
+
+    // 퍼펫은 EntityGraph로 함께 읽으므로 리포지토리 트랜잭션이 끝난 뒤에도 값을 꺼낼 수 있다
+    private ChildProfile load(Long childId) {
+        Child child = childRepository.findWithPuppetById(childId)
+                .orElseThrow(() -> new RuntimeException("아동 정보를 찾을 수 없습니다."));
+
+        Puppet puppet = child.getPuppet();
+        return ChildProfile.builder()
+                .childId(child.getId())
+                .name(child.getName())
+                .birthdate(child.getBirthdate())
+                .hasPuppet(puppet != null)
+                .puppetName(puppet != null ? puppet.getName() : null)
+                .puppetMode(puppet != null ? puppet.getMode() : null)
+                .warningState(Boolean.TRUE.equals(child.getIsWarningState()))
+                .build();
+    }
+
+    private void evictIfNeeded() {
+        var it = profiles.entrySet().iterator();
+        while (profiles.size() > maxEntries && it.hasNext()) {
+            it.next();
+            it.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    private record Entry(ChildProfile profile, long expiresAt) {
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Stats {
+        private final int size;
+        private final long hits;
+        private final long misses;
+        private final long invalidations; // 변경으로 비운 항목 수
+        private final long evictions;     // 크기 상한으로 제거한 항목 수
+    }
+}
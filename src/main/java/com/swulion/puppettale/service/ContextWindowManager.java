@@ -0,0 +1,253 @@
+package com.swulion.puppettale.service;
+
+import com.swulion.puppettale.dto.GeminiChatRequestDto;
+import com.swulion.puppettale.entity.ChatSummary;
+import com.swulion.puppettale.entity.Speaker;
+import com.swulion.puppettale.repository.ChatSummaryRepository;
+import com.swulion.puppettale.util.TokenEstimator;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 채팅 프롬프트에 들어갈 대화 범위를 토큰 예산 안으로 제한한다.
+ * 요약되지 않은 대화가 예산(history-token-budget)을 넘으면 최근 N개 발화 이전의 발화를 백그라운드에서
+ * 기존 요약과 합쳐 새 누적 요약으로 저장한다. 이후 프롬프트는 "요약 + 최근 N개 발화"로 구성된다.
+ * 요약이 저장되기 전까지는 원문 발화를 그대로 보내 대화 내용이 빠지지 않게 하고,
+ * 원문이 상한(max-history-tokens)을 넘으면 요청 스레드에서 바로 요약해 상한을 지킨다.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ContextWindowManager {
+
+    private final ChatTranscriptCache chatTranscriptCache;
+    private final ChatSummaryRepository chatSummaryRepository;
+    private final GeminiClient geminiClient;
+    private final Executor summaryExecutor;
+    private final SystemPromptService systemPromptService;
+
+    private static final String GEMINI_MODEL = "gemini-2.5-flash";
+
+    // 요약되지 않은 대화 기록에 허용하는 추정 토큰 수
+    @Value("${chat.context-window.history-token-budget:6000}")
+    private int historyTokenBudget;
+
+    // 예산 초과 시에도 원문 그대로 보내는 최근 발화 수
+    @Value("${chat.context-window.keep-recent-turns:12}")
+    private int keepRecentTurns;
+
+    // 요약을 기다리는 동안 원문으로 보내는 대화 기록의 상한 (넘으면 요청 스레드에서 요약)
+    @Value("${chat.context-window.max-history-tokens:12000}")
+    private int maxHistoryTokens;
+
+    // 요약 작업이 진행 중인 세션 (중복 요약 방지)
+    private final Set<String> foldingSessions = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong promptCount = new AtomicLong();
+    private final AtomicLong promptTokensTotal = new AtomicLong();
+    private final AtomicLong promptTokensMax = new AtomicLong();
+    private final AtomicLong summarizations = new AtomicLong();
+    private final AtomicLong inlineSummarizations = new AtomicLong();
+    private final AtomicLong trimmedTurns = new AtomicLong();
+
+    // 시스템 명령을 제외한 대화 부분(요약 + 최근 발화)을 결정하고, 이번 턴의 추정 프롬프트 크기를 기록
+    public ContextWindow build(Long childId, String sessionId, String systemInstruction,
+                               String userName, String puppetName) {
+        ChatTranscriptCache.Snapshot snapshot = chatTranscriptCache.getSnapshot(childId, sessionId);
+
+        List<ChatTranscriptCache.Turn> pending = snapshot.getTurns();
+        if (snapshot.getSummarizedUntil() != null) {
+            pending = pending.stream()
+                    .filter(turn -> turn.getTimestamp() == null || turn.getTimestamp().isAfter(snapshot.getSummarizedUntil()))
+                    .toList();
+        }
+
+        int historyTokens = tokensOf(pending);
+
+        // 토큰 예산 초과, 또는 요약되지 않은 발화가 캐시의 세션당 상한 절반을 넘으면 요약
+        // (짧은 발화만 이어져 예산에 못 미쳐도, 요약 전에 캐시 상한 밖으로 밀려나지 않게 함)
+        boolean overBudget = historyTokens > historyTokenBudget
+                || pending.size() > chatTranscriptCache.getTurnsPerSession() / 2;
+        String summary = snapshot.getSummary();
+        List<ChatTranscriptCache.Turn> window = pending;
+        if (overBudget && pending.size() > keepRecentTurns) {
+            int split = pending.size() - keepRecentTurns;
+            // 보내는 대화가 AI 발화로 시작하지 않도록 경계를 사용자 발화에 맞춤
+            while (split < pending.size() - 1 && pending.get(split).getSpeaker() != Speaker.USER) {
+                split++;
+            }
+
+            if (historyTokens <= maxHistoryTokens) {
+                // 요약이 저장될 때까지는 원문을 그대로 보냄 (저장 후 다음 턴부터 요약 + 최근 발화)
+                foldAsync(childId, sessionId, summary, pending.subList(0, split), userName, puppetName);
+            } else {
+                // 상한 초과 (요약이 늦거나 실패): 이번 턴에서 바로 요약
+                inlineSummarizations.incrementAndGet();
+                String folded = fold(childId, sessionId, summary, List.copyOf(pending.subList(0, split)), userName, puppetName);
+                if (folded != null) {
+                    summary = folded;
+                    window = pending.subList(split, pending.size());
+                }
+            }
+        }
+
+        historyTokens = tokensOf(window);
+        if (historyTokens > maxHistoryTokens) {
+            // 요약도 실패: 상한에 맞도록 오래된 원문부터 제외 (다음 요약 때 다시 포함됨)
+            int from = 0;
+            while (from < window.size() - 1 && historyTokens > maxHistoryTokens) {
+                historyTokens -= TokenEstimator.estimate(window.get(from).getMessage());
+                from++;
+            }
+            trimmedTurns.addAndGet(from);
+            log.warn("대화 요약 실패로 오래된 발화 {}개를 이번 프롬프트에서 제외: sessionId={}", from, sessionId);
+            window = window.subList(from, window.size());
+        }
+
+        int promptTokens = TokenEstimator.estimate(systemInstruction)
+                + TokenEstimator.estimate(summary)
+                + historyTokens;
+        recordPromptSize(promptTokens);
+        log.info("프롬프트 크기: sessionId={}, 추정 토큰={}, 요약 포함={}, 전송 발화 수={}",
+                sessionId, promptTokens, summary != null, window.size());
+
+        return new ContextWindow(summary, window, promptTokens);
+    }
+
+    private static int tokensOf(List<ChatTranscriptCache.Turn> turns) {
+        int tokens = 0;
+        for (ChatTranscriptCache.Turn turn : turns) {
+            tokens += TokenEstimator.estimate(turn.getMessage());
+        }
+        return tokens;
+    }
+
+    public Stats getStats() {
+        long count = promptCount.get();
+        return new Stats(count,
+                count == 0 ? 0 : promptTokensTotal.get() / count,
+                promptTokensMax.get(),
+                summarizations.get(),
+                inlineSummarizations.get(),
+                trimmedTurns.get());
+    }
+
+    private void recordPromptSize(int promptTokens) {
+        promptCount.incrementAndGet();
+        promptTokensTotal.addAndGet(promptTokens);
+        promptTokensMax.accumulateAndGet(promptTokens, Math::max);
+    }
+
+    private void foldAsync(Long childId, String sessionId, String previousSummary,
+                           List<ChatTranscriptCache.Turn> turns, String userName, String puppetName) {
+        String foldKey = childId + ":" + sessionId;
+        if (!foldingSessions.add(foldKey)) return;
+
+        List<ChatTranscriptCache.Turn> toFold = List.copyOf(turns);
+        try {
+            summaryExecutor.execute(() -> {
+                try {
+                    fold(childId, sessionId, previousSummary, toFold, userName, puppetName);
+                } finally {
+                    foldingSessions.remove(foldKey);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // 요약 작업이 밀려 있으면 이번 턴은 건너뛰고 다음 턴에 다시 시도
+            foldingSessions.remove(foldKey);
+            log.warn("대화 요약 작업 대기열 초과: sessionId={}", sessionId);
+        }
+    }
+
+    // 새 누적 요약을 저장하고 반환, 실패하면 null
+    private String fold(Long childId, String sessionId, String previousSummary,
+                        List<ChatTranscriptCache.Turn> turns, String userName, String puppetName) {
+        StringBuilder conversation = new StringBuilder();
+        for (ChatTranscriptCache.Turn turn : turns) {
+            conversation.append(turn.getSpeaker() == Speaker.USER ? userName : puppetName)
+                    .append(": ")
+                    .append(turn.getMessage())
+                    .append("\n");
+        }
+
+        String instruction = systemPromptService.summaryInstruction(puppetName, userName,
+                previousSummary, conversation.toString());
+
+        String newSummary = callGeminiForSummary(childId, instruction);
+        if (newSummary == null || newSummary.isBlank()) {
+            log.warn("대화 요약 실패, 다음 턴에 재시도: sessionId={}", sessionId);
+            return null;
+        }
+
+        ChatSummary summary = chatSummaryRepository.findBySessionIdAndChildId(sessionId, childId)
+                .orElseGet(() -> {
+                    ChatSummary created = new ChatSummary();
+                    created.setSessionId(sessionId);
+                    created.setChildId(childId);
+                    created.setFoldedTurns(0);
+                    return created;
+                });
+        LocalDateTime until = turns.get(turns.size() - 1).getTimestamp();
+        if (summary.getSummarizedUntil() != null && until != null && !until.isAfter(summary.getSummarizedUntil())) {
+            // 더 많은 발화를 포함한 요약이 먼저 저장됨 (백그라운드 요약과 요청 스레드 요약이 겹친 경우)
+            return summary.getSummary();
+        }
+        summary.setSummary(newSummary.trim());
+        summary.setSummarizedUntil(until);
+        summary.setFoldedTurns(summary.getFoldedTurns() + turns.size());
+        chatSummaryRepository.save(summary);
+
+        chatTranscriptCache.updateSummary(childId, sessionId, summary);
+        summarizations.incrementAndGet();
+        log.info("대화 요약 갱신: sessionId={}, 요약된 발화 수={}", sessionId, summary.getFoldedTurns());
+        return summary.getSummary();
+    }
+
+    private String callGeminiForSummary(Long childId, String instruction) {
+        GeminiChatRequestDto requestBody = new GeminiChatRequestDto(List.of(
+                GeminiChatRequestDto.Content.builder()
+                        .role("user")
+                        .parts(List.of(new GeminiChatRequestDto.Part(instruction)))
+                        .build()
+        ));
+
+        try {
+            // 후보가 없으면 null
+            return geminiClient.generateText(GeminiClient.CallType.SUMMARY, GEMINI_MODEL, requestBody, childId);
+        } catch (Exception e) {
+            log.error("대화 요약 API 호출 중 오류:", e);
+        }
+        return null;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class ContextWindow {
+        private final String summary;                     // 이전 대화 누적 요약, 없으면 null
+        private final List<ChatTranscriptCache.Turn> turns; // 원문 그대로 보낼 최근 발화
+        private final int estimatedPromptTokens;          // 시스템 명령 포함 추정 토큰 수
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Stats {
+        private final long prompts;
+        private final long averagePromptTokens;
+        private final long maxPromptTokens;
+        private final long summarizations;
+        private final long inlineSummarizations; // 원문이 상한을 넘어 요청 스레드에서 한 요약 수
+        private final long trimmedTurns;         // 요약 실패로 프롬프트에서 제외한 발화 수
+    }
+}
@@ -0,0 +1,129 @@
+package com.swulion.puppettale.service;
+
+import com.swulion.puppettale.repository.SessionStateRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 여러 서버가 공유하는 세션 상태 저장소 (SessionStates 테이블).
+ * 모든 쓰기는 행 단위 UPDATE 한 번이며, 행이 없을 때만 INSERT를 시도하고
+ * 다른 서버가 먼저 만들어 키가 겹치면 UPDATE를 다시 한다.
+ * 키 중복이 아닌 무결성 오류(값 길이 초과 등)는 "이미 있음"으로 보지 않고 그대로 던진다.
+ */
+@Component
+@ConditionalOnProperty(name = "session-state.store", havingValue = "database")
+@RequiredArgsConstructor
+@Slf4j
+public class DatabaseSessionStateStore implements SessionStateStore {
+
+    private final SessionStateRepository sessionStateRepository;
+
+    @Value("${session-state.ttl-minutes:360}")
+    private long ttlMinutes;
+
+    private final Clock clock;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    @Override
+    public Optional<String> getSoundId(String sessionId) {
+        Optional<String> soundId = sessionStateRepository.findSoundId(sessionId, notBefore());
+        (soundId.isPresent() ? hits : misses).incrementAndGet();
+        return soundId;
+    }
+
+    @Override
+    public void putSoundId(String sessionId, String soundId) {
+        LocalDateTime now = LocalDateTime.now(clock);
+        if (sessionStateRepository.updateSoundId(sessionId, soundId, now) == 0
+                && !insert(sessionId, soundId, now)) {
+            sessionStateRepository.updateSoundId(sessionId, soundId, now);
+        }
+    }
+
+    @Override
+    public void touch(String sessionId) {
+        LocalDateTime now = LocalDateTime.now(clock);
+        if (sessionStateRepository.touch(sessionId, now) == 0) {
+            insert(sessionId, null, now);
+        }
+    }
+
+    @Override
+    public Optional<LocalDateTime> getLastActivity(String sessionId) {
+        return sessionStateRepository.findLastActivity(sessionId, notBefore());
+    }
+
+    @Override
+    public boolean tryMarkInFlight(String sessionId, String owner, Duration ttl) {
+        LocalDateTime now = LocalDateTime.now(clock);
+        LocalDateTime until = now.plus(ttl);
+        if (sessionStateRepository.markInFlight(sessionId, owner, until, now) > 0) {
+            return true;
+        }
+        // 행이 없었던 경우: 만든 뒤 다시 시도 (동시에 만든 서버와는 조건부 UPDATE로 한 쪽만 성공)
+        insert(sessionId, null, now);
+        return sessionStateRepository.markInFlight(sessionId, owner, until, now) > 0;
+    }
+
+    @Override
+    public void clearInFlight(String sessionId, String owner) {
+        sessionStateRepository.clearInFlight(sessionId, owner);
+    }
+
+    @Scheduled(fixedDelayString = "${session-state.cleanup-interval-ms:600000}")
+    public void purgeExpired() {
+        LocalDateTime now = LocalDateTime.now(clock);
+        int deleted = sessionStateRepository.deleteIdle(now.minusMinutes(ttlMinutes), now);
+        if (deleted > 0) {
+            evictions.addAndGet(deleted);
+            log.info("만료된 세션 상태 정리: {}건", deleted);
+        }
+    }
+
+    @Override
+    public Stats getStats() {
+        return new Stats("database", hits.get(), misses.get(), sessionStateRepository.count(), evictions.get());
+    }
+
+    // 정리 주기 사이에 남아 있는 만료 행은 없는 것으로 취급
+    private LocalDateTime notBefore() {
+        return LocalDateTime.now(clock).minusMinutes(ttlMinutes);
+    }
+
+    private boolean insert(String sessionId, String soundId, LocalDateTime now) {
+        try {
+            sessionStateRepository.insert(sessionId, soundId, now);
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            if (!isDuplicateKey(e)) throw e;
+            return false; // 다른 서버가 먼저 생성
+        }
+    }
+
+    // 기본 키 중복만 "이미 있음": SQLState 23505(H2, PostgreSQL) 또는 MySQL 오류 코드 1062
+    private static boolean isDuplicateKey(DataIntegrityViolationException e) {
+        if (e instanceof DuplicateKeyException) return true;
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sql && ("23505".equals(sql.getSQLState()) || sql.getErrorCode() == 1062)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -1,79 +1,52 @@
 package com.swulion.puppettale.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.swulion.puppettale.constant.PuppetMode;
 import com.swulion.puppettale.dto.*;
 import com.swulion.puppettale.entity.ChatMessage;
 import com.swulion.puppettale.entity.Child;
 import com.swulion.puppettale.entity.FairyTale;
 import com.swulion.puppettale.entity.Speaker;
 import com.swulion.puppettale.repository.ChatMessageRepository;
-import jakarta.annotation.PostConstruct;
+import com.swulion.puppettale.util.GeminiResponseDecoder;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.Resource;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
-import org.springframework.util.FileCopyUtils;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.client.HttpClientErrorException;
 
-import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.Reader;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
-import static java.nio.charset.StandardCharsets.UTF_8;
-
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class DischargeService {
 
     private final ChatMessageRepository chatMessageRepository;
-    private final RestTemplate restTemplate;
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ChatMessageWriter chatMessageWriter;
+    private final GeminiClient geminiClient;
+    private final ObjectMapper objectMapper;
     private final FairyTaleService fairyTaleService;
     private final ImageService imageService;
+    private final SystemPromptService systemPromptService;
+    private final GeminiContextCache geminiContextCache;
+    private final PayloadLogger payloadLogger;
+    private final ChildProfileService childProfileService;
 
-    @Value("${api.key.gemini}")
-    private String apiKey;
-    private static final String GEMINI_MODEL = "gemini-2.5-flash";
-    private static final String GEMINI_API_URL =
-            "https://generativelanguage.googleapis.com/v1beta/models/" + GEMINI_MODEL + ":generateContent?key=";
-
-    @Value("classpath:prompts/ai_systemPrompt_template.txt")
-    private Resource aiSystemPromptResource;
-    private String aiSystemPromptTemplate;
-
-    @Value("classpath:prompts/story_creation_template.txt")
-    private Resource storyCreationPromptResource;
-    private String storyCreationPromptTemplate;
-
-    @PostConstruct
-    public void init() {
-        try (Reader reader = new InputStreamReader(aiSystemPromptResource.getInputStream(), UTF_8)) {
-            this.aiSystemPromptTemplate = FileCopyUtils.copyToString(reader);
-        } catch (IOException e) {
-            this.aiSystemPromptTemplate = "분석 프롬프트 로드 실패";
-        }
+    // 단계별 소요 시간 (analysis, story, image, save)
+    private final HotPathMetrics hotPathMetrics;
 
-        try (Reader reader = new InputStreamReader(storyCreationPromptResource.getInputStream(), UTF_8)) {
-            this.storyCreationPromptTemplate = FileCopyUtils.copyToString(reader);
-        } catch (IOException e) {
-            this.storyCreationPromptTemplate = "동화 생성 프롬프트 로드 실패";
-        }
-    }
+    private static final String GEMINI_MODEL = "gemini-2.5-flash";
 
     // 최종 동화 생성 로직
-    @Transactional
+    // Gemini/이미지 생성/S3 업로드 동안 DB 커넥션을 잡지 않도록 트랜잭션 없이 진행하고, 저장만 짧은 쓰기 트랜잭션으로 처리
     public StoryCreationResponseDto createStory(StoryCreationRequestDto request) {
+        // 분석/동화/삽화 호출의 토큰 사용량을 대화 세션별로 집계
+        return TokenUsageService.inSession(request.getSessionId(), () -> createStoryInSession(request));
+    }
 
+    private StoryCreationResponseDto createStoryInSession(StoryCreationRequestDto request) {
         Long childId = request.getChildId();
         String sessionId = request.getSessionId();
         String userName = Optional.ofNullable(request.getUserName()).orElse("아기사자");
@@ -89,7 +62,9 @@ public class DischargeService {
         }
 
         // 대화 분석
-        GeminiChatJsonContentDto analysisResult = analyzeChatHistory(childId, sessionId, userName, userAge, puppetName);
+        PuppetMode mode = puppetModeOf(childId);
+        GeminiChatJsonContentDto analysisResult = hotPathMetrics.time(HotPathMetrics.STORY_PHASE, "analysis", mode,
+                () -> analyzeChatHistory(childId, sessionId, userName, userAge, puppetName));
 
         if (analysisResult == null || analysisResult.getThoughtProcess() == null) {
             return StoryCreationResponseDto.builder()
@@ -115,13 +90,10 @@ public class DischargeService {
 
         String ingredientsList = buildIngredientsList(ingredients);
 
-        String finalStoryInstruction = storyCreationPromptTemplate
-                .replace("{Puppet_Name}", puppetName)
-                .replace("{User_Name}", userName)
-                .replace("{User_Age}", userAge != null ? userAge.toString() : "7")
-                .replace("{Story_Ingredients_List}", ingredientsList);
+        String finalStoryInstruction = systemPromptService.storyInstruction(puppetName, userName, userAge, ingredientsList);
 
-        String createdStory = callGeminiForStory(finalStoryInstruction);
+        String createdStory = hotPathMetrics.time(HotPathMetrics.STORY_PHASE, "story", mode,
+                () -> callGeminiForStory(childId, finalStoryInstruction));
 
         // 페이지 나누기
         List<FairyTalePageData> pages = splitStoryIntoPages(createdStory);
@@ -137,14 +109,15 @@ public class DischargeService {
                     puppetName,
                     ingredients
             );
-            String imageUrl = imageService.generateAndUploadImage(prompt);
+            String imageUrl = hotPathMetrics.time(HotPathMetrics.STORY_PHASE, "image", mode,
+                    () -> imageService.generateAndUploadImage(childId, prompt));
 
             page.setImageUrl(imageUrl);
         }
 
         // 동화 저장
-        FairyTale saved = fairyTaleService.saveFairyTale(childId, newTitle, pages);
-        fairyTaleService.updateLastDischargedAt(childId);
+        FairyTale saved = hotPathMetrics.time(HotPathMetrics.STORY_PHASE, "save", mode,
+                () -> fairyTaleService.saveDischargeFairyTale(childId, newTitle, pages));
 
         return StoryCreationResponseDto.builder()
                 .sessionId(sessionId)
@@ -159,6 +132,17 @@ public class DischargeService {
                 .build();
     }
 
+    // 메트릭 태그용 퍼펫 모드 (조회 실패 시 태그만 NONE으로 두고 동화 생성은 계속)
+    private PuppetMode puppetModeOf(Long childId) {
+        if (childId == null) return null;
+        try {
+            return childProfileService.getProfile(childId).getPuppetMode();
+        } catch (RuntimeException e) {
+            log.warn("퍼펫 모드 조회 실패, 메트릭 태그 없이 진행: childId={}", childId);
+            return null;
+        }
+    }
+
     private String buildIngredientsList(List<StoryIngredientsDto> ingredients) {
         StringBuilder sb = new StringBuilder();
         ingredients.forEach(i -> sb.append("- Type: ")
@@ -211,23 +195,9 @@ public class DischargeService {
         return pages;
     }
 
-    // 특정 세션의 모든 대화 기록을 조회하여 동화책 생성 준비 - 조회용
-    @Transactional(readOnly = true)
-    public List<ChatMessage> getConversationHistory(Long childId, String sessionId) {
-        List<ChatMessage> history = chatMessageRepository.findBySessionIdOrderByTimestampAsc(sessionId);
-        if (history.isEmpty()) {
-            throw new IllegalArgumentException("해당 세션 ID(" + sessionId + ")에 대한 대화 기록이 존재하지 않습니다.");
-        }
-        return history;
-    }
-
     // 대화 로그를 기반으로 Gemini에 분석을 요청하고, ThoughtProcess DTO를 반환
     private GeminiChatJsonContentDto analyzeChatHistory(Long childId, String sessionId, String userName, Integer userAge, String puppetName) {
-        String systemInstruction = this.aiSystemPromptTemplate
-                .replace("{Puppet_Name}", puppetName)
-                .replace("{User_Name}", userName)
-                .replace("{User_Age}", userAge != null ? userAge.toString() : "7")
-                .replace("{User_Constraint}", "없음");
+        String systemInstruction = systemPromptService.analysisInstruction(puppetName, userName, userAge);
 
         List<ChatMessage> history = getChatMessagesForStory(childId, sessionId);
         if (history.isEmpty()) {
@@ -236,11 +206,8 @@ public class DischargeService {
         }
 
         List<GeminiChatRequestDto.Content> contents = new ArrayList<>();
-        contents.add(
-                GeminiChatRequestDto.Content.builder().role("user").parts(List.of(new GeminiChatRequestDto.Part(systemInstruction))).build()
-        );
 
-        // 대화 기록 추가
+        // 대화 기록 추가 (System Instruction은 systemInstruction 필드로 별도 전달)
         for (ChatMessage log : history) {
             String role = log.getSpeaker() == Speaker.USER ? "user" : "model";
             contents.add(
@@ -252,27 +219,16 @@ public class DischargeService {
         contents.add(
                 GeminiChatRequestDto.Content.builder().role("user").parts(List.of(new GeminiChatRequestDto.Part("현재까지의 대화 내용을 바탕으로 분석 JSON을 출력해 주세요."))).build()
         );
-        GeminiChatRequestDto requestBody = new GeminiChatRequestDto(contents);
-        String apiUrlWithKey = GEMINI_API_URL + apiKey;
+        GeminiChatRequestDto inlineRequest = new GeminiChatRequestDto(contents, systemInstruction);
+        // 채팅과 같은 페르소나 프롬프트이므로 Gemini 컨텍스트 캐시가 있으면 참조
+        GeminiChatRequestDto requestBody = geminiContextCache.withCachedInstruction(GEMINI_MODEL, inlineRequest);
 
         try {
-            ResponseEntity<String> response = performApiCall(apiUrlWithKey, requestBody);
-
-            if (response != null && response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
-                String responseBody = response.getBody();
-                GeminiChatResponseDto geminiResponse = objectMapper.readValue(responseBody, GeminiChatResponseDto.class);
-                String jsonPayload = geminiResponse.getFirstText();
-
-                if (jsonPayload != null) {
-                    // Markdown 코드 블록 구문 제거
-                    String cleanJson = jsonPayload
-                            .trim() // 앞뒤 공백 제거
-                            .replaceAll("```json", "") // 시작 코드 블록 구문 제거
-                            .replaceAll("```", "") // 종료 코드 블록 구문 제거
-                            .trim(); // 제거 후 다시 앞뒤 공백 제거
-
-                    return objectMapper.readValue(cleanJson, GeminiChatJsonContentDto.class);
-                }
+            String jsonPayload = performApiCall(GeminiClient.CallType.ANALYSIS, childId, requestBody, inlineRequest);
+
+            if (jsonPayload != null) {
+                // ```json 코드 블록 표시는 건너뛰고 첫 JSON 객체만 읽음 (JSON이 아니면 null)
+                return GeminiResponseDecoder.readChatContent(objectMapper, jsonPayload);
             }
         } catch (Exception e) {
             log.error("분석 API 호출 중 파싱 실패:", e);
@@ -281,7 +237,7 @@ public class DischargeService {
     }
 
     // 동화 생성을 위한 API 호출 (일반 텍스트 요청)
-    private String callGeminiForStory(String storyInstruction) {
+    private String callGeminiForStory(Long childId, String storyInstruction) {
         List<GeminiChatRequestDto.Content> contents = List.of(
                 GeminiChatRequestDto.Content.builder()
                         .role("user")
@@ -289,19 +245,11 @@ public class DischargeService {
                         .build()
         );
         GeminiChatRequestDto requestBody = new GeminiChatRequestDto(contents);
-        String apiUrlWithKey = GEMINI_API_URL + apiKey;
 
         try {
-            ResponseEntity<String> response = performApiCall(apiUrlWithKey, requestBody);
-            if (response != null && response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
-
-                String responseBody = response.getBody();
-                GeminiChatResponseDto geminiResponse = objectMapper.readValue(responseBody, GeminiChatResponseDto.class);
-
-                String storyText = geminiResponse.getFirstText();
-                if (storyText != null) {
-                    return storyText.trim();
-                }
+            String storyText = performApiCall(GeminiClient.CallType.STORY, childId, requestBody, requestBody);
+            if (storyText != null) {
+                return storyText.trim();
             }
         } catch (Exception e) {
             log.error("동화 생성 API 호출 중 오류 및 파싱 실패:", e);
@@ -309,27 +257,23 @@ public class DischargeService {
         return null;
     }
     
-    // API 호출 및 재시도 공통
-    private ResponseEntity<String> performApiCall(String apiUrlWithKey, GeminiChatRequestDto requestBody) throws InterruptedException {
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        HttpEntity<GeminiChatRequestDto> entity = new HttpEntity<>(requestBody, headers);
-
-        final int MAX_RETRIES = 3;
-        final long WAIT_TIME_MS = 1000;
-
-        for (int attempt = 1; attempt <= MAX_RETRIES; attempt++) {
-            try {
-                return restTemplate.postForEntity(apiUrlWithKey, entity, String.class);
-            } catch (Exception e) {
-                log.warn("API 호출 실패 (시도: {})", attempt);
-                if (attempt < MAX_RETRIES) {
-                    Thread.sleep(WAIT_TIME_MS);
-                } else {
-                    log.error("API 호출 최종 실패");
-                    break;
-                }
+    // API 호출 공통 (재시도/차단은 GeminiClient에서 처리, 캐시를 참조한 요청이 캐시 부재로 실패하면 inlineRequest로 재요청)
+    // 응답의 첫 번째 텍스트 반환, 실패하거나 후보가 없으면 null
+    private String performApiCall(GeminiClient.CallType callType, Long childId, GeminiChatRequestDto requestBody,
+                                  GeminiChatRequestDto inlineRequest) {
+        try {
+            return geminiClient.generateText(callType, GEMINI_MODEL, requestBody, childId);
+        } catch (HttpClientErrorException e) {
+            if (requestBody != inlineRequest && geminiContextCache.isCacheMiss(requestBody, e)) {
+                geminiContextCache.evict(requestBody);
+                return performApiCall(callType, childId, inlineRequest, inlineRequest);
             }
+            log.error("API 호출 실패 (HTTP {})", e.getStatusCode());
+            payloadLogger.error(PayloadLogger.Category.GEMINI_ERROR, "Gemini 오류 응답", e.getResponseBodyAsString());
+        } catch (GeminiUnavailableException e) {
+            log.warn("Gemini 장애로 호출 차단 중: {}", e.getMessage());
+        } catch (Exception e) {
+            log.error("API 호출 최종 실패", e);
         }
         return null;
     }
@@ -338,15 +282,19 @@ public class DischargeService {
     private List<ChatMessage> getChatMessagesForStory(Long childId, String sessionId) {
         Child child = fairyTaleService.getChild(childId);
 
+        // 아직 DB에 저장되지 않은 (write-behind 대기 중인) 메시지까지 포함
         if (child.getLastDischargedAt() == null) {
-            return chatMessageRepository
-                    .findBySessionIdOrderByTimestampAsc(sessionId);
+            return chatMessageWriter.readThrough(
+                    message -> sessionId.equals(message.getSessionId()),
+                    () -> chatMessageRepository.findBySessionIdOrderByTimestampAsc(sessionId));
         }
 
-        return chatMessageRepository
-                .findBySessionIdAndTimestampAfterOrderByTimestampAsc(
+        return chatMessageWriter.readThrough(
+                message -> sessionId.equals(message.getSessionId())
+                        && message.getTimestamp().isAfter(child.getLastDischargedAt()),
+                () -> chatMessageRepository.findBySessionIdAndTimestampAfterOrderByTimestampAsc(
                         sessionId,
                         child.getLastDischargedAt()
-                );
+                ));
     }
 }
\ No newline at end of file
@@ -7,12 +7,14 @@ import com.swulion.puppettale.entity.FairyTalePage;
 import com.swulion.puppettale.repository.ChildRepository;
 import com.swulion.puppettale.repository.FairyTalePageRepository;
 import com.swulion.puppettale.repository.FairyTaleRepository;
+import com.swulion.puppettale.util.KeysetCursor;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
-import java.util.Comparator;
 import java.util.List;
 
 @Service
@@ -22,6 +24,12 @@ public class FairyTaleService {
     private final ChildRepository childRepository;
     private final FairyTalePageRepository fairyTalePageRepository;
 
+    @Value("${fairy-tale.list.default-page-size:20}")
+    private int defaultPageSize;
+
+    @Value("${fairy-tale.list.max-page-size:50}")
+    private int maxPageSize;
+
     // 동화 저장
     @Transactional
     public FairyTale saveFairyTale(Long childId, String title, List<FairyTalePageData> pages) {
@@ -59,14 +67,28 @@ public class FairyTaleService {
         return fairyTale;
     }
 
-    // 동화 목록 조회
+    /**
+     * 동화 목록 조회 (최신순 키셋 페이지네이션).
+     * cursor가 없으면 첫 페이지, 있으면 그 커서 다음부터 size개 (기본/최대 크기는 설정값).
+     * 한 개를 더 읽어 다음 페이지가 있는지 판단하므로 서재 크기와 관계없이 한 페이지 크기만 읽는다.
+     */
     @Transactional
-    public FairyTaleListResponse getFairyTaleList(Long childId) {
+    public FairyTaleListResponse getFairyTaleList(Long childId, String cursor, Integer size) {
+        int pageSize = (size == null) ? defaultPageSize : Math.max(1, Math.min(size, maxPageSize));
+        Limit limit = Limit.of(pageSize + 1);
+
+        List<FairyTaleSummary> fairyTales;
+        if (cursor == null || cursor.isBlank()) {
+            fairyTales = fairyTaleRepository.findSummaries(childId, limit);
+        } else {
+            KeysetCursor after = KeysetCursor.decode(cursor);
+            fairyTales = fairyTaleRepository.findSummariesAfter(childId, after.at(), after.id(), limit);
+        }
 
-        List<FairyTale> fairyTales =
-                fairyTaleRepository.findAllByChildIdAndIsDeletedFalseOrderByCreatedAtDesc(childId);
+        boolean hasNext = fairyTales.size() > pageSize;
+        List<FairyTaleSummary> page = hasNext ? fairyTales.subList(0, pageSize) : fairyTales;
 
-        List<FairyTaleListItem> items = fairyTales.stream()
+        List<FairyTaleListItem> items = page.stream()
                 .map(f -> FairyTaleListItem.builder()
                         .id(f.getId())
                         .title(f.getTitle())
@@ -75,15 +97,21 @@ public class FairyTaleService {
                         .build())
                 .toList();
 
-        return new FairyTaleListResponse(items);
+        String nextCursor = null;
+        if (hasNext) {
+            FairyTaleSummary last = page.get(page.size() - 1);
+            nextCursor = new KeysetCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+        return new FairyTaleListResponse(items, nextCursor);
     }
 
     // 동화 상세 조회
     @Transactional
     public FairyTaleDetailResponse getFairyTaleDetail(Long childId, Long fairyTaleId) {
 
+        // 페이지까지 단일 쿼리, 페이지 번호 순으로 정렬되어 옴
         FairyTale fairyTale = fairyTaleRepository
-                .findByIdAndChildIdAndIsDeletedFalse(fairyTaleId, childId)
+                .findWithPagesByIdAndChildIdAndIsDeletedFalse(fairyTaleId, childId)
                 .orElseThrow(() -> new IllegalArgumentException("동화를 찾을 수 없습니다."));
 
         return FairyTaleDetailResponse.builder()
@@ -92,7 +120,6 @@ public class FairyTaleService {
                 .thumbnailUrl(fairyTale.getThumbnailUrl())
                 .pages(
                         fairyTale.getPages().stream()
-                                .sorted(Comparator.comparingInt(p -> p.getPageNumber()))
                                 .map(p -> FairyTaleDetailResponse.FairyTalePageInfo.builder()
                                         .pageNumber(p.getPageNumber())
                                         .imageUrl(p.getImageUrl())
@@ -138,6 +165,14 @@ public class FairyTaleService {
         child.setLastDischargedAt(LocalDateTime.now());
     }
 
+    // 퇴원 동화 저장 + 퇴원 시점 기록을 하나의 쓰기 트랜잭션으로 처리
+    @Transactional
+    public FairyTale saveDischargeFairyTale(Long childId, String title, List<FairyTalePageData> pages) {
+        FairyTale saved = saveFairyTale(childId, title, pages);
+        saved.getChild().setLastDischargedAt(LocalDateTime.now());
+        return saved;
+    }
+
     // 아동 정보
     public Child getChild(Long childId) {
         return childRepository.findById(childId)
@@ -0,0 +1,55 @@
+package com.swulion.puppettale.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 로컬(또는 공유 마운트) 디렉터리에 세그먼트 파일을 둔다.
+ * 같은 디렉터리에 임시 이름으로 복사한 뒤 원자적으로 이름을 바꿔, 읽는 쪽에서 덜 쓴 세그먼트를 볼 일이 없다.
+ */
+@Component
+@ConditionalOnProperty(name = "chat.archive.storage", havingValue = "filesystem", matchIfMissing = true)
+public class FileSystemChatArchiveStorage implements ChatArchiveStorage {
+
+    private final Path directory;
+
+    public FileSystemChatArchiveStorage(@Value("${chat.archive.dir:chat-archive}") String directory) {
+        this.directory = Path.of(directory);
+    }
+
+    @Override
+    public void store(String segment, Path file) throws IOException {
+        Files.createDirectories(directory);
+        Path staging = directory.resolve(segment + ".tmp");
+        Files.copy(file, staging, StandardCopyOption.REPLACE_EXISTING);
+        Files.move(staging, directory.resolve(segment), StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Override
+    public byte[] read(String segment, long offset, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        try (FileChannel channel = FileChannel.open(directory.resolve(segment), StandardOpenOption.READ)) {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, offset + buffer.position()) < 0) {
+                    throw new EOFException("세그먼트가 예상보다 짧습니다: " + segment);
+                }
+            }
+        }
+        return buffer.array();
+    }
+
+    @Override
+    public String backend() {
+        return "filesystem";
+    }
+}
@@ -0,0 +1,464 @@
+package com.swulion.puppettale.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.swulion.puppettale.dto.GeminiUsageMetadata;
+import com.swulion.puppettale.util.GeminiResponseDecoder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.core5.concurrent.Cancellable;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.RequestCallback;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.ResponseExtractor;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gemini API 공통 클라이언트.
+ * 모든 호출이 하나의 커넥션 풀(keep-alive)을 공유하고, 호출 유형별 응답 대기 시간을 적용한다.
+ * 요청 본문은 공유 ObjectMapper로 직렬화하며, 긴 대화 기록처럼 큰 본문은 gzip으로 압축해 보낸다.
+ * 재시도/서킷 브레이커는 GeminiResilience가 담당하며, 재시도 후에도 남은 HTTP 오류는
+ * RestTemplate 예외(HttpClientErrorException 등)를, 차단 중에는 GeminiUnavailableException을 던진다.
+ */
+@Component
+@Slf4j
+public class GeminiClient {
+
+    public enum CallType {
+        CHAT,          // 채팅 응답
+        CHAT_STREAM,   // 채팅 스트리밍 (응답 대기 시간 = 조각 사이 최대 간격)
+        SUMMARY,       // 긴 세션 대화 요약
+        ANALYSIS,      // 동화 생성 전 대화 분석
+        STORY,         // 동화 본문 생성
+        IMAGE,         // 동화 삽화 생성
+        CONTEXT_CACHE  // cachedContents 등록
+    }
+
+    private final CloseableHttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final GeminiResilience resilience;
+    private final GeminiQuotaScheduler quotaScheduler;
+    private final MeterRegistry meterRegistry;
+    private final TokenUsageService tokenUsageService; // 테스트용 생성자에서는 null (집계/예산 없음)
+    private final Map<CallType, RestTemplate> restTemplates = new EnumMap<>(CallType.class);
+
+    @Value("${api.key.gemini}")
+    private String apiKey;
+
+    @Value("${gemini.api.base-url:https://generativelanguage.googleapis.com}")
+    private String baseUrl;
+
+    // 풀에서 커넥션을 얻기까지 기다리는 최대 시간
+    @Value("${gemini.http.pool-acquire-timeout-ms:5000}")
+    private long poolAcquireTimeoutMs;
+
+    // 이 크기 이상인 요청 본문은 gzip으로 압축 (0 이하면 압축하지 않음)
+    @Value("${gemini.http.gzip-min-bytes:8192}")
+    private int gzipMinBytes;
+
+    @Value("${gemini.http.timeout.chat-ms:30000}")
+    private long chatTimeoutMs;
+
+    @Value("${gemini.http.timeout.chat-stream-ms:30000}")
+    private long chatStreamTimeoutMs;
+
+    @Value("${gemini.http.timeout.summary-ms:60000}")
+    private long summaryTimeoutMs;
+
+    @Value("${gemini.http.timeout.analysis-ms:60000}")
+    private long analysisTimeoutMs;
+
+    @Value("${gemini.http.timeout.story-ms:90000}")
+    private long storyTimeoutMs;
+
+    @Value("${gemini.http.timeout.image-ms:120000}")
+    private long imageTimeoutMs;
+
+    @Value("${gemini.http.timeout.context-cache-ms:15000}")
+    private long contextCacheTimeoutMs;
+
+    // 현재 스레드에서 보내는 요청을 취소 핸들에 연결 (헤징에서 진 요청 중단용)
+    private static final ThreadLocal<Cancellation> CURRENT_CANCELLATION = new ThreadLocal<>();
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong compressedRequests = new AtomicLong();
+    private final AtomicLong compressionSavedBytes = new AtomicLong();
+
+    @Autowired
+    public GeminiClient(CloseableHttpClient geminiHttpClient, ObjectMapper objectMapper,
+                        GeminiResilience resilience, GeminiQuotaScheduler quotaScheduler, MeterRegistry meterRegistry,
+                        TokenUsageService tokenUsageService) {
+        this.httpClient = geminiHttpClient;
+        this.objectMapper = objectMapper;
+        this.resilience = resilience;
+        this.quotaScheduler = quotaScheduler;
+        this.meterRegistry = meterRegistry;
+        this.tokenUsageService = tokenUsageService;
+    }
+
+    // 테스트용: 모든 호출 유형에 같은 RestTemplate 사용
+    GeminiClient(RestTemplate restTemplate, ObjectMapper objectMapper,
+                 GeminiResilience resilience, GeminiQuotaScheduler quotaScheduler) {
+        this.httpClient = null;
+        this.objectMapper = objectMapper;
+        this.resilience = resilience;
+        this.quotaScheduler = quotaScheduler;
+        this.meterRegistry = new SimpleMeterRegistry();
+        this.tokenUsageService = null;
+        for (CallType type : CallType.values()) {
+            restTemplates.put(type, restTemplate);
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        if (httpClient == null) return;
+        for (CallType type : CallType.values()) {
+            HttpComponentsClientHttpRequestFactory factory = new CancellableRequestFactory(httpClient);
+            factory.setConnectionRequestTimeout(Duration.ofMillis(poolAcquireTimeoutMs));
+            factory.setReadTimeout(Duration.ofMillis(timeoutMs(type)));
+            restTemplates.put(type, new RestTemplate(factory));
+        }
+    }
+
+    // models/{model}:generateContent 호출, 응답 본문(JSON 문자열) 반환 (특정 아동과 무관한 호출)
+    public ResponseEntity<String> generateContent(CallType type, String model, Object body) {
+        return generateContent(type, model, body, null, null);
+    }
+
+    // childId: 할당량 스케줄러의 아동별 토큰 버킷에 반영
+    public ResponseEntity<String> generateContent(CallType type, String model, Object body, Long childId) {
+        return generateContent(type, model, body, childId, null);
+    }
+
+    // cancellation.cancel()이 호출되면 진행 중인 요청의 커넥션을 끊고 CancellationException을 던진다
+    public ResponseEntity<String> generateContent(CallType type, String model, Object body, Long childId,
+                                                  Cancellation cancellation) {
+        return post(type, model, body, childId, cancellation, (restTemplate, entity) -> {
+            ResponseEntity<String> response = restTemplate.postForEntity(modelUrl(model, "generateContent"), entity, String.class);
+            if (tokenUsageService != null) {
+                try {
+                    recordUsage(type, childId, GeminiResponseDecoder.usage(objectMapper.getFactory(), response.getBody()));
+                } catch (IOException e) {
+                    log.debug("usageMetadata 읽기 실패: {}", e.getMessage()); // 본문 처리는 호출부에서
+                }
+            }
+            return response;
+        });
+    }
+
+    // generateContent 응답에서 candidates[0].content.parts[0].text만 꺼내 반환 (후보가 없으면 null)
+    // 응답 본문을 문자열로 받지 않고 스트림에서 바로 읽는다
+    public String generateText(CallType type, String model, Object body, Long childId) {
+        return generateText(type, model, body, childId, null);
+    }
+
+    public String generateText(CallType type, String model, Object body, Long childId, Cancellation cancellation) {
+        return post(type, model, body, childId, cancellation, (restTemplate, entity) ->
+                restTemplate.execute(modelUrl(model, "generateContent"), HttpMethod.POST, writeBody(entity),
+                        response -> GeminiResponseDecoder.firstText(objectMapper.getFactory(), response.getBody(),
+                                usage -> recordUsage(type, childId, usage))));
+    }
+
+    // 응답의 usageMetadata를 아동/세션(호출 스레드에 지정된 세션)별 사용량에 반영
+    private void recordUsage(CallType type, Long childId, GeminiUsageMetadata usage) {
+        if (tokenUsageService != null) {
+            tokenUsageService.record(type, childId, usage);
+        }
+    }
+
+    // 아동/세션 하드 예산을 넘었으면 요청하지 않음 (TokenBudgetExceededException)
+    private void checkBudget(Long childId) {
+        if (tokenUsageService != null) {
+            tokenUsageService.checkBudget(childId);
+        }
+    }
+
+    private <T> T post(CallType type, String model, Object body, Long childId, Cancellation cancellation,
+                       BiFunction<RestTemplate, HttpEntity<byte[]>, T> call) {
+        checkBudget(childId);
+        Payload payload = payload(body);
+        HttpEntity<byte[]> entity = payload.entity();
+        // 재시도를 포함해 실제로 보내는 요청마다 할당량 차감 (차단기에 들어가기 전에 대기)
+        return resilience.execute(model, type, GeminiResilience.RetryScope.ALL,
+                () -> quotaScheduler.acquire(type, childId, payload.rawBytes()), () -> {
+            if (cancellation == null) {
+                return timed(type, () -> call.apply(restTemplates.get(type), entity));
+            }
+            if (cancellation.isCancelled()) throw new CancellationException("Gemini 요청 취소됨");
+            CURRENT_CANCELLATION.set(cancellation);
+            try {
+                return timed(type, () -> call.apply(restTemplates.get(type), entity));
+            } catch (ResourceAccessException e) {
+                if (cancellation.isCancelled()) throw new CancellationException("Gemini 요청 취소됨");
+                throw e;
+            } finally {
+                CURRENT_CANCELLATION.remove();
+            }
+        });
+    }
+
+    // HTTP 요청 한 번(재시도 각각)의 소요 시간을 호출 유형/결과별로 기록 (할당량 대기 시간 제외)
+    private <T> T timed(CallType type, Supplier<T> call) {
+        long startedAt = System.nanoTime();
+        String outcome = "error";
+        try {
+            T result = call.get();
+            outcome = "success";
+            return result;
+        } catch (HttpStatusCodeException e) {
+            outcome = e.getStatusCode().is4xxClientError() ? "client_error" : "server_error";
+            throw e;
+        } catch (CancellationException e) {
+            outcome = "cancelled";
+            throw e;
+        } finally {
+            Timer.builder("puppettale.gemini.call")
+                    .tag("type", type.name())
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static RequestCallback writeBody(HttpEntity<byte[]> entity) {
+        return request -> {
+            request.getHeaders().putAll(entity.getHeaders());
+            request.getBody().write(entity.getBody());
+        };
+    }
+
+    // models/{model}:streamGenerateContent?alt=sse 호출, 응답 스트림은 extractor에서 읽음
+    // 이미 받은 조각이 화면에 나갔을 수 있으므로, 응답 상태 코드 오류(스트림 시작 전)만 재시도
+    // 스트림 응답의 usageMetadata는 조각을 읽는 호출부에서 TokenUsageService에 기록
+    public <T> T streamGenerateContent(String model, Object body, Long childId, ResponseExtractor<T> extractor) {
+        checkBudget(childId);
+        Payload payload = payload(body);
+        HttpEntity<byte[]> entity = payload.entity();
+        return resilience.execute(model, CallType.CHAT_STREAM, GeminiResilience.RetryScope.STATUS_ONLY,
+                () -> quotaScheduler.acquire(CallType.CHAT_STREAM, childId, payload.rawBytes()),
+                () -> timed(CallType.CHAT_STREAM, () -> restTemplates.get(CallType.CHAT_STREAM).execute(
+                        modelUrl(model, "streamGenerateContent?alt=sse"), HttpMethod.POST, writeBody(entity),
+                        upstreamFailuresOnly(extractor))));
+    }
+
+    // RestTemplate은 extractor에서 난 IOException을 모두 ResourceAccessException(네트워크 오류)으로 감싸므로,
+    // 응답 본문을 읽다 난 오류(Gemini 쪽 끊김)만 그대로 두고 그 밖의 오류(클라이언트 전송 실패 등)는
+    // UncheckedIOException으로 던져 서킷 브레이커 실패율에 들어가지 않게 함
+    private static <T> ResponseExtractor<T> upstreamFailuresOnly(ResponseExtractor<T> extractor) {
+        return response -> {
+            boolean[] upstreamFailed = {false};
+            InputStream body = new FilterInputStream(response.getBody()) {
+                @Override
+                public int read() throws IOException {
+                    try {
+                        return super.read();
+                    } catch (IOException e) {
+                        upstreamFailed[0] = true;
+                        throw e;
+                    }
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    try {
+                        return super.read(b, off, len);
+                    } catch (IOException e) {
+                        upstreamFailed[0] = true;
+                        throw e;
+                    }
+                }
+            };
+            try {
+                return extractor.extractData(new ClientHttpResponse() {
+                    @Override
+                    public HttpStatusCode getStatusCode() throws IOException {
+                        return response.getStatusCode();
+                    }
+
+                    @Override
+                    public String getStatusText() throws IOException {
+                        return response.getStatusText();
+                    }
+
+                    @Override
+                    public HttpHeaders getHeaders() {
+                        return response.getHeaders();
+                    }
+
+                    @Override
+                    public InputStream getBody() {
+                        return body;
+                    }
+
+                    @Override
+                    public void close() {
+                        response.close();
+                    }
+                });
+            } catch (IOException e) {
+                if (upstreamFailed[0]) throw e;
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+
+    // cachedContents 등록, 응답(name, expireTime 등) 반환
+    public Map<?, ?> createCachedContent(Object body) {
+        Payload payload = payload(body);
+        return resilience.execute("cachedContents", CallType.CONTEXT_CACHE, GeminiResilience.RetryScope.ALL,
+                () -> quotaScheduler.acquire(CallType.CONTEXT_CACHE, null, payload.rawBytes()),
+                () -> timed(CallType.CONTEXT_CACHE, () -> restTemplates.get(CallType.CONTEXT_CACHE)
+                        .postForObject(baseUrl + "/v1beta/cachedContents?key=" + apiKey, payload.entity(), Map.class)));
+    }
+
+    public Stats getStats() {
+        return new Stats(requests.get(), compressedRequests.get(), compressionSavedBytes.get());
+    }
+
+    public GeminiResilience.Stats getResilienceStats() {
+        return resilience.getStats();
+    }
+
+    public GeminiQuotaScheduler.Stats getQuotaStats() {
+        return quotaScheduler.getStats();
+    }
+
+    private String modelUrl(String model, String method) {
+        return baseUrl + "/v1beta/models/" + model + ":" + method + (method.contains("?") ? "&" : "?") + "key=" + apiKey;
+    }
+
+    // 본문을 직렬화하고, 크기가 기준 이상이면 gzip 압축
+    private Payload payload(Object body) {
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Gemini 요청 본문 직렬화 실패", e);
+        }
+        requests.incrementAndGet();
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        if (gzipMinBytes <= 0 || json.length < gzipMinBytes) {
+            return new Payload(new HttpEntity<>(json, headers), json.length);
+        }
+
+        byte[] compressed = gzip(json);
+        compressedRequests.incrementAndGet();
+        compressionSavedBytes.addAndGet(json.length - compressed.length);
+        headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+        return new Payload(new HttpEntity<>(compressed, headers), json.length);
+    }
+
+    // 전송할 본문과 압축 전 크기 (할당량 토큰 추정용)
+    private record Payload(HttpEntity<byte[]> entity, int rawBytes) {
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private long timeoutMs(CallType type) {
+        return switch (type) {
+            case CHAT -> chatTimeoutMs;
+            case CHAT_STREAM -> chatStreamTimeoutMs;
+            case SUMMARY -> summaryTimeoutMs;
+            case ANALYSIS -> analysisTimeoutMs;
+            case STORY -> storyTimeoutMs;
+            case IMAGE -> imageTimeoutMs;
+            case CONTEXT_CACHE -> contextCacheTimeoutMs;
+        };
+    }
+
+    /**
+     * 진행 중인 요청을 밖에서 중단하기 위한 핸들.
+     * 요청이 만들어질 때 HttpClient 요청 객체에 연결되며, cancel() 시 커넥션을 끊는다.
+     */
+    public static class Cancellation {
+        private volatile boolean cancelled;
+        private volatile Cancellable request;
+
+        public void cancel() {
+            cancelled = true;
+            Cancellable current = request;
+            if (current != null) current.cancel();
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        void bind(Cancellable request) {
+            this.request = request;
+            if (cancelled) request.cancel();
+        }
+    }
+
+    // 생성한 HttpClient 요청을 현재 스레드의 취소 핸들에 연결하는 요청 팩토리
+    private static class CancellableRequestFactory extends HttpComponentsClientHttpRequestFactory {
+
+        CancellableRequestFactory(CloseableHttpClient httpClient) {
+            super(httpClient);
+        }
+
+        @Override
+        protected ClassicHttpRequest createHttpUriRequest(HttpMethod httpMethod, URI uri) {
+            ClassicHttpRequest request = super.createHttpUriRequest(httpMethod, uri);
+            Cancellation cancellation = CURRENT_CANCELLATION.get();
+            if (cancellation != null && request instanceof Cancellable cancellable) {
+                cancellation.bind(cancellable);
+            }
+            return request;
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Stats {
+        private final long requests;
+        private final long compressedRequests;
+        private final long compressionSavedBytes;
+    }
+}
@@ -0,0 +1,170 @@
+package com.swulion.puppettale.service;
+
+import com.swulion.puppettale.dto.GeminiChatRequestDto;
+import com.swulion.puppettale.util.TokenEstimator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Gemini 명시적 컨텍스트 캐시(cachedContents) 관리.
+ * 같은 시스템 명령(렌더링 결과 기준)은 한 번만 캐시로 등록하고, 이후 요청은 캐시 이름만 참조한다.
+ * 캐시 등록/갱신은 백그라운드에서 진행되며, 준비되기 전이나 캐시를 찾을 수 없을 때는 인라인 시스템 명령을 그대로 보낸다.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class GeminiContextCache {
+
+    // 만료 직전의 캐시는 요청 도중 사라질 수 있으므로 사용하지 않음
+    private static final long EXPIRY_MARGIN_SECONDS = 30;
+    // 등록 실패 후 다시 시도하기까지의 대기 시간
+    private static final long CREATE_RETRY_SECONDS = 60;
+
+    private final GeminiClient geminiClient;
+    private final Executor geminiCacheExecutor;
+
+    @Value("${gemini.context-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${gemini.context-cache.ttl-seconds:3600}")
+    private long ttlSeconds;
+
+    // 만료까지 남은 시간이 이보다 짧으면 새 캐시를 미리 등록
+    @Value("${gemini.context-cache.refresh-ahead-seconds:300}")
+    private long refreshAheadSeconds;
+
+    // 모델의 명시적 캐시 최소 토큰 수보다 작은 명령은 캐시하지 않음
+    @Value("${gemini.context-cache.min-tokens:1024}")
+    private int minTokens;
+
+    @Value("${gemini.context-cache.max-entries:500}")
+    private int maxEntries;
+
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    // 시스템 명령이 캐시되어 있으면 캐시를 참조하는 요청으로 바꿔서 반환, 아니면 원래 요청(인라인) 반환
+    public GeminiChatRequestDto withCachedInstruction(String model, GeminiChatRequestDto request) {
+        if (!enabled || request.getSystemInstruction() == null) return request;
+
+        String instruction = request.getSystemInstruction().getParts().get(0).getText();
+        if (TokenEstimator.estimate(instruction) < minTokens) return request;
+
+        String key = model + ":" + sha256(instruction);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            if (entries.size() >= maxEntries) {
+                purgeExpired();
+                if (entries.size() >= maxEntries) return request;
+            }
+            entry = entries.computeIfAbsent(key, k -> new Entry());
+        }
+
+        Instant now = Instant.now();
+        String usable = entry.name != null && entry.expireTime.isAfter(now.plusSeconds(EXPIRY_MARGIN_SECONDS))
+                ? entry.name : null;
+
+        if (usable == null || entry.expireTime.isBefore(now.plusSeconds(refreshAheadSeconds))) {
+            scheduleCreate(entry, model, request.getSystemInstruction());
+        }
+        return usable != null ? request.withCachedContent(usable) : request;
+    }
+
+    // 캐시를 참조한 요청이 실패했을 때, 캐시가 사라진 경우인지 판단
+    public boolean isCacheMiss(GeminiChatRequestDto request, HttpClientErrorException e) {
+        if (request.getCachedContent() == null) return false;
+        if (e.getStatusCode() == HttpStatus.NOT_FOUND || e.getStatusCode() == HttpStatus.FORBIDDEN) return true;
+        return e.getStatusCode() == HttpStatus.BAD_REQUEST
+                && e.getResponseBodyAsString().toLowerCase().contains("cachedcontent");
+    }
+
+    // 사라진 캐시를 목록에서 제거 (다음 요청에서 다시 등록)
+    public void evict(GeminiChatRequestDto request) {
+        String name = request.getCachedContent();
+        if (name == null) return;
+        entries.values().forEach(entry -> {
+            if (name.equals(entry.name)) {
+                entry.name = null;
+                entry.expireTime = Instant.EPOCH;
+            }
+        });
+        log.warn("Gemini 컨텍스트 캐시를 찾을 수 없어 제거: {}", name);
+    }
+
+    private void scheduleCreate(Entry entry, String model, GeminiChatRequestDto.Content systemInstruction) {
+        if (Instant.now().isBefore(entry.retryAfter)) return;
+        if (!entry.creating.compareAndSet(false, true)) return;
+
+        try {
+            geminiCacheExecutor.execute(() -> {
+                try {
+                    create(entry, model, systemInstruction);
+                } finally {
+                    entry.creating.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            entry.creating.set(false);
+        }
+    }
+
+    private void create(Entry entry, String model, GeminiChatRequestDto.Content systemInstruction) {
+        Map<String, Object> body = Map.of(
+                "model", "models/" + model,
+                "systemInstruction", systemInstruction,
+                "ttl", ttlSeconds + "s"
+        );
+        try {
+            Map<?, ?> created = geminiClient.createCachedContent(body);
+            if (created == null || created.get("name") == null) {
+                throw new IllegalStateException("cachedContents 응답에 name이 없습니다.");
+            }
+
+            Object expireTime = created.get("expireTime");
+            entry.expireTime = expireTime != null
+                    ? Instant.parse(expireTime.toString())
+                    : Instant.now().plusSeconds(ttlSeconds);
+            entry.name = created.get("name").toString();
+            log.info("Gemini 컨텍스트 캐시 등록: {}, 만료: {}", entry.name, entry.expireTime);
+        } catch (Exception e) {
+            entry.retryAfter = Instant.now().plusSeconds(CREATE_RETRY_SECONDS);
+            log.warn("Gemini 컨텍스트 캐시 등록 실패, 인라인 프롬프트 사용: {}", e.getMessage());
+        }
+    }
+
+    private void purgeExpired() {
+        Instant now = Instant.now();
+        entries.values().removeIf(entry -> !entry.creating.get() && entry.expireTime.isBefore(now));
+    }
+
+    private static String sha256(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class Entry {
+        private volatile String name;
+        private volatile Instant expireTime = Instant.EPOCH;
+        private volatile Instant retryAfter = Instant.EPOCH;
+        private final AtomicBoolean creating = new AtomicBoolean(false);
+    }
+}
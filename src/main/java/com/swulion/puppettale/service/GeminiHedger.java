@@ -0,0 +1,262 @@
+package com.swulion.puppettale.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 채팅 Gemini 호출 헤징.
+ * 최근 호출 지연 시간의 백분위(기본 p95) 안에 응답이 없으면 같은 요청을 한 번 더 보내고,
+ * 먼저 성공한 응답을 쓰고 나머지 요청은 커넥션을 끊어 중단한다.
+ * 할당량 보호를 위해 헤징 요청 수는 전체 호출 수의 일정 비율을 넘지 않는다.
+ * 지연 시간 샘플은 원 요청 기준으로 호출마다 하나씩 기록한다. 원 요청이 예비 요청에 져서 취소되면
+ * 취소 시점까지의 경과 시간(실제 지연 시간의 하한)을 기록해, 느린 응답이 분포에서 빠지지 않게 한다.
+ */
+@Component
+@Slf4j
+public class GeminiHedger {
+
+    private final GeminiClient geminiClient;
+    private final Executor geminiHedgeExecutor;
+
+    @Value("${gemini.hedging.enabled:false}")
+    private boolean enabled;
+
+    // 이 백분위 지연 시간이 지나도 응답이 없으면 예비 요청 발송
+    @Value("${gemini.hedging.percentile:0.95}")
+    private double percentile;
+
+    // 백분위 계산에 쓰는 최근 지연 시간 샘플 수
+    @Value("${gemini.hedging.window-size:200}")
+    private int windowSize;
+
+    // 샘플이 이보다 적으면 헤징하지 않음
+    @Value("${gemini.hedging.min-samples:20}")
+    private int minSamples;
+
+    // 헤징 대기 시간 하한 (짧은 응답이 몰려 있을 때 불필요한 예비 요청 방지)
+    @Value("${gemini.hedging.min-delay-ms:500}")
+    private long minDelayMs;
+
+    // 전체 호출 대비 예비 요청 비율 상한
+    @Value("${gemini.hedging.max-hedge-rate:0.05}")
+    private double maxHedgeRate;
+
+    private long[] samples;
+    private int sampleCount;
+    private int nextSample;
+
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong hedges = new AtomicLong();
+    private final AtomicLong hedgeWins = new AtomicLong();
+    private final AtomicLong savedMillis = new AtomicLong();
+
+    public GeminiHedger(GeminiClient geminiClient, @Qualifier("geminiHedgeExecutor") Executor geminiHedgeExecutor) {
+        this.geminiClient = geminiClient;
+        this.geminiHedgeExecutor = geminiHedgeExecutor;
+    }
+
+    // 헤징을 적용한 채팅 generateContent 호출 (비활성 상태면 그대로 호출)
+    public ResponseEntity<String> generateContent(String model, Object body, Long childId) {
+        return hedged(() -> geminiClient.generateContent(GeminiClient.CallType.CHAT, model, body, childId),
+                cancellation -> geminiClient.generateContent(GeminiClient.CallType.CHAT, model, body, childId, cancellation));
+    }
+
+    // 헤징을 적용한 채팅 호출, 응답의 첫 번째 텍스트만 반환
+    public String generateText(String model, Object body, Long childId) {
+        return hedged(() -> geminiClient.generateText(GeminiClient.CallType.CHAT, model, body, childId),
+                cancellation -> geminiClient.generateText(GeminiClient.CallType.CHAT, model, body, childId, cancellation));
+    }
+
+    // direct: 헤징 없이 호출, call: 취소 가능한 호출 (원 요청/예비 요청)
+    private <T> T hedged(Supplier<T> direct, Function<GeminiClient.Cancellation, T> call) {
+        if (!enabled) {
+            return direct.get();
+        }
+        calls.incrementAndGet();
+        long startedAt = System.nanoTime();
+
+        Attempt<T> primary;
+        try {
+            primary = start(call, true);
+        } catch (RejectedExecutionException e) {
+            // 헤징 스레드가 모자라면 호출 스레드에서 바로 호출
+            return timed(direct);
+        }
+
+        long delayMs = hedgeDelayMs();
+        if (delayMs < 0) return await(primary.future);
+
+        try {
+            return primary.future.get(delayMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // 기준 시간 안에 응답 없음: 예비 요청 후보
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        } catch (InterruptedException e) {
+            primary.cancellation.cancel();
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Gemini 응답 대기 중 인터럽트", e);
+        }
+
+        if (!tryAcquireHedge()) return await(primary.future);
+
+        Attempt<T> hedge;
+        try {
+            hedge = start(call, false);
+        } catch (RejectedExecutionException e) {
+            hedges.decrementAndGet();
+            return await(primary.future);
+        }
+        log.info("Gemini 응답 지연 {}ms 초과, 예비 요청 발송", delayMs);
+
+        return race(primary, hedge, startedAt, delayMs);
+    }
+
+    public Stats getStats() {
+        long totalCalls = calls.get();
+        long totalHedges = hedges.get();
+        return new Stats(totalCalls, totalHedges, hedgeWins.get(),
+                totalCalls == 0 ? 0 : (double) totalHedges / totalCalls,
+                Math.max(0, hedgeDelayMs()), savedMillis.get());
+    }
+
+    // 먼저 성공한 쪽의 응답을 반환하고 나머지는 취소 (둘 다 실패하면 원 요청의 예외)
+    private <T> T race(Attempt<T> primary, Attempt<T> hedge, long startedAt, long delayMs) {
+        CompletableFuture<Attempt<T>> winner = new CompletableFuture<>();
+        AtomicInteger failures = new AtomicInteger();
+        for (Attempt<T> attempt : List.of(primary, hedge)) {
+            attempt.future.whenComplete((response, error) -> {
+                if (error == null) {
+                    winner.complete(attempt);
+                } else if (failures.incrementAndGet() == 2) {
+                    // 둘 다 실패: 원 요청의 예외를 그대로 전달
+                    winner.complete(primary);
+                }
+            });
+        }
+
+        Attempt<T> won = winner.join();
+        // 진 요청만 중단 (끝난 요청을 취소하면 풀로 돌아간 커넥션에 영향을 줄 수 있음)
+        (won == primary ? hedge : primary).cancellation.cancel();
+
+        if (won == hedge) {
+            hedgeWins.incrementAndGet();
+            long elapsedMs = (System.nanoTime() - startedAt) / 1_000_000;
+            // 원 요청은 적어도 지금까지 걸렸음: 하한값으로 기록 (이미 응답해 기록됐으면 건너뜀)
+            if (primary.sampled.compareAndSet(false, true)) record(elapsedMs);
+            long saved = expectedRemainingMs(elapsedMs);
+            savedMillis.addAndGet(saved);
+            log.info("예비 요청이 먼저 응답: {}ms (원 요청 예상 추가 지연 {}ms 절약)", elapsedMs, saved);
+        }
+        return await(won.future);
+    }
+
+    // primary: 원 요청이면 성공 시 지연 시간 샘플 기록 (예비 요청은 같은 호출을 두 번 세지 않도록 기록하지 않음)
+    private <T> Attempt<T> start(Function<GeminiClient.Cancellation, T> call, boolean primary) {
+        GeminiClient.Cancellation cancellation = new GeminiClient.Cancellation();
+        AtomicBoolean sampled = new AtomicBoolean(!primary);
+        String sessionId = TokenUsageService.currentSession(); // 토큰 사용량 세션 구분을 헤징 스레드로 전달
+        CompletableFuture<T> future = CompletableFuture.supplyAsync(
+                () -> TokenUsageService.inSession(sessionId, () -> timed(() -> call.apply(cancellation), sampled)), geminiHedgeExecutor);
+        return new Attempt<>(future, cancellation, sampled);
+    }
+
+    private <T> T timed(Supplier<T> call) {
+        return timed(call, new AtomicBoolean());
+    }
+
+    // 호출하고 성공한 경우 지연 시간 샘플 기록 (sampled가 이미 true면 기록하지 않음)
+    private <T> T timed(Supplier<T> call, AtomicBoolean sampled) {
+        long startedAt = System.nanoTime();
+        T response = call.get();
+        if (sampled.compareAndSet(false, true)) record((System.nanoTime() - startedAt) / 1_000_000);
+        return response;
+    }
+
+    private boolean tryAcquireHedge() {
+        while (true) {
+            long current = hedges.get();
+            if (current + 1 > maxHedgeRate * calls.get()) return false;
+            if (hedges.compareAndSet(current, current + 1)) return true;
+        }
+    }
+
+    private synchronized void record(long latencyMs) {
+        if (samples == null) samples = new long[Math.max(1, windowSize)];
+        samples[nextSample] = latencyMs;
+        nextSample = (nextSample + 1) % samples.length;
+        if (sampleCount < samples.length) sampleCount++;
+    }
+
+    // 최근 샘플 기준 헤징 대기 시간 (샘플 부족 시 -1)
+    synchronized long hedgeDelayMs() {
+        if (sampleCount < Math.max(1, minSamples)) return -1;
+        long[] sorted = Arrays.copyOf(samples, sampleCount);
+        Arrays.sort(sorted);
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1);
+        return Math.max(minDelayMs, sorted[Math.max(0, index)]);
+    }
+
+    // 원 요청이 elapsedMs 동안 응답하지 않았을 때, 최근 샘플로 본 예상 추가 대기 시간
+    private synchronized long expectedRemainingMs(long elapsedMs) {
+        long sum = 0;
+        int count = 0;
+        for (int i = 0; i < sampleCount; i++) {
+            if (samples[i] > elapsedMs) {
+                sum += samples[i] - elapsedMs;
+                count++;
+            }
+        }
+        return count == 0 ? 0 : sum / count;
+    }
+
+    private static RuntimeException unwrap(Throwable error) {
+        Throwable cause = error;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException) && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause instanceof RuntimeException runtime ? runtime : new IllegalStateException(cause);
+    }
+
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw unwrap(e.getCause());
+        }
+    }
+
+    private record Attempt<T>(CompletableFuture<T> future, GeminiClient.Cancellation cancellation, AtomicBoolean sampled) {
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Stats {
+        private final long calls;            // 헤징 대상 채팅 호출 수
+        private final long hedges;           // 예비 요청 발송 수
+        private final long hedgeWins;        // 예비 요청이 먼저 응답한 수
+        private final double hedgeRate;      // hedges / calls
+        private final long hedgeDelayMs;     // 현재 헤징 대기 시간 (샘플 부족 시 0)
+        private final long latencySavedMs;   // 예비 요청으로 줄인 것으로 추정되는 지연 시간 합계
+    }
+}
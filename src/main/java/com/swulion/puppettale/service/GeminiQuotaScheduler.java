@@ -0,0 +1,307 @@
+package com.swulion.puppettale.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Gemini API 키 하나를 나눠 쓰는 모든 호출의 할당량 스케줄러.
+ * 전역 분당 요청 수(RPM)/토큰 수(TPM)와 아동별 토큰 버킷을 지키도록 호출 직전에 대기시키며,
+ * 대기 중인 호출은 우선순위(채팅 > 동화 텍스트 > 이미지) 순서로 통과시킨다.
+ * 예산이 부족하면 실패시키지 않고 기다리며, 우선순위별 최대 대기 시간을 넘기면 GeminiUnavailableException.
+ */
+@Component
+@Slf4j
+public class GeminiQuotaScheduler {
+
+    public enum Priority {
+        INTERACTIVE, // 채팅 응답
+        STORY,       // 동화 분석/본문, 대화 요약 등 텍스트 생성
+        IMAGE        // 동화 삽화
+    }
+
+    private static final long MINUTE_NANOS = TimeUnit.MINUTES.toNanos(1);
+    // 예산이 언제 생길지 계산하기 어려운 경우(아동 버킷 등)에 다시 확인하는 간격
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    // 아동별 버킷이 이보다 많아지면 가득 찬(쉬고 있는) 버킷 정리
+    private static final int CHILD_BUCKET_CLEANUP_THRESHOLD = 10_000;
+
+    @Value("${gemini.quota.enabled:true}")
+    private boolean enabled;
+
+    @Value("${gemini.quota.requests-per-minute:1000}")
+    private int requestsPerMinute;
+
+    @Value("${gemini.quota.tokens-per-minute:1000000}")
+    private long tokensPerMinute;
+
+    // 아동 한 명이 분당 쓸 수 있는 토큰 (버킷 크기도 같음)
+    @Value("${gemini.quota.child-tokens-per-minute:60000}")
+    private long childTokensPerMinute;
+
+    @Value("${gemini.quota.max-wait-ms.interactive:10000}")
+    private long interactiveMaxWaitMs;
+
+    @Value("${gemini.quota.max-wait-ms.story:60000}")
+    private long storyMaxWaitMs;
+
+    @Value("${gemini.quota.max-wait-ms.image:120000}")
+    private long imageMaxWaitMs;
+
+    // 예산 기준 시간 (테스트에서 줄일 수 있도록 분리)
+    private long windowNanos = MINUTE_NANOS;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition budgetChanged = lock.newCondition();
+    // 우선순위, 도착 순으로 정렬된 대기 호출
+    private final TreeSet<Waiter> queue = new TreeSet<>(
+            Comparator.comparing((Waiter w) -> w.priority).thenComparingLong(w -> w.seq));
+    private long nextSeq;
+
+    // 최근 1분간 통과한 호출 (시각, 토큰)
+    private final ArrayDeque<long[]> window = new ArrayDeque<>();
+    private long windowTokens;
+    private final Map<Long, TokenBucket> childBuckets = new HashMap<>();
+
+    private final Map<Priority, ClassStats> classStats = new EnumMap<>(Priority.class);
+
+    public GeminiQuotaScheduler() {
+        for (Priority priority : Priority.values()) {
+            classStats.put(priority, new ClassStats());
+        }
+    }
+
+    public static Priority priorityOf(GeminiClient.CallType type) {
+        return switch (type) {
+            case CHAT, CHAT_STREAM -> Priority.INTERACTIVE;
+            case IMAGE -> Priority.IMAGE;
+            case SUMMARY, ANALYSIS, STORY, CONTEXT_CACHE -> Priority.STORY;
+        };
+    }
+
+    /**
+     * 예산이 생길 때까지 기다린 뒤 예상 토큰을 차감한다.
+     * @param childId 아동별 버킷을 적용할 아동 (없으면 전역 예산만 적용)
+     * @param requestBytes 직렬화된 요청 본문 크기 (토큰 추정용)
+     */
+    public void acquire(GeminiClient.CallType type, Long childId, long requestBytes) {
+        if (!enabled) return;
+
+        Priority priority = priorityOf(type);
+        long estimatedTokens = estimateTokens(priority, requestBytes);
+        ClassStats stats = classStats.get(priority);
+        long startedAt = System.nanoTime();
+        long deadline = startedAt + TimeUnit.MILLISECONDS.toNanos(maxWaitMs(priority));
+
+        lock.lock();
+        try {
+            Waiter waiter = new Waiter(priority, nextSeq++, childId, Math.max(1, estimatedTokens));
+            queue.add(waiter);
+            stats.queued++;
+            try {
+                while (true) {
+                    long parkNanos = dispatch(System.nanoTime());
+                    if (waiter.admitted) break;
+
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        queue.remove(waiter);
+                        stats.timeouts.incrementAndGet();
+                        log.warn("Gemini 할당량 대기 시간 초과: {} ({}ms)", priority, maxWaitMs(priority));
+                        throw new GeminiUnavailableException("Gemini 할당량 대기 시간 초과: " + priority);
+                    }
+                    budgetChanged.awaitNanos(Math.min(remaining, parkNanos));
+                }
+            } catch (InterruptedException e) {
+                queue.remove(waiter);
+                Thread.currentThread().interrupt();
+                throw new GeminiUnavailableException("Gemini 할당량 대기 중 인터럽트");
+            } finally {
+                stats.queued--;
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        long waitedNanos = System.nanoTime() - startedAt;
+        stats.admitted.incrementAndGet();
+        stats.waitedNanos.addAndGet(waitedNanos);
+        stats.maxWaitNanos.accumulateAndGet(waitedNanos, Math::max);
+    }
+
+    // 입력: 한글 UTF-8 3바이트 ≒ 1토큰으로 어림, 출력: 우선순위별 예상 응답 토큰
+    static long estimateTokens(Priority priority, long requestBytes) {
+        long outputTokens = switch (priority) {
+            case INTERACTIVE -> 500;
+            case STORY -> 2000;
+            case IMAGE -> 1300;
+        };
+        return requestBytes / 3 + outputTokens;
+    }
+
+    public Stats getStats() {
+        Map<Priority, ClassSnapshot> snapshot = new EnumMap<>(Priority.class);
+        lock.lock();
+        try {
+            classStats.forEach((priority, stats) -> {
+                long admitted = stats.admitted.get();
+                snapshot.put(priority, new ClassSnapshot(stats.queued, admitted,
+                        admitted == 0 ? 0 : stats.waitedNanos.get() / admitted / 1_000_000,
+                        stats.maxWaitNanos.get() / 1_000_000, stats.timeouts.get()));
+            });
+            return new Stats(snapshot, window.size(), windowTokens, childBuckets.size());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 우선순위 순으로 예산 안에서 통과 가능한 대기 호출을 통과시킨다 (lock 안에서 호출).
+     * 전역 예산이 모자라면 뒤의 낮은 우선순위 호출도 통과시키지 않고, 아동 버킷만 모자란 호출은 건너뛴다.
+     * @return 다시 확인할 때까지 기다릴 시간
+     */
+    private long dispatch(long now) {
+        expire(now);
+        boolean admittedAny = false;
+        long parkNanos = MAX_PARK_NANOS;
+
+        Iterator<Waiter> ordered = queue.iterator();
+        while (ordered.hasNext()) {
+            Waiter waiter = ordered.next();
+            if (!fitsGlobal(waiter.tokens)) {
+                parkNanos = Math.min(parkNanos, nanosUntilWindowFrees(now));
+                break;
+            }
+            TokenBucket bucket = waiter.childId == null ? null
+                    : childBuckets.computeIfAbsent(waiter.childId, id -> new TokenBucket(childTokensPerMinute, windowNanos, now));
+            if (bucket != null && !bucket.tryTake(waiter.tokens, now)) {
+                continue;
+            }
+            window.addLast(new long[]{now, waiter.tokens});
+            windowTokens += waiter.tokens;
+            waiter.admitted = true;
+            ordered.remove();
+            admittedAny = true;
+        }
+
+        if (admittedAny) budgetChanged.signalAll();
+        if (childBuckets.size() > CHILD_BUCKET_CLEANUP_THRESHOLD) {
+            childBuckets.values().removeIf(bucket -> bucket.isFull(now));
+        }
+        return Math.max(parkNanos, TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    // 한 호출이 예산보다 커도 창이 비어 있으면 통과 (영원히 막히지 않도록)
+    private boolean fitsGlobal(long tokens) {
+        if (window.isEmpty()) return true;
+        return window.size() < requestsPerMinute && windowTokens + tokens <= tokensPerMinute;
+    }
+
+    private void expire(long now) {
+        while (!window.isEmpty() && now - window.peekFirst()[0] >= windowNanos) {
+            windowTokens -= window.pollFirst()[1];
+        }
+    }
+
+    private long nanosUntilWindowFrees(long now) {
+        return window.isEmpty() ? 0 : window.peekFirst()[0] + windowNanos - now;
+    }
+
+    private long maxWaitMs(Priority priority) {
+        return switch (priority) {
+            case INTERACTIVE -> interactiveMaxWaitMs;
+            case STORY -> storyMaxWaitMs;
+            case IMAGE -> imageMaxWaitMs;
+        };
+    }
+
+    private static class Waiter {
+        private final Priority priority;
+        private final long seq;
+        private final Long childId;
+        private final long tokens;
+        private boolean admitted;
+
+        Waiter(Priority priority, long seq, Long childId, long tokens) {
+            this.priority = priority;
+            this.seq = seq;
+            this.childId = childId;
+            this.tokens = tokens;
+        }
+    }
+
+    // 기준 시간(1분)마다 capacity만큼 연속으로 채워지는 토큰 버킷
+    private static class TokenBucket {
+        private final long capacity;
+        private final long periodNanos;
+        private double tokens;
+        private long refilledAt;
+
+        TokenBucket(long capacity, long periodNanos, long now) {
+            this.capacity = Math.max(1, capacity);
+            this.periodNanos = periodNanos;
+            this.tokens = this.capacity;
+            this.refilledAt = now;
+        }
+
+        // 버킷보다 큰 호출은 버킷이 가득 찼을 때 통과
+        boolean tryTake(long amount, long now) {
+            refill(now);
+            long needed = Math.min(amount, capacity);
+            if (tokens < needed) return false;
+            tokens -= amount;
+            return true;
+        }
+
+        boolean isFull(long now) {
+            refill(now);
+            return tokens >= capacity;
+        }
+
+        private void refill(long now) {
+            tokens = Math.min(capacity, tokens + (double) capacity * (now - refilledAt) / periodNanos);
+            refilledAt = now;
+        }
+    }
+
+    private static class ClassStats {
+        private int queued; // lock 안에서만 변경
+        private final AtomicLong admitted = new AtomicLong();
+        private final AtomicLong waitedNanos = new AtomicLong();
+        private final AtomicLong maxWaitNanos = new AtomicLong();
+        private final AtomicLong timeouts = new AtomicLong();
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class ClassSnapshot {
+        private final int queueDepth;    // 현재 대기 중인 호출 수
+        private final long admitted;     // 통과한 호출 수
+        private final long avgWaitMs;    // 평균 대기 시간
+        private final long maxWaitMs;    // 최대 대기 시간
+        private final long timeouts;     // 대기 시간 초과로 실패한 호출 수
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Stats {
+        private final Map<Priority, ClassSnapshot> classes;
+        private final int requestsLastMinute;
+        private final long tokensLastMinute;
+        private final int childBuckets;
+    }
+}
@@ -0,0 +1,327 @@
+package com.swulion.puppettale.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Gemini 호출 공통 재시도/차단 정책.
+ * - 429, 5xx, 네트워크 오류만 재시도하고 나머지 4xx(잘못된 요청, 캐시 부재 등)는 바로 던진다.
+ * - 재시도 간격은 지수 백오프 + 지터이며, 429/503에 Retry-After가 있으면 그 값을 따른다.
+ * - 모델별 서킷 브레이커: 최근 호출의 실패율이 기준을 넘으면 일정 시간 호출하지 않고
+ *   GeminiUnavailableException으로 바로 실패시켜, 호출부가 기존 안내 문구/대체 결과로 응답하게 한다.
+ * - 실패율에는 Gemini 장애 신호(재시도 대상 상태 코드, 네트워크 오류)만 넣고,
+ *   그 밖의 예외(4xx, 취소, 예산 초과, 응답 처리 중 오류 등)는 집계하지 않는다.
+ */
+@Component
+@Slf4j
+public class GeminiResilience {
+
+    public enum BreakerState { CLOSED, OPEN, HALF_OPEN }
+
+    // 재시도 가능한 호출인지 판단 (스트리밍은 응답을 받기 시작한 뒤에는 재시도하지 않음)
+    public enum RetryScope {
+        ALL,         // 429, 5xx, 네트워크 오류 모두 재시도
+        STATUS_ONLY  // 응답 상태 코드 오류(429, 5xx)만 재시도
+    }
+
+    // 재시도 포함 최대 시도 횟수
+    @Value("${gemini.resilience.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${gemini.resilience.initial-backoff-ms:500}")
+    private long initialBackoffMs;
+
+    @Value("${gemini.resilience.max-backoff-ms:8000}")
+    private long maxBackoffMs;
+
+    // Retry-After가 이보다 길면 기다리지 않고 실패 처리
+    @Value("${gemini.resilience.max-retry-after-ms:10000}")
+    private long maxRetryAfterMs;
+
+    // 실패율 계산에 쓰는 최근 호출 수
+    @Value("${gemini.resilience.breaker.window-size:20}")
+    private int windowSize;
+
+    // 최근 호출이 이보다 적으면 차단하지 않음
+    @Value("${gemini.resilience.breaker.minimum-calls:10}")
+    private int minimumCalls;
+
+    @Value("${gemini.resilience.breaker.failure-rate-threshold:0.5}")
+    private double failureRateThreshold;
+
+    // 차단(OPEN) 유지 시간, 이후 시험 호출 허용(HALF_OPEN)
+    @Value("${gemini.resilience.breaker.open-duration-ms:30000}")
+    private long openDurationMs;
+
+    // HALF_OPEN에서 허용하는 시험 호출 수 (모두 성공하면 CLOSED)
+    @Value("${gemini.resilience.breaker.half-open-calls:3}")
+    private int halfOpenCalls;
+
+    // 테스트에서 대기 시간을 바꿀 수 있도록 분리
+    private Sleeper sleeper = Thread::sleep;
+    private final Clock clock;
+
+    private final ConcurrentMap<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+    private final Map<GeminiClient.CallType, AtomicLong> retries = new EnumMap<>(GeminiClient.CallType.class);
+    private final AtomicLong shortCircuited = new AtomicLong();
+
+    public GeminiResilience(Clock clock) {
+        this.clock = clock;
+        for (GeminiClient.CallType type : GeminiClient.CallType.values()) {
+            retries.put(type, new AtomicLong());
+        }
+    }
+
+    public <T> T execute(String breakerKey, GeminiClient.CallType type, RetryScope scope, Supplier<T> call) {
+        return execute(breakerKey, type, scope, () -> {}, call);
+    }
+
+    /**
+     * 차단 여부를 확인하고 호출을 실행, 실패 유형에 따라 재시도한다.
+     * @param breakerKey 서킷 브레이커 단위 (모델명 등)
+     * @param beforeAttempt 시도마다 차단기에 들어가기 전에 실행 (할당량 대기 등).
+     *                      여기서 기다리거나 실패해도 HALF_OPEN 시험 호출 슬롯을 잡고 있지 않음
+     */
+    public <T> T execute(String breakerKey, GeminiClient.CallType type, RetryScope scope,
+                         Runnable beforeAttempt, Supplier<T> call) {
+        CircuitBreaker breaker = breakers.computeIfAbsent(breakerKey, CircuitBreaker::new);
+
+        for (int attempt = 1; ; attempt++) {
+            beforeAttempt.run();
+            Permit permit = breaker.tryAcquire();
+            if (permit == null) {
+                shortCircuited.incrementAndGet();
+                throw new GeminiUnavailableException("Gemini 호출 차단 중: " + breakerKey);
+            }
+
+            RuntimeException failure;
+            try {
+                T result = call.get();
+                breaker.onSuccess(permit);
+                return result;
+            } catch (HttpStatusCodeException e) {
+                if (!isRetryableStatus(e)) {
+                    // 요청 자체의 문제(4xx)는 Gemini 장애가 아니므로 실패율에 넣지 않음
+                    breaker.onIgnored(permit);
+                    throw e;
+                }
+                breaker.onFailure(permit);
+                failure = e;
+            } catch (CancellationException e) {
+                // 호출부가 스스로 취소한 요청 (헤징에서 진 요청 등)은 장애로 보지 않음
+                breaker.onIgnored(permit);
+                throw e;
+            } catch (ResourceAccessException e) {
+                breaker.onFailure(permit);
+                if (scope == RetryScope.STATUS_ONLY) throw e;
+                failure = e;
+            } catch (RuntimeException | Error e) {
+                // 그 밖의 예외(GeminiUnavailableException, 알 수 없는 상태 코드, 응답 처리 오류 등):
+                // 장애로 집계하지 않되 HALF_OPEN 시험 호출 슬롯은 반드시 돌려줌
+                breaker.onIgnored(permit);
+                throw e;
+            }
+
+            if (attempt >= maxAttempts) throw failure;
+
+            long delayMs = retryDelayMs(failure, attempt);
+            if (delayMs < 0) {
+                log.warn("Gemini Retry-After가 너무 길어 재시도하지 않음: {}", breakerKey);
+                throw failure;
+            }
+
+            retries.get(type).incrementAndGet();
+            log.warn("Gemini {} 호출 실패 ({}), {}ms 후 재시도 {}/{}",
+                    type, failure.getMessage(), delayMs, attempt + 1, maxAttempts);
+            try {
+                sleeper.sleep(delayMs);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                throw failure;
+            }
+        }
+    }
+
+    public Stats getStats() {
+        Map<String, BreakerState> states = new ConcurrentHashMap<>();
+        breakers.forEach((key, breaker) -> states.put(key, breaker.currentState()));
+        Map<GeminiClient.CallType, Long> retryCounts = new EnumMap<>(GeminiClient.CallType.class);
+        retries.forEach((type, count) -> retryCounts.put(type, count.get()));
+        return new Stats(states, retryCounts, shortCircuited.get());
+    }
+
+    private static boolean isRetryableStatus(HttpStatusCodeException e) {
+        return e.getStatusCode().is5xxServerError() || e.getStatusCode().value() == HttpStatus.TOO_MANY_REQUESTS.value();
+    }
+
+    // 다음 시도까지 대기 시간 (Retry-After가 상한을 넘으면 -1)
+    private long retryDelayMs(RuntimeException failure, int attempt) {
+        if (failure instanceof HttpStatusCodeException e) {
+            int status = e.getStatusCode().value();
+            if (status == 429 || status == 503) {
+                Long retryAfterMs = parseRetryAfterMs(e.getResponseHeaders());
+                if (retryAfterMs != null) {
+                    return retryAfterMs > maxRetryAfterMs ? -1 : retryAfterMs;
+                }
+            }
+        }
+        // full jitter: 0 ~ min(상한, 초기값 * 2^(attempt-1)) 사이 임의 값
+        long ceiling = Math.min(maxBackoffMs, initialBackoffMs << Math.min(attempt - 1, 20));
+        return ceiling <= 0 ? 0 : ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    // Retry-After: 초 단위 숫자 또는 HTTP 날짜
+    private Long parseRetryAfterMs(HttpHeaders headers) {
+        String value = headers != null ? headers.getFirst(HttpHeaders.RETRY_AFTER) : null;
+        if (value == null || value.isBlank()) return null;
+        try {
+            return Math.max(0, Long.parseLong(value.trim()) * 1000);
+        } catch (NumberFormatException ignored) {
+            // HTTP 날짜 형식 시도
+        }
+        try {
+            Instant at = ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+            return Math.max(0, Duration.between(clock.instant(), at).toMillis());
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    // 호출을 허용할 때의 차단기 상태 세대. 결과는 같은 세대일 때만 반영
+    private record Permit(long generation) {
+    }
+
+    // 최근 windowSize개 호출 결과로 실패율을 계산하는 모델별 차단기
+    // 상태가 바뀔 때마다 세대를 올려, 이전 상태에서 시작한 호출의 늦은 결과가
+    // 새 상태(HALF_OPEN 시험 결과, OPEN 시작 시각 등)를 바꾸지 않게 한다.
+    private class CircuitBreaker {
+        private final String key;
+        private final boolean[] outcomes = new boolean[Math.max(1, windowSize)]; // true = 실패
+        private int recorded;
+        private int next;
+        private int failures;
+
+        private BreakerState state = BreakerState.CLOSED;
+        private long generation;
+        private Instant openedAt;
+        private int halfOpenPermits;
+        private int halfOpenSuccesses;
+
+        CircuitBreaker(String key) {
+            this.key = key;
+        }
+
+        // 차단 중이면 null
+        synchronized Permit tryAcquire() {
+            if (state == BreakerState.OPEN) {
+                if (clock.instant().isBefore(openedAt.plusMillis(openDurationMs))) return null;
+                transition(BreakerState.HALF_OPEN);
+                halfOpenPermits = halfOpenCalls;
+                halfOpenSuccesses = 0;
+            }
+            if (state == BreakerState.HALF_OPEN) {
+                if (halfOpenPermits <= 0) return null;
+                halfOpenPermits--;
+            }
+            return new Permit(generation);
+        }
+
+        synchronized void onSuccess(Permit permit) {
+            if (permit.generation() != generation) return;
+            if (state == BreakerState.HALF_OPEN) {
+                if (++halfOpenSuccesses >= halfOpenCalls) {
+                    reset();
+                    transition(BreakerState.CLOSED);
+                }
+                return;
+            }
+            record(false);
+        }
+
+        synchronized void onFailure(Permit permit) {
+            if (permit.generation() != generation) return;
+            if (state == BreakerState.HALF_OPEN) {
+                open();
+                return;
+            }
+            record(true);
+            if (recorded >= minimumCalls && (double) failures / recorded >= failureRateThreshold) {
+                open();
+            }
+        }
+
+        // 4xx, 취소 등 장애와 무관한 결과: HALF_OPEN 시험 호출 슬롯만 돌려줌
+        synchronized void onIgnored(Permit permit) {
+            if (permit.generation() != generation) return;
+            if (state == BreakerState.HALF_OPEN) halfOpenPermits = Math.min(halfOpenCalls, halfOpenPermits + 1);
+        }
+
+        synchronized BreakerState currentState() {
+            return state;
+        }
+
+        private void record(boolean failed) {
+            if (recorded == outcomes.length) {
+                if (outcomes[next]) failures--;
+            } else {
+                recorded++;
+            }
+            outcomes[next] = failed;
+            if (failed) failures++;
+            next = (next + 1) % outcomes.length;
+        }
+
+        private void open() {
+            openedAt = clock.instant();
+            reset();
+            transition(BreakerState.OPEN);
+        }
+
+        private void reset() {
+            recorded = 0;
+            next = 0;
+            failures = 0;
+        }
+
+        private void transition(BreakerState to) {
+            if (state != to) {
+                log.warn("Gemini 서킷 브레이커 [{}] {} -> {}", key, state, to);
+                state = to;
+                generation++;
+            }
+        }
+    }
+
+    interface Sleeper {
+        void sleep(long millis) throws InterruptedException;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Stats {
+        private final Map<String, BreakerState> breakerStates; // 모델별 차단기 상태
+        private final Map<GeminiClient.CallType, Long> retries; // 호출 유형별 재시도 횟수
+        private final long shortCircuited; // 차단 중이라 호출하지 않고 실패시킨 횟수
+    }
+}
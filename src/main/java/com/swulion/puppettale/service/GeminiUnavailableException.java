@@ -0,0 +1,12 @@
+package com.swulion.puppettale.service;
+
+/**
+ * Gemini 서킷 브레이커가 열려 있어 호출하지 않고 실패시킨 경우.
+ * 호출부는 기존 안내 문구나 대체 결과로 응답한다.
+ */
+public class GeminiUnavailableException extends RuntimeException {
+
+    public GeminiUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,53 @@
+package com.swulion.puppettale.service;
+
+import com.swulion.puppettale.constant.PuppetMode;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 채팅 턴/동화 생성의 단계별 소요 시간 타이머.
+ * 같은 이름의 타이머를 phase(단계), mode(PuppetMode), outcome(success/error) 태그로 나누고
+ * 백분위 히스토그램을 함께 내보낸다 (/actuator/prometheus).
+ */
+@Component
+@RequiredArgsConstructor
+public class HotPathMetrics {
+
+    public static final String CHAT_PHASE = "puppettale.chat.phase";
+    public static final String STORY_PHASE = "puppettale.story.phase";
+
+    private final MeterRegistry meterRegistry;
+
+    public <T> T time(String name, String phase, PuppetMode mode, Supplier<T> body) {
+        long startedAt = System.nanoTime();
+        String outcome = "error";
+        try {
+            T result = body.get();
+            outcome = "success";
+            return result;
+        } finally {
+            timer(name, phase, mode, outcome).record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public void time(String name, String phase, PuppetMode mode, Runnable body) {
+        time(name, phase, mode, () -> {
+            body.run();
+            return null;
+        });
+    }
+
+    private Timer timer(String name, String phase, PuppetMode mode, String outcome) {
+        return Timer.builder(name)
+                .tag("phase", phase)
+                .tag("mode", mode != null ? mode.name() : "NONE")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
@@ -1,17 +1,19 @@
 package com.swulion.puppettale.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.swulion.puppettale.dto.StoryIngredientsDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
 import java.util.Base64;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 @Service
 @RequiredArgsConstructor
@@ -19,10 +21,12 @@ import java.util.UUID;
 public class ImageService {
 
     private final S3StorageService s3StorageService;
-    private final RestTemplate restTemplate;
+    private final GeminiClient geminiClient;
+    private final ObjectMapper objectMapper;
+    private final PayloadLogger payloadLogger;
+    private final MeterRegistry meterRegistry;
 
-    @Value("${api.key.gemini}")
-    private String geminiApiKey;
+    private static final String IMAGE_MODEL = "gemini-2.5-flash-image-preview";
 
     // 이미지 생성 프롬프트
     public String buildFinalPrompt(String pageText,
@@ -47,13 +51,9 @@ public class ImageService {
                 "Focus only on the visual storytelling. High-quality CGI render look.";
     }
 
-    public String generateAndUploadImage(String fullPrompt) {
+    public String generateAndUploadImage(Long childId, String fullPrompt) {
         String refinedPrompt = fullPrompt;
 
-        // Gemini 이미지 생성 API URL
-        String url = "https://generativelanguage.googleapis.com/v1beta/models/"
-                + "gemini-2.5-flash-image-preview:generateContent?key=" + geminiApiKey;
-
         // 요청 Body 구성
         Map<String, Object> body = Map.of(
                 "contents", List.of(
@@ -63,10 +63,16 @@ public class ImageService {
                         )
                 )
         );
+        // 이미지 한 장(생성 + 업로드) 소요 시간을 결과별로 기록
+        long startedAt = System.nanoTime();
+        String outcome = "error";
         try {
-            ResponseEntity<Map> response = restTemplate.postForEntity(url, body, Map.class);
-            Map<String, Object> responseBody = response.getBody();
-            log.info("[Gemini API Response] : {}", response.getBody());
+            ResponseEntity<String> response = geminiClient.generateContent(GeminiClient.CallType.IMAGE, IMAGE_MODEL, body, childId);
+            // base64 이미지(inlineData)는 가리고 길이 제한/샘플링 적용
+            payloadLogger.info(PayloadLogger.Category.GEMINI_RESPONSE, "[Gemini API Response]", response.getBody());
+            Map<String, Object> responseBody = response.getBody() != null
+                    ? objectMapper.readValue(response.getBody(), Map.class)
+                    : null;
 
             if (responseBody == null || !responseBody.containsKey("candidates")) {
                 throw new RuntimeException("Gemini API 응답에 candidates가 없습니다.");
@@ -89,17 +95,31 @@ public class ImageService {
             if (base64Data != null) {
                 byte[] imageBytes = Base64.getDecoder().decode(base64Data);
                 String fileName = "stories/" + UUID.randomUUID() + ".png";
-                return s3StorageService.uploadImage(fileName, imageBytes);
+                String imageUrl = s3StorageService.uploadImage(fileName, imageBytes);
+                outcome = "success";
+                return imageUrl;
             } else {
                 // 이미지가 정말 없을 때만 텍스트 로그
                 String textResponse = (parts.get(0).containsKey("text")) ? (String) parts.get(0).get("text") : "No Content";
                 log.error("Gemini 응답에 이미지 데이터가 없음. 텍스트 내용: {}", textResponse);
+                outcome = "no_image";
                 return "https://puppettale-images.s3.ap-northeast-2.amazonaws.com/default-placeholder.png";
             }
 
+        } catch (GeminiUnavailableException e) {
+            // Gemini 장애로 차단 중: 기본 이미지로 대체
+            log.warn("이미지 생성 호출 차단 중, 기본 이미지 사용: {}", e.getMessage());
+            outcome = "unavailable";
+            return "https://puppettale-images.s3.ap-northeast-2.amazonaws.com/default-placeholder.png";
         } catch (Exception e) {
             log.error("이미지 생성 중 에러 발생: ", e);
             return "https://puppettale-images.s3.ap-northeast-2.amazonaws.com/default-placeholder.png";
+        } finally {
+            Timer.builder("puppettale.image.generate")
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
         }
     }
 }
@@ -0,0 +1,177 @@
+package com.swulion.puppettale.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 서버 한 대용 세션 상태 저장소.
+ * 마지막 활동 후 TTL이 지난 세션은 조회 시점과 주기적 정리에서 제거하고,
+ * 세션 수가 상한을 넘으면 가장 오래 사용되지 않은 세션부터 제거한다.
+ */
+@Component
+@ConditionalOnProperty(name = "session-state.store", havingValue = "memory", matchIfMissing = true)
+public class InMemorySessionStateStore implements SessionStateStore {
+
+    @Value("${session-state.ttl-minutes:360}")
+    private long ttlMinutes;
+
+    @Value("${session-state.max-sessions:100000}")
+    private int maxSessions;
+
+    private final Clock clock;
+
+    // access-order LinkedHashMap: 맨 앞이 가장 오래 사용되지 않은 세션
+    private final LinkedHashMap<String, State> sessions = new LinkedHashMap<>(256, 0.75f, true);
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public InMemorySessionStateStore(Clock clock) {
+        this.clock = clock;
+    }
+
+    @Override
+    public Optional<String> getSoundId(String sessionId) {
+        String soundId;
+        synchronized (sessions) {
+            State state = live(sessionId, LocalDateTime.now(clock));
+            soundId = (state != null) ? state.soundId : null;
+        }
+        (soundId != null ? hits : misses).incrementAndGet();
+        return Optional.ofNullable(soundId);
+    }
+
+    @Override
+    public void putSoundId(String sessionId, String soundId) {
+        LocalDateTime now = LocalDateTime.now(clock);
+        synchronized (sessions) {
+            State state = getOrCreate(sessionId, now);
+            state.soundId = soundId;
+            state.lastActivityAt = now;
+        }
+    }
+
+    @Override
+    public void touch(String sessionId) {
+        LocalDateTime now = LocalDateTime.now(clock);
+        synchronized (sessions) {
+            getOrCreate(sessionId, now).lastActivityAt = now;
+        }
+    }
+
+    @Override
+    public Optional<LocalDateTime> getLastActivity(String sessionId) {
+        synchronized (sessions) {
+            State state = live(sessionId, LocalDateTime.now(clock));
+            return Optional.ofNullable(state).map(s -> s.lastActivityAt);
+        }
+    }
+
+    @Override
+    public boolean tryMarkInFlight(String sessionId, String owner, Duration ttl) {
+        LocalDateTime now = LocalDateTime.now(clock);
+        synchronized (sessions) {
+            State state = getOrCreate(sessionId, now);
+            if (state.inFlightOwner != null && !state.inFlightOwner.equals(owner) && state.inFlightUntil.isAfter(now)) {
+                return false;
+            }
+            state.inFlightOwner = owner;
+            state.inFlightUntil = now.plus(ttl);
+            state.lastActivityAt = now;
+            return true;
+        }
+    }
+
+    @Override
+    public void clearInFlight(String sessionId, String owner) {
+        synchronized (sessions) {
+            State state = sessions.get(sessionId);
+            if (state != null && Objects.equals(state.inFlightOwner, owner)) {
+                state.inFlightOwner = null;
+                state.inFlightUntil = null;
+            }
+        }
+    }
+
+    // 한동안 조회되지 않은 세션도 메모리에 남지 않도록 주기적으로 정리
+    @Scheduled(fixedDelayString = "${session-state.cleanup-interval-ms:600000}")
+    public void purgeExpired() {
+        LocalDateTime now = LocalDateTime.now(clock);
+        synchronized (sessions) {
+            Iterator<State> it = sessions.values().iterator();
+            while (it.hasNext()) {
+                if (isExpired(it.next(), now)) {
+                    it.remove();
+                    evictions.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    @Override
+    public Stats getStats() {
+        synchronized (sessions) {
+            return new Stats("memory", hits.get(), misses.get(), sessions.size(), evictions.get());
+        }
+    }
+
+    // sessions 잠금 안에서 호출: 만료된 세션은 지우고 null
+    private State live(String sessionId, LocalDateTime now) {
+        State state = sessions.get(sessionId);
+        if (state != null && isExpired(state, now)) {
+            sessions.remove(sessionId);
+            evictions.incrementAndGet();
+            return null;
+        }
+        return state;
+    }
+
+    private State getOrCreate(String sessionId, LocalDateTime now) {
+        State state = live(sessionId, now);
+        if (state == null) {
+            state = new State(now);
+            sessions.put(sessionId, state);
+            evictOverflow();
+        }
+        return state;
+    }
+
+    private void evictOverflow() {
+        Iterator<Map.Entry<String, State>> it = sessions.entrySet().iterator();
+        while (sessions.size() > maxSessions && it.hasNext()) {
+            it.next();
+            it.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    // 진행 중 표시가 살아 있는 세션은 TTL이 지나도 유지
+    private boolean isExpired(State state, LocalDateTime now) {
+        boolean inFlight = state.inFlightUntil != null && state.inFlightUntil.isAfter(now);
+        return !inFlight && state.lastActivityAt.plusMinutes(ttlMinutes).isBefore(now);
+    }
+
+    private static class State {
+        private String soundId;
+        private LocalDateTime lastActivityAt;
+        private String inFlightOwner;
+        private LocalDateTime inFlightUntil;
+
+        State(LocalDateTime now) {
+            this.lastActivityAt = now;
+        }
+    }
+}
@@ -1,11 +1,11 @@
 package com.swulion.puppettale.service;
 
 import com.swulion.puppettale.dto.MyPageResponse;
-import com.swulion.puppettale.entity.Child;
-import com.swulion.puppettale.entity.Puppet;
+import com.swulion.puppettale.dto.MyPageRow;
 import com.swulion.puppettale.repository.ChildRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.Period;
@@ -16,22 +16,21 @@ import java.time.temporal.ChronoUnit;
 public class MyPageService {
     private final ChildRepository childRepository;
 
+    @Transactional(readOnly = true)
     public MyPageResponse getMyPage(Long childId) {
-        // 아동 조회
-        Child child = childRepository.findById(childId)
+        // 아동 + 퍼펫 조회 (단일 쿼리)
+        MyPageRow row = childRepository.findMyPageRow(childId)
                 .orElseThrow(() -> new IllegalArgumentException("아동을 찾을 수 없습니다."));
 
-        // 퍼펫 조회
-        Puppet puppet = child.getPuppet();
-        if (puppet == null) {
+        if (row.getPuppetId() == null) {
             throw new IllegalStateException("해당 아동의 퍼펫을 찾을 수 없습니다.");
         }
 
         // 나이 계산
-        Integer age = calculateAge(child.getBirthdate());
+        Integer age = calculateAge(row.getBirthdate());
 
         // 입원 일수 계산
-        Long hospitalizationDays = calculateHospitalizationDays(child.getHospitalizationStartDate());
+        Long hospitalizationDays = calculateHospitalizationDays(row.getHospitalizationStartDate());
 
         // 화면 표시용 문자열 생성
         String ageText = (age != null)
@@ -42,12 +41,12 @@ public class MyPageService {
                 : "입원 일수 미상";
 
         return MyPageResponse.builder()
-                .name(child.getName())
+                .name(row.getName())
                 .age(ageText)
                 .hospitalizationDays(hospitalizationText)
-                .profileImageUrl(child.getProfileImageUrl())
-                .puppetName(puppet.getName())
-                .puppetMode(puppet.getMode())
+                .profileImageUrl(row.getProfileImageUrl())
+                .puppetName(row.getPuppetName())
+                .puppetMode(row.getPuppetMode())
                 .build();
     }
 
@@ -0,0 +1,189 @@
+package com.swulion.puppettale.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 외부 API 요청/응답 본문 같은 큰 페이로드 로그 전용.
+ * 분류별로 최대 글자 수와 샘플링 비율을 두고, 이미지 응답의 inlineData base64 블롭은 길이만 남기고 가린다.
+ * 로거 이름이 payload라서 운영에서는 logging.level.payload로 따로 끌 수 있고,
+ * 원래 길이/잘림 여부는 key-value로 남겨 구조화 로그(JSON)에서 필드로 볼 수 있다.
+ * 샘플에서 빠지거나 로그 레벨이 꺼져 있으면 본문을 읽지 않는다.
+ */
+@Component
+public class PayloadLogger {
+
+    public enum Category {
+        GEMINI_RESPONSE, // Gemini 정상 응답 본문/텍스트
+        GEMINI_ERROR,    // Gemini 오류 응답 본문
+        MODEL_OUTPUT     // 형식을 지키지 않은 모델 출력 (아동 대화 내용 포함)
+    }
+
+    private static final Logger log = LoggerFactory.getLogger("payload");
+
+    // 이 길이 이상인 inlineData.data 값만 가림 (짧은 값은 그대로)
+    private static final int MIN_BLOB_CHARS = 64;
+
+    @Value("${logging.payload.max-chars.gemini-response:2000}")
+    private int geminiResponseMaxChars;
+
+    @Value("${logging.payload.max-chars.gemini-error:2000}")
+    private int geminiErrorMaxChars;
+
+    @Value("${logging.payload.max-chars.model-output:500}")
+    private int modelOutputMaxChars;
+
+    // 0.0 ~ 1.0 (1.0이면 모두 기록)
+    @Value("${logging.payload.sample-rate.gemini-response:1.0}")
+    private double geminiResponseSampleRate;
+
+    @Value("${logging.payload.sample-rate.gemini-error:1.0}")
+    private double geminiErrorSampleRate;
+
+    @Value("${logging.payload.sample-rate.model-output:1.0}")
+    private double modelOutputSampleRate;
+
+    private final Map<Category, AtomicLong> logged = new EnumMap<>(Category.class);
+    private final Map<Category, AtomicLong> skipped = new EnumMap<>(Category.class);
+    private final AtomicLong redactedBlobs = new AtomicLong();
+    private final AtomicLong truncatedChars = new AtomicLong();
+
+    public PayloadLogger() {
+        for (Category category : Category.values()) {
+            logged.put(category, new AtomicLong());
+            skipped.put(category, new AtomicLong());
+        }
+    }
+
+    public void info(Category category, String label, String payload) {
+        log(Level.INFO, category, label, payload);
+    }
+
+    public void warn(Category category, String label, String payload) {
+        log(Level.WARN, category, label, payload);
+    }
+
+    public void error(Category category, String label, String payload) {
+        log(Level.ERROR, category, label, payload);
+    }
+
+    private void log(Level level, Category category, String label, String payload) {
+        if (!log.isEnabledForLevel(level)) return;
+        double rate = sampleRate(category);
+        if (rate < 1.0 && ThreadLocalRandom.current().nextDouble() >= rate) {
+            skipped.get(category).incrementAndGet();
+            return;
+        }
+        logged.get(category).incrementAndGet();
+
+        int length = (payload == null) ? 0 : payload.length();
+        String bounded = bound(payload, maxChars(category));
+        log.atLevel(level)
+                .addKeyValue("category", category)
+                .addKeyValue("length", length)
+                .addKeyValue("truncated", bounded.length() < length)
+                .log("{} ({}자): {}", label, length, bounded);
+    }
+
+    /**
+     * inlineData 블롭을 가리고 maxChars로 자른 문자열.
+     * 잘라낼 부분과 가린 블롭은 복사하지 않으므로 수 MB 응답도 maxChars 정도만 다룬다.
+     */
+    String bound(String payload, int maxChars) {
+        if (payload == null) return "null";
+        StringBuilder out = new StringBuilder(Math.min(payload.length(), maxChars) + 32);
+        int pos = 0;
+        while (pos < payload.length() && out.length() < maxChars) {
+            int blobStart = findBlobValue(payload, pos);
+            int copyEnd = (blobStart < 0) ? payload.length() : blobStart;
+            int room = maxChars - out.length();
+            if (copyEnd - pos > room) {
+                out.append(payload, pos, pos + room);
+                pos += room;
+                break;
+            }
+            out.append(payload, pos, copyEnd);
+            pos = copyEnd;
+            if (blobStart < 0) break;
+
+            // blobStart: 따옴표 안 base64 값의 시작
+            int blobEnd = payload.indexOf('"', blobStart);
+            if (blobEnd < 0) blobEnd = payload.length();
+            if (blobEnd - blobStart >= MIN_BLOB_CHARS) {
+                out.append("<redacted ").append(blobEnd - blobStart).append(" chars>");
+                redactedBlobs.incrementAndGet();
+            } else {
+                out.append(payload, blobStart, blobEnd);
+            }
+            pos = blobEnd;
+        }
+        if (pos < payload.length()) {
+            out.append("...(+").append(payload.length() - pos).append(" chars)");
+            truncatedChars.addAndGet(payload.length() - pos);
+        }
+        return out.toString();
+    }
+
+    // from 이후 첫 inlineData(inline_data) 객체의 "data" 문자열 값 시작 위치, 없으면 -1
+    private static int findBlobValue(String payload, int from) {
+        int marker = indexOfEither(payload, "\"inlineData\"", "\"inline_data\"", from);
+        if (marker < 0) return -1;
+        int key = payload.indexOf("\"data\"", marker);
+        if (key < 0) return -1;
+        int i = key + 6;
+        while (i < payload.length() && (payload.charAt(i) == ':' || Character.isWhitespace(payload.charAt(i)))) i++;
+        if (i >= payload.length() || payload.charAt(i) != '"') return -1;
+        return i + 1;
+    }
+
+    private static int indexOfEither(String text, String a, String b, int from) {
+        int i = text.indexOf(a, from);
+        int j = text.indexOf(b, from);
+        if (i < 0) return j;
+        if (j < 0) return i;
+        return Math.min(i, j);
+    }
+
+    private int maxChars(Category category) {
+        return switch (category) {
+            case GEMINI_RESPONSE -> geminiResponseMaxChars;
+            case GEMINI_ERROR -> geminiErrorMaxChars;
+            case MODEL_OUTPUT -> modelOutputMaxChars;
+        };
+    }
+
+    private double sampleRate(Category category) {
+        return switch (category) {
+            case GEMINI_RESPONSE -> geminiResponseSampleRate;
+            case GEMINI_ERROR -> geminiErrorSampleRate;
+            case MODEL_OUTPUT -> modelOutputSampleRate;
+        };
+    }
+
+    public Stats getStats() {
+        Map<Category, Long> loggedCounts = new EnumMap<>(Category.class);
+        Map<Category, Long> skippedCounts = new EnumMap<>(Category.class);
+        logged.forEach((category, count) -> loggedCounts.put(category, count.get()));
+        skipped.forEach((category, count) -> skippedCounts.put(category, count.get()));
+        return new Stats(loggedCounts, skippedCounts, redactedBlobs.get(), truncatedChars.get());
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Stats {
+        private final Map<Category, Long> logged;   // 분류별 기록 수
+        private final Map<Category, Long> skipped;  // 분류별 샘플링으로 건너뛴 수
+        private final long redactedBlobs;           // 가린 inlineData 블롭 수
+        private final long truncatedChars;          // 잘라낸 글자 수 합계
+    }
+}
@@ -0,0 +1,114 @@
+package com.swulion.puppettale.service;
+
+import com.swulion.puppettale.util.PromptTemplate;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+import org.springframework.util.FileCopyUtils;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * prompts 디렉터리의 프롬프트 파일을 컴파일된 템플릿으로 보관한다.
+ * 조회 시 일정 간격마다 파일 수정 시각을 확인해, 바뀐 파일은 재시작 없이 다시 읽는다.
+ * 렌더링 결과를 캐시하는 쪽은 캐시 조회 전에 currentVersion()을 불러, 템플릿을 다시 읽지 않는 캐시 적중 경로에서도 변경을 확인한다.
+ * (prompts.location을 파일 시스템 경로로 지정하면 배포된 jar 밖의 파일도 교체 가능)
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PromptTemplateRegistry {
+
+    private final ResourceLoader resourceLoader;
+
+    @Value("${prompts.location:classpath:prompts/}")
+    private String location;
+
+    @Value("${prompts.reload-check-interval-ms:5000}")
+    private long reloadCheckIntervalMs;
+
+    private final ConcurrentMap<String, Entry> templates = new ConcurrentHashMap<>();
+
+    // 템플릿이 다시 로드될 때마다 증가 (렌더링 결과 캐시 무효화용)
+    private final AtomicLong version = new AtomicLong();
+
+    public PromptTemplate get(String fileName) {
+        Entry entry = templates.get(fileName);
+        if (entry == null) {
+            return templates.computeIfAbsent(fileName, this::load).template;
+        }
+        return refreshIfChanged(fileName, entry, System.currentTimeMillis()).template;
+    }
+
+    /**
+     * 이미 읽은 모든 템플릿의 변경 여부를 (확인 간격마다) 확인한 뒤 현재 버전을 반환한다.
+     * 렌더링 결과 캐시는 조회 전에 이 값을 비교해, 캐시 적중으로 get()을 거치지 않는 경우에도 변경된 파일을 반영한다.
+     */
+    public long currentVersion() {
+        long now = System.currentTimeMillis();
+        templates.forEach((fileName, entry) -> refreshIfChanged(fileName, entry, now));
+        return version.get();
+    }
+
+    // 변경 확인 없이 현재 버전만 반환
+    public long getVersion() {
+        return version.get();
+    }
+
+    private Entry refreshIfChanged(String fileName, Entry entry, long now) {
+        if (now - entry.checkedAt < reloadCheckIntervalMs) return entry;
+        entry.checkedAt = now;
+        long modified = lastModified(resource(fileName));
+        if (modified == entry.lastModified) return entry;
+
+        Entry reloaded = load(fileName);
+        templates.put(fileName, reloaded);
+        version.incrementAndGet();
+        log.info("프롬프트 파일 변경 감지, 다시 로드: {}", fileName);
+        return reloaded;
+    }
+
+    private Entry load(String fileName) {
+        Resource resource = resource(fileName);
+        try (Reader reader = new InputStreamReader(resource.getInputStream(), UTF_8)) {
+            return new Entry(PromptTemplate.compile(FileCopyUtils.copyToString(reader)), lastModified(resource));
+        } catch (IOException e) {
+            log.error("프롬프트 로드 실패: {}", fileName, e);
+            return new Entry(PromptTemplate.compile("프롬프트 로드 실패"), -1L);
+        }
+    }
+
+    private Resource resource(String fileName) {
+        return resourceLoader.getResource(location + fileName);
+    }
+
+    private long lastModified(Resource resource) {
+        try {
+            return resource.lastModified();
+        } catch (IOException e) {
+            return -1L;
+        }
+    }
+
+    private static final class Entry {
+        private final PromptTemplate template;
+        private final long lastModified;
+        private volatile long checkedAt;
+
+        private Entry(PromptTemplate template, long lastModified) {
+            this.template = template;
+            this.lastModified = lastModified;
+            this.checkedAt = System.currentTimeMillis();
+        }
+    }
+}
@@ -14,6 +14,8 @@ import org.springframework.stereotype.Service;
 @RequiredArgsConstructor
 public class PuppetService {
     private final ChildRepository childRepository;
+    private final SystemPromptService systemPromptService;
+    private final ChildProfileService childProfileService;
 
     // 퍼펫 이름 수정
     @Transactional
@@ -28,6 +30,8 @@ public class PuppetService {
         }
 
         puppet.changeName(request.getPuppetName());
+        systemPromptService.invalidate(childId);
+        childProfileService.invalidate(childId);
     }
 
     // 퍼펫 모드 수정
@@ -43,9 +47,12 @@ public class PuppetService {
         }
 
         puppet.changeMode(request.getPuppetMode());
+        systemPromptService.invalidate(childId);
+        childProfileService.invalidate(childId);
     }
 
     // 퍼펫 모드 조회
+    @Transactional
     public PuppetMode getPuppetMode(Long childId) {
         return childRepository.findById(childId)
                 .map(child -> {
@@ -0,0 +1,52 @@
+package com.swulion.puppettale.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+
+import java.nio.file.Path;
+
+/**
+ * S3 객체로 세그먼트를 둔다. 세그먼트는 한 번에 업로드하고, 읽을 때는 Range 요청으로 필요한 구간만 받는다.
+ */
+@Component
+@ConditionalOnProperty(name = "chat.archive.storage", havingValue = "s3")
+@RequiredArgsConstructor
+public class S3ChatArchiveStorage implements ChatArchiveStorage {
+
+    private final S3Client s3Client;
+
+    @Value("${app.s3.bucket}")
+    private String bucket;
+
+    @Value("${chat.archive.s3-prefix:chat-archive/}")
+    private String prefix;
+
+    @Override
+    public void store(String segment, Path file) {
+        s3Client.putObject(PutObjectRequest.builder()
+                .bucket(bucket)
+                .key(prefix + segment)
+                .contentType("application/octet-stream")
+                .build(), RequestBody.fromFile(file));
+    }
+
+    @Override
+    public byte[] read(String segment, long offset, int length) {
+        return s3Client.getObjectAsBytes(GetObjectRequest.builder()
+                .bucket(bucket)
+                .key(prefix + segment)
+                .range("bytes=" + offset + "-" + (offset + length - 1))
+                .build()).asByteArray();
+    }
+
+    @Override
+    public String backend() {
+        return "s3";
+    }
+}
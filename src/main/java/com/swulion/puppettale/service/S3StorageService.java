@@ -1,5 +1,8 @@
 package com.swulion.puppettale.service;
 
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
@@ -7,11 +10,14 @@ import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
 
+import java.util.concurrent.TimeUnit;
+
 @Service
 @RequiredArgsConstructor
 public class S3StorageService {
 
     private final S3Client s3Client;
+    private final MeterRegistry meterRegistry;
 
     @Value("${app.s3.bucket}")
     private String bucket;
@@ -23,7 +29,23 @@ public class S3StorageService {
                 .contentType("image/png")
                 .build();
 
-        s3Client.putObject(put, RequestBody.fromBytes(data));
+        // 업로드 소요 시간(결과별)과 크기 기록
+        long startedAt = System.nanoTime();
+        String outcome = "error";
+        try {
+            s3Client.putObject(put, RequestBody.fromBytes(data));
+            outcome = "success";
+        } finally {
+            Timer.builder("puppettale.s3.upload")
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        }
+        DistributionSummary.builder("puppettale.s3.upload.size")
+                .baseUnit("bytes")
+                .register(meterRegistry)
+                .record(data.length);
 
         return "https://" + bucket + ".s3." +
                 s3Client.serviceClientConfiguration().region().id() +
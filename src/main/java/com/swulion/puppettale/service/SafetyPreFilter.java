@@ -0,0 +1,170 @@
+package com.swulion.puppettale.service;
+
+import com.swulion.puppettale.util.AhoCorasickMatcher;
+import com.swulion.puppettale.util.KoreanTextNormalizer;
+import jakarta.annotation.PostConstruct;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Gemini 호출 전에 아동 메시지를 안전 어휘 목록(safety/lexicon.txt)과 비교하는 사전 필터.
+ * 메시지를 KoreanTextNormalizer로 정규화한 뒤 Aho-Corasick으로 모든 표현을 한 번에 찾는다.
+ * 신뢰도 HIGH 표현이 있으면 Gemini 판단 없이 RED_FLAG/HARMFUL로 보고 기존 안전 응답 경로를 바로 탄다.
+ * LOW 표현은 기록만 하고 Gemini 판단에 맡기며, ALLOW 표현 안에 든 일치는 무시한다.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class SafetyPreFilter {
+
+    public enum Category {RED_FLAG, HARMFUL, ALLOW}
+
+    public enum Confidence {HIGH, LOW}
+
+    private final ResourceLoader resourceLoader;
+
+    @Value("${safety.prefilter.enabled:true}")
+    private boolean enabled;
+
+    @Value("${safety.prefilter.lexicon:classpath:safety/lexicon.txt}")
+    private String lexiconLocation;
+
+    private volatile Lexicon lexicon = new Lexicon(new AhoCorasickMatcher(List.of()), List.of());
+
+    private final AtomicLong checked = new AtomicLong();
+    private final AtomicLong redFlagHits = new AtomicLong();
+    private final AtomicLong harmfulHits = new AtomicLong();
+    private final AtomicLong lowConfidenceHits = new AtomicLong();
+    private final AtomicLong allowSuppressed = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) return;
+        Resource resource = resourceLoader.getResource(lexiconLocation);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(resource.getInputStream(), UTF_8))) {
+            lexicon = Lexicon.parse(reader.lines().toList());
+            log.info("안전 어휘 {}개 로드 (상태 {}개)", lexicon.entries.size(), lexicon.matcher.stateCount());
+        } catch (IOException e) {
+            // 어휘가 없으면 사전 필터 없이 기존처럼 Gemini 판단만 사용
+            log.error("안전 어휘 로드 실패, 사전 필터 비활성: {}", lexiconLocation, e);
+        }
+    }
+
+    /**
+     * HIGH 일치가 있으면 RED_FLAG 우선, 없으면 HARMFUL 판정. 그 외에는 Verdict.PASS.
+     */
+    public Verdict classify(String message) {
+        if (!enabled || message == null || message.isEmpty()) return Verdict.PASS;
+        checked.incrementAndGet();
+
+        Lexicon current = lexicon;
+        KoreanTextNormalizer.Normalized text = KoreanTextNormalizer.normalize(message);
+        List<int[]> hits = new ArrayList<>(2);
+        List<int[]> allows = new ArrayList<>(0);
+        current.matcher.forEachMatch(text.chars(), text.length(), (id, start, end) -> {
+            // 앞 음절 받침에서 시작하는 일치는 다른 단어에 걸친 것
+            if (!text.syllableStart()[start]) return;
+            (current.entries.get(id).category == Category.ALLOW ? allows : hits).add(new int[]{id, start, end});
+        });
+        if (hits.isEmpty()) return Verdict.PASS;
+
+        Entry best = null;
+        for (int[] hit : hits) {
+            if (covered(hit, allows)) {
+                allowSuppressed.incrementAndGet();
+                continue;
+            }
+            Entry entry = current.entries.get(hit[0]);
+            if (entry.confidence == Confidence.LOW) {
+                lowConfidenceHits.incrementAndGet();
+                log.debug("안전 어휘 LOW 일치 (Gemini 판단 사용): {} {}", entry.category, entry.term);
+                continue;
+            }
+            if (best == null || (best.category == Category.HARMFUL && entry.category == Category.RED_FLAG)) {
+                best = entry;
+            }
+        }
+        if (best == null) return Verdict.PASS;
+
+        (best.category == Category.RED_FLAG ? redFlagHits : harmfulHits).incrementAndGet();
+        return new Verdict(best.category.name(), best.term);
+    }
+
+    private static boolean covered(int[] hit, List<int[]> allows) {
+        for (int[] allow : allows) {
+            if (allow[1] <= hit[1] && hit[2] <= allow[2]) return true;
+        }
+        return false;
+    }
+
+    public Stats getStats() {
+        return new Stats(lexicon.entries.size(), checked.get(), redFlagHits.get(), harmfulHits.get(),
+                lowConfidenceHits.get(), allowSuppressed.get());
+    }
+
+    /**
+     * @param safetyStatus Gemini의 safety_status와 같은 값 (RED_FLAG, HARMFUL), 해당 없으면 null
+     * @param term 일치한 어휘 (로그용)
+     */
+    public record Verdict(String safetyStatus, String term) {
+        public static final Verdict PASS = new Verdict(null, null);
+
+        public boolean isShortCircuit() {
+            return safetyStatus != null;
+        }
+    }
+
+    private record Entry(Category category, Confidence confidence, String term) {
+    }
+
+    private record Lexicon(AhoCorasickMatcher matcher, List<Entry> entries) {
+
+        // "<분류> <신뢰도> <표현>" 줄 목록 (#으로 시작하는 줄과 빈 줄은 무시)
+        static Lexicon parse(List<String> lines) {
+            List<Entry> entries = new ArrayList<>();
+            List<String> patterns = new ArrayList<>();
+            for (String line : lines) {
+                String trimmed = line.strip();
+                if (trimmed.isEmpty() || trimmed.startsWith("#")) continue;
+                String[] parts = trimmed.split("\\s+", 3);
+                if (parts.length < 3) {
+                    log.warn("안전 어휘 형식 오류, 건너뜀: {}", line);
+                    continue;
+                }
+                Category category = Category.valueOf(parts[0]);
+                Confidence confidence = (category == Category.ALLOW) ? Confidence.HIGH : Confidence.valueOf(parts[1]);
+                String pattern = KoreanTextNormalizer.normalizeToString(parts[2]);
+                if (pattern.isEmpty()) continue;
+                entries.add(new Entry(category, confidence, parts[2]));
+                patterns.add(pattern);
+            }
+            return new Lexicon(new AhoCorasickMatcher(patterns), entries);
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Stats {
+        private final int lexiconSize;        // 로드된 어휘 수
+        private final long checked;           // 검사한 메시지 수
+        private final long redFlagHits;       // Gemini 없이 RED_FLAG로 처리한 수
+        private final long harmfulHits;       // Gemini 없이 HARMFUL로 처리한 수
+        private final long lowConfidenceHits; // LOW 일치 (Gemini 판단에 맡김)
+        private final long allowSuppressed;   // ALLOW 표현 안이라 무시한 일치 수
+    }
+}
@@ -13,11 +13,13 @@ import org.springframework.transaction.annotation.Transactional;
 public class SchedulerService {
 
     private final ChildRepository childRepository;
+    private final ChildProfileService childProfileService;
 
     @Scheduled(cron = "0 0 0 * * *", zone = "Asia/Seoul")
     @Transactional
     public void resetWarningStates() {
         childRepository.resetAllWarningStates();
+        childProfileService.invalidateAll();
         log.info("모든 아이들의 Red Flag 경고 상태가 초기화되었습니다.");
     }
 }
\ No newline at end of file
@@ -0,0 +1,48 @@
+package com.swulion.puppettale.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * 채팅 세션 상태 저장소 (현재 배경 사운드, 마지막 활동 시각, 진행 중인 턴 표시).
+ * 단일 서버는 메모리 구현(session-state.store=memory), 여러 서버가 같은 세션을 받을 때는
+ * DB 테이블 구현(session-state.store=database)을 사용한다.
+ */
+public interface SessionStateStore {
+
+    // 세션에 마지막으로 지정된 사운드 (없으면 empty)
+    Optional<String> getSoundId(String sessionId);
+
+    // 사운드 지정 (활동 시각도 함께 갱신)
+    void putSoundId(String sessionId, String soundId);
+
+    // 마지막 활동 시각 갱신
+    void touch(String sessionId);
+
+    Optional<LocalDateTime> getLastActivity(String sessionId);
+
+    /**
+     * 세션의 진행 중 표시를 잡는다. 다른 owner의 표시가 ttl 안에 남아 있으면 false.
+     * 서버가 죽어 해제되지 못한 표시는 ttl이 지나면 다른 owner가 가져갈 수 있다.
+     */
+    boolean tryMarkInFlight(String sessionId, String owner, Duration ttl);
+
+    // 자신(owner)이 잡은 표시만 해제
+    void clearInFlight(String sessionId, String owner);
+
+    Stats getStats();
+
+    @Getter
+    @AllArgsConstructor
+    class Stats {
+        private final String backend;   // memory / database
+        private final long hits;        // 사운드 조회 시 값이 있던 횟수
+        private final long misses;      // 사운드 조회 시 값이 없던 횟수
+        private final long size;        // 보관 중인 세션 수
+        private final long evictions;   // TTL 만료/상한 초과로 제거된 세션 수
+    }
+}
@@ -0,0 +1,154 @@
+package com.swulion.puppettale.service;
+
+import com.swulion.puppettale.constant.PuppetMode;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 채팅/분석/동화 생성에 쓰는 시스템 명령을 컴파일된 템플릿으로 만든다.
+ * 채팅 시스템 명령은 (childId, 퍼펫 모드, 퍼펫 이름, 사운드 등) 조합별로 렌더링 결과를 캐시하며,
+ * 퍼펫 설정이 바뀌면 해당 아동의 캐시를 비우고, 프롬프트 파일이 다시 로드되면 전체 캐시를 비운다.
+ */
+@Service
+@RequiredArgsConstructor
+public class SystemPromptService {
+
+    public static final String CHAT_TEMPLATE = "ai_systemPrompt_template.txt";
+    public static final String AFFECTIONATE_TEMPLATE = "ai_systemPrompt_affectionate.txt";
+    public static final String ENERGETIC_TEMPLATE = "ai_systemPrompt_energetic.txt";
+    public static final String STORY_TEMPLATE = "story_creation_template.txt";
+    public static final String SUMMARY_TEMPLATE = "session_summary_template.txt";
+
+    private final PromptTemplateRegistry promptTemplateRegistry;
+    private final SoundService soundService;
+
+    @Value("${prompts.rendered-cache.max-entries:5000}")
+    private int maxEntries;
+
+    // access-order LinkedHashMap: 가장 오래 사용되지 않은 조합부터 제거
+    private final LinkedHashMap<InstructionKey, String> renderedCache = new LinkedHashMap<>(256, 0.75f, true);
+    private long cachedVersion = -1L;
+
+    // 채팅용 시스템 명령 (페르소나 + 모드별 지침 + 사운드 배경)
+    public String chatInstruction(Long childId, PuppetMode puppetMode, String puppetName, String soundId,
+                                  String userName, Integer userAge, String userConstraint) {
+        InstructionKey key = new InstructionKey(childId, puppetMode, puppetName, soundId, userName, userAge, userConstraint);
+
+        // 캐시 적중 시에도 프롬프트 파일 변경을 확인 (확인 간격마다 수정 시각 비교)
+        long version = promptTemplateRegistry.currentVersion();
+        synchronized (this) {
+            if (version != cachedVersion) {
+                renderedCache.clear();
+                cachedVersion = version;
+            }
+            String cached = renderedCache.get(key);
+            if (cached != null) return cached;
+        }
+
+        String rendered = renderChatInstruction(puppetMode, puppetName, soundId, userName, userAge, userConstraint);
+
+        synchronized (this) {
+            // 렌더링 도중 템플릿이 다시 로드됐으면 이전 템플릿으로 만든 결과는 캐시하지 않음
+            if (promptTemplateRegistry.getVersion() != cachedVersion) return rendered;
+            renderedCache.put(key, rendered);
+            if (renderedCache.size() > maxEntries) {
+                renderedCache.remove(renderedCache.keySet().iterator().next());
+            }
+        }
+        return rendered;
+    }
+
+    // 동화 생성 전 대화 분석용 시스템 명령
+    public String analysisInstruction(String puppetName, String userName, Integer userAge) {
+        return promptTemplateRegistry.get(CHAT_TEMPLATE).render(Map.of(
+                "Puppet_Name", puppetName,
+                "User_Name", userName,
+                "User_Age", userAge != null ? userAge.toString() : "7",
+                "User_Constraint", "없음"));
+    }
+
+    // 동화 본문 생성용 명령
+    public String storyInstruction(String puppetName, String userName, Integer userAge, String ingredientsList) {
+        return promptTemplateRegistry.get(STORY_TEMPLATE).render(Map.of(
+                "Puppet_Name", puppetName,
+                "User_Name", userName,
+                "User_Age", userAge != null ? userAge.toString() : "7",
+                "Story_Ingredients_List", ingredientsList));
+    }
+
+    // 긴 세션의 대화 요약용 명령
+    public String summaryInstruction(String puppetName, String userName, String previousSummary, String conversation) {
+        return promptTemplateRegistry.get(SUMMARY_TEMPLATE).render(Map.of(
+                "Puppet_Name", puppetName,
+                "User_Name", userName,
+                "Previous_Summary", previousSummary != null ? previousSummary : "없음",
+                "Conversation", conversation));
+    }
+
+    // 퍼펫 이름/모드 변경 시 해당 아동의 캐시 제거
+    public synchronized void invalidate(Long childId) {
+        renderedCache.keySet().removeIf(key -> Objects.equals(key.childId, childId));
+    }
+
+    private String renderChatInstruction(PuppetMode puppetMode, String puppetName, String soundId,
+                                         String userName, Integer userAge, String userConstraint) {
+        // 모드에 따른 지침 선택
+        String modeTemplate = (puppetMode == PuppetMode.ENERGETIC) ? ENERGETIC_TEMPLATE : AFFECTIONATE_TEMPLATE;
+        String modeInstruction = promptTemplateRegistry.get(modeTemplate).render(Map.of(
+                "Puppet_Name", puppetName,
+                "User_Name", userName));
+
+        String combinedConstraint = modeInstruction + "\n(추가 제약사항: " + userConstraint + ")";
+
+        return promptTemplateRegistry.get(CHAT_TEMPLATE).render(Map.of(
+                "Puppet_Name", puppetName,
+                "User_Name", userName,
+                "User_Age", userAge != null ? userAge.toString() : "7",
+                "User_Constraint", combinedConstraint))
+                + "\n\n" + soundService.getAiContext(soundId);
+    }
+
+    private static final class InstructionKey {
+        private final Long childId;
+        private final PuppetMode puppetMode;
+        private final String puppetName;
+        private final String soundId;
+        private final String userName;
+        private final Integer userAge;
+        private final String userConstraint;
+
+        private InstructionKey(Long childId, PuppetMode puppetMode, String puppetName, String soundId,
+                               String userName, Integer userAge, String userConstraint) {
+            this.childId = childId;
+            this.puppetMode = puppetMode;
+            this.puppetName = puppetName;
+            this.soundId = soundId;
+            this.userName = userName;
+            this.userAge = userAge;
+            this.userConstraint = userConstraint;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof InstructionKey other)) return false;
+            return Objects.equals(childId, other.childId)
+                    && puppetMode == other.puppetMode
+                    && Objects.equals(puppetName, other.puppetName)
+                    && Objects.equals(soundId, other.soundId)
+                    && Objects.equals(userName, other.userName)
+                    && Objects.equals(userAge, other.userAge)
+                    && Objects.equals(userConstraint, other.userConstraint);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(childId, puppetMode, puppetName, soundId, userName, userAge, userConstraint);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.swulion.puppettale.service;
+
+/**
+ * 아동/세션의 토큰 하드 예산을 넘어 Gemini를 호출하지 않고 실패시킨 경우.
+ * 차단 중(GeminiUnavailableException)과 같은 경로로 처리되므로 기존 호출부는 대체 응답으로 끝난다.
+ */
+public class TokenBudgetExceededException extends GeminiUnavailableException {
+
+    public TokenBudgetExceededException(String message) {
+        super(message);
+    }
+}
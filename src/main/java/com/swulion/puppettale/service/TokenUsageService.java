@@ -0,0 +1,297 @@
+package com.swulion.puppettale.service;
+
+import com.swulion.puppettale.dto.GeminiUsageMetadata;
+import com.swulion.puppettale.dto.SessionTokenUsage;
+import com.swulion.puppettale.dto.TokenUsageSummary;
+import com.swulion.puppettale.repository.TokenUsageRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Gemini 응답의 usageMetadata로 토큰 사용량을 집계한다.
+ * 호출마다 메모리에서 날짜 x 아동 x 세션 x 호출 유형별로 더해 두고, 주기적으로 DB 누계(TokenUsages)에 합친다.
+ * 세션은 호출 스레드에 지정된 세션(inSession)으로 구분한다.
+ * 아동의 하루 사용량과 세션 사용량에 소프트 예산(경고)과 하드 예산(호출 차단)을 둔다.
+ * 예산 판단용 누계는 서버별 메모리 값이라 여러 서버에서는 다른 서버 사용량이 다음 날까지 반영되지 않는다.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class TokenUsageService {
+
+    static final String NO_SESSION = "";
+    static final long NO_CHILD = 0L;
+
+    private static final ThreadLocal<String> CURRENT_SESSION = new ThreadLocal<>();
+
+    private final TokenUsageRepository tokenUsageRepository;
+
+    // 아동별 하루 토큰 예산 (0이면 제한 없음)
+    @Value("${gemini.usage.budget.child-daily-soft-tokens:0}")
+    private long childDailySoftTokens;
+
+    @Value("${gemini.usage.budget.child-daily-hard-tokens:0}")
+    private long childDailyHardTokens;
+
+    // 세션별 토큰 예산 (0이면 제한 없음)
+    @Value("${gemini.usage.budget.session-soft-tokens:0}")
+    private long sessionSoftTokens;
+
+    @Value("${gemini.usage.budget.session-hard-tokens:0}")
+    private long sessionHardTokens;
+
+    private final Clock clock;
+
+    // DB에 아직 더하지 않은 사용량 (compute 안에서만 수정하므로 Counters는 일반 필드)
+    private final ConcurrentHashMap<UsageKey, Counters> pending = new ConcurrentHashMap<>();
+
+    // 예산 판단용 누계 (처음 볼 때 DB 누계로 시작)
+    private final ConcurrentHashMap<ChildDay, AtomicLong> childTotals = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, SessionTotal> sessionTotals = new ConcurrentHashMap<>();
+
+    private final Map<GeminiClient.CallType, AtomicLong> promptTokens = counters();
+    private final Map<GeminiClient.CallType, AtomicLong> candidatesTokens = counters();
+    private final Map<GeminiClient.CallType, AtomicLong> thoughtsTokens = counters();
+    private final Map<GeminiClient.CallType, AtomicLong> cachedTokens = counters();
+    private final AtomicLong flushedRows = new AtomicLong();
+    private final AtomicLong flushFailures = new AtomicLong();
+    private final AtomicLong softBudgetWarnings = new AtomicLong();
+    private final AtomicLong hardBudgetRejections = new AtomicLong();
+
+    // body 실행 동안 이 스레드의 Gemini 호출 사용량을 sessionId로 집계
+    public static <T> T inSession(String sessionId, Supplier<T> body) {
+        String previous = CURRENT_SESSION.get();
+        CURRENT_SESSION.set(sessionId);
+        try {
+            return body.get();
+        } finally {
+            if (previous == null) {
+                CURRENT_SESSION.remove();
+            } else {
+                CURRENT_SESSION.set(previous);
+            }
+        }
+    }
+
+    public static String currentSession() {
+        return CURRENT_SESSION.get();
+    }
+
+    /**
+     * Gemini 호출 전 하드 예산 확인. 넘었으면 TokenBudgetExceededException.
+     */
+    public void checkBudget(Long childId) {
+        if (childDailyHardTokens > 0 && childId != null && childTotal(childId).get() >= childDailyHardTokens) {
+            hardBudgetRejections.incrementAndGet();
+            throw new TokenBudgetExceededException("아동 하루 토큰 예산 초과: childId=" + childId);
+        }
+        String sessionId = currentSession();
+        if (sessionHardTokens > 0 && sessionId != null && sessionTotal(sessionId).total.get() >= sessionHardTokens) {
+            hardBudgetRejections.incrementAndGet();
+            throw new TokenBudgetExceededException("세션 토큰 예산 초과: sessionId=" + sessionId);
+        }
+    }
+
+    public void record(GeminiClient.CallType type, Long childId, GeminiUsageMetadata usage) {
+        record(type, childId, currentSession(), usage);
+    }
+
+    public void record(GeminiClient.CallType type, Long childId, String sessionId, GeminiUsageMetadata usage) {
+        if (usage == null) return;
+        LocalDate today = LocalDate.now(clock);
+        UsageKey key = new UsageKey(today, childId != null ? childId : NO_CHILD,
+                sessionId != null ? sessionId : NO_SESSION, type);
+        pending.compute(key, (k, counters) -> {
+            Counters c = (counters != null) ? counters : new Counters();
+            c.add(usage);
+            return c;
+        });
+
+        promptTokens.get(type).addAndGet(usage.getPromptTokenCount());
+        candidatesTokens.get(type).addAndGet(usage.getCandidatesTokenCount());
+        thoughtsTokens.get(type).addAndGet(usage.getThoughtsTokenCount());
+        cachedTokens.get(type).addAndGet(usage.getCachedContentTokenCount());
+
+        long total = usage.getTotalTokenCount();
+        if (childId != null && (childDailySoftTokens > 0 || childDailyHardTokens > 0)) {
+            long after = childTotal(childId).addAndGet(total);
+            warnIfCrossed(childDailySoftTokens, after - total, after, "아동 하루", "childId=" + childId);
+        }
+        if (sessionId != null && (sessionSoftTokens > 0 || sessionHardTokens > 0)) {
+            SessionTotal session = sessionTotal(sessionId);
+            session.lastDay = today;
+            long after = session.total.addAndGet(total);
+            warnIfCrossed(sessionSoftTokens, after - total, after, "세션", "sessionId=" + sessionId);
+        }
+    }
+
+    private void warnIfCrossed(long softBudget, long before, long after, String scope, String target) {
+        if (softBudget > 0 && before < softBudget && after >= softBudget) {
+            softBudgetWarnings.incrementAndGet();
+            log.warn("{} 토큰 소프트 예산 초과: {}, {} / {}", scope, target, after, softBudget);
+        }
+    }
+
+    private AtomicLong childTotal(Long childId) {
+        return childTotals.computeIfAbsent(new ChildDay(LocalDate.now(clock), childId),
+                key -> new AtomicLong(tokenUsageRepository.sumChildTotal(key.childId(), key.day())));
+    }
+
+    private SessionTotal sessionTotal(String sessionId) {
+        return sessionTotals.computeIfAbsent(sessionId,
+                key -> new SessionTotal(tokenUsageRepository.sumSessionTotal(key), LocalDate.now(clock)));
+    }
+
+    /**
+     * 메모리에 모인 사용량을 DB 누계에 더한다. 실패한 항목은 다음 주기에 다시 시도.
+     */
+    @Scheduled(fixedDelayString = "${gemini.usage.flush-interval-ms:60000}")
+    @PreDestroy
+    public synchronized void flush() {
+        LocalDateTime now = LocalDateTime.now(clock);
+        for (UsageKey key : new ArrayList<>(pending.keySet())) {
+            Counters counters = pending.remove(key);
+            if (counters == null) continue;
+            try {
+                persist(key, counters, now);
+                flushedRows.incrementAndGet();
+            } catch (RuntimeException e) {
+                flushFailures.incrementAndGet();
+                log.warn("토큰 사용량 저장 실패, 다음 주기에 재시도: {}", e.getMessage());
+                pending.merge(key, counters, Counters::merge);
+            }
+        }
+
+        // 지난 날짜의 예산 누계 정리 (세션은 이틀 동안 사용이 없으면 정리)
+        LocalDate today = now.toLocalDate();
+        childTotals.keySet().removeIf(key -> key.day().isBefore(today));
+        sessionTotals.values().removeIf(session -> session.lastDay.isBefore(today.minusDays(1)));
+    }
+
+    private void persist(UsageKey key, Counters c, LocalDateTime now) {
+        if (add(key, c, now) > 0) return;
+        try {
+            tokenUsageRepository.insert(key.day(), key.childId(), key.sessionId(), key.type().name(),
+                    c.prompt, c.candidates, c.thoughts, c.cached, c.total, c.calls, now);
+        } catch (DataIntegrityViolationException e) {
+            add(key, c, now); // 다른 서버가 먼저 생성
+        }
+    }
+
+    private int add(UsageKey key, Counters c, LocalDateTime now) {
+        return tokenUsageRepository.add(key.day(), key.childId(), key.sessionId(), key.type(),
+                c.prompt, c.candidates, c.thoughts, c.cached, c.total, c.calls, now);
+    }
+
+    // 조회 전에 메모리 사용량을 먼저 반영
+    public List<TokenUsageSummary> getChildUsage(Long childId, LocalDate from, LocalDate to) {
+        flush();
+        return tokenUsageRepository.summarizeChild(childId, from, to);
+    }
+
+    public List<TokenUsageSummary> getSessionUsage(String sessionId) {
+        flush();
+        return tokenUsageRepository.summarizeSession(sessionId);
+    }
+
+    public List<SessionTokenUsage> getTopSessions(LocalDate date, int limit) {
+        flush();
+        return tokenUsageRepository.findTopSessions(date, PageRequest.of(0, Math.max(1, Math.min(limit, 100))));
+    }
+
+    public Stats getStats() {
+        return new Stats(snapshot(promptTokens), snapshot(candidatesTokens), snapshot(thoughtsTokens), snapshot(cachedTokens),
+                pending.size(), flushedRows.get(), flushFailures.get(), softBudgetWarnings.get(), hardBudgetRejections.get());
+    }
+
+    private static Map<GeminiClient.CallType, AtomicLong> counters() {
+        Map<GeminiClient.CallType, AtomicLong> map = new EnumMap<>(GeminiClient.CallType.class);
+        for (GeminiClient.CallType type : GeminiClient.CallType.values()) {
+            map.put(type, new AtomicLong());
+        }
+        return map;
+    }
+
+    private static Map<GeminiClient.CallType, Long> snapshot(Map<GeminiClient.CallType, AtomicLong> counters) {
+        Map<GeminiClient.CallType, Long> snapshot = new EnumMap<>(GeminiClient.CallType.class);
+        counters.forEach((type, count) -> snapshot.put(type, count.get()));
+        return snapshot;
+    }
+
+    private record UsageKey(LocalDate day, Long childId, String sessionId, GeminiClient.CallType type) {
+    }
+
+    private record ChildDay(LocalDate day, Long childId) {
+    }
+
+    private static class SessionTotal {
+        private final AtomicLong total;
+        private volatile LocalDate lastDay;
+
+        SessionTotal(long total, LocalDate lastDay) {
+            this.total = new AtomicLong(total);
+            this.lastDay = lastDay;
+        }
+    }
+
+    private static class Counters {
+        private long prompt;
+        private long candidates;
+        private long thoughts;
+        private long cached;
+        private long total;
+        private long calls;
+
+        void add(GeminiUsageMetadata usage) {
+            prompt += usage.getPromptTokenCount();
+            candidates += usage.getCandidatesTokenCount();
+            thoughts += usage.getThoughtsTokenCount();
+            cached += usage.getCachedContentTokenCount();
+            total += usage.getTotalTokenCount();
+            calls++;
+        }
+
+        Counters merge(Counters other) {
+            prompt += other.prompt;
+            candidates += other.candidates;
+            thoughts += other.thoughts;
+            cached += other.cached;
+            total += other.total;
+            calls += other.calls;
+            return this;
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Stats {
+        private final Map<GeminiClient.CallType, Long> promptTokens;     // 호출 유형별 입력 토큰 합계
+        private final Map<GeminiClient.CallType, Long> candidatesTokens; // 호출 유형별 출력 토큰 합계
+        private final Map<GeminiClient.CallType, Long> thoughtsTokens;   // 호출 유형별 사고 토큰 합계
+        private final Map<GeminiClient.CallType, Long> cachedTokens;     // 호출 유형별 캐시 입력 토큰 합계
+        private final int pendingKeys;            // DB에 아직 더하지 않은 항목 수
+        private final long flushedRows;           // DB에 더한 항목 수
+        private final long flushFailures;         // DB 반영 실패 수
+        private final long softBudgetWarnings;    // 소프트 예산을 넘은 횟수
+        private final long hardBudgetRejections;  // 하드 예산으로 차단한 호출 수
+    }
+}
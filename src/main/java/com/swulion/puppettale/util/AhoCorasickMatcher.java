@@ -0,0 +1,127 @@
+package com.swulion.puppettale.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * 여러 패턴을 입력 한 번 훑기로 모두 찾는 Aho-Corasick 매처.
+ * KoreanTextNormalizer 결과(호환 자모 + 영문 소문자)만 다루므로 문자 집합을 78개(자모 51, 영문 26, 기타 1)로 줄이고,
+ * 실패 링크를 미리 따라가 둔 전이표(DFA)를 만들어 문자마다 배열 조회 한 번으로 진행한다.
+ * 패턴에 다른 문자가 있으면 생성 시 IllegalArgumentException.
+ */
+public final class AhoCorasickMatcher {
+
+    private static final int JAMO_COUNT = 0x3163 - 0x3131 + 1;
+    private static final int ALPHABET = JAMO_COUNT + 26 + 1;
+    private static final int OTHER = ALPHABET - 1; // 어떤 패턴에도 없는 문자 (매칭을 끊음)
+
+    private final int[][] transitions;
+    private final int[][] outputs;      // 상태별로 끝나는 패턴 번호 (실패 링크의 출력 포함)
+    private final int[] patternLengths;
+
+    @FunctionalInterface
+    public interface MatchHandler {
+        // start 이상 end 미만 구간에서 patternId 패턴이 일치
+        void onMatch(int patternId, int start, int end);
+    }
+
+    public AhoCorasickMatcher(List<String> patterns) {
+        patternLengths = new int[patterns.size()];
+        List<int[]> gotos = new ArrayList<>();
+        List<int[]> outs = new ArrayList<>();
+        gotos.add(newRow());
+        outs.add(new int[0]);
+
+        // 1. 트라이
+        for (int id = 0; id < patterns.size(); id++) {
+            String pattern = patterns.get(id);
+            if (pattern.isEmpty()) throw new IllegalArgumentException("빈 패턴");
+            int state = 0;
+            for (int i = 0; i < pattern.length(); i++) {
+                int symbol = symbol(pattern.charAt(i));
+                if (symbol == OTHER) {
+                    throw new IllegalArgumentException("정규화되지 않은 문자가 있는 패턴: " + pattern);
+                }
+                if (gotos.get(state)[symbol] < 0) {
+                    gotos.get(state)[symbol] = gotos.size();
+                    gotos.add(newRow());
+                    outs.add(new int[0]);
+                }
+                state = gotos.get(state)[symbol];
+            }
+            outs.set(state, append(outs.get(state), id));
+            patternLengths[id] = pattern.length();
+        }
+
+        // 2. 너비 우선으로 실패 링크를 계산하면서 전이표를 채움
+        int[] fail = new int[gotos.size()];
+        Deque<Integer> queue = new ArrayDeque<>();
+        int[] root = gotos.get(0);
+        for (int symbol = 0; symbol < ALPHABET; symbol++) {
+            if (root[symbol] < 0) {
+                root[symbol] = 0;
+            } else {
+                fail[root[symbol]] = 0;
+                queue.add(root[symbol]);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            int[] row = gotos.get(state);
+            outs.set(state, concat(outs.get(state), outs.get(fail[state])));
+            for (int symbol = 0; symbol < ALPHABET; symbol++) {
+                int next = row[symbol];
+                if (next < 0) {
+                    row[symbol] = gotos.get(fail[state])[symbol];
+                } else {
+                    fail[next] = gotos.get(fail[state])[symbol];
+                    queue.add(next);
+                }
+            }
+        }
+        transitions = gotos.toArray(new int[0][]);
+        outputs = outs.toArray(new int[0][]);
+    }
+
+    public void forEachMatch(char[] text, int length, MatchHandler handler) {
+        int state = 0;
+        for (int i = 0; i < length; i++) {
+            state = transitions[state][symbol(text[i])];
+            for (int id : outputs[state]) {
+                handler.onMatch(id, i + 1 - patternLengths[id], i + 1);
+            }
+        }
+    }
+
+    public int stateCount() {
+        return transitions.length;
+    }
+
+    private static int symbol(char c) {
+        if (c >= 0x3131 && c <= 0x3163) return c - 0x3131;
+        if (c >= 'a' && c <= 'z') return JAMO_COUNT + (c - 'a');
+        return OTHER;
+    }
+
+    private static int[] newRow() {
+        int[] row = new int[ALPHABET];
+        Arrays.fill(row, -1);
+        return row;
+    }
+
+    private static int[] append(int[] array, int value) {
+        int[] result = Arrays.copyOf(array, array.length + 1);
+        result[array.length] = value;
+        return result;
+    }
+
+    private static int[] concat(int[] a, int[] b) {
+        if (b.length == 0) return a;
+        int[] result = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, result, a.length, b.length);
+        return result;
+    }
+}
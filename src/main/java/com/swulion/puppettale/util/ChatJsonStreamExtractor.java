@@ -0,0 +1,187 @@
+package com.swulion.puppettale.util;
+
+/**
+ * Gemini 스트리밍 응답 조각을 순서대로 받아, 모델이 출력하는 JSON 중
+ * 최상위 "response" 문자열 값만 도착하는 대로 꺼내 주는 파서.
+ * response가 닫힌 뒤에도 끝까지 읽으므로 thought_process(safety_status)가 response보다 뒤에 와도 된다.
+ * 앞뒤의 ```json 코드 블록 표시는 무시하고, JSON이 아닌 평문 응답이면 코드 블록 표시를 뺀 텍스트를 그대로 돌려준다.
+ */
+public class ChatJsonStreamExtractor {
+
+    private enum Mode { UNDECIDED, JSON, PLAIN }
+
+    private final StringBuilder raw = new StringBuilder();
+    private final StringBuilder response = new StringBuilder();
+    private final StringBuilder token = new StringBuilder();
+
+    private Mode mode = Mode.UNDECIDED;
+    private int pos = 0;
+    private int depth = 0;
+    private boolean inString = false;
+    private boolean lastStringIsKey = false;
+    private String currentKey;
+    private int currentKeyDepth = -1;
+    private boolean streamingResponse = false;
+    private boolean responseClosed = false;
+    private String safetyStatus;
+
+    // 새 조각을 추가하고, 이번 조각으로 새로 확정된 response 텍스트를 반환
+    public String append(String chunk) {
+        if (chunk == null || chunk.isEmpty()) return "";
+        raw.append(chunk);
+
+        if (mode == Mode.UNDECIDED) {
+            resolveMode();
+            if (mode == Mode.UNDECIDED) return "";
+        }
+        if (mode == Mode.PLAIN) {
+            return emitPlain();
+        }
+
+        int before = response.length();
+        scan();
+        return response.substring(before);
+    }
+
+    public String getSafetyStatus() {
+        return safetyStatus;
+    }
+
+    public boolean isJson() {
+        return mode == Mode.JSON;
+    }
+
+    // 지금까지 추출한 response 전체
+    public String getResponse() {
+        return response.toString();
+    }
+
+    // 받은 원문 전체
+    public String getRawText() {
+        return raw.toString();
+    }
+
+    private void resolveMode() {
+        int i = 0;
+        int len = raw.length();
+        while (i < len && Character.isWhitespace(raw.charAt(i))) i++;
+        if (i < len && raw.charAt(i) == '`') {
+            // ``` 또는 ```json 다음 줄부터가 실제 본문
+            int newline = raw.indexOf("\n", i);
+            if (newline < 0) return;
+            i = newline + 1;
+            while (i < len && Character.isWhitespace(raw.charAt(i))) i++;
+        }
+        if (i >= len) return;
+        mode = (raw.charAt(i) == '{') ? Mode.JSON : Mode.PLAIN;
+        pos = i;
+    }
+
+    // 평문: 닫는 ``` 일 수 있는 끝부분의 백틱과 공백은 다음 조각이 올 때까지 보류
+    private String emitPlain() {
+        int end = raw.length();
+        while (end > pos && (raw.charAt(end - 1) == '`' || Character.isWhitespace(raw.charAt(end - 1)))) end--;
+        if (end <= pos) return "";
+        String delta = raw.substring(pos, end);
+        response.append(delta);
+        pos = end;
+        return delta;
+    }
+
+    private void scan() {
+        int len = raw.length();
+        while (pos < len) {
+            char c = raw.charAt(pos);
+
+            if (inString) {
+                if (c == '\\') {
+                    int consumed = decodeEscape(pos, len);
+                    if (consumed == 0) return; // escape 시퀀스가 다음 조각에 이어짐
+                    pos += consumed;
+                    continue;
+                }
+                if (c == '"') {
+                    inString = false;
+                    closeString();
+                } else {
+                    appendChar(c);
+                }
+                pos++;
+                continue;
+            }
+
+            switch (c) {
+                case '"' -> {
+                    inString = true;
+                    token.setLength(0);
+                    streamingResponse = !responseClosed && !lastStringIsKey
+                            && "response".equals(currentKey) && currentKeyDepth == 1;
+                }
+                case ':' -> {
+                    if (lastStringIsKey) {
+                        currentKey = token.toString();
+                        currentKeyDepth = depth;
+                        lastStringIsKey = false;
+                    }
+                }
+                case '{', '[' -> {
+                    depth++;
+                    currentKey = null;
+                }
+                case '}', ']' -> {
+                    depth--;
+                    currentKey = null;
+                }
+                case ',' -> currentKey = null;
+                default -> {
+                }
+            }
+            pos++;
+        }
+    }
+
+    private void closeString() {
+        if (streamingResponse) {
+            streamingResponse = false;
+            responseClosed = true;
+            return;
+        }
+        if (currentKey == null) {
+            // 콜론 이전의 문자열은 키
+            lastStringIsKey = true;
+            return;
+        }
+        if ("safety_status".equals(currentKey)) {
+            safetyStatus = token.toString();
+        }
+        currentKey = null;
+    }
+
+    private void appendChar(char c) {
+        if (streamingResponse) {
+            response.append(c);
+        } else {
+            token.append(c);
+        }
+    }
+
+    // 처리한 문자 수 반환, 시퀀스가 아직 다 도착하지 않았으면 0
+    private int decodeEscape(int at, int len) {
+        if (at + 1 >= len) return 0;
+        char e = raw.charAt(at + 1);
+        switch (e) {
+            case 'n' -> appendChar('\n');
+            case 'r' -> appendChar('\r');
+            case 't' -> appendChar('\t');
+            case 'b' -> appendChar('\b');
+            case 'f' -> appendChar('\f');
+            case 'u' -> {
+                if (at + 6 > len) return 0;
+                appendChar((char) Integer.parseInt(raw.substring(at + 2, at + 6), 16));
+                return 6;
+            }
+            default -> appendChar(e); // \" \\ \/
+        }
+        return 2;
+    }
+}
@@ -0,0 +1,211 @@
+package com.swulion.puppettale.util;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.swulion.puppettale.dto.GeminiChatJsonContentDto;
+import com.swulion.puppettale.dto.GeminiUsageMetadata;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.util.function.Consumer;
+
+/**
+ * Gemini generateContent 응답 디코더.
+ * 응답 본문 전체를 문자열로 읽거나 DTO 트리로 만들지 않고, JsonParser로 스트림을 따라가며
+ * candidates[0].content.parts[0].text 값 하나와 usageMetadata(토큰 수)만 꺼낸다.
+ * 모델이 출력한 JSON(GeminiChatJsonContentDto)은 앞뒤 ```json 코드 블록 표시를 건너뛰고
+ * 첫 번째 최상위 객체까지만 읽는다 (잘라낸 부분 문자열을 만들지 않음).
+ */
+public final class GeminiResponseDecoder {
+
+    private GeminiResponseDecoder() {
+    }
+
+    /**
+     * 첫 번째 후보의 첫 번째 part 텍스트 (후보가 없으면 null, 안전 차단 등).
+     * 커넥션을 풀에 돌려줄 수 있도록 나머지 본문은 값을 만들지 않고 끝까지 읽고 버린다.
+     */
+    public static String firstText(JsonFactory jsonFactory, InputStream body) throws IOException {
+        return firstText(jsonFactory, body, null);
+    }
+
+    // usageSink: 응답에 usageMetadata가 있으면 전달 (null이면 읽지 않음)
+    public static String firstText(JsonFactory jsonFactory, InputStream body,
+                                   Consumer<GeminiUsageMetadata> usageSink) throws IOException {
+        if (body == null) return null;
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            String text = null;
+            if (parser.nextToken() != JsonToken.START_OBJECT) return null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (text == null && "candidates".equals(field) && value == JsonToken.START_ARRAY) {
+                    text = firstCandidateText(parser);
+                } else if (usageSink != null && "usageMetadata".equals(field) && value == JsonToken.START_OBJECT) {
+                    usageSink.accept(readUsage(parser));
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            while (parser.nextToken() != null) {
+                // 남은 본문 소비
+            }
+            return text;
+        }
+    }
+
+    /**
+     * 응답 본문 문자열에서 usageMetadata만 읽는다 (없으면 null).
+     * 이미지 응답처럼 본문을 이미 문자열로 받은 경우용으로, 다른 값은 만들지 않고 건너뛴다.
+     */
+    public static GeminiUsageMetadata usage(JsonFactory jsonFactory, String body) throws IOException {
+        if (body == null) return null;
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) return null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                if (parser.nextToken() == JsonToken.START_OBJECT && "usageMetadata".equals(field)) {
+                    return readUsage(parser);
+                }
+                parser.skipChildren();
+            }
+            return null;
+        }
+    }
+
+    // usageMetadata 객체 시작 위치에서 호출, 객체 끝까지 읽고 반환 (promptTokensDetails 등 세부 항목은 건너뜀)
+    private static GeminiUsageMetadata readUsage(JsonParser parser) throws IOException {
+        GeminiUsageMetadata usage = new GeminiUsageMetadata();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            if (parser.nextToken() != JsonToken.VALUE_NUMBER_INT) {
+                parser.skipChildren();
+                continue;
+            }
+            int count = parser.getIntValue();
+            switch (field) {
+                case "promptTokenCount" -> usage.setPromptTokenCount(count);
+                case "candidatesTokenCount" -> usage.setCandidatesTokenCount(count);
+                case "thoughtsTokenCount" -> usage.setThoughtsTokenCount(count);
+                case "cachedContentTokenCount" -> usage.setCachedContentTokenCount(count);
+                case "totalTokenCount" -> usage.setTotalTokenCount(count);
+                default -> {
+                    // toolUsePromptTokenCount 등은 합계(totalTokenCount)에만 반영
+                }
+            }
+        }
+        return usage;
+    }
+
+    // candidates 배열 시작 위치에서 호출, 배열 끝까지 읽고 반환
+    private static String firstCandidateText(JsonParser parser) throws IOException {
+        String text = null;
+        boolean first = true;
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY && token != null) {
+            if (first && token == JsonToken.START_OBJECT) {
+                text = objectField(parser, "content", GeminiResponseDecoder::contentText);
+            } else {
+                parser.skipChildren();
+            }
+            first = false;
+        }
+        return text;
+    }
+
+    private static String contentText(JsonParser parser) throws IOException {
+        return objectField(parser, "parts", p -> {
+            if (p.currentToken() != JsonToken.START_ARRAY) {
+                p.skipChildren();
+                return null;
+            }
+            String text = null;
+            boolean first = true;
+            JsonToken token;
+            while ((token = p.nextToken()) != JsonToken.END_ARRAY && token != null) {
+                if (first && token == JsonToken.START_OBJECT) {
+                    text = objectField(p, "text", v -> v.currentToken() == JsonToken.VALUE_STRING ? v.getText() : null);
+                } else {
+                    p.skipChildren();
+                }
+                first = false;
+            }
+            return text;
+        });
+    }
+
+    // 객체 시작 위치에서 호출: name 필드 값만 reader로 읽고 나머지는 건너뛰며 객체 끝까지 진행
+    private static String objectField(JsonParser parser, String name, FieldReader reader) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return null;
+        }
+        String result = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            if (result == null && name.equals(field)) {
+                result = reader.read(parser);
+                parser.skipChildren(); // 배열/객체를 다 읽지 않은 경우 대비 (이미 끝이면 무시됨)
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return result;
+    }
+
+    @FunctionalInterface
+    private interface FieldReader {
+        String read(JsonParser parser) throws IOException;
+    }
+
+    /**
+     * 모델 출력 텍스트에서 GeminiChatJsonContentDto를 읽는다.
+     * 앞쪽 공백과 ```json / ``` 표시 줄을 건너뛴 위치가 '{'가 아니면 JSON이 아닌 평문으로 보고 null.
+     * 첫 객체 이후의 닫는 ``` 등은 읽지 않는다.
+     */
+    public static GeminiChatJsonContentDto readChatContent(ObjectMapper objectMapper, String text) throws IOException {
+        int start = jsonStart(text);
+        if (start < 0) return null;
+        StringReader reader = new StringReader(text);
+        reader.skip(start);
+        return objectMapper.readValue(reader, GeminiChatJsonContentDto.class);
+    }
+
+    // 코드 블록 표시를 건너뛴 JSON 객체 시작 위치 (없으면 -1)
+    static int jsonStart(String text) {
+        if (text == null) return -1;
+        int i = skipWhitespace(text, 0);
+        if (i < text.length() && text.charAt(i) != '{') {
+            // 설명 문장 뒤에 코드 블록이 오는 경우도 허용: 첫 ``` 뒤의 언어 표시(json 등)와 공백을 건너뜀
+            int fence = text.indexOf("```", i);
+            if (fence < 0) return -1;
+            i = fence + 3;
+            while (i < text.length() && Character.isLetter(text.charAt(i))) i++;
+            i = skipWhitespace(text, i);
+        }
+        return (i < text.length() && text.charAt(i) == '{') ? i : -1;
+    }
+
+    /**
+     * 평문 응답용 코드 블록 표시 제거 (JSON이 아닐 때만 쓰는 드문 경로).
+     */
+    public static String stripCodeFence(String text) {
+        if (text == null) return null;
+        int open = text.indexOf("```");
+        if (open < 0) return text.trim();
+        int from = open + 3;
+        if (text.startsWith("json", from)) from += 4;
+        int close = text.lastIndexOf("```");
+        return (close > from ? text.substring(from, close) : text.substring(from)).trim();
+    }
+
+    private static int skipWhitespace(String text, int from) {
+        int i = from;
+        while (i < text.length() && Character.isWhitespace(text.charAt(i))) i++;
+        return i;
+    }
+}
@@ -0,0 +1,31 @@
+package com.swulion.puppettale.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * (시각, id) 키셋 페이지네이션 커서.
+ * 마지막으로 내려준 행의 정렬 키를 URL에 그대로 쓸 수 있는 불투명 문자열로 만든다.
+ * 같은 시각의 행은 id로 구분하므로 중간에 행이 추가/삭제되어도 건너뛰거나 겹치는 행이 없다.
+ */
+public record KeysetCursor(LocalDateTime at, long id) {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    public String encode() {
+        return ENCODER.encodeToString((at + "|" + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    // 형식이 맞지 않으면 IllegalArgumentException
+    public static KeysetCursor decode(String token) {
+        try {
+            String raw = new String(DECODER.decode(token), StandardCharsets.UTF_8);
+            int sep = raw.lastIndexOf('|');
+            return new KeysetCursor(LocalDateTime.parse(raw.substring(0, sep)), Long.parseLong(raw.substring(sep + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("잘못된 페이지 커서입니다.", e);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.swulion.puppettale.util;
+
+/**
+ * 안전 어휘 매칭용 한국어 정규화.
+ * 한글 음절은 호환 자모로 풀고 겹받침/이중모음도 낱자로 나눈다(ㅄ -> ㅂㅅ, ㅘ -> ㅗㅏ).
+ * 된소리나 비슷한 모음은 합치지 않는다 (찐따 -> 진다처럼 평범한 말과 겹치므로 변형은 어휘 목록에 따로 둔다).
+ * 띄어쓰기, 문장부호, 숫자, 이모지는 지우고 영문은 소문자로 바꾼다.
+ * 그래서 "죽 고 싶 어", "죽.고.싶.어", "ㅈㅜㄱㄱㅗ 싶어"는 모두 "죽고싶어"와 같은 결과가 된다.
+ * 음절을 풀면 앞 음절 받침과 다음 음절 초성이 이어져 다른 단어처럼 보일 수 있으므로(없+버 -> ㅂㅅㅂ),
+ * 각 문자가 음절(또는 낱자)의 시작인지 함께 돌려주고 매칭은 음절 시작에서만 인정한다.
+ */
+public final class KoreanTextNormalizer {
+
+    private static final char[] CHOSEONG = {
+            'ㄱ', 'ㄲ', 'ㄴ', 'ㄷ', 'ㄸ', 'ㄹ', 'ㅁ', 'ㅂ', 'ㅃ', 'ㅅ', 'ㅆ', 'ㅇ', 'ㅈ', 'ㅉ', 'ㅊ', 'ㅋ', 'ㅌ', 'ㅍ', 'ㅎ'};
+    private static final char[] JUNGSEONG = {
+            'ㅏ', 'ㅐ', 'ㅑ', 'ㅒ', 'ㅓ', 'ㅔ', 'ㅕ', 'ㅖ', 'ㅗ', 'ㅘ', 'ㅙ', 'ㅚ', 'ㅛ', 'ㅜ', 'ㅝ', 'ㅞ', 'ㅟ', 'ㅠ', 'ㅡ', 'ㅢ', 'ㅣ'};
+    private static final char[] JONGSEONG = {
+            0, 'ㄱ', 'ㄲ', 'ㄳ', 'ㄴ', 'ㄵ', 'ㄶ', 'ㄷ', 'ㄹ', 'ㄺ', 'ㄻ', 'ㄼ', 'ㄽ', 'ㄾ', 'ㄿ', 'ㅀ', 'ㅁ',
+            'ㅂ', 'ㅄ', 'ㅅ', 'ㅆ', 'ㅇ', 'ㅈ', 'ㅊ', 'ㅋ', 'ㅌ', 'ㅍ', 'ㅎ'};
+
+    // 호환 자모(U+3131~U+3163) -> 정규화된 낱자 1~2개
+    private static final String[] COMPAT = new String[0x3163 - 0x3131 + 1];
+
+    static {
+        for (char c = 'ㄱ'; c <= 'ㅣ'; c++) {
+            COMPAT[c - 0x3131] = String.valueOf(c);
+        }
+        String[][] folds = {
+                // 겹받침 -> 낱자
+                {"ㄳ", "ㄱㅅ"}, {"ㄵ", "ㄴㅈ"}, {"ㄶ", "ㄴㅎ"}, {"ㄺ", "ㄹㄱ"}, {"ㄻ", "ㄹㅁ"}, {"ㄼ", "ㄹㅂ"},
+                {"ㄽ", "ㄹㅅ"}, {"ㄾ", "ㄹㅌ"}, {"ㄿ", "ㄹㅍ"}, {"ㅀ", "ㄹㅎ"}, {"ㅄ", "ㅂㅅ"},
+                // 이중모음 -> 낱자
+                {"ㅘ", "ㅗㅏ"}, {"ㅙ", "ㅗㅐ"}, {"ㅚ", "ㅗㅣ"}, {"ㅝ", "ㅜㅓ"}, {"ㅞ", "ㅜㅐ"}, {"ㅟ", "ㅜㅣ"}, {"ㅢ", "ㅡㅣ"}
+        };
+        for (String[] fold : folds) {
+            COMPAT[fold[0].charAt(0) - 0x3131] = fold[1];
+        }
+    }
+
+    private KoreanTextNormalizer() {
+    }
+
+    /**
+     * @param chars 정규화된 문자 (앞에서 length개만 유효)
+     * @param syllableStart 각 문자가 음절 또는 낱자의 첫 문자인지
+     */
+    public record Normalized(char[] chars, boolean[] syllableStart, int length) {
+
+        @Override
+        public String toString() {
+            return new String(chars, 0, length);
+        }
+    }
+
+    public static Normalized normalize(CharSequence text) {
+        // 음절 하나가 최대 5자(초성 + 이중모음 2 + 겹받침 2)로 늘어남
+        char[] out = new char[text.length() * 5];
+        boolean[] start = new boolean[out.length];
+        int n = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= 0xAC00 && c <= 0xD7A3) {
+                int index = c - 0xAC00;
+                start[n] = true;
+                n = append(out, n, CHOSEONG[index / 588]);
+                n = append(out, n, JUNGSEONG[(index % 588) / 28]);
+                char jong = JONGSEONG[index % 28];
+                if (jong != 0) n = append(out, n, jong);
+            } else if (c >= 0x3131 && c <= 0x3163) {
+                start[n] = true;
+                n = append(out, n, c);
+            } else if (c >= 0x1100 && c <= 0x11FF) {
+                // 풀어쓴(NFD) 한글: 초성만 음절 시작
+                char compat = conjoiningToCompat(c);
+                if (compat == 0) continue;
+                if (c <= 0x1112) start[n] = true;
+                n = append(out, n, compat);
+            } else if (c >= 0xFF21 && c <= 0xFF5A && Character.isLetter(c)) {
+                start[n] = true;
+                out[n++] = Character.toLowerCase((char) (c - 0xFEE0)); // 전각 영문
+            } else if (Character.isLetter(c)) {
+                start[n] = true;
+                out[n++] = Character.toLowerCase(c);
+            }
+            // 공백, 문장부호, 숫자, 기호, 이모지(서로게이트)는 버림
+        }
+        return new Normalized(out, start, n);
+    }
+
+    public static String normalizeToString(CharSequence text) {
+        return normalize(text).toString();
+    }
+
+    private static int append(char[] out, int n, char jamo) {
+        String folded = COMPAT[jamo - 0x3131];
+        for (int k = 0; k < folded.length(); k++) {
+            out[n++] = folded.charAt(k);
+        }
+        return n;
+    }
+
+    // 조합형 자모(U+1100~) -> 호환 자모, 대응이 없으면 0
+    private static char conjoiningToCompat(char c) {
+        if (c >= 0x1100 && c <= 0x1112) return CHOSEONG[c - 0x1100];
+        if (c >= 0x1161 && c <= 0x1175) return JUNGSEONG[c - 0x1161];
+        if (c >= 0x11A8 && c <= 0x11C2) return JONGSEONG[c - 0x11A8 + 1];
+        return 0;
+    }
+}
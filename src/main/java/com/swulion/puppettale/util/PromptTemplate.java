@@ -0,0 +1,66 @@
+package com.swulion.puppettale.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 프롬프트 파일을 한 번만 파싱해 "고정 문자열 / {슬롯}" 조각으로 나눠 둔 템플릿.
+ * 렌더링은 미리 계산한 크기의 StringBuilder 하나에 조각을 이어 붙이는 것으로 끝난다.
+ * 값이 주어지지 않은 슬롯은 원문 그대로({Slot_Name}) 남긴다.
+ */
+public class PromptTemplate {
+
+    private static final Pattern SLOT = Pattern.compile("\\{([A-Za-z_]+)}");
+
+    private final String[] literals; // slots.length + 1개
+    private final String[] slots;
+    private final int literalLength;
+
+    private PromptTemplate(String[] literals, String[] slots) {
+        this.literals = literals;
+        this.slots = slots;
+        int length = 0;
+        for (String literal : literals) length += literal.length();
+        this.literalLength = length;
+    }
+
+    public static PromptTemplate compile(String text) {
+        List<String> literals = new ArrayList<>();
+        List<String> slots = new ArrayList<>();
+
+        Matcher matcher = SLOT.matcher(text);
+        int last = 0;
+        while (matcher.find()) {
+            literals.add(text.substring(last, matcher.start()));
+            slots.add(matcher.group(1));
+            last = matcher.end();
+        }
+        literals.add(text.substring(last));
+
+        return new PromptTemplate(literals.toArray(new String[0]), slots.toArray(new String[0]));
+    }
+
+    public String render(Map<String, String> values) {
+        int capacity = literalLength;
+        for (String slot : slots) {
+            String value = values.get(slot);
+            capacity += value != null ? value.length() : slot.length() + 2;
+        }
+
+        StringBuilder sb = new StringBuilder(capacity);
+        for (int i = 0; i < slots.length; i++) {
+            sb.append(literals[i]);
+            String value = values.get(slots[i]);
+            if (value != null) {
+                sb.append(value);
+            } else {
+                sb.append('{').append(slots[i]).append('}');
+            }
+        }
+        sb.append(literals[slots.length]);
+        return sb.toString();
+    }
+}
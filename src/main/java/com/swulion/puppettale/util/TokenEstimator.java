@@ -0,0 +1,17 @@
+package com.swulion.puppettale.util;
+
+public class TokenEstimator {
+
+    // Gemini 토크나이저 근사치: 영문/숫자/기호는 약 4자당 1토큰, 한글 등 비ASCII 문자는 1자당 약 1토큰
+    public static int estimate(String text) {
+        if (text == null || text.isEmpty()) return 0;
+
+        int ascii = 0;
+        int nonAscii = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) < 128) ascii++;
+            else nonAscii++;
+        }
+        return (ascii + 3) / 4 + nonAscii;
+    }
+}
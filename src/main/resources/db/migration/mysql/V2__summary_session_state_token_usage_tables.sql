@@ -0,0 +1,55 @@
+-- Flyway 도입 전에 엔티티로만 추가되어 기존 DB에는 없을 수 있는 테이블/인덱스
+-- (세션 누적 요약, 서버 간 공유 세션 상태, 토큰 사용량 집계, 동화 목록 키셋 페이지네이션 인덱스)
+
+create table ChatSummaries (
+    foldedTurns integer,
+    childId bigint,
+    created_at datetime(6),
+    id bigint not null auto_increment,
+    summarizedUntil datetime(6),
+    updated_at datetime(6),
+    sessionId varchar(255),
+    summary TEXT,
+    primary key (id)
+) engine=InnoDB;
+
+create table SessionStates (
+    inFlightUntil datetime(6),
+    lastActivityAt datetime(6),
+    sessionId varchar(255) not null,
+    inFlightOwner varchar(255),
+    soundId varchar(255),
+    primary key (sessionId)
+) engine=InnoDB;
+
+create table TokenUsages (
+    usageDate date not null,
+    cachedTokens bigint not null,
+    calls bigint not null,
+    candidatesTokens bigint not null,
+    childId bigint not null,
+    id bigint not null auto_increment,
+    promptTokens bigint not null,
+    thoughtsTokens bigint not null,
+    totalTokens bigint not null,
+    updatedAt datetime(6),
+    sessionId varchar(255) not null,
+    callType enum ('ANALYSIS','CHAT','CHAT_STREAM','CONTEXT_CACHE','IMAGE','STORY','SUMMARY') not null,
+    primary key (id)
+) engine=InnoDB;
+
+create index idx_fairy_tales_child_created
+   on FairyTales (child_id, is_deleted, created_at, id);
+
+create index idx_session_states_last_activity
+   on SessionStates (lastActivityAt);
+
+create index idx_token_usages_child_date
+   on TokenUsages (childId, usageDate);
+
+create index idx_token_usages_session
+   on TokenUsages (sessionId);
+
+-- utf8mb4 기준 키 길이 약 1032바이트 (date 3 + bigint 8 + varchar(255) 1020 + enum 1), InnoDB 인덱스 한도 3072바이트 이내
+alter table TokenUsages
+   add constraint uk_token_usages_key unique (usageDate, childId, sessionId, callType);
@@ -0,0 +1,11 @@
+-- 채팅 턴마다 실행되는 세션 대화 기록 조회 (sessionId, childId 조건 + timestamp 순)
+create index idx_chat_messages_session_child_time
+   on ChatMessages (sessionId, childId, timestamp);
+
+-- 세션 누적 요약 조회
+create index idx_chat_summaries_session_child
+   on ChatSummaries (sessionId, childId);
+
+-- 동화 상세 조회의 페이지 조인 + 페이지 번호 정렬
+create index idx_fairy_tale_pages_tale_page
+   on FairyTalePages (fairytale_id, page_number);
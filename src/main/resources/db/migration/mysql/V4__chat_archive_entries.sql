@@ -0,0 +1,17 @@
+-- 보관(cold) 계층으로 옮긴 세션 대화 묶음의 세그먼트 위치
+create table ChatArchiveEntries (
+    byteLength integer not null,
+    messageCount integer not null,
+    archivedAt datetime(6),
+    childId bigint not null,
+    firstAt datetime(6),
+    id bigint not null auto_increment,
+    lastAt datetime(6),
+    segmentOffset bigint not null,
+    segment varchar(100) not null,
+    sessionId varchar(255) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create index idx_chat_archive_entries_session_child
+   on ChatArchiveEntries (sessionId, childId);
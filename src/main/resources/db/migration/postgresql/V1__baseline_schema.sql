@@ -0,0 +1,88 @@
+-- 기존 ddl-auto=update로 만들어진 스키마 (Flyway 도입 전 엔티티 매핑과 동일)
+-- 이미 테이블이 있는 DB는 spring.flyway.baseline-on-migrate로 이 버전을 적용된 것으로 기록하고 V2부터 실행하므로,
+-- 이후에 추가된 테이블/인덱스는 여기에 넣지 않고 V2 이후 스크립트로 추가한다.
+
+create table ChatMessages (
+    logDate date,
+    childId bigint,
+    id bigint generated by default as identity,
+    timestamp timestamp(6),
+    keywords varchar(255),
+    message TEXT,
+    sessionId varchar(255),
+    speaker varchar(255) check (speaker in ('USER','AI')),
+    primary key (id)
+);
+
+create table Children (
+    birthdate date,
+    hospitalization_start_date date,
+    isWarningState boolean,
+    created_at timestamp(6),
+    id bigint generated by default as identity,
+    lastDischargedAt timestamp(6),
+    updated_at timestamp(6),
+    user_id bigint,
+    name varchar(255),
+    profileImageUrl TEXT,
+    primary key (id)
+);
+
+create table FairyTalePages (
+    page_number integer,
+    created_at timestamp(6),
+    fairytale_id bigint,
+    id bigint generated by default as identity,
+    updated_at timestamp(6),
+    image_url TEXT,
+    text TEXT,
+    primary key (id)
+);
+
+create table FairyTales (
+    is_deleted boolean not null,
+    child_id bigint,
+    created_at timestamp(6),
+    id bigint generated by default as identity,
+    updated_at timestamp(6),
+    thumbnail_url TEXT,
+    title varchar(255),
+    primary key (id)
+);
+
+create table Puppets (
+    child_id bigint unique,
+    created_at timestamp(6),
+    id bigint generated by default as identity,
+    updated_at timestamp(6),
+    mode varchar(255) check (mode in ('MATURE','AFFECTIONATE','ENERGETIC','REASSURING')),
+    name varchar(255),
+    primary key (id)
+);
+
+create table Users (
+    created_at timestamp(6),
+    id bigint generated by default as identity,
+    updated_at timestamp(6),
+    primary key (id)
+);
+
+alter table if exists Children
+   add constraint FKgkkl9qujgcwuktixb62uuab31
+   foreign key (user_id)
+   references Users;
+
+alter table if exists FairyTalePages
+   add constraint FKk8dwcpy48vk5dnsom9r2aynrw
+   foreign key (fairytale_id)
+   references FairyTales;
+
+alter table if exists FairyTales
+   add constraint FKearu2ec1vwa6so6fl2hss31nh
+   foreign key (child_id)
+   references Children;
+
+alter table if exists Puppets
+   add constraint FKnisseoi55j0vd40pnj061xint
+   foreign key (child_id)
+   references Children;
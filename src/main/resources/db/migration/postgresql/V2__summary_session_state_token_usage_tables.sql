@@ -0,0 +1,52 @@
+-- Flyway 도입 전에 엔티티로만 추가되어 기존 DB에는 없을 수 있는 테이블/인덱스
+-- (세션 누적 요약, 서버 간 공유 세션 상태, 토큰 사용량 집계, 동화 목록 키셋 페이지네이션 인덱스)
+
+create table ChatSummaries (
+    foldedTurns integer,
+    childId bigint,
+    created_at timestamp(6),
+    id bigint generated by default as identity,
+    summarizedUntil timestamp(6),
+    updated_at timestamp(6),
+    sessionId varchar(255),
+    summary TEXT,
+    primary key (id)
+);
+
+create table SessionStates (
+    inFlightUntil timestamp(6),
+    lastActivityAt timestamp(6),
+    sessionId varchar(255) not null,
+    inFlightOwner varchar(255),
+    soundId varchar(255),
+    primary key (sessionId)
+);
+
+create table TokenUsages (
+    usageDate date not null,
+    cachedTokens bigint not null,
+    calls bigint not null,
+    candidatesTokens bigint not null,
+    childId bigint not null,
+    id bigint generated by default as identity,
+    promptTokens bigint not null,
+    thoughtsTokens bigint not null,
+    totalTokens bigint not null,
+    updatedAt timestamp(6),
+    callType varchar(20) not null check (callType in ('CHAT','CHAT_STREAM','SUMMARY','ANALYSIS','STORY','IMAGE','CONTEXT_CACHE')),
+    sessionId varchar(255) not null,
+    primary key (id),
+    constraint uk_token_usages_key unique (usageDate, childId, sessionId, callType)
+);
+
+create index idx_fairy_tales_child_created
+   on FairyTales (child_id, is_deleted, created_at, id);
+
+create index idx_session_states_last_activity
+   on SessionStates (lastActivityAt);
+
+create index idx_token_usages_child_date
+   on TokenUsages (childId, usageDate);
+
+create index idx_token_usages_session
+   on TokenUsages (sessionId);
@@ -0,0 +1,128 @@
+package com.swulion.puppettale.repository;
+
+import com.swulion.puppettale.service.GeminiClient;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationInfo;
+import org.flywaydb.core.api.MigrationState;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.EncodedResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Flyway 도입 전(ddl-auto=update) 스키마와 데이터가 있는 DB에서 앱을 띄우면
+ * V1이 baseline으로 기록되고 V2 이후 스크립트만 실행되어, 엔티티 매핑 검증(ddl-auto=validate)을 통과하고
+ * 기존 데이터가 그대로 남는지 MySQL/PostgreSQL 호환 모드의 H2로 확인한다.
+ */
+class BaselineMigrationTest {
+
+    // baseline-on-migrate/baseline-version은 application.properties 값을 그대로 씀
+    private static final String COMMON_PROPERTIES = """
+            spring.jpa.hibernate.ddl-auto=validate
+            spring.flyway.enabled=true
+            """;
+
+    // 한 DB에는 한 번만 기존 스키마를 만듦 (datasource URL은 여러 번 조회될 수 있음)
+    private static final Set<String> PREPARED = ConcurrentHashMap.newKeySet();
+
+    @ActiveProfiles("test")
+    @SpringBootTest(properties = {COMMON_PROPERTIES, "spring.flyway.locations=classpath:db/migration/mysql"})
+    static class MySql extends BaselineUpgrade {
+
+        @DynamicPropertySource
+        static void preFlywayDatabase(DynamicPropertyRegistry registry) {
+            registry.add("spring.datasource.url", () -> prepare(
+                    "jdbc:h2:mem:baseline-mysql;DB_CLOSE_DELAY=-1;MODE=MySQL;NON_KEYWORDS=TIMESTAMP,KEY,VALUE",
+                    "db/pre-flyway/mysql.sql"));
+        }
+    }
+
+    @ActiveProfiles("test")
+    @SpringBootTest(properties = {COMMON_PROPERTIES, "spring.flyway.locations=classpath:db/migration/postgresql"})
+    static class PostgreSql extends BaselineUpgrade {
+
+        @DynamicPropertySource
+        static void preFlywayDatabase(DynamicPropertyRegistry registry) {
+            registry.add("spring.datasource.url", () -> prepare(
+                    "jdbc:h2:mem:baseline-postgresql;DB_CLOSE_DELAY=-1;MODE=PostgreSQL;NON_KEYWORDS=TIMESTAMP,KEY,VALUE",
+                    "db/pre-flyway/postgresql.sql"));
+        }
+    }
+
+    abstract static class BaselineUpgrade {
+
+        @Autowired
+        private Flyway flyway;
+
+        @Autowired
+        private JdbcTemplate jdbcTemplate;
+
+        @MockitoBean
+        private GeminiClient geminiClient;
+
+        @Test
+        void existingDatabaseIsBaselinedAndUpgraded() {
+            MigrationInfo[] applied = flyway.info().applied();
+            assertThat(applied[0].getVersion().getVersion()).isEqualTo("1");
+            assertThat(applied[0].getState()).isEqualTo(MigrationState.BASELINE);
+
+            List<MigrationInfo> migrations = Arrays.asList(applied).subList(1, applied.length);
+            assertThat(migrations).extracting(info -> info.getVersion().getVersion()).containsExactly("2", "3", "4");
+            assertThat(migrations).extracting(MigrationInfo::getState).containsOnly(MigrationState.SUCCESS);
+            assertThat(flyway.info().pending()).isEmpty();
+
+            // 기존 데이터 유지
+            assertThat(jdbcTemplate.queryForObject("SELECT name FROM Children WHERE id = 1", String.class)).isEqualTo("하늘");
+            assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM ChatMessages WHERE sessionId = 'old-session'", Long.class))
+                    .isEqualTo(1);
+
+            // V2 이후에 추가된 테이블에 쓸 수 있음
+            jdbcTemplate.update("INSERT INTO ChatSummaries (sessionId, childId, summary) VALUES ('old-session', 1, '요약')");
+            jdbcTemplate.update("INSERT INTO SessionStates (sessionId, lastActivityAt) VALUES (?, CURRENT_TIMESTAMP)", "s".repeat(255));
+            jdbcTemplate.update("INSERT INTO TokenUsages (usageDate, childId, sessionId, callType, promptTokens, candidatesTokens, " +
+                    "thoughtsTokens, cachedTokens, totalTokens, calls) VALUES (CURRENT_DATE, 1, ?, 'CHAT', 1, 1, 0, 0, 2, 1)", "s".repeat(255));
+            jdbcTemplate.update("INSERT INTO ChatArchiveEntries (sessionId, childId, segment, segmentOffset, byteLength, messageCount) " +
+                    "VALUES ('old-session', 1, 'seg', 0, 10, 1)");
+
+            assertThat(indexNames()).contains(
+                    "IDX_FAIRY_TALES_CHILD_CREATED",
+                    "IDX_SESSION_STATES_LAST_ACTIVITY",
+                    "IDX_TOKEN_USAGES_CHILD_DATE",
+                    "IDX_CHAT_MESSAGES_SESSION_CHILD_TIME",
+                    "IDX_CHAT_ARCHIVE_ENTRIES_SESSION_CHILD");
+        }
+
+        private List<String> indexNames() {
+            return jdbcTemplate.queryForList("SELECT UPPER(INDEX_NAME) FROM INFORMATION_SCHEMA.INDEXES", String.class);
+        }
+    }
+
+    private static String prepare(String url, String script) {
+        if (PREPARED.add(url)) {
+            try (Connection connection = new DriverManagerDataSource(url, "sa", "").getConnection()) {
+                ScriptUtils.executeSqlScript(connection, new EncodedResource(new ClassPathResource(script), UTF_8));
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        return url;
+    }
+}
@@ -0,0 +1,188 @@
+package com.swulion.puppettale.repository;
+
+import com.swulion.puppettale.service.GeminiClient;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.sql.ParameterMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * db/migration의 MySQL/PostgreSQL 스크립트를 각 호환 모드의 H2에 적용한 뒤,
+ * 엔티티 매핑과 스키마가 맞는지(ddl-auto=validate) 확인하고
+ * 리포지토리 조회 메서드가 실제로 내보내는 SQL의 실행 계획(EXPLAIN)에 전체 테이블 스캔이 없는지 확인한다.
+ */
+class MigrationIndexUsageTest {
+
+    private static final String COMMON_PROPERTIES = """
+            spring.jpa.hibernate.ddl-auto=validate
+            spring.jpa.properties.hibernate.session_factory.statement_inspector=com.swulion.puppettale.repository.MigrationIndexUsageTest$SqlCapture
+            spring.flyway.enabled=true
+            """;
+
+    @ActiveProfiles("test")
+    @SpringBootTest(properties = {COMMON_PROPERTIES, "spring.flyway.locations=classpath:db/migration/mysql"})
+    static class MySql extends IndexUsage {
+    }
+
+    @ActiveProfiles("test")
+    @SpringBootTest(properties = {
+            COMMON_PROPERTIES,
+            "spring.datasource.url=jdbc:h2:mem:migration-postgresql;MODE=PostgreSQL;NON_KEYWORDS=TIMESTAMP,KEY,VALUE",
+            "spring.flyway.locations=classpath:db/migration/postgresql"
+    })
+    static class PostgreSql extends IndexUsage {
+    }
+
+    abstract static class IndexUsage {
+
+        // 행이 거의 없으면 H2가 인덱스 대신 스캔을 고를 수 있어 어느 정도 채워 둠
+        private static final int ROWS = 300;
+
+        @Autowired
+        private JdbcTemplate jdbcTemplate;
+
+        @Autowired
+        private ChatMessageRepository chatMessageRepository;
+
+        @Autowired
+        private ChatSummaryRepository chatSummaryRepository;
+
+        @Autowired
+        private ChatArchiveEntryRepository chatArchiveEntryRepository;
+
+        @Autowired
+        private ChildRepository childRepository;
+
+        @Autowired
+        private FairyTaleRepository fairyTaleRepository;
+
+        @Autowired
+        private SessionStateRepository sessionStateRepository;
+
+        @Autowired
+        private TokenUsageRepository tokenUsageRepository;
+
+        @MockitoBean
+        private GeminiClient geminiClient;
+
+        @BeforeEach
+        void seed() {
+            if (jdbcTemplate.queryForObject("SELECT COUNT(*) FROM Children", Long.class) > 0) return;
+            for (int i = 0; i < ROWS; i++) {
+                jdbcTemplate.update("INSERT INTO Children (name, isWarningState) VALUES (?, FALSE)", "아이" + i);
+                long childId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM Children", Long.class);
+                jdbcTemplate.update("INSERT INTO Puppets (child_id, name, mode) VALUES (?, '토리', 'AFFECTIONATE')", childId);
+                jdbcTemplate.update("INSERT INTO FairyTales (child_id, title, is_deleted, created_at) VALUES (?, '동화', FALSE, CURRENT_TIMESTAMP)", childId);
+                long fairyTaleId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM FairyTales", Long.class);
+                jdbcTemplate.update("INSERT INTO FairyTalePages (fairytale_id, page_number, text) VALUES (?, 1, '본문')", fairyTaleId);
+                jdbcTemplate.update("INSERT INTO ChatMessages (sessionId, childId, speaker, message, timestamp) VALUES (?, ?, 'USER', '안녕', CURRENT_TIMESTAMP)",
+                        "s" + i, childId);
+                jdbcTemplate.update("INSERT INTO ChatSummaries (sessionId, childId, summary) VALUES (?, ?, '요약')", "s" + i, childId);
+                jdbcTemplate.update("INSERT INTO ChatArchiveEntries (sessionId, childId, segment, segmentOffset, byteLength, messageCount) " +
+                        "VALUES (?, ?, 'seg', 0, 10, 1)", "s" + i, childId);
+                jdbcTemplate.update("INSERT INTO SessionStates (sessionId, lastActivityAt) VALUES (?, CURRENT_TIMESTAMP)", "s" + i);
+                jdbcTemplate.update("INSERT INTO TokenUsages (usageDate, childId, sessionId, callType, promptTokens, candidatesTokens, " +
+                        "thoughtsTokens, cachedTokens, totalTokens, calls) VALUES (?, ?, ?, 'CHAT', 1, 1, 0, 0, 2, 1)",
+                        LocalDate.now().minusDays(i % 30), childId, "s" + i);
+            }
+            jdbcTemplate.execute("ANALYZE");
+        }
+
+        @Test
+        void finderQueriesUseIndexes() {
+            LocalDateTime now = LocalDateTime.now();
+            LocalDate today = LocalDate.now();
+
+            Map<String, Runnable> finders = new LinkedHashMap<>();
+            finders.put("ChatMessage.findBySessionIdOrderByTimestampAsc",
+                    () -> chatMessageRepository.findBySessionIdOrderByTimestampAsc("s1"));
+            finders.put("ChatMessage.findBySessionIdAndTimestampAfterOrderByTimestampAsc",
+                    () -> chatMessageRepository.findBySessionIdAndTimestampAfterOrderByTimestampAsc("s1", now.minusDays(1)));
+            finders.put("ChatMessage.findBySessionIdAndChildIdOrderByTimestampAsc",
+                    () -> chatMessageRepository.findBySessionIdAndChildIdOrderByTimestampAsc("s1", 1L));
+            finders.put("ChatMessage.findHistory",
+                    () -> chatMessageRepository.findHistory("s1", 1L, Limit.of(51)));
+            finders.put("ChatMessage.findHistoryAfter",
+                    () -> chatMessageRepository.findHistoryAfter("s1", 1L, now.minusDays(1), 10L, Limit.of(51)));
+            finders.put("ChatSummary.findBySessionIdAndChildId",
+                    () -> chatSummaryRepository.findBySessionIdAndChildId("s1", 1L));
+            finders.put("ChatArchiveEntry.findBySessionIdAndChildIdOrderByFirstAtAscIdAsc",
+                    () -> chatArchiveEntryRepository.findBySessionIdAndChildIdOrderByFirstAtAscIdAsc("s1", 1L));
+            finders.put("Child.findWithPuppetById", () -> childRepository.findWithPuppetById(1L));
+            finders.put("Child.findMyPageRow", () -> childRepository.findMyPageRow(1L));
+            finders.put("FairyTale.findByIdAndChildIdAndIsDeletedFalse",
+                    () -> fairyTaleRepository.findByIdAndChildIdAndIsDeletedFalse(1L, 1L));
+            finders.put("FairyTale.findWithPagesByIdAndChildIdAndIsDeletedFalse",
+                    () -> fairyTaleRepository.findWithPagesByIdAndChildIdAndIsDeletedFalse(1L, 1L));
+            finders.put("FairyTale.findSummaries",
+                    () -> fairyTaleRepository.findSummaries(1L, Limit.of(21)));
+            finders.put("FairyTale.findSummariesAfter",
+                    () -> fairyTaleRepository.findSummariesAfter(1L, now, 10L, Limit.of(21)));
+            finders.put("FairyTale.countByChildIdAndIsDeletedFalseAndCreatedAtAfter",
+                    () -> fairyTaleRepository.countByChildIdAndIsDeletedFalseAndCreatedAtAfter(1L, today.atStartOfDay()));
+            finders.put("SessionState.findSoundId", () -> sessionStateRepository.findSoundId("s1", now.minusHours(1)));
+            finders.put("SessionState.findLastActivity", () -> sessionStateRepository.findLastActivity("s1", now.minusHours(1)));
+            finders.put("TokenUsage.sumChildTotal", () -> tokenUsageRepository.sumChildTotal(1L, today));
+            finders.put("TokenUsage.sumSessionTotal", () -> tokenUsageRepository.sumSessionTotal("s1"));
+            finders.put("TokenUsage.summarizeChild", () -> tokenUsageRepository.summarizeChild(1L, today.minusDays(7), today));
+            finders.put("TokenUsage.summarizeSession", () -> tokenUsageRepository.summarizeSession("s1"));
+            finders.put("TokenUsage.findTopSessions", () -> tokenUsageRepository.findTopSessions(today, PageRequest.of(0, 20)));
+
+            finders.forEach((name, finder) -> {
+                SqlCapture.CAPTURED.clear();
+                finder.run();
+                assertThat(SqlCapture.CAPTURED).as(name).isNotEmpty();
+                for (String sql : SqlCapture.CAPTURED) {
+                    String plan = explain(sql);
+                    assertThat(plan).as(name + "\n" + plan).doesNotContainIgnoringCase("tableScan");
+                }
+            });
+        }
+
+        // 바인딩 값 없이 계획만 본다 (파라미터는 NULL로 채움, 인덱스 선택은 조건 형태로 결정됨)
+        private String explain(String sql) {
+            return jdbcTemplate.execute((java.sql.Connection connection) -> {
+                try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+                    ParameterMetaData parameters = statement.getParameterMetaData();
+                    for (int i = 1; i <= parameters.getParameterCount(); i++) {
+                        statement.setObject(i, null);
+                    }
+                    try (ResultSet rs = statement.executeQuery()) {
+                        rs.next();
+                        return rs.getString(1);
+                    }
+                }
+            });
+        }
+    }
+
+    // Hibernate가 실행하는 SQL을 모아 둠 (테스트는 한 스레드에서 순서대로 실행)
+    public static class SqlCapture implements StatementInspector {
+
+        static final List<String> CAPTURED = new ArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            CAPTURED.add(sql);
+            return sql;
+        }
+    }
+}
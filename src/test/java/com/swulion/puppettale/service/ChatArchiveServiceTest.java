@@ -0,0 +1,124 @@
+package com.swulion.puppettale.service;
+
+import com.swulion.puppettale.dto.ChatHistoryItem;
+import com.swulion.puppettale.entity.ChatArchiveEntry;
+import com.swulion.puppettale.repository.ChatArchiveEntryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 오래된 세션만 세그먼트 파일로 옮겨지고 hot 테이블에서 지워지는지,
+ * 대화 기록 조회가 보관된 발화와 이후 새 발화를 이어서 돌려주는지 확인한다.
+ */
+@ActiveProfiles("test")
+@SpringBootTest
+class ChatArchiveServiceTest {
+
+    private static final Path ARCHIVE_DIR = createArchiveDir();
+
+    @DynamicPropertySource
+    static void archiveDir(DynamicPropertyRegistry registry) {
+        registry.add("chat.archive.dir", ARCHIVE_DIR::toString);
+    }
+
+    @Autowired
+    private ChatArchiveService chatArchiveService;
+
+    @Autowired
+    private ChatHistoryService chatHistoryService;
+
+    @Autowired
+    private ChatArchiveEntryRepository chatArchiveEntryRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockitoBean
+    private GeminiClient geminiClient;
+
+    private Long childId;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("INSERT INTO Children (name, birthdate, isWarningState) VALUES ('하늘', DATE '2018-03-01', FALSE)");
+        childId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM Children", Long.class);
+    }
+
+    @Test
+    void oldSessionsMoveToSegmentsAndHistoryReadsBothTiers() throws IOException {
+        LocalDateTime old = LocalDateTime.now().minusDays(40);
+        insertMessage("archive-old", "USER", "안녕 토리야", old);
+        insertMessage("archive-old", "AI", "안녕! 오늘 기분 어때?", old.plusSeconds(5));
+        insertMessage("archive-old", "USER", "좋아", old.plusSeconds(10));
+        insertMessage("archive-old-2", "USER", "다른 세션", old.plusHours(1));
+        insertMessage("archive-recent", "USER", "어제 이야기", LocalDateTime.now().minusDays(1));
+
+        assertThat(chatArchiveService.archiveOldSessions()).isEqualTo(2);
+
+        assertThat(hotCount("archive-old")).isZero();
+        assertThat(hotCount("archive-old-2")).isZero();
+        assertThat(hotCount("archive-recent")).isEqualTo(1);
+
+        // 두 세션이 한 세그먼트에 서로 다른 구간으로 들어감
+        List<ChatArchiveEntry> entries = chatArchiveEntryRepository.findAll();
+        assertThat(entries).extracting(ChatArchiveEntry::getSegment).containsOnly(entries.get(0).getSegment());
+        assertThat(entries).extracting(ChatArchiveEntry::getSegmentOffset).doesNotHaveDuplicates();
+        try (var files = Files.list(ARCHIVE_DIR)) {
+            assertThat(files.map(file -> file.getFileName().toString())).containsExactly(entries.get(0).getSegment());
+        }
+
+        assertThat(history("archive-old"))
+                .extracting(ChatHistoryItem::getMessage)
+                .containsExactly("안녕 토리야", "안녕! 오늘 기분 어때?", "좋아");
+        assertThat(history("archive-old-2"))
+                .extracting(ChatHistoryItem::getMessage)
+                .containsExactly("다른 세션");
+
+        // 보관 후 같은 세션에 새 발화: 보관분 뒤에 이어서 조회되고, 다시 최근 세션이 되어 보관 대상이 아님
+        insertMessage("archive-old", "USER", "다시 왔어", LocalDateTime.now());
+        assertThat(history("archive-old"))
+                .extracting(ChatHistoryItem::getMessage)
+                .containsExactly("안녕 토리야", "안녕! 오늘 기분 어때?", "좋아", "다시 왔어");
+        assertThat(chatArchiveService.archiveOldSessions()).isZero();
+
+        assertThat(chatArchiveService.getStats().getArchivedMessages()).isEqualTo(4);
+        assertThat(chatArchiveService.getStats().getSegmentsWritten()).isEqualTo(1);
+    }
+
+    private List<ChatHistoryItem> history(String sessionId) {
+        return chatHistoryService.getHistory(childId, sessionId, null, null).getMessages();
+    }
+
+    private void insertMessage(String sessionId, String speaker, String message, LocalDateTime at) {
+        jdbcTemplate.update("INSERT INTO ChatMessages (sessionId, childId, speaker, message, timestamp, logDate) VALUES (?, ?, ?, ?, ?, ?)",
+                sessionId, childId, speaker, message, Timestamp.valueOf(at), at.toLocalDate());
+    }
+
+    private long hotCount(String sessionId) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM ChatMessages WHERE sessionId = ?", Long.class, sessionId);
+    }
+
+    private static Path createArchiveDir() {
+        try {
+            return Files.createTempDirectory("chat-archive-test");
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
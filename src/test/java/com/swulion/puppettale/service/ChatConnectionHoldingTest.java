@@ -0,0 +1,120 @@
+package com.swulion.puppettale.service;
+
+import com.swulion.puppettale.dto.ChatResponseDto;
+import com.swulion.puppettale.dto.ChatStartRequestDto;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+/**
+ * 커넥션 풀(4개)보다 많은 채팅 요청을 동시에 보내, Gemini 호출 중에는 DB 커넥션을 잡지 않는지 확인하는 부하 테스트.
+ * Gemini 호출이 트랜잭션 안에 있으면 동시에 진행되는 호출 수가 풀 크기를 넘을 수 없다.
+ */
+@ActiveProfiles("test")
+@SpringBootTest(properties = {
+        "spring.datasource.hikari.maximum-pool-size=4",
+        "spring.datasource.hikari.connection-timeout=30000"
+})
+class ChatConnectionHoldingTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ChatConnectionHoldingTest.class);
+
+    private static final int POOL_SIZE = 4;
+    private static final int CONCURRENT_CHATS = 32;
+    private static final long GEMINI_LATENCY_MS = 300;
+
+    // Gemini 응답의 candidates[0].content.parts[0].text
+    private static final String GEMINI_TEXT = """
+            {"thought_process":{"safety_status":"GREEN"},"response":"안녕!"}""";
+
+    @Autowired
+    private ChatService chatService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @MockitoBean
+    private GeminiClient geminiClient;
+
+    private Long childId;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("INSERT INTO Children (name, birthdate, isWarningState) VALUES ('하늘', DATE '2018-03-01', FALSE)");
+        childId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM Children", Long.class);
+        jdbcTemplate.update("INSERT INTO Puppets (child_id, name, mode) VALUES (?, '토리', 'AFFECTIONATE')", childId);
+    }
+
+    @Test
+    void geminiCallsDoNotHoldConnections() throws Exception {
+        HikariDataSource hikari = dataSource.unwrap(HikariDataSource.class);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        AtomicInteger maxActiveConnections = new AtomicInteger();
+        AtomicBoolean transactionDuringCall = new AtomicBoolean(false);
+
+        when(geminiClient.generateText(eq(GeminiClient.CallType.CHAT), anyString(), any(), any())).thenAnswer(invocation -> {
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                transactionDuringCall.set(true);
+            }
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            maxActiveConnections.accumulateAndGet(hikari.getHikariPoolMXBean().getActiveConnections(), Math::max);
+            try {
+                Thread.sleep(GEMINI_LATENCY_MS);
+            } finally {
+                inFlight.decrementAndGet();
+            }
+            return GEMINI_TEXT;
+        });
+
+        ExecutorService clients = Executors.newFixedThreadPool(CONCURRENT_CHATS);
+        long startedAt = System.nanoTime();
+        List<Future<ChatResponseDto>> results = new ArrayList<>();
+        for (int i = 0; i < CONCURRENT_CHATS; i++) {
+            ChatStartRequestDto request = new ChatStartRequestDto();
+            request.setSessionId("load-session-" + i);
+            request.setChildId(childId);
+            request.setUserMessage("안녕 토리야");
+            results.add(clients.submit(() -> chatService.processChat(request)));
+        }
+        for (Future<ChatResponseDto> result : results) {
+            assertThat(result.get().getAiResponse()).isEqualTo("안녕!");
+        }
+        long elapsedMs = (System.nanoTime() - startedAt) / 1_000_000;
+        clients.shutdown();
+
+        log.info("채팅 {}건 / 풀 {}개: {}ms, 처리량 {}건/s, 동시 Gemini 호출 최대 {}, Gemini 호출 중 사용 커넥션 최대 {}",
+                CONCURRENT_CHATS, POOL_SIZE, elapsedMs, String.format("%.1f", CONCURRENT_CHATS * 1000.0 / elapsedMs),
+                maxInFlight.get(), maxActiveConnections.get());
+
+        assertThat(transactionDuringCall).isFalse();
+        // 커넥션을 잡은 채 호출했다면 동시 호출 수는 풀 크기를 넘을 수 없음
+        assertThat(maxInFlight.get()).isGreaterThan(POOL_SIZE);
+    }
+}
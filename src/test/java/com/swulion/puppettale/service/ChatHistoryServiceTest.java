@@ -0,0 +1,269 @@
+package com.swulion.puppettale.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.swulion.puppettale.dto.ChatHistoryItem;
+import com.swulion.puppettale.dto.ChatHistoryResponse;
+import com.swulion.puppettale.entity.ChatMessage;
+import com.swulion.puppettale.entity.Speaker;
+import com.swulion.puppettale.repository.ChatMessageRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
+
+/**
+ * 대화 기록 페이지가 보관분과 hot 테이블 경계, 같은 시각의 발화를 건너뛰거나 겹치지 않고 이어지는지,
+ * 다른 아동의 같은 세션 발화가 섞이지 않는지, NDJSON 내보내기가 페이지를 모두 이은 결과와 같은지,
+ * 아직 저장되지 않은 발화가 마지막 페이지와 내보내기에 한 번씩만 붙는지 확인한다.
+ */
+@ActiveProfiles("test")
+@SpringBootTest
+class ChatHistoryServiceTest {
+
+    private static final Path ARCHIVE_DIR = createArchiveDir();
+
+    @DynamicPropertySource
+    static void archiveDir(DynamicPropertyRegistry registry) {
+        registry.add("chat.archive.dir", ARCHIVE_DIR::toString);
+    }
+
+    @Autowired
+    private ChatHistoryService chatHistoryService;
+
+    @Autowired
+    private ChatArchiveService chatArchiveService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ChatMessageRepository chatMessageRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @MockitoBean
+    private GeminiClient geminiClient;
+
+    @MockitoSpyBean
+    private ChatMessageWriter chatMessageWriter;
+
+    private Long childId;
+    private Long otherChildId;
+    private String sessionId;
+
+    @BeforeEach
+    void setUp() {
+        childId = insertChild("하늘");
+        otherChildId = insertChild("바다");
+        sessionId = "history-" + childId;
+
+        // 보관될 발화 (같은 시각 두 건 포함)
+        LocalDateTime old = LocalDateTime.now().minusDays(40);
+        insertMessage(childId, "USER", "옛날 1", old);
+        insertMessage(childId, "AI", "옛날 2", old.plusSeconds(1));
+        insertMessage(childId, "USER", "옛날 3", old.plusSeconds(1));
+        insertMessage(childId, "AI", "옛날 4", old.plusSeconds(2));
+        insertMessage(childId, "USER", "옛날 5", old.plusSeconds(3));
+        chatArchiveService.archiveOldSessions();
+
+        // hot 테이블에 남는 발화 (같은 시각 두 건 포함)
+        LocalDateTime recent = LocalDateTime.now().minusHours(1);
+        insertMessage(childId, "USER", "최근 1", recent);
+        insertMessage(childId, "AI", "최근 2", recent);
+        insertMessage(childId, "USER", "최근 3", recent.plusSeconds(1));
+        insertMessage(childId, "AI", "최근 4", recent.plusSeconds(2));
+
+        // 같은 세션 ID를 쓰는 다른 아동의 발화
+        insertMessage(otherChildId, "USER", "다른 아동", recent);
+    }
+
+    @Test
+    void pagesCrossArchiveBoundaryWithoutGapsOrDuplicates() {
+        List<String> expected = List.of("옛날 1", "옛날 2", "옛날 3", "옛날 4", "옛날 5", "최근 1", "최근 2", "최근 3", "최근 4");
+
+        for (int size = 1; size <= 4; size++) {
+            List<String> collected = new ArrayList<>();
+            String cursor = null;
+            int pages = 0;
+            do {
+                ChatHistoryResponse page = chatHistoryService.getHistory(childId, sessionId, cursor, size);
+                assertThat(page.getMessages()).hasSizeLessThanOrEqualTo(size);
+                page.getMessages().forEach(item -> collected.add(item.getMessage()));
+                cursor = page.getNextCursor();
+                pages++;
+            } while (cursor != null);
+
+            assertThat(collected).as("size=" + size).containsExactlyElementsOf(expected);
+            assertThat(pages).isEqualTo((expected.size() + size - 1) / size);
+        }
+    }
+
+    @Test
+    void historyIsScopedToChild() {
+        assertThat(chatHistoryService.getHistory(otherChildId, sessionId, null, null).getMessages())
+                .extracting(ChatHistoryItem::getMessage)
+                .containsExactly("다른 아동");
+    }
+
+    @Test
+    void exportStreamsSameMessagesAsPages() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        chatHistoryService.exportHistory(childId, sessionId, out);
+
+        List<String> exported = new ArrayList<>();
+        for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+            exported.add(objectMapper.readTree(line).get("message").asText());
+        }
+        List<String> paged = chatHistoryService.getHistory(childId, sessionId, null, 200).getMessages().stream()
+                .map(ChatHistoryItem::getMessage)
+                .toList();
+        assertThat(exported).containsExactlyElementsOf(paged).hasSize(9);
+    }
+
+    @Test
+    void unflushedMessagesFollowStoredOnesWithoutDuplicates() throws IOException {
+        // 배치 INSERT를 하나씩만 통과시키는 writer: 대기 목록 복사와 DB 조회 사이의 커밋을 흉내냄
+        Semaphore batches = new Semaphore(0);
+        JdbcTemplate gated = spy(jdbcTemplate);
+        doAnswer(invocation -> {
+            if (Thread.currentThread().getName().equals("chat-write-behind")) batches.acquire();
+            return invocation.callRealMethod();
+        }).when(gated).batchUpdate(any(PreparedStatementCreator.class), any(BatchPreparedStatementSetter.class), any(KeyHolder.class));
+        ChatMessageWriter writer = new ChatMessageWriter(gated, chatMessageRepository, transactionManager);
+        ReflectionTestUtils.setField(writer, "enabled", true);
+        ReflectionTestUtils.setField(writer, "queueCapacity", 100);
+        ReflectionTestUtils.setField(writer, "batchSize", 10);
+        ReflectionTestUtils.setField(writer, "flushIntervalMs", 20L);
+        ReflectionTestUtils.setField(writer, "enqueueTimeoutMs", 1000L);
+        writer.start();
+        try {
+            LocalDateTime recent = jdbcTemplate.queryForObject(
+                    "SELECT MAX(timestamp) FROM ChatMessages WHERE sessionId = ? AND childId = ?", LocalDateTime.class, sessionId, childId);
+            // 첫 조회가 대기 목록을 복사한 직후 커밋되는 배치
+            writer.write(pendingMessage(childId, Speaker.USER, "응", recent.plusSeconds(1)));
+            await().atMost(5, TimeUnit.SECONDS).until(batches::hasQueuedThreads);
+            // 내용과 시각(초)이 같은 다음 발화와 이후 발화는 계속 대기
+            writer.write(pendingMessage(childId, Speaker.USER, "응", recent.plusSeconds(1).plusNanos(300_000_000)));
+            writer.write(pendingMessage(childId, Speaker.AI, "대기", recent.plusSeconds(2)));
+            writer.write(pendingMessage(otherChildId, Speaker.USER, "다른 아동 대기", recent.plusSeconds(1)));
+
+            AtomicBoolean committed = new AtomicBoolean();
+            doAnswer(invocation -> {
+                Predicate<ChatMessage> filter = invocation.getArgument(0);
+                ChatMessageWriter.Pending pending = writer.pending(filter);
+                if (committed.compareAndSet(false, true)) {
+                    batches.release();
+                    await().atMost(5, TimeUnit.SECONDS).until(() -> countStored("응") == 1);
+                }
+                return pending;
+            }).when(chatMessageWriter).pending(any());
+
+            List<String> expected = List.of("옛날 1", "옛날 2", "옛날 3", "옛날 4", "옛날 5",
+                    "최근 1", "최근 2", "최근 3", "최근 4", "응", "응", "대기");
+            assertThat(chatHistoryService.getHistory(childId, sessionId, null, 200).getMessages())
+                    .extracting(ChatHistoryItem::getMessage)
+                    .containsExactlyElementsOf(expected);
+            assertThat(committed).isTrue();
+
+            for (int size = 1; size <= 4; size++) {
+                List<String> collected = new ArrayList<>();
+                String cursor = null;
+                do {
+                    ChatHistoryResponse page = chatHistoryService.getHistory(childId, sessionId, cursor, size);
+                    assertThat(page.getMessages()).hasSizeLessThanOrEqualTo(size);
+                    page.getMessages().forEach(item -> collected.add(item.getMessage()));
+                    cursor = page.getNextCursor();
+                } while (cursor != null);
+                assertThat(collected).as("size=" + size).containsExactlyElementsOf(expected);
+            }
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            chatHistoryService.exportHistory(childId, sessionId, out);
+            List<String> exported = new ArrayList<>();
+            for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+                exported.add(objectMapper.readTree(line).get("message").asText());
+            }
+            assertThat(exported).containsExactlyElementsOf(expected);
+
+            // 저장된 발화가 아직 없는 세션도 대기 중인 발화로 조회됨
+            assertThat(chatHistoryService.getHistory(otherChildId, sessionId, null, null).getMessages())
+                    .extracting(ChatHistoryItem::getMessage)
+                    .containsExactly("다른 아동", "다른 아동 대기");
+        } finally {
+            batches.release(100);
+            writer.shutdown();
+        }
+    }
+
+    @Test
+    void rejectsUnknownSessionAndMalformedCursor() {
+        assertThatThrownBy(() -> chatHistoryService.getHistory(childId, "no-such-session", null, null))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> chatHistoryService.getHistory(childId, sessionId, "not-a-cursor", null))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private ChatMessage pendingMessage(Long childId, Speaker speaker, String message, LocalDateTime at) {
+        return ChatMessage.builder().sessionId(sessionId).childId(childId).speaker(speaker).message(message)
+                .timestamp(at).logDate(at.toLocalDate()).build();
+    }
+
+    private int countStored(String message) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM ChatMessages WHERE sessionId = ? AND childId = ? AND message = ?",
+                Integer.class, sessionId, childId, message);
+    }
+
+    private Long insertChild(String name) {
+        jdbcTemplate.update("INSERT INTO Children (name, birthdate, isWarningState) VALUES (?, DATE '2018-03-01', FALSE)", name);
+        return jdbcTemplate.queryForObject("SELECT MAX(id) FROM Children", Long.class);
+    }
+
+    private void insertMessage(Long childId, String speaker, String message, LocalDateTime at) {
+        jdbcTemplate.update("INSERT INTO ChatMessages (sessionId, childId, speaker, message, timestamp, logDate) VALUES (?, ?, ?, ?, ?, ?)",
+                sessionId, childId, speaker, message, Timestamp.valueOf(at), at.toLocalDate());
+    }
+
+    private static Path createArchiveDir() {
+        try {
+            return Files.createTempDirectory("chat-history-test");
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
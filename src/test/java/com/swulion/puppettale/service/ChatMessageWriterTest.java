@@ -0,0 +1,246 @@
+package com.swulion.puppettale.service;
+
+import com.swulion.puppettale.entity.ChatMessage;
+import com.swulion.puppettale.entity.Speaker;
+import com.swulion.puppettale.repository.ChatMessageRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+
+/**
+ * write-behind 저장이 세션 안의 순서를 지키는지, 대기열이 가득 찼을 때 요청 스레드를 기다리게 하고
+ * 순서를 바꿀 수밖에 없으면 저장을 거부하는지, 종료 시 남은 메시지를 모두 저장하는지,
+ * 배치 중간에 실패해도 재시도로 중복 저장되지 않는지,
+ * 대기 목록 복사 뒤 저장된 메시지를 내용이 아닌 id로 조회 결과와 맞추는지 확인한다.
+ */
+class ChatMessageWriterTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2026, 10, 1, 10, 0);
+    private static final String WRITER_THREAD = "chat-write-behind";
+
+    private JdbcTemplate jdbcTemplate;
+    private ChatMessageWriter writer;
+    private ExecutorService executor;
+
+    // writer 스레드의 INSERT를 막아 DB 지연을 흉내냄
+    private volatile CountDownLatch gate = new CountDownLatch(0);
+    private volatile long writerDelayMs;
+    private final AtomicInteger failBatches = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:chat-writer-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1;MODE=MySQL;NON_KEYWORDS=TIMESTAMP,KEY,VALUE", "sa", "");
+        jdbcTemplate = spy(new JdbcTemplate(dataSource));
+        jdbcTemplate.execute("CREATE TABLE ChatMessages (id BIGINT AUTO_INCREMENT PRIMARY KEY, sessionId VARCHAR(255), " +
+                "childId BIGINT, speaker VARCHAR(10), message TEXT, timestamp TIMESTAMP(6), logDate DATE, keywords VARCHAR(255))");
+
+        doAnswer(invocation -> {
+            if (Thread.currentThread().getName().equals(WRITER_THREAD)) {
+                gate.await(10, TimeUnit.SECONDS);
+                Thread.sleep(writerDelayMs);
+            }
+            Object result = invocation.callRealMethod();
+            if (failBatches.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                // INSERT가 실행된 뒤 실패: 트랜잭션이 없으면 앞부분이 남음
+                throw new IllegalStateException("batch failed after insert");
+            }
+            return result;
+        }).when(jdbcTemplate).batchUpdate(any(PreparedStatementCreator.class), any(BatchPreparedStatementSetter.class), any(KeyHolder.class));
+
+        writer = new ChatMessageWriter(jdbcTemplate, mock(ChatMessageRepository.class), new DataSourceTransactionManager(dataSource));
+        ReflectionTestUtils.setField(writer, "enabled", true);
+        ReflectionTestUtils.setField(writer, "queueCapacity", 4);
+        ReflectionTestUtils.setField(writer, "batchSize", 3);
+        ReflectionTestUtils.setField(writer, "flushIntervalMs", 20L);
+        ReflectionTestUtils.setField(writer, "enqueueTimeoutMs", 200L);
+        executor = Executors.newFixedThreadPool(2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        gate.countDown();
+        writer.shutdown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void messagesOfEachSessionAreStoredInWriteOrder() throws Exception {
+        // 느린 DB: 대기열이 자주 가득 차 직접 저장 경로도 함께 거침
+        ReflectionTestUtils.setField(writer, "enqueueTimeoutMs", 1000L);
+        writerDelayMs = 2;
+        writer.start();
+
+        Future<?> first = executor.submit(() -> writeAll("s1", 150));
+        Future<?> second = executor.submit(() -> writeAll("s2", 150));
+        first.get(30, TimeUnit.SECONDS);
+        second.get(30, TimeUnit.SECONDS);
+        writer.shutdown();
+
+        for (String sessionId : List.of("s1", "s2")) {
+            assertThat(jdbcTemplate.queryForList(
+                    "SELECT message FROM ChatMessages WHERE sessionId = ? ORDER BY id", String.class, sessionId))
+                    .containsExactlyElementsOf(expectedMessages(150));
+        }
+    }
+
+    @Test
+    void fullQueueBlocksThenWritesDirectlyOnlyWhenOrderIsKept() {
+        gate = new CountDownLatch(1);
+        writer.start();
+        // writer가 잡고 있는 배치 1건 + 대기열 4건
+        for (int i = 0; i < 5; i++) {
+            writer.write(message("s1", i));
+            if (i == 0) awaitQueueSize(0);
+        }
+
+        // 앞선 메시지가 없는 세션: 기다린 뒤 요청 스레드에서 직접 저장
+        long start = System.nanoTime();
+        writer.write(message("s2", 0));
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isGreaterThanOrEqualTo(200);
+        assertThat(count("s2")).isEqualTo(1);
+
+        // 앞선 메시지가 밀려 있는 세션: 먼저 저장하면 순서가 바뀌므로 기다리다 거부
+        assertThatThrownBy(() -> writer.write(message("s1", 5))).isInstanceOf(IllegalStateException.class);
+        assertThat(writer.readThrough(m -> "s1".equals(m.getSessionId()), List::of))
+                .extracting(ChatMessage::getMessage)
+                .containsExactlyElementsOf(expectedMessages(5));
+
+        gate.countDown();
+        writer.shutdown();
+        assertThat(jdbcTemplate.queryForList("SELECT message FROM ChatMessages WHERE sessionId = 's1' ORDER BY id", String.class))
+                .containsExactlyElementsOf(expectedMessages(5));
+    }
+
+    @Test
+    void shutdownDrainsPendingMessages() throws Exception {
+        ReflectionTestUtils.setField(writer, "queueCapacity", 100);
+        gate = new CountDownLatch(1);
+        writer.start();
+        writeAll("s1", 20);
+        assertThat(count("s1")).isZero();
+
+        executor.submit(() -> {
+            Thread.sleep(300);
+            gate.countDown();
+            return null;
+        });
+        writer.shutdown();
+
+        assertThat(writer.getQueueSize()).isZero();
+        assertThat(jdbcTemplate.queryForList("SELECT message FROM ChatMessages WHERE sessionId = 's1' ORDER BY id", String.class))
+                .containsExactlyElementsOf(expectedMessages(20));
+        assertThat(writer.readThrough(m -> true, List::of)).isEmpty();
+    }
+
+    @Test
+    void failedBatchIsRetriedWithoutDuplicates() {
+        ReflectionTestUtils.setField(writer, "queueCapacity", 100);
+        gate = new CountDownLatch(1);
+        failBatches.set(1);
+        writer.start();
+        writeAll("s1", 3);
+        gate.countDown();
+        writer.shutdown();
+
+        assertThat(jdbcTemplate.queryForList("SELECT message FROM ChatMessages WHERE sessionId = 's1' ORDER BY id", String.class))
+                .containsExactlyElementsOf(expectedMessages(3));
+    }
+
+    @Test
+    void pendingSnapshotMatchesStoredRowsByIdNotContent() {
+        ReflectionTestUtils.setField(writer, "queueCapacity", 100);
+        gate = new CountDownLatch(1);
+        writer.start();
+        ChatMessage first = reply("s1", "응", T0);
+        ChatMessage second = reply("s1", "응", T0.plusNanos(300_000_000));
+        writer.write(first);
+        writer.write(second);
+
+        // 커밋 전에 복사 -> 그 뒤 둘 다 저장
+        ChatMessageWriter.Pending pending = writer.pending(m -> "s1".equals(m.getSessionId()));
+        assertThat(pending.messages()).containsExactly(first, second);
+        gate.countDown();
+        writer.shutdown();
+
+        List<Long> ids = jdbcTemplate.queryForList("SELECT id FROM ChatMessages WHERE sessionId = 's1' ORDER BY id", Long.class);
+        assertThat(ids).hasSize(2);
+        // 첫 메시지만 조회 결과에 들어 있던 경우: 내용/시각(초)이 같은 두 번째 메시지는 남음
+        pending.removeStored(ids.subList(0, 1));
+        assertThat(pending.messages()).containsExactly(second);
+        pending.removeStored(ids);
+        assertThat(pending.isEmpty()).isTrue();
+    }
+
+    @Test
+    void readThroughKeepsRepeatedReplyThatIsNotStoredYet() {
+        gate = new CountDownLatch(1);
+        writer.start();
+        ChatMessage stored = reply("s1", "응", T0);
+        stored.setId(1L);
+        ChatMessage repeated = reply("s1", "응", T0.plusNanos(300_000_000));
+        writer.write(repeated);
+
+        assertThat(writer.readThrough(m -> "s1".equals(m.getSessionId()), () -> List.of(stored)))
+                .containsExactly(stored, repeated);
+    }
+
+    private void writeAll(String sessionId, int count) {
+        for (int i = 0; i < count; i++) {
+            writer.write(message(sessionId, i));
+        }
+    }
+
+    private void awaitQueueSize(int size) {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (writer.getQueueSize() != size && System.currentTimeMillis() < deadline) {
+            Thread.onSpinWait();
+        }
+    }
+
+    private int count(String sessionId) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM ChatMessages WHERE sessionId = ?", Integer.class, sessionId);
+    }
+
+    private static List<String> expectedMessages(int count) {
+        List<String> messages = new ArrayList<>();
+        for (int i = 0; i < count; i++) messages.add("발화 " + i);
+        return messages;
+    }
+
+    private static ChatMessage reply(String sessionId, String text, LocalDateTime at) {
+        return ChatMessage.builder().sessionId(sessionId).childId(1L).speaker(Speaker.USER)
+                .message(text).timestamp(at).logDate(at.toLocalDate()).build();
+    }
+
+    private static ChatMessage message(String sessionId, int i) {
+        LocalDateTime at = T0.plusSeconds(i);
+        return ChatMessage.builder().sessionId(sessionId).childId(1L).speaker(i % 2 == 0 ? Speaker.USER : Speaker.AI)
+                .message("발화 " + i).timestamp(at).logDate(at.toLocalDate()).build();
+    }
+}
@@ -0,0 +1,69 @@
+package com.swulion.puppettale.service;
+
+import com.swulion.puppettale.dto.ChatResponseDto;
+import com.swulion.puppettale.dto.ChatStartRequestDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * 안전 어휘에 확실히 걸리는 메시지는 Gemini를 호출하지 않고 기존 RED_FLAG/HARMFUL 응답 경로를 타는지 확인한다.
+ */
+@ActiveProfiles("test")
+@SpringBootTest
+class ChatSafetyPreFilterTest {
+
+    @Autowired
+    private ChatService chatService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockitoBean
+    private GeminiClient geminiClient;
+
+    private Long childId;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("INSERT INTO Children (name, birthdate, isWarningState) VALUES ('하늘', DATE '2018-03-01', FALSE)");
+        childId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM Children", Long.class);
+        jdbcTemplate.update("INSERT INTO Puppets (child_id, name, mode) VALUES (?, '토리', 'AFFECTIONATE')", childId);
+    }
+
+    @Test
+    void redFlagAndHarmfulSkipGemini() {
+        // 1차: 경고 응답 + 경고 상태 기록
+        ChatResponseDto first = chatService.processChat(request("prefilter", "죽 고 싶 어"));
+        assertThat(first.getAiResponse()).contains("마음을 조금 무섭게");
+        assertThat(jdbcTemplate.queryForObject("SELECT isWarningState FROM Children WHERE id = ?", Boolean.class, childId)).isTrue();
+
+        // 2차: 즉각 대응 응답
+        ChatResponseDto second = chatService.processChat(request("prefilter", "사라지고 싶어"));
+        assertThat(second.getAiResponse()).contains("보호자나 선생님이 같이 도와줘야");
+
+        ChatResponseDto harmful = chatService.processChat(request("prefilter", "ㅅㅂ 주사 싫어"));
+        assertThat(harmful.getAiResponse()).contains("다른 사람의 마음을 아프게 하는 말");
+
+        verify(geminiClient, never()).generateText(any(), anyString(), any(), any());
+        verify(geminiClient, never()).generateText(any(), anyString(), any(), any(), any());
+    }
+
+    private ChatStartRequestDto request(String sessionId, String message) {
+        ChatStartRequestDto request = new ChatStartRequestDto();
+        request.setSessionId(sessionId);
+        request.setChildId(childId);
+        request.setUserMessage(message);
+        return request;
+    }
+}
@@ -0,0 +1,109 @@
+package com.swulion.puppettale.service;
+
+import com.swulion.puppettale.dto.ChatResponseDto;
+import com.swulion.puppettale.dto.ChatStartRequestDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+/**
+ * 같은 세션의 중복 채팅 요청이 진행 중인 턴에 합류해 Gemini를 한 번만 호출하는지,
+ * 턴이 끝나면 진행 중 항목이 지워지는지 확인한다.
+ */
+@ActiveProfiles("test")
+@SpringBootTest
+class ChatSingleFlightTest {
+
+    private static final int DUPLICATES = 5;
+
+    // Gemini 응답의 candidates[0].content.parts[0].text
+    private static final String GEMINI_TEXT = """
+            {"thought_process":{"safety_status":"GREEN"},"response":"안녕!"}""";
+
+    @Autowired
+    private ChatService chatService;
+
+    @Autowired
+    private ChatTurnSingleFlight chatTurnSingleFlight;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockitoBean
+    private GeminiClient geminiClient;
+
+    private Long childId;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("INSERT INTO Children (name, birthdate, isWarningState) VALUES ('하늘', DATE '2018-03-01', FALSE)");
+        childId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM Children", Long.class);
+        jdbcTemplate.update("INSERT INTO Puppets (child_id, name, mode) VALUES (?, '토리', 'AFFECTIONATE')", childId);
+    }
+
+    @Test
+    void duplicateSubmissionsShareOneGeminiCall() throws Exception {
+        AtomicInteger geminiCalls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        when(geminiClient.generateText(eq(GeminiClient.CallType.CHAT), anyString(), any(), any())).thenAnswer(invocation -> {
+            geminiCalls.incrementAndGet();
+            release.await(5, TimeUnit.SECONDS); // 느린 Gemini 응답
+            return GEMINI_TEXT;
+        });
+
+        ExecutorService clients = Executors.newFixedThreadPool(DUPLICATES + 1);
+        List<Future<ChatResponseDto>> duplicates = new ArrayList<>();
+        duplicates.add(clients.submit(() -> chatService.processChat(request("single-flight", "안녕 토리야"))));
+        await().atMost(5, TimeUnit.SECONDS).until(() -> geminiCalls.get() == 1);
+
+        // 진행 중에 같은 메시지 재전송은 합류, 다른 메시지는 안내 문구
+        for (int i = 1; i < DUPLICATES; i++) {
+            duplicates.add(clients.submit(() -> chatService.processChat(request("single-flight", "안녕 토리야"))));
+        }
+        ChatResponseDto other = clients.submit(() -> chatService.processChat(request("single-flight", "다른 말"))).get();
+        await().atMost(5, TimeUnit.SECONDS).until(() -> chatTurnSingleFlight.getStats().getCoalesced() == DUPLICATES - 1);
+        release.countDown();
+
+        for (Future<ChatResponseDto> duplicate : duplicates) {
+            assertThat(duplicate.get(5, TimeUnit.SECONDS).getAiResponse()).isEqualTo("안녕!");
+        }
+        clients.shutdown();
+
+        assertThat(other.getAiResponse()).isEqualTo("생각 중이야! 잠시만 기다려줘.");
+        assertThat(geminiCalls.get()).isEqualTo(1);
+        assertThat(chatTurnSingleFlight.getStats().getInFlight()).isZero();
+
+        // 끝난 턴은 남지 않으므로 같은 메시지를 다시 보내면 새 턴
+        chatService.processChat(request("single-flight", "안녕 토리야"));
+        assertThat(geminiCalls.get()).isEqualTo(2);
+        assertThat(chatTurnSingleFlight.getStats().getInFlight()).isZero();
+    }
+
+    private ChatStartRequestDto request(String sessionId, String message) {
+        ChatStartRequestDto request = new ChatStartRequestDto();
+        request.setSessionId(sessionId);
+        request.setChildId(childId);
+        request.setUserMessage(message);
+        return request;
+    }
+}
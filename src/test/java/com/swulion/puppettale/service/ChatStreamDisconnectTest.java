@@ -0,0 +1,94 @@
+package com.swulion.puppettale.service;
+
+import com.swulion.puppettale.dto.ChatStartRequestDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.web.client.ResponseExtractor;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 스트리밍 도중 클라이언트가 연결을 끊어도 Gemini 스트림을 끝까지 읽어
+ * 오류 문구가 아닌 모델의 실제 응답이 AI 발화로 저장되는지 확인한다.
+ */
+@ActiveProfiles("test")
+@SpringBootTest
+class ChatStreamDisconnectTest {
+
+    // streamGenerateContent?alt=sse 응답: response 텍스트가 여러 조각에 나뉘어 옴
+    private static final List<String> TEXT_CHUNKS = List.of(
+            "{\"thought_process\":{\"safety_status\":\"GREEN\"},\"resp",
+            "onse\":\"안녕! 오늘",
+            " 기분은 어때?\"}");
+
+    @Autowired
+    private ChatService chatService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockitoBean
+    private GeminiClient geminiClient;
+
+    private Long childId;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("INSERT INTO Children (name, birthdate, isWarningState) VALUES ('하늘', DATE '2018-03-01', FALSE)");
+        childId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM Children", Long.class);
+        jdbcTemplate.update("INSERT INTO Puppets (child_id, name, mode) VALUES (?, '토리', 'AFFECTIONATE')", childId);
+    }
+
+    @Test
+    void disconnectedClientStillGetsRealReplyPersisted() throws Exception {
+        CountDownLatch disconnected = new CountDownLatch(1);
+        when(geminiClient.streamGenerateContent(anyString(), any(), any(), any())).thenAnswer(invocation -> {
+            disconnected.await(5, TimeUnit.SECONDS);
+            ResponseExtractor<?> extractor = invocation.getArgument(3);
+            return extractor.extractData(sseResponse());
+        });
+
+        ChatStartRequestDto request = new ChatStartRequestDto();
+        request.setSessionId("stream-disconnect");
+        request.setChildId(childId);
+        request.setUserMessage("안녕 토리야");
+        SseEmitter emitter = chatService.processChatStream(request);
+
+        // 첫 조각이 오기 전에 클라이언트가 떠남: 이후 send는 모두 실패
+        emitter.complete();
+        disconnected.countDown();
+
+        await().atMost(5, TimeUnit.SECONDS).untilAsserted(() -> assertThat(jdbcTemplate.queryForList(
+                "SELECT message FROM ChatMessages WHERE sessionId = 'stream-disconnect' AND speaker = 'AI'", String.class))
+                .containsExactly("안녕! 오늘 기분은 어때?"));
+    }
+
+    private static ClientHttpResponse sseResponse() throws Exception {
+        StringBuilder body = new StringBuilder();
+        for (String text : TEXT_CHUNKS) {
+            String escaped = text.replace("\\", "\\\\").replace("\"", "\\\"");
+            body.append("data: {\"candidates\":[{\"content\":{\"parts\":[{\"text\":\"").append(escaped).append("\"}]}}]}\n\n");
+        }
+        ClientHttpResponse response = mock(ClientHttpResponse.class);
+        when(response.getBody()).thenReturn(new ByteArrayInputStream(body.toString().getBytes(UTF_8)));
+        return response;
+    }
+}
@@ -0,0 +1,65 @@
+package com.swulion.puppettale.service;
+
+import com.swulion.puppettale.dto.ChatStartRequestDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.util.concurrent.Executor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+
+/**
+ * 스트리밍 작업 스레드가 모두 사용 중이면 요청이 500으로 끝나지 않고
+ * 안내 문구로 턴이 마무리되어 같은 세션의 다음 요청을 막지 않는지 확인한다.
+ */
+@ActiveProfiles("test")
+@SpringBootTest
+class ChatStreamSaturationTest {
+
+    @Autowired
+    private ChatService chatService;
+
+    @Autowired
+    private ChatTurnSingleFlight chatTurnSingleFlight;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockitoBean
+    private GeminiClient geminiClient;
+
+    @MockitoBean(name = "chatStreamExecutor")
+    private Executor chatStreamExecutor;
+
+    private Long childId;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("INSERT INTO Children (name, birthdate, isWarningState) VALUES ('하늘', DATE '2018-03-01', FALSE)");
+        childId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM Children", Long.class);
+        jdbcTemplate.update("INSERT INTO Puppets (child_id, name, mode) VALUES (?, '토리', 'AFFECTIONATE')", childId);
+    }
+
+    @Test
+    void rejectedStreamEndsTurnWithBusyMessage() {
+        doThrow(new TaskRejectedException("포화")).when(chatStreamExecutor).execute(any());
+
+        ChatStartRequestDto request = new ChatStartRequestDto();
+        request.setSessionId("stream-saturation");
+        request.setChildId(childId);
+        request.setUserMessage("안녕 토리야");
+
+        assertThatCode(() -> chatService.processChatStream(request)).doesNotThrowAnyException();
+        // 거절된 턴이 끝났으므로 다음 요청은 새 턴을 시작함
+        assertThat(chatTurnSingleFlight.join("stream-saturation", "다시 안녕").leader()).isTrue();
+    }
+}
@@ -0,0 +1,147 @@
+package com.swulion.puppettale.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+/**
+ * 플랫폼 스레드(Tomcat 스레드 50개) vs 가상 스레드 모드에서 한 노드가 동시에 진행할 수 있는 채팅 수 비교.
+ * 같은 수의 채팅 요청을 한꺼번에 보내고, Gemini 호출(지연 500ms) 시점에 동시에 진행 중인 요청 수를 측정한다.
+ */
+class ChatThreadModeBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ChatThreadModeBenchmarkTest.class);
+
+    private static final int TOMCAT_MAX_THREADS = 50;
+    private static final int CONCURRENT_CHATS = 200;
+    private static final long GEMINI_LATENCY_MS = 500;
+
+    // Gemini 응답의 candidates[0].content.parts[0].text
+    private static final String GEMINI_TEXT = """
+            {"thought_process":{"safety_status":"GREEN"},"response":"안녕!"}""";
+
+    private static final String COMMON_PROPERTIES = """
+            logging.level.com.swulion.puppettale=warn
+            server.tomcat.threads.max=50
+            """;
+
+    @ActiveProfiles("test")
+    @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+            properties = {COMMON_PROPERTIES, "spring.threads.virtual.enabled=false"})
+    static class PlatformThreads extends Benchmark {
+
+        @Test
+        void inFlightChatsAreCappedByTomcatThreads() throws Exception {
+            Result result = run("platform");
+            assertThat(result.maxInFlight).isLessThanOrEqualTo(TOMCAT_MAX_THREADS);
+        }
+    }
+
+    @ActiveProfiles("test")
+    @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+            properties = {COMMON_PROPERTIES, "spring.threads.virtual.enabled=true"})
+    static class VirtualThreads extends Benchmark {
+
+        @Test
+        void inFlightChatsAreNotCappedByTomcatThreads() throws Exception {
+            Result result = run("virtual");
+            assertThat(result.maxInFlight).isGreaterThan(TOMCAT_MAX_THREADS);
+        }
+    }
+
+    // @Tag는 상속되므로 두 모드 모두 기본 test 태스크에서 빠짐
+    @Tag("benchmark")
+    abstract static class Benchmark {
+
+        @LocalServerPort
+        private int port;
+
+        @Autowired
+        private JdbcTemplate jdbcTemplate;
+
+        @MockitoBean
+        private GeminiClient geminiClient;
+
+        private Long childId;
+
+        @BeforeEach
+        void setUp() {
+            jdbcTemplate.update("INSERT INTO Children (name, birthdate, isWarningState) VALUES ('하늘', DATE '2018-03-01', FALSE)");
+            childId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM Children", Long.class);
+            jdbcTemplate.update("INSERT INTO Puppets (child_id, name, mode) VALUES (?, '토리', 'AFFECTIONATE')", childId);
+        }
+
+        Result run(String mode) throws Exception {
+            AtomicInteger inFlight = new AtomicInteger();
+            AtomicInteger maxInFlight = new AtomicInteger();
+            when(geminiClient.generateText(eq(GeminiClient.CallType.CHAT), anyString(), any(), any())).thenAnswer(invocation -> {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(GEMINI_LATENCY_MS);
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+                return GEMINI_TEXT;
+            });
+
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .executor(Executors.newVirtualThreadPerTaskExecutor())
+                    .build();
+
+            // 첫 요청의 초기화 비용(JIT, 커넥션 생성 등)이 측정에 섞이지 않도록 한 번 미리 호출
+            sendAll(client, mode + "-warmup", 1);
+            maxInFlight.set(0);
+
+            long startedAt = System.nanoTime();
+            sendAll(client, mode, CONCURRENT_CHATS);
+            long elapsedMs = (System.nanoTime() - startedAt) / 1_000_000;
+
+            log.info("[{}] 채팅 {}건: {}ms, 처리량 {}건/s, 동시 진행 채팅 최대 {}",
+                    mode, CONCURRENT_CHATS, elapsedMs, String.format("%.1f", CONCURRENT_CHATS * 1000.0 / elapsedMs), maxInFlight.get());
+            return new Result(maxInFlight.get(), elapsedMs);
+        }
+
+        private void sendAll(HttpClient client, String sessionPrefix, int count) throws Exception {
+            List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                String body = "{\"sessionId\":\"" + sessionPrefix + "-" + i + "\",\"childId\":" + childId + ",\"userMessage\":\"안녕\"}";
+                HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/chat/process"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(body))
+                        .build();
+                responses.add(client.sendAsync(request, HttpResponse.BodyHandlers.ofString()));
+            }
+            for (CompletableFuture<HttpResponse<String>> response : responses) {
+                assertThat(response.get().statusCode()).isEqualTo(200);
+            }
+        }
+    }
+
+    record Result(int maxInFlight, long elapsedMs) {
+    }
+}
@@ -0,0 +1,161 @@
+package com.swulion.puppettale.service;
+
+import com.swulion.puppettale.entity.ChatMessage;
+import com.swulion.puppettale.entity.Speaker;
+import com.swulion.puppettale.repository.ChatMessageRepository;
+import com.swulion.puppettale.repository.ChatSummaryRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ChatTranscriptCacheTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2026, 10, 1, 10, 0);
+
+    private ChatMessageRepository chatMessageRepository;
+    private ChatTranscriptCache cache;
+    private ExecutorService executor;
+
+    // DB에 저장된 발화 (세션 ID별)
+    private final List<ChatMessage> stored = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        chatMessageRepository = mock(ChatMessageRepository.class);
+        ChatSummaryRepository chatSummaryRepository = mock(ChatSummaryRepository.class);
+        ChatMessageWriter chatMessageWriter = mock(ChatMessageWriter.class);
+        when(chatSummaryRepository.findBySessionIdAndChildId(anyString(), anyLong())).thenReturn(Optional.empty());
+        when(chatMessageWriter.readThrough(any(), any())).thenAnswer(invocation -> {
+            Supplier<List<ChatMessage>> loader = invocation.getArgument(1);
+            return loader.get();
+        });
+        when(chatMessageRepository.findBySessionIdAndChildIdOrderByTimestampAsc(anyString(), anyLong()))
+                .thenAnswer(invocation -> stored.stream()
+                        .filter(m -> m.getSessionId().equals(invocation.getArgument(0)))
+                        .toList());
+
+        cache = new ChatTranscriptCache(chatMessageRepository, chatSummaryRepository, chatMessageWriter);
+        ReflectionTestUtils.setField(cache, "maxSessions", 2);
+        ReflectionTestUtils.setField(cache, "maxBytes", Long.MAX_VALUE);
+        ReflectionTestUtils.setField(cache, "turnsPerSession", 4);
+        executor = Executors.newSingleThreadExecutor();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void missLoadsOnceThenHitsAndAppendsWriteThrough() {
+        store("s1", Speaker.USER, "안녕", T0);
+
+        assertThat(messages(cache.getRecentTurns(1L, "s1"))).containsExactly("안녕");
+        cache.append(1L, "s1", Speaker.AI, "반가워", T0.plusSeconds(1));
+        assertThat(messages(cache.getRecentTurns(1L, "s1"))).containsExactly("안녕", "반가워");
+
+        assertThat(cache.getStats().getMisses()).isEqualTo(1);
+        assertThat(cache.getStats().getHits()).isEqualTo(1);
+        verify(chatMessageRepository, times(1)).findBySessionIdAndChildIdOrderByTimestampAsc("s1", 1L);
+    }
+
+    @Test
+    void appendDuringMissLoadIsKept() throws Exception {
+        store("s1", Speaker.USER, "안녕", T0);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(chatMessageRepository.findBySessionIdAndChildIdOrderByTimestampAsc("s1", 1L)).thenAnswer(invocation -> {
+            List<ChatMessage> snapshot = List.copyOf(stored);
+            loading.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return snapshot;
+        });
+
+        Future<List<ChatTranscriptCache.Turn>> miss = executor.submit(() -> cache.getRecentTurns(1L, "s1"));
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+        // DB 조회가 끝나기 전에 저장된 발화: 읽은 결과에는 없음
+        cache.append(1L, "s1", Speaker.AI, "반가워", T0.plusSeconds(1));
+        release.countDown();
+
+        assertThat(messages(miss.get(5, TimeUnit.SECONDS))).containsExactly("안녕", "반가워");
+        assertThat(messages(cache.getRecentTurns(1L, "s1"))).containsExactly("안녕", "반가워");
+    }
+
+    @Test
+    void appendAlreadyInLoadedHistoryIsNotDuplicated() throws Exception {
+        store("s1", Speaker.USER, "안녕", T0);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(chatMessageRepository.findBySessionIdAndChildIdOrderByTimestampAsc("s1", 1L)).thenAnswer(invocation -> {
+            loading.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return List.copyOf(stored);
+        });
+
+        Future<List<ChatTranscriptCache.Turn>> miss = executor.submit(() -> cache.getRecentTurns(1L, "s1"));
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+        // 조회 결과에도 포함되는 발화 (조회 직전에 저장됨)
+        store("s1", Speaker.AI, "반가워", T0.plusSeconds(1));
+        cache.append(1L, "s1", Speaker.AI, "반가워", T0.plusSeconds(1));
+        release.countDown();
+
+        assertThat(messages(miss.get(5, TimeUnit.SECONDS))).containsExactly("안녕", "반가워");
+    }
+
+    @Test
+    void leastRecentlyUsedSessionIsEvicted() {
+        cache.getRecentTurns(1L, "s1");
+        cache.getRecentTurns(1L, "s2");
+        cache.getRecentTurns(1L, "s1"); // s1 사용 -> s2가 가장 오래 사용되지 않음
+        cache.getRecentTurns(1L, "s3");
+
+        assertThat(cache.getStats().getSessions()).isEqualTo(2);
+        assertThat(cache.getStats().getEvictions()).isEqualTo(1);
+
+        long misses = cache.getStats().getMisses();
+        cache.getRecentTurns(1L, "s1");
+        assertThat(cache.getStats().getMisses()).isEqualTo(misses);
+        cache.getRecentTurns(1L, "s2");
+        assertThat(cache.getStats().getMisses()).isEqualTo(misses + 1);
+    }
+
+    @Test
+    void turnsBeyondCapAreCountedWhenNotSummarized() {
+        cache.getRecentTurns(1L, "s1");
+        for (int i = 0; i < 6; i++) {
+            cache.append(1L, "s1", Speaker.USER, "발화 " + i, T0.plusSeconds(i));
+        }
+
+        assertThat(messages(cache.getRecentTurns(1L, "s1"))).containsExactly("발화 2", "발화 3", "발화 4", "발화 5");
+        assertThat(cache.getStats().getTruncatedTurns()).isEqualTo(2);
+    }
+
+    private void store(String sessionId, Speaker speaker, String message, LocalDateTime at) {
+        stored.add(ChatMessage.builder().sessionId(sessionId).childId(1L).speaker(speaker).message(message).timestamp(at).build());
+    }
+
+    private static List<String> messages(List<ChatTranscriptCache.Turn> turns) {
+        return turns.stream().map(ChatTranscriptCache.Turn::getMessage).toList();
+    }
+}
@@ -0,0 +1,113 @@
+package com.swulion.puppettale.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.swulion.puppettale.constant.PuppetMode;
+import com.swulion.puppettale.dto.ChatStartRequestDto;
+import com.swulion.puppettale.dto.UpdatePuppetModeRequest;
+import com.swulion.puppettale.entity.Child;
+import com.swulion.puppettale.entity.Puppet;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+/**
+ * 캐시가 채워진 뒤의 채팅 턴이 아동/퍼펫 조회 없이 처리되는지,
+ * 퍼펫 설정 변경과 경고 상태 기록/초기화가 캐시에 바로 반영되는지 확인한다.
+ */
+@ActiveProfiles("test")
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=warn"
+})
+class ChildProfileCacheTest {
+
+    // Gemini 응답의 candidates[0].content.parts[0].text
+    private static final String GEMINI_TEXT = """
+            {"thought_process":{"safety_status":"GREEN"},"response":"안녕!"}""";
+
+    @Autowired
+    private ChatService chatService;
+
+    @Autowired
+    private ChildProfileService childProfileService;
+
+    @Autowired
+    private PuppetService puppetService;
+
+    @Autowired
+    private SchedulerService schedulerService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockitoBean
+    private GeminiClient geminiClient;
+
+    private Long childId;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("INSERT INTO Children (name, birthdate, isWarningState) VALUES ('하늘', DATE '2018-03-01', FALSE)");
+        childId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM Children", Long.class);
+        jdbcTemplate.update("INSERT INTO Puppets (child_id, name, mode) VALUES (?, '토리', 'AFFECTIONATE')", childId);
+    }
+
+    @Test
+    void warmChatTurnNeedsNoProfileQuery() {
+        when(geminiClient.generateText(eq(GeminiClient.CallType.CHAT), anyString(), any(), any())).thenReturn(GEMINI_TEXT);
+        chatService.processChat(request("profile-cache", "안녕 토리야"));
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        long hitsBefore = childProfileService.getStats().getHits();
+
+        chatService.processChat(request("profile-cache", "오늘 뭐 할까?"));
+
+        assertThat(statistics.getEntityStatistics(Child.class.getName()).getLoadCount()).isZero();
+        assertThat(statistics.getEntityStatistics(Puppet.class.getName()).getLoadCount()).isZero();
+        assertThat(childProfileService.getStats().getHits()).isGreaterThan(hitsBefore);
+    }
+
+    @Test
+    void puppetAndWarningWritesInvalidateSnapshot() throws Exception {
+        assertThat(childProfileService.getProfile(childId).getPuppetMode()).isEqualTo(PuppetMode.AFFECTIONATE);
+
+        puppetService.updatePuppetMode(childId,
+                objectMapper.readValue("{\"puppetMode\":\"ENERGETIC\"}", UpdatePuppetModeRequest.class));
+        assertThat(childProfileService.getProfile(childId).getPuppetMode()).isEqualTo(PuppetMode.ENERGETIC);
+
+        assertThat(childProfileService.getProfile(childId).isWarningState()).isFalse();
+        childProfileService.markWarningState(childId);
+        assertThat(childProfileService.getProfile(childId).isWarningState()).isTrue();
+
+        schedulerService.resetWarningStates();
+        assertThat(childProfileService.getProfile(childId).isWarningState()).isFalse();
+    }
+
+    private ChatStartRequestDto request(String sessionId, String message) {
+        ChatStartRequestDto request = new ChatStartRequestDto();
+        request.setSessionId(sessionId);
+        request.setChildId(childId);
+        request.setUserMessage(message);
+        return request;
+    }
+}
@@ -0,0 +1,134 @@
+package com.swulion.puppettale.service;
+
+import com.swulion.puppettale.entity.ChatSummary;
+import com.swulion.puppettale.entity.Speaker;
+import com.swulion.puppettale.repository.ChatSummaryRepository;
+import com.swulion.puppettale.util.TokenEstimator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 긴 세션을 턴마다 진행하며, 요약이 늦거나 실패해도 프롬프트의 대화 기록이 상한을 넘지 않는지,
+ * 요약이 저장되기 전까지 요약 대상 발화가 프롬프트에서 빠지지 않는지 확인한다.
+ */
+class ContextWindowManagerTest {
+
+    private static final String SYSTEM_INSTRUCTION = "시스템 명령";
+    private static final int BUDGET = 600;
+    private static final int MAX_HISTORY = 1200;
+    private static final LocalDateTime T0 = LocalDateTime.of(2026, 10, 1, 10, 0);
+
+    private GeminiClient geminiClient;
+    private ContextWindowManager manager;
+
+    // 세션 상태: 캐시/DB에 저장된 발화와 누적 요약
+    private final List<ChatTranscriptCache.Turn> turns = new ArrayList<>();
+    private ChatSummary stored;
+    // 요약 작업 스레드 대신 쌓아 두었다가 테스트에서 실행
+    private final List<Runnable> summaryTasks = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        ChatTranscriptCache cache = mock(ChatTranscriptCache.class);
+        ChatSummaryRepository chatSummaryRepository = mock(ChatSummaryRepository.class);
+        geminiClient = mock(GeminiClient.class);
+
+        when(cache.getTurnsPerSession()).thenReturn(200);
+        when(cache.getSnapshot(anyLong(), anyString())).thenAnswer(invocation -> new ChatTranscriptCache.Snapshot(
+                stored != null ? stored.getSummary() : null,
+                stored != null ? stored.getSummarizedUntil() : null,
+                List.copyOf(turns)));
+        when(chatSummaryRepository.findBySessionIdAndChildId(anyString(), anyLong()))
+                .thenAnswer(invocation -> Optional.ofNullable(stored));
+        when(chatSummaryRepository.save(any(ChatSummary.class))).thenAnswer(invocation -> {
+            stored = invocation.getArgument(0);
+            return stored;
+        });
+
+        manager = new ContextWindowManager(cache, chatSummaryRepository, geminiClient, summaryTasks::add,
+                mock(SystemPromptService.class));
+        ReflectionTestUtils.setField(manager, "historyTokenBudget", BUDGET);
+        ReflectionTestUtils.setField(manager, "keepRecentTurns", 6);
+        ReflectionTestUtils.setField(manager, "maxHistoryTokens", MAX_HISTORY);
+    }
+
+    @Test
+    void slowSummariesNeverDropTurnsAndStayUnderLimit() {
+        AtomicInteger summaries = new AtomicInteger();
+        when(geminiClient.generateText(eq(GeminiClient.CallType.SUMMARY), anyString(), any(), any()))
+                .thenAnswer(invocation -> "요약 " + summaries.incrementAndGet());
+
+        for (int i = 0; i < 400; i++) {
+            addTurn(i);
+            ContextWindowManager.ContextWindow window = manager.build(1L, "long-session", SYSTEM_INSTRUCTION, "하늘", "토리");
+
+            // 요약에 포함되지 않은 발화는 모두 원문으로 전송
+            List<ChatTranscriptCache.Turn> unsummarized = turns.stream()
+                    .filter(turn -> stored == null || turn.getTimestamp().isAfter(stored.getSummarizedUntil()))
+                    .toList();
+            assertThat(window.getTurns()).as("turn " + i).containsExactlyElementsOf(unsummarized);
+            assertUnderLimit(window, i);
+
+            // 요약 작업은 20턴마다 한꺼번에 실행 (느린 요약)
+            if (i % 20 == 19) runSummaryTasks();
+        }
+
+        assertThat(manager.getStats().getSummarizations()).isPositive();
+        assertThat(manager.getStats().getInlineSummarizations()).isPositive();
+        assertThat(manager.getStats().getMaxPromptTokens())
+                .isLessThanOrEqualTo(TokenEstimator.estimate(SYSTEM_INSTRUCTION) + TokenEstimator.estimate("요약 999") + MAX_HISTORY);
+    }
+
+    @Test
+    void failingSummariesStillStayUnderLimit() {
+        when(geminiClient.generateText(eq(GeminiClient.CallType.SUMMARY), anyString(), any(), any())).thenReturn(null);
+
+        for (int i = 0; i < 200; i++) {
+            addTurn(i);
+            ContextWindowManager.ContextWindow window = manager.build(1L, "failing-session", SYSTEM_INSTRUCTION, "하늘", "토리");
+
+            assertUnderLimit(window, i);
+            // 가장 최근 발화들은 항상 포함
+            assertThat(window.getTurns().get(window.getTurns().size() - 1)).isSameAs(turns.get(turns.size() - 1));
+            runSummaryTasks();
+        }
+
+        assertThat(stored).isNull();
+        assertThat(manager.getStats().getTrimmedTurns()).isPositive();
+    }
+
+    private void assertUnderLimit(ContextWindowManager.ContextWindow window, int turn) {
+        int historyTokens = window.getTurns().stream().mapToInt(t -> TokenEstimator.estimate(t.getMessage())).sum();
+        assertThat(historyTokens).as("turn " + turn).isLessThanOrEqualTo(MAX_HISTORY);
+        assertThat(window.getEstimatedPromptTokens()).isEqualTo(TokenEstimator.estimate(SYSTEM_INSTRUCTION)
+                + TokenEstimator.estimate(window.getSummary()) + historyTokens);
+    }
+
+    // 한글 40자 = 추정 40토큰
+    private void addTurn(int i) {
+        Speaker speaker = (i % 2 == 0) ? Speaker.USER : Speaker.AI;
+        turns.add(new ChatTranscriptCache.Turn(speaker, "가".repeat(40), T0.plusSeconds(i)));
+    }
+
+    private void runSummaryTasks() {
+        List<Runnable> tasks = List.copyOf(summaryTasks);
+        summaryTasks.clear();
+        tasks.forEach(Runnable::run);
+    }
+}
@@ -0,0 +1,107 @@
+package com.swulion.puppettale.service;
+
+import com.swulion.puppettale.dto.ChatStartRequestDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * 여러 서버가 공유하는 DB 세션 상태 저장소: 사운드/활동 시각이 테이블로 오가고,
+ * 다른 서버가 잡은 진행 중 표시가 있으면 이 서버에서 같은 세션의 턴을 시작하지 않는지 확인한다.
+ */
+@ActiveProfiles("test")
+@SpringBootTest(properties = {
+        "session-state.store=database"
+})
+class DatabaseSessionStateStoreTest {
+
+    @Autowired
+    private SessionStateStore sessionStateStore;
+
+    @Autowired
+    private ChatService chatService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockitoBean
+    private GeminiClient geminiClient;
+
+    @Test
+    void stateIsSharedThroughTable() {
+        assertThat(sessionStateStore).isInstanceOf(DatabaseSessionStateStore.class);
+        assertThat(sessionStateStore.getSoundId("db-session")).isEmpty();
+
+        sessionStateStore.putSoundId("db-session", "rain");
+        sessionStateStore.putSoundId("db-session", "forest");
+        assertThat(sessionStateStore.getSoundId("db-session")).contains("forest");
+        assertThat(sessionStateStore.getLastActivity("db-session")).isPresent();
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT soundId FROM SessionStates WHERE sessionId = 'db-session'", String.class)).isEqualTo("forest");
+
+        // 다른 서버가 같은 행을 바꾸면 바로 보임 (서버 내 캐시 없음)
+        jdbcTemplate.update("UPDATE SessionStates SET soundId = 'sea' WHERE sessionId = 'db-session'");
+        assertThat(sessionStateStore.getSoundId("db-session")).contains("sea");
+
+        SessionStateStore.Stats stats = sessionStateStore.getStats();
+        assertThat(stats.getBackend()).isEqualTo("database");
+        assertThat(stats.getHits()).isEqualTo(2);
+        assertThat(stats.getMisses()).isEqualTo(1);
+        assertThat(stats.getSize()).isGreaterThanOrEqualTo(1);
+    }
+
+    @Test
+    void turnInFlightOnAnotherNodeIsRejected() {
+        jdbcTemplate.update("INSERT INTO Children (name, birthdate, isWarningState) VALUES ('하늘', DATE '2018-03-01', FALSE)");
+        Long childId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM Children", Long.class);
+        jdbcTemplate.update("INSERT INTO Puppets (child_id, name, mode) VALUES (?, '토리', 'AFFECTIONATE')", childId);
+
+        // 다른 서버가 턴을 진행 중
+        assertThat(sessionStateStore.tryMarkInFlight("busy-session", "other-node:1", Duration.ofMinutes(2))).isTrue();
+
+        ChatStartRequestDto request = new ChatStartRequestDto();
+        request.setSessionId("busy-session");
+        request.setChildId(childId);
+        request.setUserMessage("안녕");
+
+        assertThat(chatService.processChat(request).getAiResponse()).isEqualTo("생각 중이야! 잠시만 기다려줘.");
+        verify(geminiClient, never()).generateText(any(), any(), any(), any());
+
+        // 다른 서버가 턴을 끝내면 이 서버에서 표시를 잡을 수 있음
+        sessionStateStore.clearInFlight("busy-session", "other-node:1");
+        assertThat(sessionStateStore.tryMarkInFlight("busy-session", "this-node:1", Duration.ofMinutes(2))).isTrue();
+    }
+
+    @Test
+    void onlyDuplicateKeyMeansRowAlreadyExists() {
+        // 다른 서버가 먼저 만든 행: 실패가 아니라 "이미 있음"
+        LocalDateTime now = LocalDateTime.now();
+        assertThat((Boolean) ReflectionTestUtils.invokeMethod(sessionStateStore, "insert", "dup-session", null, now)).isTrue();
+        assertThat((Boolean) ReflectionTestUtils.invokeMethod(sessionStateStore, "insert", "dup-session", null, now)).isFalse();
+
+        // ChatMessages.sessionId 길이(255)까지의 세션 ID는 그대로 저장
+        String longSessionId = "s".repeat(255);
+        assertThat(sessionStateStore.tryMarkInFlight(longSessionId, "this-node:1", Duration.ofMinutes(2))).isTrue();
+        assertThat(sessionStateStore.tryMarkInFlight(longSessionId, "other-node:1", Duration.ofMinutes(2))).isFalse();
+
+        // 키 중복이 아닌 무결성 오류는 다른 서버가 잡은 것으로 오인하지 않고 드러냄
+        assertThatThrownBy(() -> sessionStateStore.tryMarkInFlight("s".repeat(300), "this-node:1", Duration.ofMinutes(2)))
+                .isInstanceOf(DataIntegrityViolationException.class)
+                .isNotInstanceOf(DuplicateKeyException.class);
+    }
+}
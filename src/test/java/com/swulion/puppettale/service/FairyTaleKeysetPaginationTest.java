@@ -0,0 +1,90 @@
+package com.swulion.puppettale.service;
+
+import com.swulion.puppettale.dto.FairyTaleListItem;
+import com.swulion.puppettale.dto.FairyTaleListResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 동화 목록 키셋 페이지네이션이 같은 생성 시각의 동화까지 빠짐없이 한 번씩 최신순으로 내려주는지,
+ * 페이지 크기 상한과 잘못된 커서 처리를 확인한다.
+ */
+@ActiveProfiles("test")
+@SpringBootTest(properties = {
+        "fairy-tale.list.max-page-size=30"
+})
+class FairyTaleKeysetPaginationTest {
+
+    private static final int STORIES = 75;
+
+    @Autowired
+    private FairyTaleService fairyTaleService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockitoBean
+    private GeminiClient geminiClient;
+
+    private Long childId;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("INSERT INTO Children (name, birthdate, isWarningState) VALUES ('하늘', DATE '2018-03-01', FALSE)");
+        childId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM Children", Long.class);
+
+        // 세 편씩 같은 생성 시각 (id로만 순서가 갈림), 다섯 편마다 하나는 삭제됨
+        LocalDateTime base = LocalDateTime.of(2025, 1, 1, 9, 0);
+        for (int i = 0; i < STORIES; i++) {
+            jdbcTemplate.update("INSERT INTO FairyTales (child_id, title, thumbnail_url, is_deleted, created_at) VALUES (?, ?, 'thumb', ?, ?)",
+                    childId, "동화 " + i, i % 5 == 4, Timestamp.valueOf(base.plusMinutes(i / 3)));
+        }
+    }
+
+    @Test
+    void pagesCoverLibraryOnceNewestFirst() {
+        List<Long> expected = jdbcTemplate.queryForList(
+                "SELECT id FROM FairyTales WHERE child_id = ? AND is_deleted = FALSE ORDER BY created_at DESC, id DESC",
+                Long.class, childId);
+
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            FairyTaleListResponse page = fairyTaleService.getFairyTaleList(childId, cursor, 7);
+            assertThat(page.getFairyTales()).hasSizeLessThanOrEqualTo(7);
+            page.getFairyTales().stream().map(FairyTaleListItem::getId).forEach(seen::add);
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertThat(seen).containsExactlyElementsOf(expected);
+        assertThat(pages).isEqualTo((expected.size() + 6) / 7);
+    }
+
+    @Test
+    void pageSizeIsCappedAndDefaulted() {
+        assertThat(fairyTaleService.getFairyTaleList(childId, null, 1000).getFairyTales()).hasSize(30);
+        assertThat(fairyTaleService.getFairyTaleList(childId, null, null).getFairyTales()).hasSize(20);
+        assertThat(fairyTaleService.getFairyTaleList(childId, null, 0).getFairyTales()).hasSize(1);
+    }
+
+    @Test
+    void malformedCursorIsRejected() {
+        assertThatThrownBy(() -> fairyTaleService.getFairyTaleList(childId, "not-a-cursor", 10))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,107 @@
+package com.swulion.puppettale.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.swulion.puppettale.dto.GeminiChatRequestDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.headerDoesNotExist;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.jsonPath;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+class GeminiClientTest {
+
+    private static final String MODEL = "gemini-2.5-flash";
+    private static final String GENERATE_URL = "http://localhost:8089/v1beta/models/" + MODEL + ":generateContent?key=test-key";
+
+    private MockRestServiceServer server;
+    private GeminiClient client;
+
+    @BeforeEach
+    void setUp() {
+        RestTemplate restTemplate = new RestTemplate();
+        server = MockRestServiceServer.bindTo(restTemplate).build();
+
+        client = new GeminiClient(restTemplate, new ObjectMapper(), GeminiResilienceTest.withDefaults(), new GeminiQuotaScheduler());
+        ReflectionTestUtils.setField(client, "apiKey", "test-key");
+        ReflectionTestUtils.setField(client, "baseUrl", "http://localhost:8089");
+        ReflectionTestUtils.setField(client, "gzipMinBytes", 1024);
+    }
+
+    @Test
+    void smallBodyIsSentAsPlainJson() {
+        server.expect(requestTo(GENERATE_URL))
+                .andExpect(method(HttpMethod.POST))
+                .andExpect(headerDoesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andExpect(jsonPath("$.contents[0].parts[0].text").value("안녕"))
+                .andRespond(withSuccess("{\"candidates\":[]}", MediaType.APPLICATION_JSON));
+
+        String body = client.generateContent(GeminiClient.CallType.CHAT, MODEL, request("안녕")).getBody();
+
+        assertThat(body).isEqualTo("{\"candidates\":[]}");
+        assertThat(client.getStats().getCompressedRequests()).isZero();
+        server.verify();
+    }
+
+    @Test
+    void largeBodyIsGzipped() {
+        String history = "오늘 병원에서 주사를 맞았는데 토리랑 같이 이겨냈어. ".repeat(100);
+        server.expect(requestTo(GENERATE_URL))
+                .andExpect(header(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(request -> {
+                    String json = gunzip(((MockClientHttpRequest) request).getBodyAsBytes());
+                    assertThat(json).contains("\"text\":\"" + history + "\"");
+                })
+                .andRespond(withSuccess("{}", MediaType.APPLICATION_JSON));
+
+        client.generateContent(GeminiClient.CallType.SUMMARY, MODEL, request(history));
+
+        assertThat(client.getStats().getCompressedRequests()).isEqualTo(1);
+        assertThat(client.getStats().getCompressionSavedBytes()).isPositive();
+        server.verify();
+    }
+
+    @Test
+    void streamUsesSseEndpoint() {
+        server.expect(requestTo("http://localhost:8089/v1beta/models/" + MODEL + ":streamGenerateContent?alt=sse&key=test-key"))
+                .andExpect(method(HttpMethod.POST))
+                .andRespond(withSuccess("data: {}\n\n", MediaType.TEXT_EVENT_STREAM));
+
+        String received = client.streamGenerateContent(MODEL, request("안녕"), null,
+                response -> new String(response.getBody().readAllBytes(), StandardCharsets.UTF_8));
+
+        assertThat(received).startsWith("data:");
+        server.verify();
+    }
+
+    private GeminiChatRequestDto request(String text) {
+        return new GeminiChatRequestDto(List.of(GeminiChatRequestDto.Content.builder()
+                .role("user")
+                .parts(List.of(new GeminiChatRequestDto.Part(text)))
+                .build()));
+    }
+
+    private static String gunzip(byte[] compressed) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.swulion.puppettale.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.swulion.puppettale.dto.GeminiChatRequestDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.jsonPath;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+class GeminiContextCacheTest {
+
+    private static final String MODEL = "gemini-2.5-flash";
+    private static final String CACHE_URL = "http://localhost:8089/v1beta/cachedContents?key=test-key";
+
+    private MockRestServiceServer server;
+    private GeminiContextCache cache;
+
+    @BeforeEach
+    void setUp() {
+        RestTemplate restTemplate = new RestTemplate();
+        server = MockRestServiceServer.bindTo(restTemplate).build();
+
+        GeminiClient geminiClient = new GeminiClient(restTemplate, new ObjectMapper(), GeminiResilienceTest.withDefaults(), new GeminiQuotaScheduler());
+        ReflectionTestUtils.setField(geminiClient, "apiKey", "test-key");
+        ReflectionTestUtils.setField(geminiClient, "baseUrl", "http://localhost:8089");
+
+        // 등록 작업을 호출 스레드에서 바로 실행
+        cache = new GeminiContextCache(geminiClient, Runnable::run);
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "ttlSeconds", 3600L);
+        ReflectionTestUtils.setField(cache, "refreshAheadSeconds", 300L);
+        ReflectionTestUtils.setField(cache, "minTokens", 10);
+        ReflectionTestUtils.setField(cache, "maxEntries", 10);
+    }
+
+    @Test
+    void firstRequestIsInlineAndLaterRequestsReferenceTheCache() {
+        expectCreate("cachedContents/abc", Instant.now().plusSeconds(3600));
+
+        GeminiChatRequestDto request = request("퍼펫 페르소나 프롬프트 ".repeat(10));
+
+        GeminiChatRequestDto first = cache.withCachedInstruction(MODEL, request);
+        assertThat(first).isSameAs(request);
+
+        GeminiChatRequestDto second = cache.withCachedInstruction(MODEL, request);
+        assertThat(second.getCachedContent()).isEqualTo("cachedContents/abc");
+        assertThat(second.getSystemInstruction()).isNull();
+        assertThat(second.getContents()).isSameAs(request.getContents());
+        server.verify();
+    }
+
+    @Test
+    void cacheCloseToExpiryIsRefreshedBeforeItLapses() {
+        expectCreate("cachedContents/old", Instant.now().plusSeconds(120));
+        expectCreate("cachedContents/new", Instant.now().plusSeconds(3600));
+
+        GeminiChatRequestDto request = request("퍼펫 페르소나 프롬프트 ".repeat(10));
+        cache.withCachedInstruction(MODEL, request);
+
+        // 만료 전이므로 기존 캐시를 쓰되, 새 캐시 등록을 함께 시작
+        assertThat(cache.withCachedInstruction(MODEL, request).getCachedContent()).isEqualTo("cachedContents/old");
+        assertThat(cache.withCachedInstruction(MODEL, request).getCachedContent()).isEqualTo("cachedContents/new");
+        server.verify();
+    }
+
+    @Test
+    void missingCacheFallsBackToInlineAndIsRegisteredAgain() {
+        expectCreate("cachedContents/abc", Instant.now().plusSeconds(3600));
+        expectCreate("cachedContents/def", Instant.now().plusSeconds(3600));
+
+        GeminiChatRequestDto request = request("퍼펫 페르소나 프롬프트 ".repeat(10));
+        cache.withCachedInstruction(MODEL, request);
+        GeminiChatRequestDto cached = cache.withCachedInstruction(MODEL, request);
+
+        HttpClientErrorException notFound = HttpClientErrorException.create(
+                HttpStatus.NOT_FOUND, "Not Found", null, null, null);
+        assertThat(cache.isCacheMiss(cached, notFound)).isTrue();
+        assertThat(cache.isCacheMiss(request, notFound)).isFalse();
+
+        cache.evict(cached);
+        assertThat(cache.withCachedInstruction(MODEL, request)).isSameAs(request);
+        assertThat(cache.withCachedInstruction(MODEL, request).getCachedContent()).isEqualTo("cachedContents/def");
+        server.verify();
+    }
+
+    @Test
+    void shortInstructionsAreNotCached() {
+        GeminiChatRequestDto request = request("짧은 명령");
+
+        assertThat(cache.withCachedInstruction(MODEL, request)).isSameAs(request);
+        server.verify();
+    }
+
+    private void expectCreate(String name, Instant expireTime) {
+        server.expect(requestTo(CACHE_URL))
+                .andExpect(method(HttpMethod.POST))
+                .andExpect(jsonPath("$.model").value("models/" + MODEL))
+                .andExpect(jsonPath("$.ttl").value("3600s"))
+                .andExpect(jsonPath("$.systemInstruction.parts[0].text").exists())
+                .andRespond(withSuccess(
+                        "{\"name\":\"" + name + "\",\"expireTime\":\"" + expireTime + "\"}",
+                        MediaType.APPLICATION_JSON));
+    }
+
+    private GeminiChatRequestDto request(String instruction) {
+        return new GeminiChatRequestDto(List.of(
+                GeminiChatRequestDto.Content.builder()
+                        .role("user")
+                        .parts(List.of(new GeminiChatRequestDto.Part("안녕")))
+                        .build()
+        ), instruction);
+    }
+}
@@ -0,0 +1,160 @@
+package com.swulion.puppettale.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class GeminiHedgerTest {
+
+    private static final Logger log = LoggerFactory.getLogger(GeminiHedgerTest.class);
+
+    private static final String MODEL = "gemini-2.5-flash";
+
+    private GeminiClient geminiClient;
+    private GeminiHedger hedger;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        geminiClient = mock(GeminiClient.class);
+        executor = Executors.newCachedThreadPool();
+        hedger = new GeminiHedger(geminiClient, executor);
+        ReflectionTestUtils.setField(hedger, "enabled", true);
+        ReflectionTestUtils.setField(hedger, "percentile", 0.95);
+        ReflectionTestUtils.setField(hedger, "windowSize", 200);
+        ReflectionTestUtils.setField(hedger, "minSamples", 20);
+        ReflectionTestUtils.setField(hedger, "minDelayMs", 50L);
+        ReflectionTestUtils.setField(hedger, "maxHedgeRate", 0.05);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void slowPrimaryIsHedgedAndCancelled() {
+        // 평소 응답 20ms로 기준 시간 학습 (하한 50ms 적용)
+        when(geminiClient.generateContent(eq(GeminiClient.CallType.CHAT), anyString(), any(), any(), any()))
+                .thenAnswer(invocation -> respondAfter(20, invocation.getArgument(4), "fast"));
+        for (int i = 0; i < 40; i++) {
+            hedger.generateContent(MODEL, "body", 1L);
+        }
+        assertThat(hedger.getStats().getHedges()).isZero();
+        assertThat(hedger.getStats().getHedgeDelayMs()).isEqualTo(50);
+
+        // 원 요청은 5초 걸리고, 예비 요청은 바로 응답
+        AtomicInteger call = new AtomicInteger();
+        List<GeminiClient.Cancellation> cancellations = Collections.synchronizedList(new ArrayList<>());
+        when(geminiClient.generateContent(eq(GeminiClient.CallType.CHAT), anyString(), any(), any(), any()))
+                .thenAnswer(invocation -> {
+                    GeminiClient.Cancellation cancellation = invocation.getArgument(4);
+                    cancellations.add(cancellation);
+                    return call.getAndIncrement() == 0
+                            ? respondAfter(5000, cancellation, "slow")
+                            : respondAfter(10, cancellation, "hedge");
+                });
+
+        long startedAt = System.nanoTime();
+        ResponseEntity<String> response = hedger.generateContent(MODEL, "body", 1L);
+        long elapsedMs = (System.nanoTime() - startedAt) / 1_000_000;
+
+        assertThat(response.getBody()).isEqualTo("hedge");
+        assertThat(elapsedMs).isLessThan(1000);
+        assertThat(cancellations.get(0).isCancelled()).isTrue();
+        assertThat(cancellations.get(1).isCancelled()).isFalse();
+        assertThat(hedger.getStats().getHedges()).isEqualTo(1);
+        assertThat(hedger.getStats().getHedgeWins()).isEqualTo(1);
+        log.info("헤징 응답 {}ms (원 요청 5000ms), 헤징 비율 {}", elapsedMs, String.format("%.3f", hedger.getStats().getHedgeRate()));
+    }
+
+    @Test
+    void cancelledSlowPrimariesStillRaiseHedgeDelay() {
+        ReflectionTestUtils.setField(hedger, "windowSize", 40);
+        ReflectionTestUtils.setField(hedger, "maxHedgeRate", 1.0);
+        when(geminiClient.generateContent(eq(GeminiClient.CallType.CHAT), anyString(), any(), any(), any()))
+                .thenAnswer(invocation -> respondAfter(20, invocation.getArgument(4), "fast"));
+        for (int i = 0; i < 40; i++) {
+            hedger.generateContent(MODEL, "body", 1L);
+        }
+        assertThat(hedger.getStats().getHedgeDelayMs()).isEqualTo(50);
+
+        // 원 요청은 항상 느리고 예비 요청이 이김: 예비 요청의 짧은 지연만 기록되면 기준 시간이 내려가기만 함
+        AtomicInteger call = new AtomicInteger();
+        when(geminiClient.generateContent(eq(GeminiClient.CallType.CHAT), anyString(), any(), any(), any()))
+                .thenAnswer(invocation -> call.getAndIncrement() % 2 == 0
+                        ? respondAfter(5000, invocation.getArgument(4), "slow")
+                        : respondAfter(10, invocation.getArgument(4), "hedge"));
+        for (int i = 0; i < 10; i++) {
+            assertThat(hedger.generateContent(MODEL, "body", 1L).getBody()).isEqualTo("hedge");
+        }
+
+        // 취소된 원 요청의 경과 시간(기준 시간 + 예비 요청 응답 시간 이상)이 분포에 남음
+        assertThat(hedger.getStats().getHedgeWins()).isEqualTo(10);
+        assertThat(hedger.getStats().getHedgeDelayMs()).isGreaterThanOrEqualTo(60);
+    }
+
+    @Test
+    void hedgeRateIsCapped() {
+        // 모든 호출이 기준 시간보다 느린 상황에서도 예비 요청은 호출 수의 5%를 넘지 않음
+        when(geminiClient.generateContent(eq(GeminiClient.CallType.CHAT), anyString(), any(), any(), any()))
+                .thenAnswer(invocation -> respondAfter(5, invocation.getArgument(4), "ok"));
+        for (int i = 0; i < 20; i++) {
+            hedger.generateContent(MODEL, "body", 1L);
+        }
+        ReflectionTestUtils.setField(hedger, "minDelayMs", 1L);
+        when(geminiClient.generateContent(eq(GeminiClient.CallType.CHAT), anyString(), any(), any(), any()))
+                .thenAnswer(invocation -> respondAfter(40, invocation.getArgument(4), "ok"));
+        for (int i = 0; i < 40; i++) {
+            hedger.generateContent(MODEL, "body", 1L);
+        }
+
+        GeminiHedger.Stats stats = hedger.getStats();
+        assertThat(stats.getCalls()).isEqualTo(60);
+        assertThat(stats.getHedges()).isPositive();
+        assertThat(stats.getHedgeRate()).isLessThanOrEqualTo(0.05);
+    }
+
+    @Test
+    void disabledHedgerCallsClientDirectly() {
+        ReflectionTestUtils.setField(hedger, "enabled", false);
+        when(geminiClient.generateContent(eq(GeminiClient.CallType.CHAT), anyString(), any(), any()))
+                .thenReturn(ResponseEntity.ok("direct"));
+
+        assertThat(hedger.generateContent(MODEL, "body", 1L).getBody()).isEqualTo("direct");
+        assertThat(hedger.getStats().getCalls()).isZero();
+    }
+
+    // 지연 후 응답, 그 전에 취소되면 CancellationException (실제 클라이언트의 커넥션 중단과 같은 동작)
+    private static ResponseEntity<String> respondAfter(long millis, GeminiClient.Cancellation cancellation,
+                                                       String body) throws InterruptedException {
+        CountDownLatch never = new CountDownLatch(1);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        while (System.nanoTime() < deadline) {
+            if (cancellation.isCancelled()) throw new CancellationException("cancelled");
+            never.await(5, TimeUnit.MILLISECONDS);
+        }
+        return ResponseEntity.ok(body);
+    }
+}
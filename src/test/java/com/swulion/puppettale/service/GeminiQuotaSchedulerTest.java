@@ -0,0 +1,108 @@
+package com.swulion.puppettale.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+class GeminiQuotaSchedulerTest {
+
+    private static final long WINDOW_MS = 300;
+
+    private GeminiQuotaScheduler scheduler;
+    private ExecutorService callers;
+
+    @BeforeEach
+    void setUp() {
+        scheduler = new GeminiQuotaScheduler();
+        ReflectionTestUtils.setField(scheduler, "enabled", true);
+        ReflectionTestUtils.setField(scheduler, "requestsPerMinute", 1000);
+        ReflectionTestUtils.setField(scheduler, "tokensPerMinute", 1_000_000L);
+        ReflectionTestUtils.setField(scheduler, "childTokensPerMinute", 1_000_000L);
+        ReflectionTestUtils.setField(scheduler, "interactiveMaxWaitMs", 5000L);
+        ReflectionTestUtils.setField(scheduler, "storyMaxWaitMs", 5000L);
+        ReflectionTestUtils.setField(scheduler, "imageMaxWaitMs", 5000L);
+        // 1분 대신 300ms 단위로 예산이 회복되도록 축소
+        ReflectionTestUtils.setField(scheduler, "windowNanos", TimeUnit.MILLISECONDS.toNanos(WINDOW_MS));
+        callers = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+    }
+
+    @Test
+    void queuedCallsAreAdmittedByPriority() throws Exception {
+        // 세 호출이 모두 대기열에 들어갈 때까지는 예산이 돌아오지 않도록 기준 시간을 길게
+        ReflectionTestUtils.setField(scheduler, "windowNanos", TimeUnit.SECONDS.toNanos(60));
+        ReflectionTestUtils.setField(scheduler, "requestsPerMinute", 1);
+        scheduler.acquire(GeminiClient.CallType.STORY, null, 100);
+
+        // 예산이 없는 동안 이미지 -> 동화 -> 채팅 순으로 도착
+        List<GeminiClient.CallType> admitted = new CopyOnWriteArrayList<>();
+        List<Future<?>> results = new CopyOnWriteArrayList<>();
+        for (GeminiClient.CallType type : List.of(GeminiClient.CallType.IMAGE, GeminiClient.CallType.STORY, GeminiClient.CallType.CHAT)) {
+            results.add(callers.submit(() -> {
+                scheduler.acquire(type, null, 100);
+                admitted.add(type);
+            }));
+            GeminiQuotaScheduler.Priority priority = GeminiQuotaScheduler.priorityOf(type);
+            await().atMost(1, TimeUnit.SECONDS).until(() ->
+                    scheduler.getStats().getClasses().get(priority).getQueueDepth() == 1);
+        }
+        // 이후 300ms마다 한 건씩 통과
+        ReflectionTestUtils.setField(scheduler, "windowNanos", TimeUnit.MILLISECONDS.toNanos(WINDOW_MS));
+        for (Future<?> result : results) {
+            result.get(5, TimeUnit.SECONDS);
+        }
+
+        assertThat(admitted).containsExactly(
+                GeminiClient.CallType.CHAT, GeminiClient.CallType.STORY, GeminiClient.CallType.IMAGE);
+        GeminiQuotaScheduler.ClassSnapshot image = scheduler.getStats().getClasses().get(GeminiQuotaScheduler.Priority.IMAGE);
+        assertThat(image.getQueueDepth()).isZero();
+        assertThat(image.getMaxWaitMs()).isGreaterThanOrEqualTo(WINDOW_MS * 2);
+    }
+
+    @Test
+    void childBucketDelaysOnlyThatChild() throws Exception {
+        ReflectionTestUtils.setField(scheduler, "childTokensPerMinute", 3000L);
+        // 아동 1이 버킷을 거의 다 씀 (요청 6000바이트 ≒ 2000토큰 + 채팅 응답 500토큰)
+        scheduler.acquire(GeminiClient.CallType.CHAT, 1L, 6000);
+
+        long startedAt = System.nanoTime();
+        scheduler.acquire(GeminiClient.CallType.CHAT, 2L, 6000);
+        long otherChildMs = (System.nanoTime() - startedAt) / 1_000_000;
+
+        startedAt = System.nanoTime();
+        scheduler.acquire(GeminiClient.CallType.CHAT, 1L, 6000);
+        long sameChildMs = (System.nanoTime() - startedAt) / 1_000_000;
+
+        assertThat(otherChildMs).isLessThan(50);
+        assertThat(sameChildMs).isGreaterThanOrEqualTo(WINDOW_MS * 2 / 3 - 20);
+    }
+
+    @Test
+    void tooLongWaitFailsWithUnavailable() {
+        ReflectionTestUtils.setField(scheduler, "requestsPerMinute", 1);
+        ReflectionTestUtils.setField(scheduler, "windowNanos", TimeUnit.SECONDS.toNanos(60));
+        ReflectionTestUtils.setField(scheduler, "interactiveMaxWaitMs", 100L);
+        scheduler.acquire(GeminiClient.CallType.CHAT, null, 100);
+
+        assertThatThrownBy(() -> scheduler.acquire(GeminiClient.CallType.CHAT, null, 100))
+                .isInstanceOf(GeminiUnavailableException.class);
+        assertThat(scheduler.getStats().getClasses().get(GeminiQuotaScheduler.Priority.INTERACTIVE).getTimeouts())
+                .isEqualTo(1);
+    }
+}
@@ -0,0 +1,293 @@
+package com.swulion.puppettale.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.swulion.puppettale.dto.GeminiChatRequestDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.ExpectedCount;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.client.UnknownHttpStatusCodeException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withBadRequest;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withServiceUnavailable;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+class GeminiResilienceTest {
+
+    private static final String MODEL = "gemini-2.5-flash";
+    private static final String GENERATE_URL = "http://localhost:8089/v1beta/models/" + MODEL + ":generateContent?key=test-key";
+
+    private MockRestServiceServer server;
+    private GeminiResilience resilience;
+    private GeminiClient client;
+    private final List<Long> sleeps = new ArrayList<>();
+    private Instant now = Instant.parse("2025-01-01T00:00:00Z");
+
+    // 다른 테스트에서도 쓰는 기본 설정 (application.properties 기본값과 동일)
+    static GeminiResilience withDefaults() {
+        return withDefaults(Clock.systemUTC());
+    }
+
+    static GeminiResilience withDefaults(Clock clock) {
+        GeminiResilience resilience = new GeminiResilience(clock);
+        ReflectionTestUtils.setField(resilience, "maxAttempts", 3);
+        ReflectionTestUtils.setField(resilience, "initialBackoffMs", 500L);
+        ReflectionTestUtils.setField(resilience, "maxBackoffMs", 8000L);
+        ReflectionTestUtils.setField(resilience, "maxRetryAfterMs", 10000L);
+        ReflectionTestUtils.setField(resilience, "windowSize", 20);
+        ReflectionTestUtils.setField(resilience, "minimumCalls", 10);
+        ReflectionTestUtils.setField(resilience, "failureRateThreshold", 0.5);
+        ReflectionTestUtils.setField(resilience, "openDurationMs", 30000L);
+        ReflectionTestUtils.setField(resilience, "halfOpenCalls", 3);
+        return resilience;
+    }
+
+    @BeforeEach
+    void setUp() {
+        RestTemplate restTemplate = new RestTemplate();
+        server = MockRestServiceServer.bindTo(restTemplate).build();
+
+        resilience = withDefaults(new Clock() {
+            @Override public ZoneOffset getZone() { return ZoneOffset.UTC; }
+            @Override public Clock withZone(java.time.ZoneId zone) { return this; }
+            @Override public Instant instant() { return now; }
+        });
+        ReflectionTestUtils.setField(resilience, "sleeper", (GeminiResilience.Sleeper) sleeps::add);
+
+        client = new GeminiClient(restTemplate, new ObjectMapper(), resilience, new GeminiQuotaScheduler());
+        ReflectionTestUtils.setField(client, "apiKey", "test-key");
+        ReflectionTestUtils.setField(client, "baseUrl", "http://localhost:8089");
+    }
+
+    @Test
+    void serverErrorIsRetriedWithJitteredBackoff() {
+        server.expect(ExpectedCount.twice(), requestTo(GENERATE_URL)).andRespond(withServiceUnavailable());
+        server.expect(requestTo(GENERATE_URL)).andRespond(withSuccess("{}", MediaType.APPLICATION_JSON));
+
+        assertThat(client.generateContent(GeminiClient.CallType.CHAT, MODEL, request()).getBody()).isEqualTo("{}");
+
+        assertThat(sleeps).hasSize(2);
+        assertThat(sleeps.get(0)).isBetween(0L, 500L);
+        assertThat(sleeps.get(1)).isBetween(0L, 1000L);
+        assertThat(resilience.getStats().getRetries().get(GeminiClient.CallType.CHAT)).isEqualTo(2);
+        server.verify();
+    }
+
+    @Test
+    void retryAfterHeaderIsHonored() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, "3");
+        server.expect(requestTo(GENERATE_URL)).andRespond(withStatus(HttpStatus.TOO_MANY_REQUESTS).headers(headers));
+        server.expect(requestTo(GENERATE_URL)).andRespond(withSuccess("{}", MediaType.APPLICATION_JSON));
+
+        client.generateContent(GeminiClient.CallType.STORY, MODEL, request());
+
+        assertThat(sleeps).containsExactly(3000L);
+        server.verify();
+    }
+
+    @Test
+    void tooLongRetryAfterFailsWithoutWaiting() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, "60");
+        server.expect(requestTo(GENERATE_URL)).andRespond(withServiceUnavailable().headers(headers));
+
+        assertThatThrownBy(() -> client.generateContent(GeminiClient.CallType.CHAT, MODEL, request()))
+                .isInstanceOf(HttpServerErrorException.ServiceUnavailable.class);
+        assertThat(sleeps).isEmpty();
+        server.verify();
+    }
+
+    @Test
+    void clientErrorIsNotRetried() {
+        server.expect(ExpectedCount.once(), requestTo(GENERATE_URL)).andRespond(withBadRequest());
+
+        assertThatThrownBy(() -> client.generateContent(GeminiClient.CallType.ANALYSIS, MODEL, request()))
+                .isInstanceOf(HttpClientErrorException.BadRequest.class);
+        assertThat(sleeps).isEmpty();
+        server.verify();
+    }
+
+    @Test
+    void breakerOpensFailsFastAndRecoversAfterHalfOpenTrials() {
+        ReflectionTestUtils.setField(resilience, "maxAttempts", 1);
+        server.expect(ExpectedCount.times(10), requestTo(GENERATE_URL)).andRespond(withServiceUnavailable());
+        for (int i = 0; i < 10; i++) {
+            assertThatThrownBy(() -> client.generateContent(GeminiClient.CallType.CHAT, MODEL, request()))
+                    .isInstanceOf(HttpServerErrorException.class);
+        }
+        assertThat(resilience.getStats().getBreakerStates()).containsEntry(MODEL, GeminiResilience.BreakerState.OPEN);
+
+        // 차단 중에는 Gemini를 호출하지 않음
+        assertThatThrownBy(() -> client.generateContent(GeminiClient.CallType.CHAT, MODEL, request()))
+                .isInstanceOf(GeminiUnavailableException.class);
+        assertThat(resilience.getStats().getShortCircuited()).isEqualTo(1);
+        server.verify();
+
+        // 차단 시간이 지나면 시험 호출 3번이 모두 성공해야 다시 닫힘
+        server.reset();
+        now = now.plusSeconds(31);
+        server.expect(ExpectedCount.times(3), requestTo(GENERATE_URL)).andRespond(withSuccess("{}", MediaType.APPLICATION_JSON));
+        client.generateContent(GeminiClient.CallType.CHAT, MODEL, request());
+        assertThat(resilience.getStats().getBreakerStates()).containsEntry(MODEL, GeminiResilience.BreakerState.HALF_OPEN);
+        client.generateContent(GeminiClient.CallType.CHAT, MODEL, request());
+        client.generateContent(GeminiClient.CallType.CHAT, MODEL, request());
+        assertThat(resilience.getStats().getBreakerStates()).containsEntry(MODEL, GeminiResilience.BreakerState.CLOSED);
+        server.verify();
+    }
+
+    @Test
+    void clientErrorsDoNotOpenBreaker() {
+        ReflectionTestUtils.setField(resilience, "maxAttempts", 1);
+        server.expect(ExpectedCount.times(15), requestTo(GENERATE_URL)).andRespond(withBadRequest());
+        for (int i = 0; i < 15; i++) {
+            assertThatThrownBy(() -> client.generateContent(GeminiClient.CallType.CHAT, MODEL, request()))
+                    .isInstanceOf(HttpClientErrorException.class);
+        }
+        assertThat(resilience.getStats().getBreakerStates()).containsEntry(MODEL, GeminiResilience.BreakerState.CLOSED);
+        server.verify();
+    }
+
+    @Test
+    void nonHttpFailuresInHalfOpenReleaseTrialPermits() {
+        openBreaker();
+        now = now.plusSeconds(31);
+
+        // 시험 호출 수(3)보다 많이 던져도 슬롯이 새지 않아야 함
+        List<RuntimeException> failures = List.of(
+                new GeminiUnavailableException("할당량 대기 시간 초과"),
+                new UnknownHttpStatusCodeException(599, "unknown", null, null, null),
+                new RestClientException("응답 변환 실패"),
+                new TokenBudgetExceededException("예산 초과"),
+                new IllegalStateException("응답 처리 오류"));
+        for (RuntimeException failure : failures) {
+            assertThatThrownBy(() -> resilience.execute(MODEL, GeminiClient.CallType.CHAT,
+                    GeminiResilience.RetryScope.ALL, () -> { throw failure; }))
+                    .isSameAs(failure);
+            assertThat(resilience.getStats().getBreakerStates()).containsEntry(MODEL, GeminiResilience.BreakerState.HALF_OPEN);
+        }
+
+        for (int i = 0; i < 3; i++) {
+            resilience.execute(MODEL, GeminiClient.CallType.CHAT, GeminiResilience.RetryScope.ALL, () -> "ok");
+        }
+        assertThat(resilience.getStats().getBreakerStates()).containsEntry(MODEL, GeminiResilience.BreakerState.CLOSED);
+    }
+
+    @Test
+    void quotaWaitRunsBeforeTakingHalfOpenPermit() {
+        openBreaker();
+        now = now.plusSeconds(31);
+
+        // 할당량 대기 시간 초과: 호출하지 않았으므로 시험 호출 슬롯도 쓰지 않음
+        for (int i = 0; i < 5; i++) {
+            assertThatThrownBy(() -> resilience.execute(MODEL, GeminiClient.CallType.CHAT, GeminiResilience.RetryScope.ALL,
+                    () -> { throw new GeminiUnavailableException("할당량 대기 시간 초과"); },
+                    () -> { throw new AssertionError("호출되면 안 됨"); }))
+                    .isInstanceOf(GeminiUnavailableException.class);
+        }
+        assertThat(resilience.getStats().getShortCircuited()).isZero();
+
+        for (int i = 0; i < 3; i++) {
+            resilience.execute(MODEL, GeminiClient.CallType.CHAT, GeminiResilience.RetryScope.ALL, () -> "ok");
+        }
+        assertThat(resilience.getStats().getBreakerStates()).containsEntry(MODEL, GeminiResilience.BreakerState.CLOSED);
+    }
+
+    @Test
+    void clientWriteFailuresWhileStreamingDoNotOpenBreaker() {
+        ReflectionTestUtils.setField(resilience, "maxAttempts", 1);
+        String streamUrl = "http://localhost:8089/v1beta/models/" + MODEL + ":streamGenerateContent?alt=sse&key=test-key";
+        server.expect(ExpectedCount.times(15), requestTo(streamUrl))
+                .andRespond(withSuccess("data: {}\n\n", MediaType.TEXT_EVENT_STREAM));
+
+        for (int i = 0; i < 15; i++) {
+            // 조각을 읽은 뒤 클라이언트(SseEmitter) 전송에서 난 IOException
+            assertThatThrownBy(() -> client.streamGenerateContent(MODEL, request(), null, response -> {
+                response.getBody().readAllBytes();
+                throw new IOException("Broken pipe");
+            })).isInstanceOf(UncheckedIOException.class);
+        }
+        assertThat(resilience.getStats().getBreakerStates()).containsEntry(MODEL, GeminiResilience.BreakerState.CLOSED);
+        server.verify();
+    }
+
+    @Test
+    void lateResultsFromEarlierStateDoNotChangeHalfOpenTrials() {
+        // 닫혀 있을 때 시작한 느린 호출이, 차단 -> 시험 호출 단계로 넘어간 뒤에 성공으로 끝남
+        String late = resilience.execute(MODEL, GeminiClient.CallType.CHAT, GeminiResilience.RetryScope.ALL, () -> {
+            openBreaker();
+            now = now.plusSeconds(31);
+            resilience.execute(MODEL, GeminiClient.CallType.CHAT, GeminiResilience.RetryScope.ALL, () -> "ok");
+            resilience.execute(MODEL, GeminiClient.CallType.CHAT, GeminiResilience.RetryScope.ALL, () -> "ok");
+            return "late";
+        });
+        assertThat(late).isEqualTo("late");
+        // 시험 호출은 2번만 성공했으므로 아직 닫히지 않음
+        assertThat(resilience.getStats().getBreakerStates()).containsEntry(MODEL, GeminiResilience.BreakerState.HALF_OPEN);
+
+        resilience.execute(MODEL, GeminiClient.CallType.CHAT, GeminiResilience.RetryScope.ALL, () -> "ok");
+        assertThat(resilience.getStats().getBreakerStates()).containsEntry(MODEL, GeminiResilience.BreakerState.CLOSED);
+    }
+
+    @Test
+    void lateFailureFromEarlierStateDoesNotExtendOpen() {
+        // 닫혀 있을 때 시작한 느린 호출이 차단 중에 실패로 끝남: 차단 시작 시각이 밀리지 않음
+        assertThatThrownBy(() -> resilience.execute(MODEL, GeminiClient.CallType.CHAT, GeminiResilience.RetryScope.ALL, () -> {
+            openBreaker();
+            now = now.plusSeconds(20);
+            throw HttpServerErrorException.create(HttpStatus.SERVICE_UNAVAILABLE, "unavailable", null, null, null);
+        })).isInstanceOf(HttpServerErrorException.class);
+        now = now.plusSeconds(11);
+        resilience.execute(MODEL, GeminiClient.CallType.CHAT, GeminiResilience.RetryScope.ALL, () -> "ok");
+        assertThat(resilience.getStats().getBreakerStates()).containsEntry(MODEL, GeminiResilience.BreakerState.HALF_OPEN);
+    }
+
+    @Test
+    void lateFailureFromEarlierStateDoesNotReopenHalfOpen() {
+        // 닫혀 있을 때 시작한 느린 호출이 시험 호출 단계에서 실패로 끝나도 다시 차단하지 않음
+        assertThatThrownBy(() -> resilience.execute(MODEL, GeminiClient.CallType.CHAT, GeminiResilience.RetryScope.ALL, () -> {
+            openBreaker();
+            now = now.plusSeconds(31);
+            resilience.execute(MODEL, GeminiClient.CallType.CHAT, GeminiResilience.RetryScope.ALL, () -> "ok");
+            throw HttpServerErrorException.create(HttpStatus.SERVICE_UNAVAILABLE, "unavailable", null, null, null);
+        })).isInstanceOf(HttpServerErrorException.class);
+        assertThat(resilience.getStats().getBreakerStates()).containsEntry(MODEL, GeminiResilience.BreakerState.HALF_OPEN);
+    }
+
+    private void openBreaker() {
+        ReflectionTestUtils.setField(resilience, "maxAttempts", 1);
+        for (int i = 0; i < 10; i++) {
+            assertThatThrownBy(() -> resilience.execute(MODEL, GeminiClient.CallType.CHAT, GeminiResilience.RetryScope.ALL,
+                    () -> { throw HttpServerErrorException.create(HttpStatus.SERVICE_UNAVAILABLE, "unavailable", null, null, null); }))
+                    .isInstanceOf(HttpServerErrorException.class);
+        }
+        assertThat(resilience.getStats().getBreakerStates()).containsEntry(MODEL, GeminiResilience.BreakerState.OPEN);
+    }
+
+    private GeminiChatRequestDto request() {
+        return new GeminiChatRequestDto(List.of(GeminiChatRequestDto.Content.builder()
+                .role("user")
+                .parts(List.of(new GeminiChatRequestDto.Part("안녕")))
+                .build()));
+    }
+}
@@ -0,0 +1,95 @@
+package com.swulion.puppettale.service;
+
+import com.swulion.puppettale.dto.ChatStartRequestDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 채팅 턴의 단계별 타이머가 PuppetMode 태그와 함께 기록되고,
+ * /actuator/prometheus에서 단계 타이머와 컴포넌트 통계가 함께 보이는지 확인한다.
+ */
+@ActiveProfiles("test")
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+class HotPathMetricsTest {
+
+    // Gemini 응답의 candidates[0].content.parts[0].text
+    private static final String GEMINI_TEXT = """
+            {"thought_process":{"safety_status":"GREEN"},"response":"안녕!"}""";
+
+    @Autowired
+    private ChatService chatService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockitoBean
+    private GeminiClient geminiClient;
+
+    private Long childId;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("INSERT INTO Children (name, birthdate, isWarningState) VALUES ('하늘', DATE '2018-03-01', FALSE)");
+        childId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM Children", Long.class);
+        jdbcTemplate.update("INSERT INTO Puppets (child_id, name, mode) VALUES (?, '토리', 'AFFECTIONATE')", childId);
+    }
+
+    @Test
+    void chatPhasesAreTimedByModeAndScraped() throws Exception {
+        when(geminiClient.generateText(eq(GeminiClient.CallType.CHAT), anyString(), any(), any())).thenReturn(GEMINI_TEXT);
+
+        ChatStartRequestDto request = new ChatStartRequestDto();
+        request.setSessionId("metrics");
+        request.setChildId(childId);
+        request.setUserMessage("안녕 토리야");
+        chatService.processChat(request);
+
+        assertThat(phase("gemini").count()).isEqualTo(1);
+        assertThat(phase("prompt").count()).isEqualTo(1);
+        assertThat(phase("persist").count()).isEqualTo(2); // 사용자 메시지 + AI 응답
+        assertThat(meterRegistry.find(HotPathMetrics.CHAT_PHASE).tag("phase", "profile").timer()).isNotNull();
+
+        String scrape = mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertThat(scrape)
+                .contains("puppettale_chat_phase_seconds_bucket")
+                .contains("mode=\"AFFECTIONATE\"")
+                .contains("puppettale_gemini_quota_queue_depth")
+                .contains("puppettale_chat_turns_started_total");
+    }
+
+    private Timer phase(String phase) {
+        return meterRegistry.get(HotPathMetrics.CHAT_PHASE)
+                .tag("phase", phase)
+                .tag("mode", "AFFECTIONATE")
+                .tag("outcome", "success")
+                .timer();
+    }
+}
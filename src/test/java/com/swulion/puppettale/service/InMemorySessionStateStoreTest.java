@@ -0,0 +1,77 @@
+package com.swulion.puppettale.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InMemorySessionStateStoreTest {
+
+    private InMemorySessionStateStore store;
+    private Instant now = Instant.parse("2025-01-01T00:00:00Z");
+
+    @BeforeEach
+    void setUp() {
+        store = new InMemorySessionStateStore(new Clock() {
+            @Override public ZoneOffset getZone() { return ZoneOffset.UTC; }
+            @Override public Clock withZone(ZoneId zone) { return this; }
+            @Override public Instant instant() { return now; }
+        });
+        ReflectionTestUtils.setField(store, "ttlMinutes", 30L);
+        ReflectionTestUtils.setField(store, "maxSessions", 3);
+    }
+
+    @Test
+    void idleSessionsExpireAfterTtl() {
+        store.putSoundId("a", "rain");
+        assertThat(store.getSoundId("a")).contains("rain");
+
+        now = now.plusSeconds(20 * 60);
+        store.touch("a");
+        now = now.plusSeconds(20 * 60);
+        assertThat(store.getSoundId("a")).contains("rain"); // 마지막 활동 기준 20분
+
+        now = now.plusSeconds(31 * 60);
+        assertThat(store.getSoundId("a")).isEmpty();
+        assertThat(store.getStats().getHits()).isEqualTo(2);
+        assertThat(store.getStats().getMisses()).isEqualTo(1);
+        assertThat(store.getStats().getEvictions()).isEqualTo(1);
+        assertThat(store.getStats().getSize()).isZero();
+    }
+
+    @Test
+    void leastRecentlyUsedSessionIsEvictedOverLimit() {
+        store.putSoundId("a", "rain");
+        store.putSoundId("b", "forest");
+        store.putSoundId("c", "sea");
+        store.getSoundId("a");
+        store.putSoundId("d", "fire");
+
+        assertThat(store.getSoundId("b")).isEmpty();
+        assertThat(store.getSoundId("a")).contains("rain");
+        assertThat(store.getStats().getSize()).isEqualTo(3);
+    }
+
+    @Test
+    void inFlightMarkerBelongsToOneOwnerUntilClearedOrExpired() {
+        assertThat(store.tryMarkInFlight("a", "node-1", Duration.ofMinutes(2))).isTrue();
+        assertThat(store.tryMarkInFlight("a", "node-2", Duration.ofMinutes(2))).isFalse();
+
+        store.clearInFlight("a", "node-2"); // 남의 표시는 해제되지 않음
+        assertThat(store.tryMarkInFlight("a", "node-2", Duration.ofMinutes(2))).isFalse();
+
+        store.clearInFlight("a", "node-1");
+        assertThat(store.tryMarkInFlight("a", "node-2", Duration.ofMinutes(2))).isTrue();
+
+        // 해제되지 못한 표시는 유지 시간이 지나면 다른 owner가 가져감
+        now = now.plusSeconds(121);
+        assertThat(store.tryMarkInFlight("a", "node-3", Duration.ofMinutes(2))).isTrue();
+    }
+}
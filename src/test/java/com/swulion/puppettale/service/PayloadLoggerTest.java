@@ -0,0 +1,65 @@
+package com.swulion.puppettale.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PayloadLoggerTest {
+
+    private PayloadLogger payloadLogger;
+
+    @BeforeEach
+    void setUp() {
+        payloadLogger = new PayloadLogger();
+        ReflectionTestUtils.setField(payloadLogger, "geminiResponseMaxChars", 300);
+        ReflectionTestUtils.setField(payloadLogger, "geminiErrorMaxChars", 300);
+        ReflectionTestUtils.setField(payloadLogger, "modelOutputMaxChars", 300);
+        ReflectionTestUtils.setField(payloadLogger, "geminiResponseSampleRate", 1.0);
+        ReflectionTestUtils.setField(payloadLogger, "geminiErrorSampleRate", 1.0);
+        ReflectionTestUtils.setField(payloadLogger, "modelOutputSampleRate", 0.0);
+    }
+
+    @Test
+    void inlineDataBlobIsRedactedAndTextIsKept() {
+        String base64 = "iVBORw0KGgo".repeat(300_000); // 약 3.3MB 이미지
+        String body = """
+                {"candidates":[{"content":{"parts":[{"text":"그림이야"},{"inlineData":{"mimeType":"image/png","data":"%s"}}]}}],"usageMetadata":{"totalTokenCount":1290}}"""
+                .formatted(base64);
+
+        String bounded = payloadLogger.bound(body, 300);
+
+        assertThat(bounded).contains("\"text\":\"그림이야\"")
+                .contains("\"data\":\"<redacted " + base64.length() + " chars>\"")
+                .contains("usageMetadata")
+                .doesNotContain("iVBORw0KGgo");
+        assertThat(bounded.length()).isLessThan(400);
+        assertThat(payloadLogger.getStats().getRedactedBlobs()).isEqualTo(1);
+    }
+
+    @Test
+    void longPayloadIsTruncatedWithRemainingLength() {
+        String body = "가".repeat(1000);
+
+        String bounded = payloadLogger.bound(body, 300);
+
+        assertThat(bounded).startsWith("가".repeat(300)).endsWith("...(+700 chars)");
+        assertThat(payloadLogger.bound("짧은 본문", 300)).isEqualTo("짧은 본문");
+        assertThat(payloadLogger.bound("{\"inline_data\":{\"data\":\"abc\"}}", 300))
+                .isEqualTo("{\"inline_data\":{\"data\":\"abc\"}}"); // 짧은 값은 그대로
+    }
+
+    @Test
+    void samplingSkipsPayloadsByCategory() {
+        for (int i = 0; i < 10; i++) {
+            payloadLogger.warn(PayloadLogger.Category.MODEL_OUTPUT, "평문 응답", "아동 대화 내용");
+            payloadLogger.error(PayloadLogger.Category.GEMINI_ERROR, "오류 응답", "{\"error\":{\"code\":400}}");
+        }
+
+        PayloadLogger.Stats stats = payloadLogger.getStats();
+        assertThat(stats.getSkipped().get(PayloadLogger.Category.MODEL_OUTPUT)).isEqualTo(10);
+        assertThat(stats.getLogged().get(PayloadLogger.Category.MODEL_OUTPUT)).isZero();
+        assertThat(stats.getLogged().get(PayloadLogger.Category.GEMINI_ERROR)).isEqualTo(10);
+    }
+}
@@ -0,0 +1,94 @@
+package com.swulion.puppettale.service;
+
+import com.swulion.puppettale.constant.PuppetMode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.Map;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 프롬프트 파일을 고치면 재시작 없이 다시 읽히는지,
+ * 이미 캐시된 채팅 시스템 명령 조합에도 반영되는지 확인한다.
+ */
+class PromptTemplateRegistryTest {
+
+    @TempDir
+    Path dir;
+
+    private PromptTemplateRegistry registry;
+    private SystemPromptService systemPromptService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        write(SystemPromptService.CHAT_TEMPLATE, "너는 {Puppet_Name}야. 제약: {User_Constraint}", 1);
+        write(SystemPromptService.AFFECTIONATE_TEMPLATE, "다정하게", 1);
+        write(SystemPromptService.ENERGETIC_TEMPLATE, "신나게", 1);
+
+        registry = new PromptTemplateRegistry(new DefaultResourceLoader());
+        ReflectionTestUtils.setField(registry, "location", dir.toUri().toString());
+        ReflectionTestUtils.setField(registry, "reloadCheckIntervalMs", 0L);
+
+        systemPromptService = new SystemPromptService(registry, mock(SoundService.class));
+        ReflectionTestUtils.setField(systemPromptService, "maxEntries", 100);
+    }
+
+    @Test
+    void changedFileIsReloaded() throws IOException {
+        assertThat(registry.get(SystemPromptService.AFFECTIONATE_TEMPLATE).render(Map.of())).isEqualTo("다정하게");
+        long version = registry.getVersion();
+
+        write(SystemPromptService.AFFECTIONATE_TEMPLATE, "더 다정하게", 2);
+
+        assertThat(registry.get(SystemPromptService.AFFECTIONATE_TEMPLATE).render(Map.of())).isEqualTo("더 다정하게");
+        assertThat(registry.getVersion()).isGreaterThan(version);
+        // 바뀌지 않았으면 버전 그대로
+        assertThat(registry.currentVersion()).isEqualTo(registry.getVersion());
+    }
+
+    @Test
+    void unchangedFilesWithinIntervalAreNotRechecked() throws IOException {
+        ReflectionTestUtils.setField(registry, "reloadCheckIntervalMs", 60_000L);
+        registry.get(SystemPromptService.AFFECTIONATE_TEMPLATE);
+
+        write(SystemPromptService.AFFECTIONATE_TEMPLATE, "더 다정하게", 2);
+
+        assertThat(registry.get(SystemPromptService.AFFECTIONATE_TEMPLATE).render(Map.of())).isEqualTo("다정하게");
+    }
+
+    @Test
+    void cachedChatInstructionPicksUpEditedTemplate() throws IOException {
+        String first = chatInstruction();
+        assertThat(first).startsWith("너는 토리야. 제약: 다정하게");
+        assertThat(chatInstruction()).isSameAs(first); // 캐시 적중
+
+        // 캐시된 조합이라 get()을 거치지 않아도 변경이 반영되어야 함
+        write(SystemPromptService.AFFECTIONATE_TEMPLATE, "더 다정하게", 2);
+        assertThat(chatInstruction()).startsWith("너는 토리야. 제약: 더 다정하게");
+
+        write(SystemPromptService.CHAT_TEMPLATE, "새 페르소나 {Puppet_Name}", 3);
+        assertThat(chatInstruction()).startsWith("새 페르소나 토리");
+    }
+
+    private String chatInstruction() {
+        return systemPromptService.chatInstruction(1L, PuppetMode.AFFECTIONATE, "토리", "none", "하늘", 7, "없음");
+    }
+
+    // 수정 시각 해상도에 기대지 않도록 파일마다 다른 시각을 직접 지정
+    private void write(String fileName, String content, long version) throws IOException {
+        Path file = dir.resolve(fileName);
+        Files.writeString(file, content, UTF_8);
+        Files.setLastModifiedTime(file, FileTime.from(Instant.parse("2026-10-01T00:00:00Z").plusSeconds(version)));
+    }
+}
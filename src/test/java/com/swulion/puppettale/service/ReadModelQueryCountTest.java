@@ -0,0 +1,106 @@
+package com.swulion.puppettale.service;
+
+import com.swulion.puppettale.constant.PuppetMode;
+import com.swulion.puppettale.dto.FairyTaleDetailResponse;
+import com.swulion.puppettale.dto.FairyTaleListItem;
+import com.swulion.puppettale.dto.MyPageResponse;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 마이페이지, 동화 목록/상세 조회가 각각 SQL 한 번으로 끝나는지(지연 로딩 추가 쿼리 없음),
+ * 동화 페이지가 DB에서 페이지 번호 순으로 정렬되어 오는지 확인한다.
+ */
+@ActiveProfiles("test")
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=warn"
+})
+class ReadModelQueryCountTest {
+
+    @Autowired
+    private MyPageService myPageService;
+
+    @Autowired
+    private FairyTaleService fairyTaleService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockitoBean
+    private GeminiClient geminiClient;
+
+    private Long childId;
+    private Long fairyTaleId;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("INSERT INTO Children (name, birthdate, hospitalization_start_date, isWarningState) " +
+                "VALUES ('하늘', DATE '2018-03-01', CURRENT_DATE, FALSE)");
+        childId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM Children", Long.class);
+        jdbcTemplate.update("INSERT INTO Puppets (child_id, name, mode) VALUES (?, '토리', 'ENERGETIC')", childId);
+
+        for (int i = 1; i <= 2; i++) {
+            jdbcTemplate.update("INSERT INTO FairyTales (child_id, title, thumbnail_url, is_deleted, created_at) " +
+                    "VALUES (?, ?, 'thumb', FALSE, CURRENT_TIMESTAMP)", childId, "동화 " + i);
+        }
+        fairyTaleId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM FairyTales", Long.class);
+        // 페이지 번호와 다른 순서로 저장
+        for (int page : new int[]{3, 1, 2}) {
+            jdbcTemplate.update("INSERT INTO FairyTalePages (fairytale_id, page_number, image_url, text) VALUES (?, ?, ?, ?)",
+                    fairyTaleId, page, "img-" + page, "본문 " + page);
+        }
+    }
+
+    @Test
+    void myPageIsOneStatement() {
+        MyPageResponse response = countStatements(1, () -> myPageService.getMyPage(childId));
+
+        assertThat(response.getName()).isEqualTo("하늘");
+        assertThat(response.getPuppetName()).isEqualTo("토리");
+        assertThat(response.getPuppetMode()).isEqualTo(PuppetMode.ENERGETIC);
+        assertThat(response.getHospitalizationDays()).isEqualTo("입원 1일차");
+    }
+
+    @Test
+    void fairyTaleListIsOneStatement() {
+        List<FairyTaleListItem> items = countStatements(1, () -> fairyTaleService.getFairyTaleList(childId, null, null)).getFairyTales();
+
+        assertThat(items).hasSize(2);
+        assertThat(items).allSatisfy(item -> assertThat(item.getCreatedAt()).isNotBlank());
+    }
+
+    @Test
+    void fairyTaleDetailIsOneStatementWithPagesInOrder() {
+        FairyTaleDetailResponse detail = countStatements(1, () -> fairyTaleService.getFairyTaleDetail(childId, fairyTaleId));
+
+        assertThat(detail.getPages())
+                .extracting(FairyTaleDetailResponse.FairyTalePageInfo::getPageNumber)
+                .containsExactly(1, 2, 3);
+        assertThat(detail.getPages().get(0).getImageUrl()).isEqualTo("img-1");
+    }
+
+    private <T> T countStatements(long expected, Supplier<T> call) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        T result = call.get();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(expected);
+        return result;
+    }
+}
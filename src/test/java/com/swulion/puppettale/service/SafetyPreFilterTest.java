@@ -0,0 +1,116 @@
+package com.swulion.puppettale.service;
+
+import com.swulion.puppettale.util.KoreanTextNormalizer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 라벨 코퍼스(safety/labelled-corpus.tsv)로 사전 필터의 판정을 확인하고 처리량을 잰다.
+ * PASS 라벨(평범한 말, LOW 표현)이 잘못 차단되면 아이의 대화가 끊기므로 오탐은 0이어야 한다.
+ */
+class SafetyPreFilterTest {
+
+    private static final Logger log = LoggerFactory.getLogger(SafetyPreFilterTest.class);
+
+    private SafetyPreFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        filter = new SafetyPreFilter(new DefaultResourceLoader());
+        ReflectionTestUtils.setField(filter, "enabled", true);
+        ReflectionTestUtils.setField(filter, "lexiconLocation", "classpath:safety/lexicon.txt");
+        filter.init();
+    }
+
+    @Test
+    void labelledCorpusIsClassifiedExactly() throws IOException {
+        List<String> mismatches = new ArrayList<>();
+        for (String[] sample : corpus()) {
+            String expected = sample[0];
+            SafetyPreFilter.Verdict verdict = filter.classify(sample[1]);
+            String actual = verdict.isShortCircuit() ? verdict.safetyStatus() : "PASS";
+            if (!expected.equals(actual)) {
+                mismatches.add(expected + " -> " + actual + ": " + sample[1] + " (" + verdict.term() + ")");
+            }
+        }
+        assertThat(mismatches).isEmpty();
+        assertThat(filter.getStats().getAllowSuppressed()).isPositive();
+        assertThat(filter.getStats().getLowConfidenceHits()).isPositive();
+    }
+
+    @Test
+    void normalizationFoldsSpacingAndJamo() {
+        String plain = KoreanTextNormalizer.normalizeToString("죽고싶어");
+        assertThat(KoreanTextNormalizer.normalizeToString("죽 고 싶 어!!")).isEqualTo(plain);
+        assertThat(KoreanTextNormalizer.normalizeToString("ㅈㅜㄱㄱㅗㅅㅣㅍㅇㅓ")).isEqualTo(plain);
+        // 풀어쓴(NFD) 한글
+        assertThat(KoreanTextNormalizer.normalizeToString(java.text.Normalizer.normalize("죽고싶어", java.text.Normalizer.Form.NFD)))
+                .isEqualTo(plain);
+        // 겹받침, 이중모음, 전각 영문
+        assertThat(KoreanTextNormalizer.normalizeToString("값")).isEqualTo("ㄱㅏㅂㅅ");
+        assertThat(KoreanTextNormalizer.normalizeToString("과")).isEqualTo("ㄱㅗㅏ");
+        assertThat(KoreanTextNormalizer.normalizeToString("ＦＵＣＫ 1")).isEqualTo("fuck");
+
+        // 받침에서 시작하는 일치는 음절 시작이 아님 (없+버)
+        KoreanTextNormalizer.Normalized text = KoreanTextNormalizer.normalize("없버");
+        assertThat(text.toString()).isEqualTo("ㅇㅓㅂㅅㅂㅓ");
+        assertThat(text.syllableStart()[3]).isFalse();
+        assertThat(text.syllableStart()[4]).isTrue();
+    }
+
+    /**
+     * 처리량: 코퍼스 메시지를 반복 분류해 메시지당 평균 시간을 잰다.
+     * Gemini 왕복(수백 ms~수 초)에 비해 무시할 수 있는 수준(메시지당 수 µs)이어야 한다.
+     */
+    @Test
+    @Tag("benchmark")
+    void classifiesMessagesInMicroseconds() throws IOException {
+        List<String> messages = new ArrayList<>();
+        for (String[] sample : corpus()) messages.add(sample[1]);
+        // 실제 대화처럼 긴 메시지도 섞음
+        messages.add("오늘은 병원에서 주사를 맞았는데 토리랑 같이 있어서 하나도 안 무서웠어 그리고 내일은 엄마랑 그림도 그릴 거야 ".repeat(3));
+
+        int rounds = 20_000;
+        for (int i = 0; i < rounds / 4; i++) {
+            for (String message : messages) filter.classify(message); // 워밍업
+        }
+        long startedAt = System.nanoTime();
+        int hits = 0;
+        for (int i = 0; i < rounds; i++) {
+            for (String message : messages) {
+                if (filter.classify(message).isShortCircuit()) hits++;
+            }
+        }
+        long elapsed = System.nanoTime() - startedAt;
+        long total = (long) rounds * messages.size();
+        double nanosPerMessage = (double) elapsed / total;
+        log.info("안전 사전 필터: {}건, 메시지당 {}µs, 초당 {}건 (일치 {})",
+                total, String.format("%.2f", nanosPerMessage / 1000), String.format("%.0f", total / (elapsed / 1e9)), hits);
+
+        assertThat(hits).isPositive();
+        assertThat(nanosPerMessage).isLessThan(50_000); // 메시지당 50µs 미만 (느린 CI 기준 여유)
+    }
+
+    private static List<String[]> corpus() throws IOException {
+        List<String[]> samples = new ArrayList<>();
+        for (String line : Files.readAllLines(new ClassPathResource("safety/labelled-corpus.tsv").getFile().toPath(), UTF_8)) {
+            if (line.isBlank() || line.startsWith("#")) continue;
+            samples.add(line.split("\t", 2));
+        }
+        return samples;
+    }
+}
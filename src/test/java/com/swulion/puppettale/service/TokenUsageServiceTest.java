@@ -0,0 +1,118 @@
+package com.swulion.puppettale.service;
+
+import com.swulion.puppettale.dto.GeminiUsageMetadata;
+import com.swulion.puppettale.dto.SessionTokenUsage;
+import com.swulion.puppettale.dto.TokenUsageSummary;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Answers;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatNoException;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+
+/**
+ * usageMetadata 토큰 수가 날짜/아동/세션/호출 유형별로 모였다가 DB 누계에 더해지고,
+ * 소프트 예산은 경고만, 하드 예산은 다음 호출을 막는지 확인한다.
+ */
+@ActiveProfiles("test")
+@SpringBootTest(properties = {
+        "gemini.usage.flush-interval-ms=3600000"
+})
+class TokenUsageServiceTest {
+
+    @Autowired
+    private TokenUsageService tokenUsageService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockitoBean
+    private GeminiClient geminiClient;
+
+    // 테스트마다 현재 시각으로 시작하고, 날짜를 넘길 때만 바꿈
+    @MockitoBean(answers = Answers.CALLS_REAL_METHODS)
+    private Clock clock;
+
+    @BeforeEach
+    void setUp() {
+        doAnswer(invocation -> Instant.now()).when(clock).instant();
+        doReturn(ZoneId.systemDefault()).when(clock).getZone();
+    }
+
+    @Test
+    void usageIsAggregatedAndPersistedPerChildSessionAndDay() {
+        TokenUsageService.inSession("long-session", () -> {
+            tokenUsageService.record(GeminiClient.CallType.CHAT, 1L, usage(9000, 300));
+            tokenUsageService.record(GeminiClient.CallType.CHAT, 1L, usage(9500, 200));
+            tokenUsageService.record(GeminiClient.CallType.SUMMARY, 1L, usage(4000, 150));
+            return null;
+        });
+        tokenUsageService.record(GeminiClient.CallType.CHAT, 1L, "short-session", usage(800, 100));
+        tokenUsageService.record(GeminiClient.CallType.IMAGE, 1L, null, usage(120, 1290)); // 세션 밖 호출
+
+        tokenUsageService.flush();
+        // 같은 키는 행 하나에 누적
+        tokenUsageService.record(GeminiClient.CallType.CHAT, 1L, "long-session", usage(10000, 100));
+
+        LocalDate today = LocalDate.now();
+        List<TokenUsageSummary> child = tokenUsageService.getChildUsage(1L, today, today);
+        TokenUsageSummary chat = child.stream().filter(s -> s.getCallType() == GeminiClient.CallType.CHAT).findFirst().orElseThrow();
+        assertThat(chat.getPromptTokens()).isEqualTo(9000 + 9500 + 800 + 10000);
+        assertThat(chat.getCalls()).isEqualTo(4);
+        assertThat(child).extracting(TokenUsageSummary::getCallType)
+                .containsExactlyInAnyOrder(GeminiClient.CallType.CHAT, GeminiClient.CallType.SUMMARY, GeminiClient.CallType.IMAGE);
+
+        List<SessionTokenUsage> top = tokenUsageService.getTopSessions(today, 10);
+        assertThat(top).extracting(SessionTokenUsage::getSessionId).containsExactly("long-session", "short-session");
+        assertThat(top.get(0).getPromptTokens()).isEqualTo(9000 + 9500 + 4000 + 10000);
+
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM TokenUsages WHERE sessionId = 'long-session' AND callType = 'CHAT'", Integer.class))
+                .isEqualTo(1);
+        assertThat(tokenUsageService.getStats().getPromptTokens().get(GeminiClient.CallType.CHAT)).isEqualTo(29300);
+    }
+
+    @Test
+    void softBudgetWarnsAndHardBudgetBlocksUntilNextDay() {
+        ReflectionTestUtils.setField(tokenUsageService, "childDailySoftTokens", 1000L);
+        ReflectionTestUtils.setField(tokenUsageService, "childDailyHardTokens", 2000L);
+        try {
+            long softBefore = tokenUsageService.getStats().getSoftBudgetWarnings();
+            tokenUsageService.record(GeminiClient.CallType.CHAT, 7L, "budget", usage(900, 200));
+            assertThat(tokenUsageService.getStats().getSoftBudgetWarnings()).isEqualTo(softBefore + 1);
+            assertThatNoException().isThrownBy(() -> tokenUsageService.checkBudget(7L));
+
+            tokenUsageService.record(GeminiClient.CallType.CHAT, 7L, "budget", usage(900, 200));
+            assertThatThrownBy(() -> tokenUsageService.checkBudget(7L)).isInstanceOf(TokenBudgetExceededException.class);
+            assertThatNoException().isThrownBy(() -> tokenUsageService.checkBudget(8L)); // 다른 아동은 영향 없음
+
+            // 다음 날에는 DB에 저장된 새 날짜 누계(0)로 다시 시작
+            tokenUsageService.flush();
+            doAnswer(invocation -> Instant.now().plus(Duration.ofDays(1))).when(clock).instant();
+            assertThatNoException().isThrownBy(() -> tokenUsageService.checkBudget(7L));
+        } finally {
+            ReflectionTestUtils.setField(tokenUsageService, "childDailySoftTokens", 0L);
+            ReflectionTestUtils.setField(tokenUsageService, "childDailyHardTokens", 0L);
+        }
+    }
+
+    private static GeminiUsageMetadata usage(int prompt, int candidates) {
+        return new GeminiUsageMetadata(prompt, candidates, 0, 0, prompt + candidates);
+    }
+}
@@ -0,0 +1,109 @@
+package com.swulion.puppettale.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChatJsonStreamExtractorTest {
+
+    private static final String CHAT_JSON = """
+            {"thought_process":{"safety_status":"GREEN","reason":"일상 대화"},"response":"안녕! 오늘 기분은 어때?"}""";
+
+    // 조각들을 차례로 넣고, 각 조각에서 나온 delta를 이어 붙인 결과
+    private static String feed(ChatJsonStreamExtractor extractor, List<String> chunks) {
+        StringBuilder out = new StringBuilder();
+        for (String chunk : chunks) {
+            out.append(extractor.append(chunk));
+        }
+        return out.toString();
+    }
+
+    private static List<String> split(String text, int size) {
+        List<String> chunks = new ArrayList<>();
+        for (int i = 0; i < text.length(); i += size) {
+            chunks.add(text.substring(i, Math.min(text.length(), i + size)));
+        }
+        return chunks;
+    }
+
+    @Test
+    void sameResultForEveryChunkSize() {
+        for (int size = 1; size <= CHAT_JSON.length(); size++) {
+            ChatJsonStreamExtractor extractor = new ChatJsonStreamExtractor();
+            assertThat(feed(extractor, split(CHAT_JSON, size))).as("size=" + size).isEqualTo("안녕! 오늘 기분은 어때?");
+            assertThat(extractor.isJson()).isTrue();
+            assertThat(extractor.getSafetyStatus()).isEqualTo("GREEN");
+            assertThat(extractor.getResponse()).isEqualTo("안녕! 오늘 기분은 어때?");
+        }
+    }
+
+    @Test
+    void decodesEscapesSplitAcrossChunks() {
+        // \n, \", \\, \/ 와 \\uAC00(가), 서로게이트 쌍(\\uD83D\\uDE00)
+        String json = "{\"thought_process\":{\"safety_status\":\"GREEN\"},"
+                + "\"response\":\"줄\\n바꿈 \\\"따옴표\\\" \\\\ \\/ \\uAC00 \\uD83D\\uDE00\"}";
+        String expected = "줄\n바꿈 \"따옴표\" \\ / 가 😀";
+
+        for (int size = 1; size <= 8; size++) {
+            ChatJsonStreamExtractor extractor = new ChatJsonStreamExtractor();
+            assertThat(feed(extractor, split(json, size))).as("size=" + size).isEqualTo(expected);
+        }
+
+        // \\u 시퀀스가 조각 경계에서 잘린 경우: 나머지가 올 때까지 내보내지 않음
+        ChatJsonStreamExtractor extractor = new ChatJsonStreamExtractor();
+        assertThat(extractor.append("{\"thought_process\":{\"safety_status\":\"GREEN\"},\"response\":\"a\\u")).isEqualTo("a");
+        assertThat(extractor.append("AC")).isEmpty();
+        assertThat(extractor.append("00b\"}")).isEqualTo("가b");
+    }
+
+    @Test
+    void safetyStatusAfterResponseIsStillRead() {
+        String json = """
+                {"response":"무서운 꿈을 꿨구나","thought_process":{"safety_status":"RED_FLAG"}}""";
+        for (int size = 1; size <= json.length(); size++) {
+            ChatJsonStreamExtractor extractor = new ChatJsonStreamExtractor();
+            assertThat(feed(extractor, split(json, size))).isEqualTo("무서운 꿈을 꿨구나");
+            assertThat(extractor.getSafetyStatus()).as("size=" + size).isEqualTo("RED_FLAG");
+        }
+    }
+
+    @Test
+    void onlyTopLevelResponseIsStreamed() {
+        String json = """
+                {"thought_process":{"response":"속마음","safety_status":"GREEN","keywords":["a","b"]},"response":"겉말"}""";
+        ChatJsonStreamExtractor extractor = new ChatJsonStreamExtractor();
+        assertThat(feed(extractor, split(json, 3))).isEqualTo("겉말");
+        assertThat(extractor.getSafetyStatus()).isEqualTo("GREEN");
+    }
+
+    @Test
+    void ignoresCodeFenceAroundJson() {
+        String fenced = "```json\n" + CHAT_JSON + "\n```";
+        for (int size = 1; size <= 10; size++) {
+            ChatJsonStreamExtractor extractor = new ChatJsonStreamExtractor();
+            assertThat(feed(extractor, split(fenced, size))).isEqualTo("안녕! 오늘 기분은 어때?");
+            assertThat(extractor.isJson()).isTrue();
+        }
+    }
+
+    @Test
+    void plainTextIsPassedThrough() {
+        ChatJsonStreamExtractor extractor = new ChatJsonStreamExtractor();
+        assertThat(feed(extractor, List.of("안녕, ", "나는 토리야!"))).isEqualTo("안녕, 나는 토리야!");
+        assertThat(extractor.isJson()).isFalse();
+        assertThat(extractor.getResponse()).isEqualTo("안녕, 나는 토리야!");
+    }
+
+    @Test
+    void plainTextInCodeFenceDropsFenceMarkers() {
+        String fenced = "```\n안녕, 나는 토리야!\n```";
+        for (int size = 1; size <= fenced.length(); size++) {
+            ChatJsonStreamExtractor extractor = new ChatJsonStreamExtractor();
+            assertThat(feed(extractor, split(fenced, size))).as("size=" + size).isEqualTo("안녕, 나는 토리야!");
+            assertThat(extractor.isJson()).isFalse();
+        }
+    }
+}
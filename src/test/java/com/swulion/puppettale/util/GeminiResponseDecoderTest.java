@@ -0,0 +1,148 @@
+package com.swulion.puppettale.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.swulion.puppettale.dto.GeminiChatJsonContentDto;
+import com.swulion.puppettale.dto.GeminiUsageMetadata;
+import com.swulion.puppettale.service.ChatService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GeminiResponseDecoderTest {
+
+    private static final Logger log = LoggerFactory.getLogger(GeminiResponseDecoderTest.class);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // 실제 응답처럼 안전 등급, 사용량 등 쓰지 않는 필드가 함께 오는 본문
+    private static String responseBody(String text) throws IOException {
+        String escaped = new ObjectMapper().writeValueAsString(text);
+        return """
+                {"candidates":[{"content":{"parts":[{"text":%s}],"role":"model"},"finishReason":"STOP",
+                "safetyRatings":[{"category":"HARM_CATEGORY_HARASSMENT","probability":"NEGLIGIBLE"},
+                {"category":"HARM_CATEGORY_HATE_SPEECH","probability":"NEGLIGIBLE"}],"index":0},
+                {"content":{"parts":[{"text":"두 번째 후보"}]}}],
+                "usageMetadata":{"promptTokenCount":2831,"candidatesTokenCount":412,"totalTokenCount":3243},
+                "modelVersion":"gemini-2.5-flash"}
+                """.formatted(escaped);
+    }
+
+    private static String chatJson(String response) {
+        return """
+                {"thought_process":{"safety_status":"GREEN","reason":"일상 대화"},"response":"%s"}""".formatted(response);
+    }
+
+    @Test
+    void extractsFirstTextWithoutReadingOtherFields() throws IOException {
+        String body = responseBody("```json\n" + chatJson("안녕! 오늘 기분은 어때?") + "\n```");
+
+        String text = GeminiResponseDecoder.firstText(objectMapper.getFactory(), stream(body));
+        GeminiChatJsonContentDto content = GeminiResponseDecoder.readChatContent(objectMapper, text);
+
+        assertThat(content.getThoughtProcess().getSafetyStatus()).isEqualTo("GREEN");
+        assertThat(content.getResponse()).isEqualTo("안녕! 오늘 기분은 어때?");
+    }
+
+    @Test
+    void missingCandidatesGiveNull() throws IOException {
+        String blocked = """
+                {"promptFeedback":{"blockReason":"SAFETY"},"usageMetadata":{"promptTokenCount":10}}""";
+        assertThat(GeminiResponseDecoder.firstText(objectMapper.getFactory(), stream(blocked))).isNull();
+        assertThat(GeminiResponseDecoder.firstText(objectMapper.getFactory(), stream("{\"candidates\":[]}"))).isNull();
+    }
+
+    @Test
+    void capturesUsageMetadata() throws IOException {
+        List<GeminiUsageMetadata> captured = new ArrayList<>();
+        String text = GeminiResponseDecoder.firstText(objectMapper.getFactory(), stream(responseBody(chatJson("응"))), captured::add);
+
+        assertThat(text).contains("응");
+        assertThat(captured).singleElement().satisfies(usage -> {
+            assertThat(usage.getPromptTokenCount()).isEqualTo(2831);
+            assertThat(usage.getCandidatesTokenCount()).isEqualTo(412);
+            assertThat(usage.getTotalTokenCount()).isEqualTo(3243);
+        });
+
+        // 이미지 응답처럼 문자열로 받은 본문: 세부 항목(promptTokensDetails)은 건너뜀
+        String image = """
+                {"candidates":[{"content":{"parts":[{"inlineData":{"mimeType":"image/png","data":"iVBORw0KGgo"}}]}}],
+                "usageMetadata":{"promptTokenCount":120,"candidatesTokenCount":1290,"thoughtsTokenCount":35,
+                "promptTokensDetails":[{"modality":"TEXT","tokenCount":120}],"totalTokenCount":1445}}""";
+        GeminiUsageMetadata usage = GeminiResponseDecoder.usage(objectMapper.getFactory(), image);
+        assertThat(usage.getThoughtsTokenCount()).isEqualTo(35);
+        assertThat(usage.getTotalTokenCount()).isEqualTo(1445);
+        assertThat(GeminiResponseDecoder.usage(objectMapper.getFactory(), "{\"candidates\":[]}")).isNull();
+    }
+
+    @Test
+    void fenceVariantsAndPlainText() throws IOException {
+        String json = chatJson("좋아!");
+        for (String text : new String[]{json, "  " + json, "```json\n" + json + "\n```", "```JSON " + json + "```",
+                "```\n" + json + "\n```", "여기 있어:\n```json\n" + json + "\n```\n끝"}) {
+            assertThat(GeminiResponseDecoder.readChatContent(objectMapper, text).getResponse()).as(text).isEqualTo("좋아!");
+        }
+
+        // JSON이 아니면 null, 평문 처리용 코드 블록 제거는 별도
+        assertThat(GeminiResponseDecoder.readChatContent(objectMapper, "그냥 평문 대답이야")).isNull();
+        assertThat(GeminiResponseDecoder.stripCodeFence("```\n그냥 평문\n```")).isEqualTo("그냥 평문");
+        assertThat(GeminiResponseDecoder.stripCodeFence(" 평문 ")).isEqualTo("평문");
+    }
+
+    /**
+     * 기존 경로(본문 문자열 -> 응답 DTO -> 코드 블록 substring -> 내부 JSON 파싱)와
+     * 스트리밍 디코더의 응답 한 건당 할당량 비교.
+     */
+    @Test
+    @Tag("benchmark")
+    void allocatesLessThanStringPath() throws IOException {
+        String longResponse = "오늘은 토리랑 같이 숲속 친구들을 만나러 가 볼까? ".repeat(40);
+        byte[] body = responseBody("```json\n" + chatJson(longResponse) + "\n```").getBytes(UTF_8);
+
+        long stringPath = allocatedPerCall(() -> {
+            String jsonText = new String(body, UTF_8); // RestTemplate String 변환
+            ChatService.GeminiApiResponse apiResponse = objectMapper.readValue(jsonText, ChatService.GeminiApiResponse.class);
+            String inner = apiResponse.getCandidates().get(0).getContent().getParts().get(0).getText();
+            inner = inner.substring(inner.indexOf("```json") + 7);
+            inner = inner.substring(0, inner.lastIndexOf("```")).trim();
+            return objectMapper.readValue(inner, GeminiChatJsonContentDto.class).getResponse();
+        });
+        long streamingPath = allocatedPerCall(() -> {
+            String text = GeminiResponseDecoder.firstText(objectMapper.getFactory(), new ByteArrayInputStream(body));
+            return GeminiResponseDecoder.readChatContent(objectMapper, text).getResponse();
+        });
+
+        log.info("응답 {}바이트 한 건당 할당: 문자열 경로 {}바이트, 스트리밍 디코더 {}바이트 ({}% 감소)",
+                body.length, stringPath, streamingPath, String.format("%.0f", 100.0 * (stringPath - streamingPath) / stringPath));
+        assertThat(streamingPath).isLessThan(stringPath);
+    }
+
+    private interface Decode {
+        String run() throws IOException;
+    }
+
+    private static long allocatedPerCall(Decode decode) throws IOException {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+        for (int i = 0; i < 2000; i++) decode.run(); // 워밍업
+        int iterations = 5000;
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < iterations; i++) {
+            if (decode.run() == null) throw new IllegalStateException();
+        }
+        return (threads.getThreadAllocatedBytes(threadId) - before) / iterations;
+    }
+
+    private static ByteArrayInputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(UTF_8));
+    }
+}
@@ -0,0 +1,45 @@
+package com.swulion.puppettale.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PromptTemplateTest {
+
+    @Test
+    void fillsSlotsInPlace() {
+        PromptTemplate template = PromptTemplate.compile("너는 {Puppet_Name}야. {User_Name}({User_Age}세)와 대화해.");
+
+        assertThat(template.render(Map.of("Puppet_Name", "토리", "User_Name", "하늘", "User_Age", "7")))
+                .isEqualTo("너는 토리야. 하늘(7세)와 대화해.");
+    }
+
+    @Test
+    void missingValuesKeepSlotText() {
+        PromptTemplate template = PromptTemplate.compile("{Puppet_Name}: {Unknown_Slot}");
+
+        assertThat(template.render(Map.of("Puppet_Name", "토리"))).isEqualTo("토리: {Unknown_Slot}");
+        assertThat(template.render(Map.of())).isEqualTo("{Puppet_Name}: {Unknown_Slot}");
+    }
+
+    @Test
+    void handlesAdjacentRepeatedAndEdgeSlots() {
+        PromptTemplate template = PromptTemplate.compile("{A}{B}-{A}");
+
+        assertThat(template.render(Map.of("A", "1", "B", "2"))).isEqualTo("12-1");
+    }
+
+    @Test
+    void nonSlotBracesAndValuesAreLiteral() {
+        // 슬롯 이름 규칙({영문_}+)에 맞지 않는 중괄호는 그대로, 값 안의 중괄호도 다시 치환하지 않음
+        PromptTemplate template = PromptTemplate.compile("{\"response\": \"...\"} {1} {User_Name}");
+        Map<String, String> values = new HashMap<>();
+        values.put("User_Name", "{Puppet_Name}");
+
+        assertThat(template.render(values)).isEqualTo("{\"response\": \"...\"} {1} {Puppet_Name}");
+        assertThat(PromptTemplate.compile("슬롯 없음").render(Map.of())).isEqualTo("슬롯 없음");
+    }
+}
@@ -0,0 +1,100 @@
+-- Flyway 도입 전(baseline 커밋) 엔티티로 Hibernate가 만든 스키마와 데이터.
+-- 이후 요청에서 추가된 테이블(ChatSummaries, SessionStates, TokenUsages 등)과 인덱스는 없다.
+
+create table ChatMessages (
+    logDate date,
+    childId bigint,
+    id bigint not null auto_increment,
+    timestamp datetime(6),
+    keywords varchar(255),
+    message TEXT,
+    sessionId varchar(255),
+    speaker enum ('AI','USER'),
+    primary key (id)
+) engine=InnoDB;
+
+create table Children (
+    birthdate date,
+    hospitalization_start_date date,
+    isWarningState bit,
+    created_at datetime(6),
+    id bigint not null auto_increment,
+    lastDischargedAt datetime(6),
+    updated_at datetime(6),
+    user_id bigint,
+    name varchar(255),
+    profileImageUrl TEXT,
+    primary key (id)
+) engine=InnoDB;
+
+create table FairyTalePages (
+    page_number integer,
+    created_at datetime(6),
+    fairytale_id bigint,
+    id bigint not null auto_increment,
+    updated_at datetime(6),
+    image_url TEXT,
+    text TEXT,
+    primary key (id)
+) engine=InnoDB;
+
+create table FairyTales (
+    is_deleted bit not null,
+    child_id bigint,
+    created_at datetime(6),
+    id bigint not null auto_increment,
+    updated_at datetime(6),
+    thumbnail_url TEXT,
+    title varchar(255),
+    primary key (id)
+) engine=InnoDB;
+
+create table Puppets (
+    child_id bigint,
+    created_at datetime(6),
+    id bigint not null auto_increment,
+    updated_at datetime(6),
+    name varchar(255),
+    mode enum ('AFFECTIONATE','ENERGETIC','MATURE','REASSURING'),
+    primary key (id)
+) engine=InnoDB;
+
+create table Users (
+    created_at datetime(6),
+    id bigint not null auto_increment,
+    updated_at datetime(6),
+    primary key (id)
+) engine=InnoDB;
+
+alter table Puppets
+   add constraint UKtnl49cqo8goosdr01ww6nn0s0 unique (child_id);
+
+alter table Children
+   add constraint FKgkkl9qujgcwuktixb62uuab31
+   foreign key (user_id)
+   references Users (id);
+
+alter table FairyTalePages
+   add constraint FKk8dwcpy48vk5dnsom9r2aynrw
+   foreign key (fairytale_id)
+   references FairyTales (id);
+
+alter table FairyTales
+   add constraint FKearu2ec1vwa6so6fl2hss31nh
+   foreign key (child_id)
+   references Children (id);
+
+alter table Puppets
+   add constraint FKnisseoi55j0vd40pnj061xint
+   foreign key (child_id)
+   references Children (id);
+
+-- 운영 중이던 데이터
+insert into Users (created_at, updated_at) values (CURRENT_TIMESTAMP, CURRENT_TIMESTAMP);
+insert into Children (user_id, name, birthdate, isWarningState, created_at, updated_at)
+    values (1, '하늘', DATE '2018-03-01', FALSE, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP);
+insert into Puppets (child_id, name, mode, created_at, updated_at) values (1, '토리', 'AFFECTIONATE', CURRENT_TIMESTAMP, CURRENT_TIMESTAMP);
+insert into FairyTales (child_id, title, is_deleted, created_at, updated_at) values (1, '토리의 모험', FALSE, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP);
+insert into FairyTalePages (fairytale_id, page_number, text) values (1, 1, '옛날 옛적에');
+insert into ChatMessages (sessionId, childId, speaker, message, timestamp, logDate)
+    values ('old-session', 1, 'USER', '안녕 토리야', CURRENT_TIMESTAMP, CURRENT_DATE);
@@ -0,0 +1,97 @@
+-- Flyway 도입 전(baseline 커밋) 엔티티로 Hibernate가 만든 스키마와 데이터.
+-- 이후 요청에서 추가된 테이블(ChatSummaries, SessionStates, TokenUsages 등)과 인덱스는 없다.
+
+create table ChatMessages (
+    logDate date,
+    childId bigint,
+    id bigint generated by default as identity,
+    timestamp timestamp(6),
+    keywords varchar(255),
+    message TEXT,
+    sessionId varchar(255),
+    speaker varchar(255) check (speaker in ('USER','AI')),
+    primary key (id)
+);
+
+create table Children (
+    birthdate date,
+    hospitalization_start_date date,
+    isWarningState boolean,
+    created_at timestamp(6),
+    id bigint generated by default as identity,
+    lastDischargedAt timestamp(6),
+    updated_at timestamp(6),
+    user_id bigint,
+    name varchar(255),
+    profileImageUrl TEXT,
+    primary key (id)
+);
+
+create table FairyTalePages (
+    page_number integer,
+    created_at timestamp(6),
+    fairytale_id bigint,
+    id bigint generated by default as identity,
+    updated_at timestamp(6),
+    image_url TEXT,
+    text TEXT,
+    primary key (id)
+);
+
+create table FairyTales (
+    is_deleted boolean not null,
+    child_id bigint,
+    created_at timestamp(6),
+    id bigint generated by default as identity,
+    updated_at timestamp(6),
+    thumbnail_url TEXT,
+    title varchar(255),
+    primary key (id)
+);
+
+create table Puppets (
+    child_id bigint unique,
+    created_at timestamp(6),
+    id bigint generated by default as identity,
+    updated_at timestamp(6),
+    mode varchar(255) check (mode in ('MATURE','AFFECTIONATE','ENERGETIC','REASSURING')),
+    name varchar(255),
+    primary key (id)
+);
+
+create table Users (
+    created_at timestamp(6),
+    id bigint generated by default as identity,
+    updated_at timestamp(6),
+    primary key (id)
+);
+
+alter table if exists Children
+   add constraint FKgkkl9qujgcwuktixb62uuab31
+   foreign key (user_id)
+   references Users;
+
+alter table if exists FairyTalePages
+   add constraint FKk8dwcpy48vk5dnsom9r2aynrw
+   foreign key (fairytale_id)
+   references FairyTales;
+
+alter table if exists FairyTales
+   add constraint FKearu2ec1vwa6so6fl2hss31nh
+   foreign key (child_id)
+   references Children;
+
+alter table if exists Puppets
+   add constraint FKnisseoi55j0vd40pnj061xint
+   foreign key (child_id)
+   references Children;
+
+-- 운영 중이던 데이터
+insert into Users (created_at, updated_at) values (CURRENT_TIMESTAMP, CURRENT_TIMESTAMP);
+insert into Children (user_id, name, birthdate, isWarningState, created_at, updated_at)
+    values (1, '하늘', DATE '2018-03-01', FALSE, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP);
+insert into Puppets (child_id, name, mode, created_at, updated_at) values (1, '토리', 'AFFECTIONATE', CURRENT_TIMESTAMP, CURRENT_TIMESTAMP);
+insert into FairyTales (child_id, title, is_deleted, created_at, updated_at) values (1, '토리의 모험', FALSE, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP);
+insert into FairyTalePages (fairytale_id, page_number, text) values (1, 1, '옛날 옛적에');
+insert into ChatMessages (sessionId, childId, speaker, message, timestamp, logDate)
+    values ('old-session', 1, 'USER', '안녕 토리야', CURRENT_TIMESTAMP, CURRENT_DATE);